@@ -5,6 +5,9 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
 @Setter
 @Getter
 @Configuration
@@ -13,6 +16,23 @@ public class HelloAssoProperties {
     private String clientId;
     private String clientSecret;
     private String apiUrl;
+    // Taille des pages demandées à l'API (100 au maximum)
+    private int pageSize = 100;
+    // Nombre d'éléments importés par transaction
+    private int importBatchSize = 100;
+
+    // Organisation synchronisée chaque nuit et ses formulaires d'adhésion
+    private String orgSlug = "les-amis-de-sainte-madeleine-de-la-jarrie";
+    private List<String> membershipForms = List.of("formulaire-d-adhesion");
+    // Nombre d'imports (formulaires, types de ressource) exécutés en parallèle
+    private int syncConcurrency = 3;
 
+    // Client HTTP : connexions, débit, nouvelles tentatives (429 et 5xx)
+    private int maxConnections = 10;
+    private Duration responseTimeout = Duration.ofSeconds(30);
+    private double requestsPerSecond = 5;
+    private int burst = 10;
+    private int maxRetries = 3;
+    private Duration retryMinBackoff = Duration.ofMillis(500);
 }
 
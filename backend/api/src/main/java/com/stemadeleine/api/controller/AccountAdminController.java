@@ -140,10 +140,9 @@ public class AccountAdminController {
     @PostMapping("/{id}/password")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> resetPasswordByAdmin(@PathVariable UUID id,
-                                                  @RequestBody AdminPasswordResetRequest req,
-                                                  @RequestHeader(value = "Authorization", required = false) String authorizationHeader) {
+                                                  @RequestBody AdminPasswordResetRequest req) {
         try {
-            accountService.resetPasswordByAdmin(id, req.getNewPassword(), authorizationHeader);
+            accountService.resetPasswordByAdmin(id, req.getNewPassword());
             return ResponseEntity.noContent().build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
@@ -4,6 +4,7 @@ import com.stemadeleine.api.dto.LoginRequest;
 import com.stemadeleine.api.dto.SignupRequest;
 import com.stemadeleine.api.service.AuthService;
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -84,9 +85,15 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logoutUser(HttpServletResponse response) {
+    public ResponseEntity<?> logoutUser(HttpServletRequest request, HttpServletResponse response) {
         log.info("POST /api/auth/logout - Déconnexion de l'utilisateur");
 
+        // Révoquer le token jusqu'à son expiration : supprimer le cookie ne l'invalide pas
+        String token = extractToken(request);
+        if (token != null) {
+            authService.logoutUser(token);
+        }
+
         // Supprimer le cookie authToken en définissant sa durée à 0
         Cookie jwtCookie = new Cookie("authToken", null);
         jwtCookie.setHttpOnly(true);
@@ -101,4 +108,21 @@ public class AuthController {
         responseBody.put("message", "Logout successful");
         return ResponseEntity.ok(responseBody);
     }
+
+    // Même ordre que JwtAuthenticationFilter : cookie authToken, puis en-tête Authorization
+    private static String extractToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if ("authToken".equals(cookie.getName()) && cookie.getValue() != null && !cookie.getValue().isBlank()) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader;
+        }
+        return null;
+    }
 }
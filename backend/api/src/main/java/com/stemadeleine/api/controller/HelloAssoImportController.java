@@ -1,7 +1,9 @@
 package com.stemadeleine.api.controller;
 
-import com.stemadeleine.api.service.HelloAssoImportService;
+import com.stemadeleine.api.config.HelloAssoProperties;
+import com.stemadeleine.api.service.HelloAssoSyncScheduler;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,18 +14,19 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/helloasso")
 @RequiredArgsConstructor
 public class HelloAssoImportController {
-    private final HelloAssoImportService importService;
+    private final HelloAssoSyncScheduler syncScheduler;
+    private final HelloAssoProperties properties;
 
     @PostMapping("/import")
     public ResponseEntity<String> manualImport(@RequestParam(value = "orgSlug", required = false) String orgSlug) {
-        String slug = (orgSlug != null && !orgSlug.isBlank()) ? orgSlug : "les-amis-de-sainte-madeleine-de-la-jarrie";
-        importService.importCampaigns(slug);
-        importService.importMembershipUsers(
-                slug,
-                "formulaire-d-adhesion"
-        );
-        importService.importPayments(slug);
+        String slug = (orgSlug != null && !orgSlug.isBlank()) ? orgSlug : properties.getOrgSlug();
+        int failures = syncScheduler.syncAll(slug);
+        if (failures == HelloAssoSyncScheduler.ALREADY_RUNNING) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Une synchronisation HelloAsso est déjà en cours.");
+        }
+        if (failures > 0) {
+            return ResponseEntity.internalServerError().body("Import HelloAsso terminé avec " + failures + " échec(s).");
+        }
         return ResponseEntity.ok("Import HelloAsso lancé avec succès.");
     }
 }
-
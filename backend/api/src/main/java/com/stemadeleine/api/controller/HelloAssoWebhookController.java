@@ -1,7 +1,7 @@
 package com.stemadeleine.api.controller;
 
 import com.stemadeleine.api.dto.HelloAssoWebhookPayload;
-import com.stemadeleine.api.service.HelloAssoImportService;
+import com.stemadeleine.api.service.HelloAssoSyncJobService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -13,24 +13,17 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/helloasso/webhook")
 @RequiredArgsConstructor
 public class HelloAssoWebhookController {
-    private final HelloAssoImportService importService;
+    private final HelloAssoSyncJobService syncJobService;
 
+    /**
+     * Acquitte immédiatement : la synchronisation est mise en file (regroupée par organisation et type d'événement)
+     * et exécutée en arrière-plan.
+     */
     @PostMapping
     public ResponseEntity<Void> handleWebhook(@RequestBody HelloAssoWebhookPayload payload) {
         if (payload != null && payload.getEventType() != null) {
-            switch (payload.getEventType()) {
-                case "Payment":
-                    importService.importPayments(payload.getOrgSlug());
-                    break;
-                case "Form":
-                    importService.importCampaigns(payload.getOrgSlug());
-                    break;
-                case "Membership":
-                    importService.importMembershipUsers(payload.getOrgSlug(), "formulaire-d-adhesion");
-                    break;
-            }
+            syncJobService.enqueue(payload.getOrgSlug(), payload.getEventType());
         }
         return ResponseEntity.ok().build();
     }
 }
-
@@ -2,11 +2,17 @@ package com.stemadeleine.api.controller;
 
 import com.stemadeleine.api.dto.CreateMediaRequest;
 import com.stemadeleine.api.dto.MediaDto;
+import com.stemadeleine.api.dto.MediaUploadSessionDto;
+import com.stemadeleine.api.dto.StartMediaUploadRequest;
 import com.stemadeleine.api.mapper.MediaMapper;
 import com.stemadeleine.api.model.Media;
 import com.stemadeleine.api.service.MediaService;
+import com.stemadeleine.api.service.MediaUploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +28,7 @@ import java.util.UUID;
 public class MediaController {
     private final MediaService mediaService;
     private final MediaMapper mediaMapper;
+    private final MediaUploadSessionService uploadSessionService;
 
     @GetMapping
     public ResponseEntity<List<MediaDto>> getAllMedia() {
@@ -115,4 +122,93 @@ public class MediaController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    /**
+     * Streams the raw request body straight to storage (no multipart spooling, no 10MB limit).
+     * The Content-Length header is required; the file type is taken from Content-Type.
+     * When X-Content-SHA256 is sent, the upload is rejected if the received bytes do not match it.
+     */
+    @PutMapping("/upload/stream")
+    public ResponseEntity<MediaDto> uploadMediaStream(
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "title", required = false) String title,
+            @RequestParam(value = "altText", required = false) String altText,
+            @RequestHeader(value = "X-Content-SHA256", required = false) String expectedHash,
+            HttpServletRequest request) {
+        long size = request.getContentLengthLong();
+        log.info("PUT /api/media/upload/stream - Streaming file: {} ({} bytes)", fileName, size);
+        if (size <= 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+        }
+
+        try {
+            Media media = mediaService.uploadMediaStream(request.getInputStream(), size, request.getContentType(), fileName, title, altText, expectedHash);
+            log.debug("File streamed successfully: {}", media.getId());
+            return ResponseEntity.ok(mediaMapper.toDto(media));
+        } catch (Exception e) {
+            log.error("Error streaming file: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ==== RESUMABLE UPLOADS ====
+
+    @PostMapping("/uploads")
+    public ResponseEntity<MediaUploadSessionDto> startUpload(@Valid @RequestBody StartMediaUploadRequest request) {
+        log.info("POST /api/media/uploads - Starting resumable upload: {} ({} bytes)", request.fileName(), request.size());
+        try {
+            MediaUploadSessionService.UploadSession session = uploadSessionService.start(
+                    request.fileName(), request.size(), request.contentType(), request.title(), request.altText());
+            return ResponseEntity.status(HttpStatus.CREATED).body(toDto(session));
+        } catch (Exception e) {
+            log.error("Error starting resumable upload: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<MediaUploadSessionDto> getUpload(@PathVariable UUID uploadId) {
+        return uploadSessionService.find(uploadId)
+                .map(session -> ResponseEntity.ok(toDto(session)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Appends a chunk to a resumable upload. The Upload-Offset header must match the current session offset,
+     * otherwise 409 is returned with the offset to resume from.
+     */
+    @PatchMapping("/uploads/{uploadId}")
+    public ResponseEntity<MediaUploadSessionDto> appendUpload(
+            @PathVariable UUID uploadId,
+            @RequestHeader("Upload-Offset") long offset,
+            HttpServletRequest request) {
+        long length = request.getContentLengthLong();
+        log.debug("PATCH /api/media/uploads/{} - {} bytes at offset {}", uploadId, length, offset);
+        if (length <= 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+        }
+
+        try {
+            return ResponseEntity.ok(toDto(uploadSessionService.append(uploadId, offset, request.getInputStream(), length)));
+        } catch (MediaUploadSessionService.OffsetMismatchException e) {
+            return uploadSessionService.find(uploadId)
+                    .map(session -> ResponseEntity.status(HttpStatus.CONFLICT).body(toDto(session)))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid chunk for upload {}: {}", uploadId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error appending to upload {}: {}", uploadId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
+    }
+
+    private MediaUploadSessionDto toDto(MediaUploadSessionService.UploadSession session) {
+        return new MediaUploadSessionDto(
+                session.getUploadId(),
+                session.getOffset(),
+                session.getSize(),
+                session.getMedia() != null ? mediaMapper.toDto(session.getMedia()) : null
+        );
+    }
 }
@@ -1,5 +1,6 @@
 package com.stemadeleine.api.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.stemadeleine.api.dto.*;
 import com.stemadeleine.api.model.Module;
 import com.stemadeleine.api.model.*;
@@ -8,10 +9,15 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -33,6 +39,10 @@ public class PublicController {
     private final ContactService contactService;
     private final RecaptchaService recaptchaService;
     private final UserService userService; // ajout de l'injection
+    private final PublicPageTreeCache pageTreeCache;
+    private final PublishedPageSnapshotService snapshotService;
+    private final MediaProxyService mediaProxyService;
+    private final PublicSearchService publicSearchService;
 
     // ==== HEALTH CHECK ====
 
@@ -50,12 +60,22 @@ public class PublicController {
     // ==== PUBLIC PAGES ====
 
     /**
-     * Retrieves the tree of visible pages for public navigation
+     * Retrieves the tree of visible pages for public navigation.
+     * Served from a precomputed snapshot; answers 304 when the client already holds the current ETag.
      */
     @GetMapping("/pages/tree")
-    public ResponseEntity<List<PageDto>> getPagesTree() {
-        List<PageDto> visiblePages = pageService.findVisiblePagesHierarchyDto();
-        return ResponseEntity.ok(visiblePages);
+    public ResponseEntity<List<PageDto>> getPagesTree(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        PublicPageTreeCache.Snapshot tree = pageTreeCache.get();
+        if (tree.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(tree.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(tree.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(tree.pages());
     }
 
     /**
@@ -68,6 +88,18 @@ public class PublicController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Retrieves everything needed to render a public page (sections, modules, contents and media) in one call,
+     * served from the snapshot materialized at publication
+     */
+    @GetMapping("/render")
+    public ResponseEntity<JsonNode> renderPage(@RequestParam String slug) {
+        log.info("GET /api/public/render?slug={} - Rendering public page", slug);
+        return snapshotService.getPayloadBySlug(slug)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Retrieves a public page by its ID
      */
@@ -79,12 +111,13 @@ public class PublicController {
     }
 
     /**
-     * Search in public pages
+     * Ranked full-text search in the published pages, sections, articles, news and newsletters
      */
     @GetMapping("/pages/search")
-    public ResponseEntity<List<Page>> searchPages(@RequestParam String query) {
-        List<Page> pages = pageService.searchInVisiblePages(query);
-        return ResponseEntity.ok(pages);
+    public ResponseEntity<PublicSearchResultsDto> searchPages(@RequestParam String query,
+                                                              @RequestParam(defaultValue = "0") int page,
+                                                              @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(publicSearchService.search(query, page, size));
     }
 
     /**
@@ -180,33 +213,41 @@ public class PublicController {
     // ==== PUBLIC MEDIA ====
 
     /**
-     * Proxies media file from Supabase to avoid CORS issues on public side
+     * Proxies media file from Supabase to avoid CORS issues on public side.
+     * Bytes are streamed (from the local disk cache when possible), Range requests are honoured and conditional
+     * requests are answered without reaching storage. With ?w= the closest resized variant is served (WebP when accepted).
      */
     @GetMapping("/media/{mediaId}")
-    public ResponseEntity<byte[]> proxyMediaById(@PathVariable UUID mediaId) {
+    public ResponseEntity<StreamingResponseBody> proxyMediaById(
+            @PathVariable UUID mediaId,
+            @RequestParam(value = "w", required = false) Integer width,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        Optional<Media> media = mediaService.getMediaById(mediaId);
+        if (media.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Media source = mediaProxyService.resolve(media.get(), width, accept);
+        // Answers If-None-Match / If-Modified-Since with a 304
+        if (webRequest.checkNotModified(mediaProxyService.etag(source), mediaProxyService.lastModified(source))) {
+            return null;
+        }
         try {
-            Optional<Media> media = mediaService.getMediaById(mediaId);
-            if (media.isPresent()) {
-                String fileUrl = media.get().getFileUrl();
-                java.net.URL url = new java.net.URL(fileUrl);
-                java.net.HttpURLConnection conn = (java.net.HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("GET");
-                conn.connect();
-                int responseCode = conn.getResponseCode();
-                if (responseCode == 200) {
-                    String contentType = conn.getContentType();
-                    java.io.InputStream is = conn.getInputStream();
-                    byte[] bytes = is.readAllBytes();
-                    is.close();
-                    return ResponseEntity.ok()
-                            .header("Content-Type", contentType)
-                            .body(bytes);
-                } else {
-                    return ResponseEntity.status(responseCode).build();
-                }
-            } else {
-                return ResponseEntity.notFound().build();
+            MediaProxyService.MediaStream stream = mediaProxyService.open(source, range);
+            if (stream.body() == null) {
+                return ResponseEntity.status(stream.status()).headers(stream.headers()).build();
             }
+            StreamingResponseBody body = stream.body()::writeTo;
+            return ResponseEntity.status(stream.status())
+                    .headers(stream.headers())
+                    .cacheControl(CacheControl.maxAge(Duration.ofDays(30)).cachePublic())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while proxying media {}", mediaId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             log.error("Error proxying media {}: {}", mediaId, e.getMessage());
             return ResponseEntity.notFound().build();
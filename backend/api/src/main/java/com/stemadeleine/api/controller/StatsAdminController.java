@@ -0,0 +1,38 @@
+package com.stemadeleine.api.controller;
+
+import com.stemadeleine.api.service.DonorCohortService;
+import com.stemadeleine.api.service.PaymentStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/stats")
+@RequiredArgsConstructor
+public class StatsAdminController {
+    private final PaymentStatsService paymentStatsService;
+    private final DonorCohortService donorCohortService;
+
+    /**
+     * Recalcule les tables de statistiques des paiements à partir de la table payments
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<String> rebuildRollups() {
+        paymentStatsService.rebuild();
+        return ResponseEntity.ok("Statistiques des paiements recalculées.");
+    }
+
+    /**
+     * Recalcule immédiatement les cohortes de donateurs, sans attendre le calcul de la nuit
+     */
+    @PostMapping("/cohorts/refresh")
+    public ResponseEntity<String> refreshCohorts() {
+        if (!donorCohortService.refresh()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Un calcul des cohortes de donateurs est déjà en cours.");
+        }
+        return ResponseEntity.ok("Cohortes de donateurs recalculées.");
+    }
+}
@@ -0,0 +1,40 @@
+package com.stemadeleine.api.dto;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Donor cohorts of the last snapshot; {@code computedAt} is null until the first computation
+ */
+public record DonorCohortsDto(
+        OffsetDateTime computedAt,
+        List<Cohort> cohorts
+) {
+    /**
+     * Rates are between 0 and 1; the retention lists the years with at least one donation of the cohort
+     */
+    public record Cohort(
+            int year,
+            int donors,
+            int repeatDonors,
+            double repeatRate,
+            int lapsedDonors,
+            int donations,
+            double totalAmount,
+            double averageGift,
+            int members,
+            int convertedMembers,
+            double conversionRate,
+            List<Retention> retention
+    ) {
+    }
+
+    public record Retention(
+            int year,
+            int donors,
+            double rate,
+            int donations,
+            double totalAmount
+    ) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.stemadeleine.api.dto;
+
+import java.util.List;
+
+/**
+ * One page of a HelloAsso listing. The continuation token is null once the last page has been read.
+ */
+public record HelloAssoPage<T>(List<T> items, String continuationToken) {
+}
@@ -8,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 
 @Data
 @Builder
@@ -22,6 +23,8 @@ public class HelloAssoPaymentDto {
     private Double amount;
     private String currency;
     private LocalDate paymentDate;
+    // Horodatage complet, utilisé comme point de reprise de la synchronisation incrémentale
+    private OffsetDateTime paymentDateTime;
     private PaymentStatus status;
     private String formSlug;
     private PaymentType type;
@@ -0,0 +1,14 @@
+package com.stemadeleine.api.dto;
+
+import java.util.UUID;
+
+/**
+ * State of a resumable upload. {@code media} is set once the last chunk has been received.
+ */
+public record MediaUploadSessionDto(
+        UUID uploadId,
+        long offset,
+        long size,
+        MediaDto media
+) {
+}
@@ -0,0 +1,24 @@
+package com.stemadeleine.api.dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Everything needed to render a public page in a single response:
+ * the page, its published sections (with their modules and contents)
+ * and the published contents of each module, keyed by moduleId.
+ */
+public record PageRenderDto(
+        UUID id,
+        UUID pageId,
+        String name,
+        String title,
+        String subTitle,
+        String slug,
+        String description,
+        MediaDto heroMedia,
+        List<SectionDto> sections,
+        Map<UUID, List<ContentDto>> moduleContents
+) {
+}
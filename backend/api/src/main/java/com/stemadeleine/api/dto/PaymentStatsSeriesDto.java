@@ -0,0 +1,27 @@
+package com.stemadeleine.api.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Columnar time series: the arrays of each series are parallel to {@code buckets} (start date of each bucket)
+ */
+public record PaymentStatsSeriesDto(
+        LocalDate from,
+        LocalDate to,
+        String granularity,
+        List<LocalDate> buckets,
+        List<Series> series
+) {
+    /**
+     * @param dimension "type", "status" or "total"
+     * @param key       payment type or status, "ALL" for the total
+     */
+    public record Series(
+            String dimension,
+            String key,
+            double[] amounts,
+            long[] counts
+    ) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.stemadeleine.api.dto;
+
+import java.util.UUID;
+
+/**
+ * One public search hit. The snippet is HTML-escaped text where matched words are wrapped in &lt;mark&gt;.
+ */
+public record PublicSearchResultDto(
+        String type,
+        UUID sourceId,
+        UUID pageId,
+        String slug,
+        String title,
+        String snippet,
+        double rank
+) {
+}
@@ -0,0 +1,13 @@
+package com.stemadeleine.api.dto;
+
+import java.util.List;
+
+public record PublicSearchResultsDto(
+        String query,
+        int page,
+        int size,
+        long totalElements,
+        int totalPages,
+        List<PublicSearchResultDto> results
+) {
+}
@@ -0,0 +1,19 @@
+package com.stemadeleine.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record StartMediaUploadRequest(
+        @NotBlank(message = "File name cannot be empty")
+        String fileName,
+
+        @NotNull(message = "Size is required")
+        @Positive(message = "Size must be positive")
+        Long size,
+
+        String contentType,
+        String title,
+        String altText
+) {
+}
@@ -57,6 +57,10 @@ public class Account {
     @Builder.Default
     private Boolean emailVerified = false;
 
+    // Les JWT émis avant cet instant sont refusés (changement ou réinitialisation du mot de passe, V25)
+    @Column(name = "tokens_valid_after")
+    private OffsetDateTime tokensValidAfter;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private OffsetDateTime createdAt;
@@ -1,5 +1,6 @@
 package com.stemadeleine.api.model;
 
+import com.stemadeleine.api.service.SearchIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -8,6 +9,7 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "contacts")
 @Getter
 @Setter
@@ -0,0 +1,52 @@
+package com.stemadeleine.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Activity of a donor cohort (year of first donation) in a given year, from the last snapshot (see V21)
+ */
+@Entity
+@Immutable
+@Table(name = "donor_cohorts")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DonorCohort {
+
+    @EmbeddedId
+    private DonorCohortId id;
+
+    @Column(nullable = false)
+    private Integer donors;
+
+    @Column(nullable = false)
+    private Integer donations;
+
+    @Column(name = "total_amount", nullable = false)
+    private Double totalAmount;
+
+    @Column(name = "computed_at", nullable = false)
+    private OffsetDateTime computedAt;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @EqualsAndHashCode
+    public static class DonorCohortId implements Serializable {
+        @Column(name = "cohort_year")
+        private Integer cohortYear;
+
+        @Column(name = "activity_year")
+        private Integer activityYear;
+    }
+}
@@ -0,0 +1,49 @@
+package com.stemadeleine.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Donor cohort of a year and the members who joined that year, from the last snapshot (see V21)
+ */
+@Entity
+@Immutable
+@Table(name = "donor_cohort_summaries")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DonorCohortSummary {
+
+    @Id
+    @Column(name = "cohort_year")
+    private Integer cohortYear;
+
+    @Column(nullable = false)
+    private Integer donors;
+
+    @Column(name = "repeat_donors", nullable = false)
+    private Integer repeatDonors;
+
+    @Column(name = "lapsed_donors", nullable = false)
+    private Integer lapsedDonors;
+
+    @Column(nullable = false)
+    private Integer donations;
+
+    @Column(name = "total_amount", nullable = false)
+    private Double totalAmount;
+
+    @Column(nullable = false)
+    private Integer members;
+
+    @Column(name = "converted_members", nullable = false)
+    private Integer convertedMembers;
+
+    @Column(name = "computed_at", nullable = false)
+    private OffsetDateTime computedAt;
+}
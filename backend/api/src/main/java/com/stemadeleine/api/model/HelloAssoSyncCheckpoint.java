@@ -0,0 +1,47 @@
+package com.stemadeleine.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Position of an incremental HelloAsso import for one organization and one resource (see V17).
+ * The continuation token is only kept while a run is in progress, so an interrupted run resumes where it stopped.
+ */
+@Entity
+@Table(
+        name = "helloasso_sync_checkpoints",
+        uniqueConstraints = {@UniqueConstraint(name = "uk_helloasso_sync_checkpoints_resource", columnNames = {"org_slug", "resource"})}
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HelloAssoSyncCheckpoint {
+
+    public static final String PAYMENTS = "payments";
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "org_slug", nullable = false)
+    private String orgSlug;
+
+    // "payments" pour l'organisation entière, ou une ressource propre à un formulaire
+    @Column(nullable = false)
+    private String resource;
+
+    // Date du dernier élément importé, utilisée comme filtre "from" au prochain passage
+    @Column(name = "last_item_date")
+    private OffsetDateTime lastItemDate;
+
+    @Column(name = "continuation_token", columnDefinition = "TEXT")
+    private String continuationToken;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
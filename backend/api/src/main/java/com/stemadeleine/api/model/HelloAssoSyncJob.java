@@ -0,0 +1,71 @@
+package com.stemadeleine.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * HelloAsso synchronisation requested by a webhook (see V19). Pending jobs are unique per organization
+ * and event type, so duplicate webhooks are coalesced into a single run.
+ */
+@Entity
+@Table(name = "helloasso_sync_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HelloAssoSyncJob {
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "org_slug", nullable = false)
+    private String orgSlug;
+
+    // Type d'événement HelloAsso : Payment, Form ou Membership
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "run_after", nullable = false)
+    private OffsetDateTime runAfter;
+
+    @Column(name = "started_at")
+    private OffsetDateTime startedAt;
+
+    // Instance qui exécute le job, et échéance de son bail, renouvelé tant que l'import tourne (V23)
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private OffsetDateTime leaseExpiresAt;
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
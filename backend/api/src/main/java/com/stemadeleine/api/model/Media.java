@@ -10,7 +10,7 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "media")
+@Table(name = "media", indexes = {@Index(name = "idx_media_content_hash", columnList = "content_hash")})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -36,6 +36,14 @@ public class Media {
     @Column(name = "file_size")
     private Integer fileSize;
 
+    // SHA-256 (hex) du fichier, calculé pendant l'upload
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Dernière tentative de génération des variantes, qu'elle en ait produit ou non (V26)
+    @Column(name = "variants_attempted_at")
+    private OffsetDateTime variantsAttemptedAt;
+
     @Column(name = "is_visible", nullable = false, columnDefinition = "boolean default true")
     private Boolean isVisible = true;
 
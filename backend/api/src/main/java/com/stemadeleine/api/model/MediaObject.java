@@ -0,0 +1,29 @@
+package com.stemadeleine.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Stored object of a content hash (see V28), shared by every media row of that content
+ */
+@Entity
+@Table(name = "media_objects")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaObject {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "file_url", nullable = false)
+    private String fileUrl;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
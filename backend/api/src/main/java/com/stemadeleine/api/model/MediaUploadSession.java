@@ -0,0 +1,56 @@
+package com.stemadeleine.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Resumable media upload in progress (see V24). The id is the upload id given to the client.
+ */
+@Entity
+@Table(name = "media_upload_sessions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaUploadSession {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "upload_url", nullable = false, columnDefinition = "TEXT")
+    private String uploadUrl;
+
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    private String title;
+
+    @Column(name = "alt_text")
+    private String altText;
+
+    // Octets acceptés par le stockage
+    @Column(name = "upload_offset", nullable = false)
+    private long uploadOffset;
+
+    @Column(name = "media_id")
+    private UUID mediaId;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "last_activity", nullable = false)
+    private OffsetDateTime lastActivity;
+}
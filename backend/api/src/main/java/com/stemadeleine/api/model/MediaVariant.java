@@ -0,0 +1,62 @@
+package com.stemadeleine.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Derivative of an image media, resized to a given width and possibly re-encoded (WebP)
+ */
+@Entity
+@Table(
+        name = "media_variants",
+        uniqueConstraints = {@UniqueConstraint(name = "uk_media_variants_media_width_format", columnNames = {"media_id", "width", "format"})},
+        indexes = {
+                @Index(name = "idx_media_variants_media_id", columnList = "media_id"),
+                @Index(name = "idx_media_variants_content_hash", columnList = "content_hash")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaVariant {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    // Média pour lequel la variante a été générée
+    @Column(name = "media_id", nullable = false)
+    private UUID mediaId;
+
+    // Empreinte de l'original : la variante sert à tous les médias de même contenu (V27)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(nullable = false)
+    private Integer width;
+
+    @Column(nullable = false)
+    private Integer height;
+
+    @Column(nullable = false, length = 10)
+    private String format;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "file_url", nullable = false)
+    private String fileUrl;
+
+    @Column(name = "file_size")
+    private Integer fileSize;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private OffsetDateTime createdAt;
+}
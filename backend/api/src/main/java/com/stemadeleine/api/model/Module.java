@@ -1,5 +1,6 @@
 package com.stemadeleine.api.model;
 
+import com.stemadeleine.api.service.SearchIndexListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -13,6 +14,7 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "modules")
 @Getter
 @Setter
@@ -1,5 +1,6 @@
 package com.stemadeleine.api.model;
 
+import com.stemadeleine.api.service.SearchIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -11,9 +12,13 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(
         name = "pages",
-        indexes = {@Index(name = "idx_pages_page_id_version", columnList = "page_id, version DESC")}
+        indexes = {
+                @Index(name = "idx_pages_page_id_version", columnList = "page_id, version DESC"),
+                @Index(name = "idx_pages_slug_version", columnList = "slug, version DESC")
+        }
 )
 @Getter
 @Setter
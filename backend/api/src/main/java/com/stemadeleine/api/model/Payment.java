@@ -1,5 +1,6 @@
 package com.stemadeleine.api.model;
 
+import com.stemadeleine.api.service.SearchIndexListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,6 +11,7 @@ import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "payments")
 @Data
 @NoArgsConstructor
@@ -17,7 +19,8 @@ import java.util.UUID;
 @Builder
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // UUID généré par Hibernate : contrairement à IDENTITY, il n'empêche pas le regroupement des inserts
+    @GeneratedValue
     private UUID id;
 
     @ManyToOne
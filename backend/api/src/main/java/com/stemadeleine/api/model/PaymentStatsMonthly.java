@@ -0,0 +1,53 @@
+package com.stemadeleine.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+
+/**
+ * Payments of a month and type (see V20). Read-only: the rows are maintained by triggers on payments.
+ */
+@Entity
+@Immutable
+@Table(name = "payment_stats_monthly")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentStatsMonthly {
+
+    @EmbeddedId
+    private PaymentStatsMonthlyId id;
+
+    @Column(name = "total_amount", nullable = false)
+    private Double totalAmount;
+
+    @Column(name = "payment_count", nullable = false)
+    private Long paymentCount;
+
+    // Nombre de payeurs distincts du mois
+    @Column(name = "donor_count", nullable = false)
+    private Integer donorCount;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @EqualsAndHashCode
+    public static class PaymentStatsMonthlyId implements Serializable {
+        @Column(name = "payment_year")
+        private Integer year;
+
+        @Column(name = "payment_month")
+        private Integer month;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "payment_type")
+        private PaymentType paymentType;
+    }
+}
@@ -0,0 +1,34 @@
+package com.stemadeleine.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * All-time payments of a type (see V20). Read-only: the rows are maintained by triggers on payments.
+ */
+@Entity
+@Immutable
+@Table(name = "payment_stats_totals")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentStatsTotal {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_type")
+    private PaymentType paymentType;
+
+    @Column(name = "total_amount", nullable = false)
+    private Double totalAmount;
+
+    @Column(name = "payment_count", nullable = false)
+    private Long paymentCount;
+
+    // Nombre de payeurs distincts, tous paiements de ce type confondus
+    @Column(name = "donor_count", nullable = false)
+    private Integer donorCount;
+}
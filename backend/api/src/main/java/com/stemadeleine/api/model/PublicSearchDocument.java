@@ -0,0 +1,57 @@
+package com.stemadeleine.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Text of a published page, section, article, news or newsletter module as indexed by the public search.
+ * The weighted search_vector column is generated by the database (see V16) and is not mapped.
+ */
+@Entity
+@Table(
+        name = "public_search_documents",
+        uniqueConstraints = {@UniqueConstraint(name = "uk_public_search_documents_source", columnNames = {"source_type", "source_id"})}
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PublicSearchDocument {
+
+    public static final String PAGE = "PAGE";
+    public static final String SECTION = "SECTION";
+    public static final String ARTICLE = "ARTICLE";
+    public static final String NEWS = "NEWS";
+    public static final String NEWSLETTER = "NEWSLETTER";
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    // Identifiant métier de la page qui porte le document
+    @Column(name = "page_id", nullable = false)
+    private UUID pageId;
+
+    @Column(name = "source_type", nullable = false, length = 20)
+    private String sourceType;
+
+    // Identifiant métier de la source (pageId, sectionId ou moduleId)
+    @Column(name = "source_id", nullable = false)
+    private UUID sourceId;
+
+    @Column(nullable = false)
+    private String slug;
+
+    @Column(columnDefinition = "TEXT")
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
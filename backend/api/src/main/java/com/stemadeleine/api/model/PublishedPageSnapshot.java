@@ -0,0 +1,44 @@
+package com.stemadeleine.api.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Read-optimized copy of a published page, one row per business page.
+ * The payload is the public render of the page (see PageRenderDto).
+ */
+@Entity
+@Table(
+        name = "published_page_snapshots",
+        uniqueConstraints = {@UniqueConstraint(name = "uk_published_page_snapshots_slug", columnNames = "slug")}
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PublishedPageSnapshot {
+
+    @Id
+    @Column(name = "page_id")
+    private UUID pageId;
+
+    @Column(nullable = false)
+    private String slug;
+
+    @Column(name = "page_version", nullable = false)
+    private Integer pageVersion;
+
+    @Column(columnDefinition = "jsonb", nullable = false)
+    @JdbcTypeCode(SqlTypes.JSON)
+    private JsonNode payload;
+
+    @Column(name = "published_at", nullable = false)
+    private OffsetDateTime publishedAt;
+}
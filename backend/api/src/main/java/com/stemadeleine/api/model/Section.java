@@ -1,5 +1,6 @@
 package com.stemadeleine.api.model;
 
+import com.stemadeleine.api.service.SearchIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -10,6 +11,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "sections")
 @Getter
 @Setter
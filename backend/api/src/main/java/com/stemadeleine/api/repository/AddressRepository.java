@@ -3,6 +3,7 @@ package com.stemadeleine.api.repository;
 import com.stemadeleine.api.model.Address;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -10,6 +11,8 @@ import java.util.UUID;
 public interface AddressRepository extends JpaRepository<Address, UUID> {
     Optional<Address> findByAddressLine1AndCityAndPostCodeAndCountry(String addressLine1, String city, String postCode, String country);
 
+    List<Address> findByPostCodeInAndCityIn(Collection<String> postCodes, Collection<String> cities);
+
     List<Address> findByOwnerIdAndOwnerType(UUID ownerId, String ownerType);
 
     List<Address> findByOwnerId(UUID ownerId);
@@ -3,6 +3,8 @@ package com.stemadeleine.api.repository;
 import com.stemadeleine.api.model.Article;
 import com.stemadeleine.api.model.PublishingStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +17,15 @@ public interface ArticleRepository extends JpaRepository<Article, UUID> {
     List<Article> findByStatusNot(PublishingStatus status);
 
     Optional<Article> findTopByModuleIdOrderByVersionDesc(UUID moduleId);
-}
\ No newline at end of file
+
+    // Recherche plein texte classée parmi les articles non supprimés (voir V15)
+    @Query(value = """
+            SELECT m.id FROM modules m
+            JOIN articles x ON x.id = m.id
+            WHERE m.search_vector @@ to_tsquery('public.fr_unaccent', :query)
+            AND m.status <> 'DELETED'
+            ORDER BY ts_rank(m.search_vector, to_tsquery('public.fr_unaccent', :query)) DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> searchIds(@Param("query") String tsQuery, @Param("limit") int limit);
+}
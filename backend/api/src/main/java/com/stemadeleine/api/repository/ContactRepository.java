@@ -48,4 +48,13 @@ public interface ContactRepository extends JpaRepository<Contact, UUID> {
     // Search + optional isRead filter (both params optional)
     @Query("SELECT c FROM Contact c WHERE (:search IS NULL OR (LOWER(c.firstName) LIKE CONCAT('%',:search,'%') OR LOWER(c.lastName) LIKE CONCAT('%',:search,'%') OR LOWER(c.email) LIKE CONCAT('%',:search,'%') OR LOWER(c.subject) LIKE CONCAT('%',:search,'%') OR LOWER(c.message) LIKE CONCAT('%',:search,'%'))) AND (:isRead IS NULL OR c.isRead = :isRead)")
     Page<Contact> searchAndFilter(@Param("search") String search, @Param("isRead") Boolean isRead, Pageable pageable);
+
+    // Recherche plein texte classée (colonne search_vector, voir V15)
+    @Query(value = """
+            SELECT c.id FROM contacts c
+            WHERE c.search_vector @@ to_tsquery('public.fr_unaccent', :query)
+            ORDER BY ts_rank(c.search_vector, to_tsquery('public.fr_unaccent', :query)) DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> searchIds(@Param("query") String tsQuery, @Param("limit") int limit);
 }
@@ -1,11 +1,13 @@
 package com.stemadeleine.api.repository;
 
 import com.stemadeleine.api.model.Content;
+import com.stemadeleine.api.model.PublishingStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -40,6 +42,23 @@ public interface ContentRepository extends JpaRepository<Content, UUID> {
             """)
     List<Content> findLatestContentsByOwner(@Param("ownerId") UUID ownerId);
 
+    /**
+     * Find latest versions of the contents of several owners having the given status
+     */
+    @Query("""
+            SELECT DISTINCT c FROM Content c
+            LEFT JOIN FETCH c.medias m
+            WHERE c.ownerId IN :ownerIds
+            AND c.version = (
+                SELECT MAX(c2.version)
+                FROM Content c2
+                WHERE c2.contentId = c.contentId
+            )
+            AND c.status = :status
+            ORDER BY c.sortOrder ASC
+            """)
+    List<Content> findLatestContentsByOwnerIdsAndStatus(@Param("ownerIds") Collection<UUID> ownerIds, @Param("status") PublishingStatus status);
+
     /**
      * Find maximum sort order for contents of a specific owner
      */
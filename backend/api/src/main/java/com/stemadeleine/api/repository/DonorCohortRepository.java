@@ -0,0 +1,13 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.DonorCohort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DonorCohortRepository extends JpaRepository<DonorCohort, DonorCohort.DonorCohortId> {
+
+    List<DonorCohort> findAllByOrderByIdCohortYearAscIdActivityYearAsc();
+}
@@ -0,0 +1,23 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.DonorCohortSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DonorCohortSummaryRepository extends JpaRepository<DonorCohortSummary, Integer> {
+
+    List<DonorCohortSummary> findAllByOrderByCohortYearAsc();
+
+    Optional<DonorCohortSummary> findFirstByOrderByComputedAtDesc();
+
+    // Recalcule les deux instantanés de cohortes (procédure de V21)
+    @Modifying(clearAutomatically = true)
+    @Query(value = "CALL public.donor_cohorts_refresh()", nativeQuery = true)
+    void refresh();
+}
@@ -0,0 +1,14 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.HelloAssoSyncCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface HelloAssoSyncCheckpointRepository extends JpaRepository<HelloAssoSyncCheckpoint, UUID> {
+
+    Optional<HelloAssoSyncCheckpoint> findByOrgSlugAndResource(String orgSlug, String resource);
+}
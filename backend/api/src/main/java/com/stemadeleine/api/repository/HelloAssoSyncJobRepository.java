@@ -0,0 +1,100 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.HelloAssoSyncJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface HelloAssoSyncJobRepository extends JpaRepository<HelloAssoSyncJob, UUID> {
+
+    /**
+     * Adds a pending job unless one is already pending for the same organization and event type (see V19).
+     * Returns 0 when the request was coalesced into the existing job.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO helloasso_sync_jobs (id, org_slug, event_type, status, attempts, run_after, created_at, updated_at)
+            VALUES (gen_random_uuid(), :orgSlug, :eventType, 'PENDING', :attempts, :runAfter, now(), now())
+            ON CONFLICT (org_slug, event_type) WHERE status = 'PENDING' DO NOTHING
+            """, nativeQuery = true)
+    int enqueue(@Param("orgSlug") String orgSlug,
+                @Param("eventType") String eventType,
+                @Param("attempts") int attempts,
+                @Param("runAfter") OffsetDateTime runAfter);
+
+    /**
+     * Next due job, locked for the current transaction. Jobs locked by another worker are skipped, and so are
+     * the jobs whose organization and event type are already being synchronised.
+     */
+    @Query(value = """
+            SELECT * FROM helloasso_sync_jobs j
+            WHERE j.status = 'PENDING'
+              AND j.run_after <= now()
+              AND NOT EXISTS (SELECT 1 FROM helloasso_sync_jobs r
+                              WHERE r.status = 'RUNNING' AND r.org_slug = j.org_slug AND r.event_type = j.event_type)
+            ORDER BY j.run_after
+            LIMIT 1
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<HelloAssoSyncJob> findNextDueForUpdate();
+
+    // Jobs d'une instance arrêtée en cours d'exécution (bail expiré) : une nouvelle synchronisation est demandée à leur place
+    @Modifying
+    @Query(value = """
+            INSERT INTO helloasso_sync_jobs (id, org_slug, event_type, status, attempts, run_after, created_at, updated_at)
+            SELECT DISTINCT ON (org_slug, event_type) gen_random_uuid(), org_slug, event_type, 'PENDING', attempts, now(), now(), now()
+            FROM helloasso_sync_jobs
+            WHERE status = 'RUNNING' AND lease_expires_at < :now
+            ON CONFLICT (org_slug, event_type) WHERE status = 'PENDING' DO NOTHING
+            """, nativeQuery = true)
+    int requeueExpired(@Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Query(value = """
+            UPDATE helloasso_sync_jobs
+            SET status = 'FAILED', finished_at = now(), updated_at = now(), last_error = 'Interrompu (instance arrêtée)'
+            WHERE status = 'RUNNING' AND lease_expires_at < :now
+            """, nativeQuery = true)
+    int failExpired(@Param("now") OffsetDateTime now);
+
+    /**
+     * Extends the lease of a running job. Returns 0 when the job is no longer held by this owner.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE helloasso_sync_jobs
+            SET lease_expires_at = :leaseExpiresAt, updated_at = now()
+            WHERE id = :id AND status = 'RUNNING' AND lease_owner = :owner
+            """, nativeQuery = true)
+    int renewLease(@Param("id") UUID id, @Param("owner") String owner, @Param("leaseExpiresAt") OffsetDateTime leaseExpiresAt);
+
+    /**
+     * Records the outcome of a run, unless the job was reclaimed in the meantime. Returns 0 in that case.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE helloasso_sync_jobs
+            SET status = :status, last_error = :lastError, finished_at = now(), updated_at = now(), lease_expires_at = NULL
+            WHERE id = :id AND status = 'RUNNING' AND lease_owner = :owner
+            """, nativeQuery = true)
+    int finish(@Param("id") UUID id, @Param("owner") String owner, @Param("status") String status, @Param("lastError") String lastError);
+
+    /**
+     * Drops a job claimed by this owner before its import started, so that it can be queued again.
+     * Returns 0 when the job was reclaimed in the meantime.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM helloasso_sync_jobs WHERE id = :id AND status = 'RUNNING' AND lease_owner = :owner", nativeQuery = true)
+    int deleteClaimed(@Param("id") UUID id, @Param("owner") String owner);
+
+    @Modifying
+    @Query(value = "DELETE FROM helloasso_sync_jobs WHERE status IN ('DONE', 'FAILED') AND finished_at < :before", nativeQuery = true)
+    int deleteFinishedBefore(@Param("before") OffsetDateTime before);
+}
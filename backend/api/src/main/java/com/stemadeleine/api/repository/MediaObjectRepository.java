@@ -0,0 +1,25 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.MediaObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface MediaObjectRepository extends JpaRepository<MediaObject, String> {
+
+    /**
+     * Registers the stored object of a content hash. Returns 0 when another upload registered it first.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO media_objects (content_hash, file_url, created_at)
+            VALUES (:contentHash, :fileUrl, now())
+            ON CONFLICT (content_hash) DO NOTHING
+            """, nativeQuery = true)
+    int register(@Param("contentHash") String contentHash, @Param("fileUrl") String fileUrl);
+}
@@ -2,9 +2,14 @@ package com.stemadeleine.api.repository;
 
 import com.stemadeleine.api.model.Media;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -14,4 +19,11 @@ public interface MediaRepository extends JpaRepository<Media, UUID> {
     List<Media> findByTitleContainingIgnoreCaseOrAltTextContainingIgnoreCase(String titleQuery, String altTextQuery);
 
     List<Media> findByOwnerId(UUID ownerId);
+
+    Optional<Media> findFirstByContentHash(String contentHash);
+
+    // Requête directe : updated_at n'est pas modifié
+    @Modifying
+    @Query("UPDATE Media m SET m.variantsAttemptedAt = :attemptedAt WHERE m.id = :id")
+    int updateVariantsAttemptedAt(@Param("id") UUID id, @Param("attemptedAt") OffsetDateTime attemptedAt);
 }
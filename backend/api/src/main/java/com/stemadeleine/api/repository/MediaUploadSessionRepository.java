@@ -0,0 +1,15 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.MediaUploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MediaUploadSessionRepository extends JpaRepository<MediaUploadSession, UUID> {
+
+    List<MediaUploadSession> findAllByLastActivityBefore(OffsetDateTime limit);
+}
@@ -0,0 +1,20 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.MediaVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MediaVariantRepository extends JpaRepository<MediaVariant, UUID> {
+
+    List<MediaVariant> findByMediaIdOrderByWidthAsc(UUID mediaId);
+
+    List<MediaVariant> findByContentHashOrderByWidthAsc(String contentHash);
+
+    boolean existsByMediaId(UUID mediaId);
+
+    boolean existsByContentHash(String contentHash);
+}
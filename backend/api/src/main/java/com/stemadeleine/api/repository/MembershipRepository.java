@@ -3,8 +3,11 @@ package com.stemadeleine.api.repository;
 import com.stemadeleine.api.model.Membership;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,6 +16,11 @@ public interface MembershipRepository extends JpaRepository<Membership, UUID> {
     // Méthodes personnalisées si besoin
     List<Membership> findByUser_Id(UUID userId);
 
+    @Query("select m.user.id from Membership m where m.user.id in :userIds and m.dateFin between :start and :end")
+    List<UUID> findUserIdsWithMembershipEndingBetween(@Param("userIds") Collection<UUID> userIds,
+                                                      @Param("start") LocalDate start,
+                                                      @Param("end") LocalDate end);
+
     @Query("select count(m) from Membership m where (m.active = true) and ( (m.dateFin is not null and function('year', m.dateFin) = :year) or (m.dateAdhesion is not null and function('year', m.dateAdhesion) = :year) )")
     Long countActiveForYear(@org.springframework.data.repository.query.Param("year") Integer year);
 }
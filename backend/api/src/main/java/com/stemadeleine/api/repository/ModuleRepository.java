@@ -4,8 +4,10 @@ import com.stemadeleine.api.model.Module;
 import com.stemadeleine.api.model.PublishingStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,6 +27,16 @@ public interface ModuleRepository extends JpaRepository<Module, UUID> {
             "ORDER BY m.sortOrder ASC")
     List<Module> findBySectionIdAndStatusNotWithInheritedData(UUID sectionId, PublishingStatus status);
 
+    /**
+     * Retrieves published and visible modules of several sections in a single query (public page rendering)
+     */
+    @Query("SELECT m FROM Module m " +
+            "WHERE m.section.id IN :sectionIds " +
+            "AND m.status = :status " +
+            "AND m.isVisible = true " +
+            "ORDER BY m.sortOrder ASC")
+    List<Module> findPublishedVisibleBySectionIds(@Param("sectionIds") Collection<UUID> sectionIds, @Param("status") PublishingStatus status);
+
     @Query("SELECT COALESCE(MAX(m.sortOrder), 0) FROM Module m WHERE m.section.id = :sectionId")
     Short findMaxSortOrderBySection(UUID sectionId);
 
@@ -34,4 +46,13 @@ public interface ModuleRepository extends JpaRepository<Module, UUID> {
 
     @org.springframework.data.jpa.repository.Query("SELECT m FROM Module m WHERE LOWER(m.name) LIKE CONCAT('%',:q,'%') OR LOWER(m.type) LIKE CONCAT('%',:q,'%')")
     java.util.List<com.stemadeleine.api.model.Module> search(@org.springframework.data.repository.query.Param("q") String q, org.springframework.data.domain.Pageable pageable);
+
+    // Recherche plein texte classée (colonne search_vector, voir V15)
+    @Query(value = """
+            SELECT m.id FROM modules m
+            WHERE m.search_vector @@ to_tsquery('public.fr_unaccent', :query)
+            ORDER BY ts_rank(m.search_vector, to_tsquery('public.fr_unaccent', :query)) DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> searchIds(@Param("query") String tsQuery, @Param("limit") int limit);
 }
@@ -3,6 +3,8 @@ package com.stemadeleine.api.repository;
 import com.stemadeleine.api.model.News;
 import com.stemadeleine.api.model.PublishingStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,4 +17,15 @@ public interface NewsRepository extends JpaRepository<News, UUID> {
 
     @org.springframework.data.jpa.repository.Query("SELECT n FROM News n WHERE LOWER(n.title) LIKE CONCAT('%',:q,'%') OR LOWER(n.name) LIKE CONCAT('%',:q,'%')")
     java.util.List<com.stemadeleine.api.model.News> search(@org.springframework.data.repository.query.Param("q") String q, org.springframework.data.domain.Pageable pageable);
+
+    // Recherche plein texte classée parmi les actualités non supprimées (voir V15)
+    @Query(value = """
+            SELECT m.id FROM modules m
+            JOIN news x ON x.id = m.id
+            WHERE m.search_vector @@ to_tsquery('public.fr_unaccent', :query)
+            AND m.status <> 'DELETED'
+            ORDER BY ts_rank(m.search_vector, to_tsquery('public.fr_unaccent', :query)) DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> searchIds(@Param("query") String tsQuery, @Param("limit") int limit);
 }
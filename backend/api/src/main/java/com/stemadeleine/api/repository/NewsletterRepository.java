@@ -1,8 +1,10 @@
 package com.stemadeleine.api.repository;
 
-import com.stemadeleine.api.model.Newsletter;
 import com.stemadeleine.api.model.NewsVariants;
+import com.stemadeleine.api.model.Newsletter;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,4 +16,15 @@ public interface NewsletterRepository extends JpaRepository<Newsletter, UUID> {
     Optional<Newsletter> findTopByModuleIdOrderByVersionDesc(UUID moduleId);
 
     boolean existsByVariantAndStatusNot(NewsVariants variant, com.stemadeleine.api.model.PublishingStatus status);
+
+    // Recherche plein texte classée parmi les newsletters non supprimées (voir V15)
+    @Query(value = """
+            SELECT m.id FROM modules m
+            JOIN newsletters x ON x.id = m.id
+            WHERE m.search_vector @@ to_tsquery('public.fr_unaccent', :query)
+            AND m.status <> 'DELETED'
+            ORDER BY ts_rank(m.search_vector, to_tsquery('public.fr_unaccent', :query)) DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> searchIds(@Param("query") String tsQuery, @Param("limit") int limit);
 }
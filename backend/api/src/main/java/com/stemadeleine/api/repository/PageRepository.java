@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,6 +19,25 @@ public interface PageRepository extends JpaRepository<Page, UUID> {
     // Dernière version publiée
     Optional<Page> findTopByPageIdAndStatusOrderByVersionDesc(UUID pageId, PublishingStatus status);
 
+    // Dernière version publiée pour un slug (résolution publique par slug)
+    Optional<Page> findTopBySlugAndStatusAndIsVisibleOrderByVersionDesc(String slug, PublishingStatus status, Boolean isVisible);
+
+    // Dernière version de chaque page pour un statut et une visibilité donnés (arbre de navigation public)
+    @Query("""
+            SELECT p FROM Page p
+            LEFT JOIN FETCH p.parentPage
+            WHERE p.status = :status
+              AND p.isVisible = :isVisible
+              AND p.version = (
+                SELECT MAX(p2.version)
+                FROM Page p2
+                WHERE p2.pageId = p.pageId
+                  AND p2.status = :status
+                  AND p2.isVisible = :isVisible
+              )
+            """)
+    List<Page> findLatestVersionsByStatusAndVisible(@Param("status") PublishingStatus status, @Param("isVisible") Boolean isVisible);
+
     // Dernière version (draft ou publiée)
     Optional<Page> findTopByPageIdOrderByVersionDesc(UUID pageId);
 
@@ -36,11 +56,24 @@ public interface PageRepository extends JpaRepository<Page, UUID> {
     boolean existsBySlug(String slug);
 
     @Modifying(clearAutomatically = true, flushAutomatically = true)
-    @Query("UPDATE Page p SET p.status = 'DELETED', p.isVisible = false WHERE p.id = :id")
+    @Query("UPDATE Page p SET p.status = 'DELETED', p.isVisible = false, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id")
     void softDeleteById(@Param("id") UUID id);
 
+    // Dernière modification d'une page, toutes versions confondues (invalidation de l'arbre public sur chaque instance)
+    @Query("SELECT MAX(p.updatedAt) FROM Page p")
+    Optional<OffsetDateTime> findLastUpdatedAt();
+
     List<Page> findByParentPage(Page parentPage);
 
     @org.springframework.data.jpa.repository.Query("SELECT p FROM Page p WHERE LOWER(p.title) LIKE CONCAT('%',:q,'%') OR LOWER(p.name) LIKE CONCAT('%',:q,'%') OR LOWER(p.slug) LIKE CONCAT('%',:q,'%')")
     java.util.List<com.stemadeleine.api.model.Page> search(@org.springframework.data.repository.query.Param("q") String q, org.springframework.data.domain.Pageable pageable);
+
+    // Recherche plein texte classée (colonne search_vector, voir V15)
+    @Query(value = """
+            SELECT p.id FROM pages p
+            WHERE p.search_vector @@ to_tsquery('public.fr_unaccent', :query)
+            ORDER BY ts_rank(p.search_vector, to_tsquery('public.fr_unaccent', :query)) DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> searchIds(@Param("query") String tsQuery, @Param("limit") int limit);
 }
@@ -8,7 +8,10 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
@@ -25,4 +28,46 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID>, JpaSpec
 
     @Query("select MONTH(p.paymentDate) as m, coalesce(sum(p.amount),0) as s from Payment p where p.type = :type and YEAR(p.paymentDate) = :year group by MONTH(p.paymentDate) order by MONTH(p.paymentDate)")
     List<Object[]> sumMonthlyByTypeAndYear(@Param("type") PaymentType type, @Param("year") Integer year);
+
+    // Identifiants HelloAsso déjà importés parmi ceux d'une page (index unique, voir V18)
+    @Query("select p.helloAssoPaymentId from Payment p where p.helloAssoPaymentId in :ids")
+    Set<String> findExistingHelloAssoPaymentIds(@Param("ids") Collection<String> ids);
+
+    @Query("select max(p.paymentDate) from Payment p where p.helloAssoPaymentId is not null")
+    LocalDate findLatestHelloAssoPaymentDate();
+
+    /**
+     * Amounts and counts per time bucket, in one grouped pass: per type (grouping = 1), per status (grouping = 2)
+     * and all selected payments (grouping = 3). Rows: bucket, type, status, grouping, amount, count.
+     */
+    @Query(value = """
+            SELECT p.bucket, p.payment_type, p.payment_status,
+                   GROUPING(p.payment_type, p.payment_status) AS grouping_id,
+                   coalesce(sum(p.amount), 0) AS amount, count(*) AS payments
+            FROM (SELECT date_trunc(:unit, payments.payment_date::timestamp)::date AS bucket,
+                         payments.payment_type, payments.payment_status, payments.amount
+                  FROM payments
+                  WHERE payments.payment_date BETWEEN :from AND :to
+                    AND payments.payment_type IN (:types)
+                    AND payments.payment_status IN (:statuses)) p
+            GROUP BY GROUPING SETS ((p.bucket, p.payment_type), (p.bucket, p.payment_status), (p.bucket))
+            """, nativeQuery = true)
+    List<Object[]> sumSeries(@Param("unit") String unit,
+                             @Param("from") LocalDate from,
+                             @Param("to") LocalDate to,
+                             @Param("types") Collection<String> types,
+                             @Param("statuses") Collection<String> statuses);
+
+    // Recherche plein texte classée sur l'identifiant HelloAsso, le formulaire et le payeur (voir V15)
+    @Query(value = """
+            SELECT p.id FROM payments p
+            LEFT JOIN users u ON u.id = p.user_id
+            WHERE p.search_vector @@ to_tsquery('public.fr_unaccent', :query)
+            OR u.search_vector @@ to_tsquery('public.fr_unaccent', :query)
+            ORDER BY greatest(ts_rank(p.search_vector, to_tsquery('public.fr_unaccent', :query)),
+                              coalesce(ts_rank(u.search_vector, to_tsquery('public.fr_unaccent', :query)), 0)) DESC,
+                     p.payment_date DESC NULLS LAST
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> searchIds(@Param("query") String tsQuery, @Param("limit") int limit);
 }
@@ -0,0 +1,15 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.PaymentStatsMonthly;
+import com.stemadeleine.api.model.PaymentType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentStatsMonthlyRepository extends JpaRepository<PaymentStatsMonthly, PaymentStatsMonthly.PaymentStatsMonthlyId> {
+
+    // Au plus 12 lignes
+    List<PaymentStatsMonthly> findByIdPaymentTypeAndIdYear(PaymentType paymentType, Integer year);
+}
@@ -0,0 +1,17 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.PaymentStatsTotal;
+import com.stemadeleine.api.model.PaymentType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PaymentStatsTotalRepository extends JpaRepository<PaymentStatsTotal, PaymentType> {
+
+    // Recalcule toutes les tables de statistiques des paiements (procédure de V20)
+    @Modifying
+    @Query(value = "CALL public.payment_stats_rebuild()", nativeQuery = true)
+    void rebuild();
+}
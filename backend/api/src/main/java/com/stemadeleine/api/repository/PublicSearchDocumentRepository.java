@@ -0,0 +1,46 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.PublicSearchDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface PublicSearchDocumentRepository extends JpaRepository<PublicSearchDocument, UUID> {
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM PublicSearchDocument d WHERE d.pageId = :pageId")
+    void deleteByPageId(@Param("pageId") UUID pageId);
+
+    /**
+     * Page de résultats classés par ts_rank_cd ; les extraits (ts_headline) ne sont calculés que pour les lignes
+     * de la page. Colonnes : source_type, source_id, page_id, slug, title, snippet, rank
+     */
+    @Query(value = """
+            SELECT d.source_type, d.source_id, d.page_id, d.slug, d.title,
+                   ts_headline('public.fr_unaccent', coalesce(d.body, ''), websearch_to_tsquery('public.fr_unaccent', :query), :headlineOptions),
+                   r.rank
+            FROM (
+                SELECT d2.id, ts_rank_cd(d2.search_vector, websearch_to_tsquery('public.fr_unaccent', :query), 32) AS rank
+                FROM public_search_documents d2
+                WHERE d2.search_vector @@ websearch_to_tsquery('public.fr_unaccent', :query)
+                ORDER BY rank DESC, d2.id
+                LIMIT :limit OFFSET :offset
+            ) r
+            JOIN public_search_documents d ON d.id = r.id
+            ORDER BY r.rank DESC, d.id
+            """, nativeQuery = true)
+    List<Object[]> search(@Param("query") String query,
+                          @Param("headlineOptions") String headlineOptions,
+                          @Param("limit") int limit,
+                          @Param("offset") long offset);
+
+    @Query(value = """
+            SELECT COUNT(*) FROM public_search_documents d
+            WHERE d.search_vector @@ websearch_to_tsquery('public.fr_unaccent', :query)
+            """, nativeQuery = true)
+    long countMatches(@Param("query") String query);
+}
@@ -0,0 +1,37 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.PublishedPageSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PublishedPageSnapshotRepository extends JpaRepository<PublishedPageSnapshot, UUID> {
+
+    Optional<PublishedPageSnapshot> findBySlug(String slug);
+
+    // Libère un slug encore occupé par le snapshot d'une autre page (renommage)
+    @Modifying
+    @Query("DELETE FROM PublishedPageSnapshot s WHERE s.slug = :slug AND s.pageId <> :pageId")
+    int deleteBySlugAndPageIdNot(@Param("slug") String slug, @Param("pageId") UUID pageId);
+
+    /**
+     * Stores the snapshot of a page read before it had one. Returns 0 when a concurrent read already stored it,
+     * or when the page or the slug already has a snapshot.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO published_page_snapshots (page_id, slug, page_version, payload, published_at)
+            VALUES (:pageId, :slug, :pageVersion, CAST(:payload AS jsonb), now())
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("pageId") UUID pageId,
+                       @Param("slug") String slug,
+                       @Param("pageVersion") Integer pageVersion,
+                       @Param("payload") String payload);
+}
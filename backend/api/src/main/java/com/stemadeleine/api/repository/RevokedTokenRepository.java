@@ -0,0 +1,28 @@
+package com.stemadeleine.api.repository;
+
+import com.stemadeleine.api.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    List<RevokedToken> findAllByExpiresAtAfter(OffsetDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt <= :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+
+    /**
+     * Sends a notification to the instances listening on the channel, delivered when the transaction commits
+     * (PostgreSQL only)
+     */
+    @Query(value = "SELECT count(*) FROM pg_notify(:channel, :payload)", nativeQuery = true)
+    long notifyChannel(@Param("channel") String channel, @Param("payload") String payload);
+}
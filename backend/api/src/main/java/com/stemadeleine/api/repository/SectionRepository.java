@@ -46,4 +46,14 @@ public interface SectionRepository extends JpaRepository<Section, UUID> {
 
     @Query("SELECT s FROM Section s WHERE s.page.id = :pageId ORDER BY s.sortOrder ASC")
     List<Section> findByPageId(@Param("pageId") UUID pageId);
-}
\ No newline at end of file
+
+    // Recherche plein texte classée parmi les sections visibles (colonne search_vector, voir V15)
+    @Query(value = """
+            SELECT s.id FROM sections s
+            WHERE s.search_vector @@ to_tsquery('public.fr_unaccent', :query)
+            AND s.is_visible = true
+            ORDER BY ts_rank(s.search_vector, to_tsquery('public.fr_unaccent', :query)) DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> searchIds(@Param("query") String tsQuery, @Param("limit") int limit);
+}
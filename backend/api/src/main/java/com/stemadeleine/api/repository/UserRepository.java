@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,6 +19,10 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     Optional<User> findByEmailIgnoreCase(String email);
 
+    // Résolution groupée des payeurs HelloAsso : emails déjà en minuscules
+    @Query("select u from User u where lower(u.email) in :emails")
+    List<User> findByLowerEmailIn(@Param("emails") Collection<String> emails);
+
     // Find users having at least one membership active with dateFin between provided dates
     @org.springframework.data.jpa.repository.Query("select distinct u from User u join u.memberships m where m.active = true and m.dateFin >= :start and m.dateFin <= :end")
     org.springframework.data.domain.Page<User> findAdherentsBetweenDates(java.time.LocalDate start, java.time.LocalDate end, org.springframework.data.domain.Pageable pageable);
@@ -24,4 +30,13 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     // Generic search across firstname, lastname and email (case-insensitive)
     @Query("select u from User u where (:search is null or :search = '' or lower(u.firstname) like concat('%', :search, '%') or lower(u.lastname) like concat('%', :search, '%') or lower(u.email) like concat('%', :search, '%'))")
     org.springframework.data.domain.Page<User> search(@Param("search") String search, org.springframework.data.domain.Pageable pageable);
+
+    // Recherche plein texte classée (colonne search_vector, voir V15)
+    @Query(value = """
+            SELECT u.id FROM users u
+            WHERE u.search_vector @@ to_tsquery('public.fr_unaccent', :query)
+            ORDER BY ts_rank(u.search_vector, to_tsquery('public.fr_unaccent', :query)) DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> searchIds(@Param("query") String tsQuery, @Param("limit") int limit);
 }
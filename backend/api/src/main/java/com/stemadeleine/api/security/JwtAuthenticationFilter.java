@@ -1,5 +1,8 @@
 package com.stemadeleine.api.security;
 
+import com.stemadeleine.api.model.CustomUserDetails;
+import com.stemadeleine.api.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -10,7 +13,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,9 +25,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
     }
@@ -78,12 +80,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
         }
 
-        if (jwt != null && jwtUtil.validateToken(jwt)) {
-            String username = jwtUtil.extractUsername(jwt);
+        // Token vérifié une seule fois par requête (et mis en cache par JwtUtil jusqu'à son expiration)
+        Claims claims = jwt != null ? jwtUtil.getVerifiedClaims(jwt) : null;
+        if (claims != null) {
+            String username = claims.getSubject();
             logger.debug("[JWT FILTER] Username extrait du token: {}", username);
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                var userDetails = userDetailsService.loadUserByUsername(username);
+                var userDetails = userDetailsService.loadCachedUserByUsername(username);
+
+                // Sessions du compte révoquées après l'émission du token (changement de mot de passe)
+                if (userDetails instanceof CustomUserDetails custom && jwtUtil.isIssuedBefore(claims, custom.account().getTokensValidAfter())) {
+                    logger.warn("[JWT FILTER] Token émis avant la révocation des sessions de l'utilisateur: {} (will proceed without JWT)", username);
+                    filterChain.doFilter(request, response);
+                    return;
+                }
 
                 // Vérifier que le compte est actif / non locké / non expiré
                 if (!userDetails.isAccountNonExpired() || !userDetails.isAccountNonLocked() || !userDetails.isEnabled()) {
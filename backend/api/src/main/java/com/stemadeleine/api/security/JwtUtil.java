@@ -1,5 +1,8 @@
 package com.stemadeleine.api.security;
 
+import com.stemadeleine.api.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -10,12 +13,22 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtil {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
+    // Au-delà, les tokens expirés sont purgés, puis le cache est vidé s'il reste plein
+    static final int MAX_VERIFIED_TOKENS = 10_000;
+
     @Value("${jwt.secret}")
     private String secretKey;
 
@@ -24,6 +37,15 @@ public class JwtUtil {
 
     private SecretKey key;
 
+    // Claims des tokens dont la signature a déjà été vérifiée, par empreinte SHA-256 du token, jusqu'à leur expiration
+    private final Map<String, Claims> verifiedTokens = new ConcurrentHashMap<>();
+
+    private final TokenRevocationService revocationService;
+
+    public JwtUtil(TokenRevocationService revocationService) {
+        this.revocationService = revocationService;
+    }
+
     @PostConstruct
     public void init() {
         if (secretKey == null) {
@@ -39,6 +61,7 @@ public class JwtUtil {
 
     public String generateToken(String username) {
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expirationTime))
@@ -51,13 +74,47 @@ public class JwtUtil {
         return generateToken(username);
     }
 
+    /**
+     * Vérifie la signature, l'expiration et la révocation du token et renvoie ses claims. La vérification de la
+     * signature est mise en cache jusqu'à l'expiration du token : les requêtes suivantes avec le même token ne
+     * refont que le contrôle de révocation, en mémoire.
+     *
+     * @throws JwtException si le token est invalide, expiré ou révoqué
+     */
+    public Claims parseClaims(String token) {
+        String hash = hash(token);
+        Claims cached = verifiedTokens.get(hash);
+        if (cached != null) {
+            if (!isExpired(cached, System.currentTimeMillis())) {
+                return checkNotRevoked(cached, hash);
+            }
+            verifiedTokens.remove(hash);
+        }
+
+        Claims claims = checkNotRevoked(Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload(), hash);
+        if (claims.getExpiration() != null) {
+            if (verifiedTokens.size() >= MAX_VERIFIED_TOKENS) {
+                pruneVerifiedTokens();
+            }
+            verifiedTokens.put(hash, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Comme {@link #parseClaims(String)}, mais renvoie null (et journalise) si le token est invalide
+     */
+    public Claims getVerifiedClaims(String token) {
+        try {
+            return parseClaims(token);
+        } catch (Exception e) {
+            logger.error("Invalid JWT token: {}", e.getMessage());
+            return null;
+        }
+    }
+
     public String extractUsername(String token) {
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return parseClaims(token).getSubject();
     }
 
     public String getEmailFromToken(String token) {
@@ -65,18 +122,76 @@ public class JwtUtil {
     }
 
     public boolean validateToken(String token) {
+        return getVerifiedClaims(token) != null;
+    }
+
+    /**
+     * Révoque le token jusqu'à son expiration, sur toutes les instances de l'API. Un token déjà invalide est ignoré.
+     */
+    public void invalidateToken(String token) {
+        Claims claims;
         try {
-            Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
-            return true;
-        } catch (Exception e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
+            claims = parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.info("Token already invalid, nothing to revoke: {}", e.getMessage());
+            return;
+        }
+        String hash = hash(token);
+        Date expiration = claims.getExpiration() != null ? claims.getExpiration() : new Date(System.currentTimeMillis() + expirationTime);
+        revocationService.revoke(revocationId(claims, hash), expiration.toInstant());
+        verifiedTokens.remove(hash);
+    }
+
+    /**
+     * Vrai si le token a été émis avant la date de révocation du compte ({@code tokens_valid_after}). Le claim iat
+     * étant à la seconde, un token émis dans la même seconde que la révocation est aussi refusé.
+     */
+    public boolean isIssuedBefore(Claims claims, OffsetDateTime cutoff) {
+        if (cutoff == null) {
             return false;
         }
+        return claims.getIssuedAt() == null || claims.getIssuedAt().toInstant().isBefore(cutoff.toInstant());
     }
 
-    public void invalidateToken(String token) {
-        // Pour l'instant, on log simplement. Dans une vraie app, vous pourriez
-        // utiliser une blacklist Redis ou une base de données
-        logger.info("Token invalidated: {}", token.substring(0, Math.min(token.length(), 10)) + "...");
+    public boolean isIssuedBefore(String token, OffsetDateTime cutoff) {
+        return cutoff != null && isIssuedBefore(parseClaims(token), cutoff);
+    }
+
+    int verifiedTokenCount() {
+        return verifiedTokens.size();
+    }
+
+    private void pruneVerifiedTokens() {
+        long now = System.currentTimeMillis();
+        verifiedTokens.values().removeIf(claims -> isExpired(claims, now));
+        if (verifiedTokens.size() >= MAX_VERIFIED_TOKENS) {
+            logger.warn("JWT verification cache full ({} tokens), clearing it", verifiedTokens.size());
+            verifiedTokens.clear();
+        }
+    }
+
+    private Claims checkNotRevoked(Claims claims, String hash) {
+        if (revocationService.isRevoked(revocationId(claims, hash))) {
+            throw new JwtException("JWT token has been revoked");
+        }
+        return claims;
+    }
+
+    // Les tokens émis avant l'ajout du claim jti sont révoqués par leur empreinte
+    private static String revocationId(Claims claims, String hash) {
+        return claims.getId() != null ? claims.getId() : hash;
+    }
+
+    private static boolean isExpired(Claims claims, long now) {
+        return claims.getExpiration().getTime() <= now;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
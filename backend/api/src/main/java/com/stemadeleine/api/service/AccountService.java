@@ -10,6 +10,7 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.OffsetDateTime;
 import java.util.*;
 
 @Service
@@ -18,11 +19,14 @@ public class AccountService {
     private final AccountRepository accountRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService revocationService;
 
-    public AccountService(AccountRepository accountRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public AccountService(AccountRepository accountRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil,
+                          TokenRevocationService revocationService) {
         this.accountRepository = accountRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.revocationService = revocationService;
     }
 
     // backward compatible methods
@@ -39,11 +43,15 @@ public class AccountService {
     }
 
     public Account save(Account account) {
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        if (saved != null && saved.getId() != null) {
+            revocationService.evictAccount(saved.getId());
+        }
+        return saved;
     }
 
     public Account update(UUID id, Account accountDetails) {
-        return accountRepository.findById(id)
+        Account updated = accountRepository.findById(id)
                 .map(account -> {
                     account.setEmail(accountDetails.getEmail());
                     account.setPassword(accountDetails.getPassword());
@@ -53,10 +61,13 @@ public class AccountService {
                     return accountRepository.save(account);
                 })
                 .orElseThrow(() -> new RuntimeException("Account not found with id " + id));
+        revocationService.evictAccount(id);
+        return updated;
     }
 
     public void delete(UUID id) {
         accountRepository.deleteById(id);
+        revocationService.evictAccount(id);
     }
 
     // New convenience methods used by controller
@@ -75,7 +86,10 @@ public class AccountService {
     public Account updateAccountActive(UUID accountId, Boolean isActive) {
         Account account = accountRepository.findById(accountId).orElseThrow(() -> new RuntimeException("Account not found with id " + accountId));
         account.setIsActive(isActive != null ? isActive : false);
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        // Une désactivation doit bloquer les requêtes suivantes sans attendre l'expiration du cache des comptes
+        revocationService.evictAccount(accountId);
+        return saved;
     }
 
     // Attacher ou détacher un user d'un compte
@@ -89,7 +103,9 @@ public class AccountService {
             u.setId(userId);
             account.setUser(u);
         }
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        revocationService.evictAccount(accountId);
+        return saved;
     }
 
     // Search with pagination and filters using Specification
@@ -165,7 +181,10 @@ public class AccountService {
         }
 
         account.setPassword(passwordEncoder.encode(newPassword));
+        // Met fin aux autres sessions du compte
+        account.setTokensValidAfter(OffsetDateTime.now());
         accountRepository.save(account);
+        revocationService.evictAccount(id);
 
         // Invalidate the JWT token provided in the Authorization header, if any
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
@@ -175,7 +194,7 @@ public class AccountService {
     }
 
     // New method for admin to reset a user's password without current password
-    public void resetPasswordByAdmin(UUID id, String newPassword, String authorizationHeader) {
+    public void resetPasswordByAdmin(UUID id, String newPassword) {
         Account account = accountRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Account not found with id " + id));
 
@@ -188,11 +207,9 @@ public class AccountService {
         }
 
         account.setPassword(passwordEncoder.encode(newPassword));
+        // Met fin aux sessions du compte visé (et non à celle de l'administrateur)
+        account.setTokensValidAfter(OffsetDateTime.now());
         accountRepository.save(account);
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            String token = authorizationHeader.substring(7);
-            jwtUtil.invalidateToken(token);
-        }
+        revocationService.evictAccount(id);
     }
 }
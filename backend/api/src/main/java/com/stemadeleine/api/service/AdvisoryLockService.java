@@ -0,0 +1,58 @@
+package com.stemadeleine.api.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * PostgreSQL session advisory locks, used to run a task once at a time across API instances.
+ * <p>
+ * A lock is held by a dedicated connection, outside of any transaction, until {@link #unlock} releases it and
+ * closes the connection. The server releases it on its own if the connection is lost.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdvisoryLockService {
+
+    private final DataSource dataSource;
+
+    /**
+     * Takes the lock of the given key. Returns the connection holding it, or null when it is held elsewhere.
+     */
+    public Connection tryLock(String key) {
+        try {
+            Connection connection = dataSource.getConnection();
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")) {
+                statement.setString(1, key);
+                try (ResultSet result = statement.executeQuery()) {
+                    if (result.next() && result.getBoolean(1)) {
+                        return connection;
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+            connection.close();
+            return null;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Verrou '" + key + "' indisponible", e);
+        }
+    }
+
+    public void unlock(Connection connection, String key) {
+        try (connection; PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+            statement.setString(1, key);
+            statement.execute();
+        } catch (SQLException e) {
+            log.warn("Libération du verrou '{}' impossible", key, e);
+        }
+    }
+}
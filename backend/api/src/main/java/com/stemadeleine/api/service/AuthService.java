@@ -113,6 +113,11 @@ public class AuthService {
         Account account = accountRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        if (jwtUtil.isIssuedBefore(token, account.getTokensValidAfter())) {
+            log.warn("Validation échouée: sessions révoquées pour email {}", email);
+            throw new RuntimeException("Invalid token");
+        }
+
         // Ensure account is active
         if (account.getIsActive() == null || !account.getIsActive()) {
             log.warn("Validation échouée: compte désactivé pour email {}", email);
@@ -8,8 +8,12 @@ import com.stemadeleine.api.model.PublishingStatus;
 import com.stemadeleine.api.model.User;
 import com.stemadeleine.api.repository.ContentRepository;
 import com.stemadeleine.api.repository.MediaRepository;
+import com.stemadeleine.api.repository.ModuleRepository;
+import com.stemadeleine.api.repository.PageRepository;
+import com.stemadeleine.api.repository.SectionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +31,10 @@ public class ContentService {
     private final ContentRepository contentRepository;
     private final MediaRepository mediaRepository;
     private final ObjectMapper objectMapper;
+    private final SectionRepository sectionRepository;
+    private final ModuleRepository moduleRepository;
+    private final PageRepository pageRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Get all contents ordered by sort order
@@ -367,12 +375,37 @@ public class ContentService {
 
         latestVersion.setStatus(status);
         Content savedContent = contentRepository.save(latestVersion);
+        // Le contenu publié de la page propriétaire change : snapshot, index de recherche et caches publics
+        // sont rafraîchis après le commit
+        findOwnerPageId(savedContent.getOwnerId())
+                .ifPresent(pageId -> eventPublisher.publishEvent(new PagesChangedEvent(pageId)));
 
         log.info("Content status successfully updated: contentId={}, id={}, version={}, new status={}",
                 savedContent.getContentId(), savedContent.getId(), savedContent.getVersion(), savedContent.getStatus());
         return savedContent;
     }
 
+    /**
+     * Business id of the page a content belongs to: its owner is a section, a module or the page itself
+     */
+    Optional<UUID> findOwnerPageId(UUID ownerId) {
+        if (ownerId == null) {
+            return Optional.empty();
+        }
+        Optional<UUID> sectionPage = sectionRepository.findTopBySectionIdOrderByVersionDesc(ownerId)
+                .map(section -> section.getPage() != null ? section.getPage().getPageId() : null);
+        if (sectionPage.isPresent()) {
+            return sectionPage;
+        }
+        Optional<UUID> modulePage = moduleRepository.findTopByModuleIdOrderByVersionDesc(ownerId)
+                .map(module -> module.getSection() != null && module.getSection().getPage() != null
+                        ? module.getSection().getPage().getPageId() : null);
+        if (modulePage.isPresent()) {
+            return modulePage;
+        }
+        return pageRepository.findTopByPageIdOrderByVersionDesc(ownerId).map(page -> ownerId);
+    }
+
     /**
      * Create default content body
      */
@@ -3,18 +3,33 @@ package com.stemadeleine.api.service;
 import com.stemadeleine.api.model.Account;
 import com.stemadeleine.api.model.CustomUserDetails;
 import com.stemadeleine.api.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final AccountRepository accountRepository;
+    private final long principalTtlNanos;
+
+    // Comptes résolus pour les requêtes authentifiées par JWT, par email, pendant quelques secondes
+    private final Map<String, CachedPrincipal> principals = new ConcurrentHashMap<>();
+
+    private record CachedPrincipal(CustomUserDetails userDetails, long expiresAtNanos) {
+    }
 
-    public CustomUserDetailsService(AccountRepository accountRepository) {
+    public CustomUserDetailsService(AccountRepository accountRepository,
+                                    @Value("${security.principal-cache.ttl:60s}") Duration principalTtl) {
         this.accountRepository = accountRepository;
+        this.principalTtlNanos = principalTtl.toNanos();
     }
 
     @Override
@@ -23,4 +38,40 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
         return new CustomUserDetails(account);
     }
+
+    /**
+     * Variante de {@link #loadUserByUsername(String)} pour le filtre JWT : le compte est relu au plus une fois
+     * par TTL, les modifications faites par AccountService le retirant immédiatement du cache de chaque instance
+     * (voir {@link TokenRevocationService#evictAccount}). La connexion (vérification du mot de passe) passe
+     * toujours par loadUserByUsername.
+     */
+    public UserDetails loadCachedUserByUsername(String email) throws UsernameNotFoundException {
+        long now = System.nanoTime();
+        CachedPrincipal cached = principals.get(email);
+        if (cached != null && now - cached.expiresAtNanos() < 0) {
+            return cached.userDetails();
+        }
+
+        CustomUserDetails userDetails = (CustomUserDetails) loadUserByUsername(email);
+        if (principalTtlNanos > 0) {
+            principals.values().removeIf(entry -> now - entry.expiresAtNanos() >= 0);
+            principals.put(email, new CachedPrincipal(userDetails, now + principalTtlNanos));
+        }
+        return userDetails;
+    }
+
+    /**
+     * Retire du cache de cette instance le compte donné, quel que soit l'email sous lequel il y a été placé.
+     * Les autres instances sont prévenues par {@link TokenRevocationService#evictAccount}.
+     */
+    public void evict(UUID accountId) {
+        principals.values().removeIf(cached -> accountId.equals(cached.userDetails().account().getId()));
+    }
+
+    /**
+     * Vide le cache, lorsque des modifications de comptes ont pu être manquées
+     */
+    public void evictAll() {
+        principals.clear();
+    }
 }
@@ -0,0 +1,130 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.dto.DonorCohortsDto;
+import com.stemadeleine.api.model.DonorCohort;
+import com.stemadeleine.api.model.DonorCohortSummary;
+import com.stemadeleine.api.repository.DonorCohortRepository;
+import com.stemadeleine.api.repository.DonorCohortSummaryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Donor retention and cohort analytics. The analysis scans every donation and membership, so it runs in a nightly
+ * job that replaces the snapshot tables of V21; the stats endpoint only reads the last snapshot.
+ * <p>
+ * A computation holds a PostgreSQL advisory lock, so that the nightly job scheduled on every instance, or a manual
+ * refresh, runs once at a time across instances.
+ */
+@Slf4j
+@Service
+public class DonorCohortService {
+
+    private static final String LOCK_KEY = "donor-cohorts-refresh";
+    // Un calcul plus récent que ce délai rend inutile celui de la nuit
+    private static final Duration RECENT_REFRESH = Duration.ofHours(1);
+
+    private final DonorCohortRepository cohortRepository;
+    private final DonorCohortSummaryRepository summaryRepository;
+    private final AdvisoryLockService lockService;
+    private final TransactionTemplate transactionTemplate;
+
+    public DonorCohortService(DonorCohortRepository cohortRepository,
+                              DonorCohortSummaryRepository summaryRepository,
+                              AdvisoryLockService lockService,
+                              PlatformTransactionManager transactionManager) {
+        this.cohortRepository = cohortRepository;
+        this.summaryRepository = summaryRepository;
+        this.lockService = lockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Recalcul quotidien après l'import HelloAsso ("-" dans stats.cohorts.cron le désactive)
+     */
+    @Scheduled(cron = "${stats.cohorts.cron:0 30 3 * * *}")
+    public void scheduledRefresh() {
+        // Planifié sur chaque instance : seule celle qui obtient le verrou recalcule, les suivantes trouvent un calcul récent
+        refresh(OffsetDateTime.now().minus(RECENT_REFRESH));
+    }
+
+    /**
+     * Recomputes the cohort snapshots. Returns false when a computation is already running on some instance.
+     */
+    public boolean refresh() {
+        return refresh(null);
+    }
+
+    private boolean refresh(OffsetDateTime skipIfComputedAfter) {
+        Connection lock = lockService.tryLock(LOCK_KEY);
+        if (lock == null) {
+            log.info("Calcul des cohortes de donateurs déjà en cours, ignoré");
+            return false;
+        }
+        try {
+            if (skipIfComputedAfter != null && summaryRepository.findFirstByOrderByComputedAtDesc()
+                    .filter(summary -> summary.getComputedAt().isAfter(skipIfComputedAfter))
+                    .isPresent()) {
+                log.info("Cohortes de donateurs déjà recalculées par une autre instance");
+                return true;
+            }
+            long start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> summaryRepository.refresh());
+            log.info("Cohortes de donateurs recalculées en {} ms", (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } finally {
+            lockService.unlock(lock, LOCK_KEY);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public DonorCohortsDto getCohorts() {
+        Map<Integer, List<DonorCohort>> activityByCohort = cohortRepository.findAllByOrderByIdCohortYearAscIdActivityYearAsc().stream()
+                .collect(Collectors.groupingBy(cohort -> cohort.getId().getCohortYear()));
+        List<DonorCohortSummary> summaries = summaryRepository.findAllByOrderByCohortYearAsc();
+        OffsetDateTime computedAt = summaries.isEmpty() ? null : summaries.get(0).getComputedAt();
+
+        List<DonorCohortsDto.Cohort> cohorts = summaries.stream()
+                .map(summary -> toCohort(summary, activityByCohort.getOrDefault(summary.getCohortYear(), List.of())))
+                .toList();
+        return new DonorCohortsDto(computedAt, cohorts);
+    }
+
+    private DonorCohortsDto.Cohort toCohort(DonorCohortSummary summary, List<DonorCohort> activity) {
+        List<DonorCohortsDto.Retention> retention = activity.stream()
+                .map(year -> new DonorCohortsDto.Retention(
+                        year.getId().getActivityYear(),
+                        year.getDonors(),
+                        ratio(year.getDonors(), summary.getDonors()),
+                        year.getDonations(),
+                        year.getTotalAmount()))
+                .toList();
+        return new DonorCohortsDto.Cohort(
+                summary.getCohortYear(),
+                summary.getDonors(),
+                summary.getRepeatDonors(),
+                ratio(summary.getRepeatDonors(), summary.getDonors()),
+                summary.getLapsedDonors(),
+                summary.getDonations(),
+                summary.getTotalAmount(),
+                ratio(summary.getTotalAmount(), summary.getDonations()),
+                summary.getMembers(),
+                summary.getConvertedMembers(),
+                ratio(summary.getConvertedMembers(), summary.getMembers()),
+                retention);
+    }
+
+    private static double ratio(double value, int total) {
+        return total == 0 ? 0.0 : value / total;
+    }
+}
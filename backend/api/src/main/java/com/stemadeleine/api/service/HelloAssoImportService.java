@@ -1,90 +1,168 @@
 package com.stemadeleine.api.service;
 
+import com.stemadeleine.api.config.HelloAssoProperties;
 import com.stemadeleine.api.dto.HelloAssoFormDto;
 import com.stemadeleine.api.dto.HelloAssoMembershipItemDto;
+import com.stemadeleine.api.dto.HelloAssoPage;
 import com.stemadeleine.api.dto.HelloAssoPaymentDto;
 import com.stemadeleine.api.model.*;
 import com.stemadeleine.api.repository.*;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class HelloAssoImportService {
+    // Formulaire d'adhésion de l'association
+    public static final String MEMBERSHIP_FORM_SLUG = "formulaire-d-adhesion";
+
     private final HelloAssoService helloAssoService;
+    private final HelloAssoProperties properties;
     private final UserRepository userRepository;
     private final AddressRepository addressRepository;
     private final MembershipRepository membershipRepository;
     private final CampaignRepository campaignRepository;
     private final PaymentRepository paymentRepository;
+    private final HelloAssoSyncCheckpointRepository checkpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    // Les imports parallèles d'adhésions et de paiements créent des adhérents : leurs lots sont écrits l'un après
+    // l'autre pour qu'un payeur présent dans deux imports ne soit créé qu'une fois (la lecture HelloAsso reste parallèle)
+    private final ReentrantLock payerLock = new ReentrantLock();
 
-    @Transactional
+    /**
+     * Les adhésions sont lues page par page et importées par lots de taille fixe, une transaction par lot :
+     * la mémoire utilisée ne dépend pas du nombre d'adhésions du formulaire.
+     */
     public void importMembershipUsers(String orgSlug, String formSlug) {
         log.info("Début de l'import HelloAsso pour orgSlug='{}', formSlug='{}'", orgSlug, formSlug);
-        List<HelloAssoMembershipItemDto> items = helloAssoService.getMembershipItems(orgSlug, formSlug).block();
-        if (items == null) {
-            log.warn("Aucun item récupéré depuis HelloAsso pour orgSlug='{}', formSlug='{}'", orgSlug, formSlug);
-            return;
-        }
+        long start = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
         int ajout = 0, ignores = 0, incomplets = 0;
-        for (HelloAssoMembershipItemDto item : items) {
-            User user = mapToUser(item);
-            user = userRepository.save(user);
-            userRepository.flush();
-            log.info("user.getId() avant création adresse : {}", user.getId());
-            Address address = mapToAddress(item);
-            if (address != null) {
+        for (List<HelloAssoMembershipItemDto> batch : helloAssoService.getMembershipItems(orgSlug, formSlug)
+                .buffer(properties.getImportBatchSize())
+                .toIterable(1)) {
+            Integer added = withPayerLock(() -> transaction.execute(status -> {
+                int count = importMembershipBatch(batch);
+                flushAndClear();
+                return count;
+            }));
+            ajout += added != null ? added : 0;
+            ignores += batch.size() - (added != null ? added : 0);
+        }
+        log.info("Import terminé: {} ajout(s), {} ignoré(s), {} incomplet(s)", ajout, ignores, incomplets);
+        logThroughput("Import des adhésions", ajout + ignores, start);
+    }
+
+    /**
+     * Un lot d'adhésions coûte une requête par type d'entité : les adhérents déjà connus (nom, prénom, email),
+     * leurs adresses et leurs adhésions de l'année sont chargés d'un coup, puis les manquants créés ensemble.
+     * Renvoie le nombre d'adhésions créées.
+     */
+    private int importMembershipBatch(List<HelloAssoMembershipItemDto> items) {
+        List<User> candidates = items.stream().map(this::mapToUser).toList();
+        Map<String, User> usersByKey = findUsersByPayerKey(candidates.stream().map(User::getEmail).toList());
+        Set<UUID> existingUserIds = usersByKey.values().stream().map(User::getId).collect(Collectors.toSet());
+        List<User> newUsers = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (User candidate : candidates) {
+            users.add(usersByKey.computeIfAbsent(payerKey(candidate.getFirstname(), candidate.getLastname(), candidate.getEmail()), key -> {
+                newUsers.add(candidate);
+                return candidate;
+            }));
+        }
+        // L'identifiant UUID est attribué à la persistance, sans flush : les inserts partent avec le lot
+        userRepository.saveAll(newUsers);
+
+        List<Address> candidateAddresses = items.stream().map(this::mapToAddress).toList();
+        Map<String, Address> addressesByKey = findAddressesByKey(candidateAddresses.stream().filter(Objects::nonNull).toList());
+        List<Address> newAddresses = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            Address address = candidateAddresses.get(i);
+            if (address == null) {
+                continue;
+            }
+            User user = users.get(i);
+            addressesByKey.computeIfAbsent(addressKey(address), key -> {
                 if (address.getName() == null || address.getName().isEmpty()) {
                     address.setName("Principal");
                 }
                 address.setOwnerId(user.getId());
                 address.setOwnerType("USER");
-                log.info("ownerId renseigné dans l'adresse : {}", address.getOwnerId());
-                address = addressRepository.save(address);
-                log.warn("TEST LOG WARN : userId={}, ownerId={} (doit s'afficher)", user.getId(), address != null ? address.getOwnerId() : null);
-                if (user.getAddresses() == null) user.setAddresses(new java.util.ArrayList<>());
-                user.getAddresses().add(address);
-                user = userRepository.save(user);
-            }
-            int currentYear = java.time.LocalDate.now().getYear();
-            final java.util.UUID userId = user.getId();
-            boolean existsMembership = membershipRepository.findAll().stream()
-                    .anyMatch(m -> m.getUser().getId().equals(userId) && m.getDateFin() != null && m.getDateFin().getYear() == currentYear);
-            if (existsMembership) {
-                log.info("Adhésion ignorée (déjà existante pour l'année en cours): {} {}", user.getFirstname(), user.getLastname());
-                ignores++;
+                newAddresses.add(address);
+                // Lien users_addresses pour les seuls nouveaux adhérents : pas de chargement de collection par utilisateur
+                if (!existingUserIds.contains(user.getId())) {
+                    if (user.getAddresses() == null) user.setAddresses(new ArrayList<>());
+                    user.getAddresses().add(address);
+                }
+                return address;
+            });
+        }
+        addressRepository.saveAll(newAddresses);
+
+        int currentYear = LocalDate.now().getYear();
+        LocalDate endOfYear = LocalDate.of(currentYear, 12, 31);
+        Set<UUID> withMembership = existingUserIds.isEmpty() ? new HashSet<>() : new HashSet<>(
+                membershipRepository.findUserIdsWithMembershipEndingBetween(existingUserIds, LocalDate.of(currentYear, 1, 1), endOfYear));
+        List<Membership> memberships = new ArrayList<>();
+        for (User user : users) {
+            if (!withMembership.add(user.getId())) {
+                log.debug("Adhésion ignorée (déjà existante pour l'année en cours): {} {}", user.getFirstname(), user.getLastname());
                 continue;
             }
-            Membership membership = Membership.builder()
+            memberships.add(Membership.builder()
                     .user(user)
-                    .dateAdhesion(java.time.LocalDate.now())
+                    .dateAdhesion(LocalDate.now())
                     .active(true)
-                    .dateFin(java.time.LocalDate.of(currentYear, 12, 31))
-                    .build();
-            membershipRepository.save(membership);
-            log.info("Nouvel utilisateur ajouté: {} {}", user.getFirstname(), user.getLastname());
-            ajout++;
+                    .dateFin(endOfYear)
+                    .build());
         }
-        log.info("Import terminé: {} ajout(s), {} ignoré(s), {} incomplet(s)", ajout, ignores, incomplets);
+        membershipRepository.saveAll(memberships);
+        log.debug("Lot d'adhésions : {} adhérent(s) créé(s), {} adresse(s), {} adhésion(s)", newUsers.size(), newAddresses.size(), memberships.size());
+        return memberships.size();
     }
 
     /**
-     * Importation automatique quotidienne à 3h du matin.
-     * Remplacez les slugs par ceux de votre organisation et formulaire HelloAsso.
+     * Envoie les inserts du lot en batchs JDBC (hibernate.jdbc.batch_size) puis vide le contexte de persistance :
+     * avec open-in-view, il serait sinon partagé par tous les lots d'un import déclenché par une requête HTTP.
      */
-    @Scheduled(cron = "0 0 3 * * *") // Tous les jours à 3h du matin
-    public void scheduledImport() {
-        String orgSlug = "les-amis-de-sainte-madeleine-de-la-jarrie";
-        importMembershipUsers(orgSlug, "formulaire-d-adhesion");
-        importCampaigns(orgSlug);
-        importPayments(orgSlug);
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Le verrou couvre la transaction entière, commit compris : le lot suivant voit les adhérents créés
+     */
+    private <T> T withPayerLock(Supplier<T> batch) {
+        payerLock.lock();
+        try {
+            return batch.get();
+        } finally {
+            payerLock.unlock();
+        }
+    }
+
+    private static void logThroughput(String label, int items, long startNanos) {
+        long elapsedMs = Math.max((System.nanoTime() - startNanos) / 1_000_000, 1);
+        log.info("{} : {} élément(s) en {} ms ({} éléments/s)", label, items, elapsedMs, items * 1000L / elapsedMs);
     }
 
     private User mapToUser(HelloAssoMembershipItemDto item) {
@@ -159,96 +237,180 @@ public class HelloAssoImportService {
         return value.trim().equalsIgnoreCase("oui") || value.trim().equalsIgnoreCase("yes");
     }
 
-    @Transactional
     public void importCampaigns(String orgSlug) {
         log.info("Début de l'import des campagnes HelloAsso pour orgSlug='{}'", orgSlug);
-        List<HelloAssoFormDto> forms = helloAssoService.getForms(orgSlug).block();
-        log.info("Formulaires HelloAsso récupérés : {}", forms != null ? forms.stream().map(HelloAssoFormDto::getFormSlug).toList() : "Aucun");
-        if (forms == null) {
-            log.warn("Aucun formulaire récupéré depuis HelloAsso pour orgSlug='{}'", orgSlug);
-            return;
-        }
+        long start = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
         int ajout = 0, maj = 0;
-        for (HelloAssoFormDto form : forms) {
-            String formSlug = form.getFormSlug();
-            Campaign campaign = campaignRepository.findByFormSlug(formSlug)
-                    .orElse(null);
-            boolean isNew = (campaign == null);
-            if (isNew) {
-                campaign = Campaign.builder().formSlug(formSlug).build();
-                ajout++;
-            } else {
-                if (campaign.getFormSlug() == null || campaign.getFormSlug().isBlank()) {
-                    campaign.setFormSlug(formSlug);
+        for (List<HelloAssoFormDto> batch : helloAssoService.getForms(orgSlug)
+                .buffer(properties.getImportBatchSize())
+                .toIterable(1)) {
+            log.debug("Formulaires HelloAsso récupérés : {}", batch.stream().map(HelloAssoFormDto::getFormSlug).toList());
+            Integer added = transaction.execute(status -> {
+                int count = 0;
+                for (HelloAssoFormDto form : batch) {
+                    if (importCampaign(form)) {
+                        count++;
+                    }
                 }
-                maj++;
-            }
-            campaign.setTitle(form.getTitle());
-            campaign.setDescription(form.getDescription());
-            campaign.setUrl(form.getUrl());
-            campaign.setFormType(form.getFormType());
-            campaign.setState(form.getState());
-            campaign.setCurrency(form.getCurrency());
-            campaignRepository.save(campaign);
+                flushAndClear();
+                return count;
+            });
+            ajout += added != null ? added : 0;
+            maj += batch.size() - (added != null ? added : 0);
         }
         log.info("Import des campagnes terminé: {} ajout(s), {} mise(s) à jour", ajout, maj);
+        logThroughput("Import des campagnes", ajout + maj, start);
     }
 
-    @Transactional
+    /**
+     * Renvoie true si la campagne a été créée, false si elle a été mise à jour
+     */
+    private boolean importCampaign(HelloAssoFormDto form) {
+        String formSlug = form.getFormSlug();
+        Campaign campaign = campaignRepository.findByFormSlug(formSlug)
+                .orElse(null);
+        boolean isNew = (campaign == null);
+        if (isNew) {
+            campaign = Campaign.builder().formSlug(formSlug).build();
+        } else {
+            if (campaign.getFormSlug() == null || campaign.getFormSlug().isBlank()) {
+                campaign.setFormSlug(formSlug);
+            }
+        }
+        campaign.setTitle(form.getTitle());
+        campaign.setDescription(form.getDescription());
+        campaign.setUrl(form.getUrl());
+        campaign.setFormType(form.getFormType());
+        campaign.setState(form.getState());
+        campaign.setCurrency(form.getCurrency());
+        campaignRepository.save(campaign);
+        return isNew;
+    }
+
+    /**
+     * Synchronisation incrémentale des paiements : seuls les paiements postérieurs au point de reprise sont demandés
+     * (filtre "from" de HelloAsso, du plus ancien au plus récent). Chaque page forme un lot importé dans sa propre
+     * transaction avec la mise à jour du point de reprise, si bien qu'un import interrompu reprend à la page suivante.
+     */
     public void importPayments(String orgSlug) {
         log.info("Début de l'import des paiements HelloAsso pour orgSlug='{}'", orgSlug);
-        List<HelloAssoPaymentDto> payments = helloAssoService.getPayments(orgSlug).block();
-        log.info("Paiements HelloAsso récupérés : {}", payments != null ? payments.stream().map(HelloAssoPaymentDto::getPaymentId).toList() : "Aucun");
-        if (payments == null) {
-            log.warn("Aucun paiement récupéré depuis HelloAsso pour orgSlug='{}'", orgSlug);
-            return;
+        HelloAssoSyncCheckpoint checkpoint = checkpointRepository.findByOrgSlugAndResource(orgSlug, HelloAssoSyncCheckpoint.PAYMENTS)
+                .orElseGet(() -> initialPaymentsCheckpoint(orgSlug));
+        OffsetDateTime from = checkpoint.getLastItemDate();
+        String continuationToken = checkpoint.getContinuationToken();
+        log.info("Paiements HelloAsso demandés depuis {} (reprise d'un import interrompu : {})", from, continuationToken != null);
+
+        long start = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        OffsetDateTime lastItemDate = from;
+        int ajout = 0, ignores = 0, pages = 0;
+        // L'erreur de lecture est mise de côté jusqu'à la fin de la boucle : sinon l'itérateur la lève dès son arrivée
+        // et la page déjà reçue, avec son jeton de continuation, ne serait jamais importée
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (HelloAssoPage<HelloAssoPaymentDto> page : helloAssoService.getPaymentPages(orgSlug, from, continuationToken)
+                .onErrorResume(e -> {
+                    failure.set(e);
+                    return Flux.empty();
+                })
+                .toIterable(1)) {
+            for (HelloAssoPaymentDto dto : page.items()) {
+                if (dto.getPaymentDateTime() != null && (lastItemDate == null || dto.getPaymentDateTime().isAfter(lastItemDate))) {
+                    lastItemDate = dto.getPaymentDateTime();
+                }
+            }
+            final OffsetDateTime runLastItemDate = lastItemDate;
+            Integer added = withPayerLock(() -> transaction.execute(status -> importPaymentsPage(page, checkpoint, runLastItemDate)));
+            ajout += added != null ? added : 0;
+            ignores += page.items().size() - (added != null ? added : 0);
+            pages++;
+        }
+        if (failure.get() != null) {
+            log.error("Import des paiements interrompu après {} page(s), reprise au jeton {}", pages, checkpoint.getContinuationToken());
+            throw Exceptions.propagate(failure.get());
+        }
+        log.info("Import des paiements terminé: {} ajout(s), {} ignoré(s), {} page(s), point de reprise au {}", ajout, ignores, pages, lastItemDate);
+        logThroughput("Import des paiements", ajout + ignores, start);
+    }
+
+    /**
+     * Importe une page et avance le point de reprise dans la même transaction. La date "from" n'avance qu'une fois
+     * la liste épuisée : jusque-là, le jeton de continuation appartient à la requête qui l'a produit.
+     */
+    private int importPaymentsPage(HelloAssoPage<HelloAssoPaymentDto> page, HelloAssoSyncCheckpoint checkpoint, OffsetDateTime lastItemDate) {
+        // Une seule requête IN par page pour écarter les paiements déjà importés
+        List<String> pageIds = page.items().stream()
+                .map(HelloAssoPaymentDto::getPaymentId)
+                .filter(Objects::nonNull)
+                .toList();
+        Set<String> knownIds = pageIds.isEmpty() ? new HashSet<>() : new HashSet<>(paymentRepository.findExistingHelloAssoPaymentIds(pageIds));
+        List<HelloAssoPaymentDto> newPayments = page.items().stream()
+                .filter(dto -> dto.getPaymentId() != null && knownIds.add(dto.getPaymentId()))
+                .toList();
+        if (!newPayments.isEmpty()) {
+            importNewPayments(newPayments);
+        }
+        checkpoint.setContinuationToken(page.continuationToken());
+        if (page.continuationToken() == null) {
+            checkpoint.setLastItemDate(lastItemDate);
         }
-        int ajout = 0, ignores = 0;
+        checkpoint.setUpdatedAt(OffsetDateTime.now());
+        checkpointRepository.save(checkpoint);
+        flushAndClear();
+        return newPayments.size();
+    }
+
+    /**
+     * Premier passage pour une organisation : les paiements déjà importés avant l'existence des points de reprise
+     * ne sont pas redemandés. Leur date n'a ni heure ni fuseau, on repart donc de la veille.
+     */
+    private HelloAssoSyncCheckpoint initialPaymentsCheckpoint(String orgSlug) {
+        LocalDate latest = paymentRepository.findLatestHelloAssoPaymentDate();
+        return HelloAssoSyncCheckpoint.builder()
+                .orgSlug(orgSlug)
+                .resource(HelloAssoSyncCheckpoint.PAYMENTS)
+                .lastItemDate(latest != null ? latest.minusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC) : null)
+                .build();
+    }
+
+    /**
+     * Les payeurs et leurs adresses sont résolus en une requête par type d'entité, les manquants créés ensemble,
+     * puis les paiements du lot : le coût dépend du nombre de lots, pas du nombre de paiements.
+     */
+    private void importNewPayments(List<HelloAssoPaymentDto> payments) {
+        Map<String, User> usersByKey = findUsersByPayerKey(payments.stream().map(HelloAssoPaymentDto::getPayerEmail).toList());
+        List<User> newUsers = new ArrayList<>();
         for (HelloAssoPaymentDto dto : payments) {
-            // Recherche du User
-            User user = userRepository.findByFirstnameIgnoreCaseAndLastnameIgnoreCaseAndEmailIgnoreCase(
-                    dto.getPayerFirstname(), dto.getPayerLastname(), dto.getPayerEmail()
-            ).orElse(null);
-            if (user == null) {
+            usersByKey.computeIfAbsent(payerKey(dto.getPayerFirstname(), dto.getPayerLastname(), dto.getPayerEmail()), key -> {
                 // Création du User si non trouvé
-                user = User.builder()
+                User user = User.builder()
                         .firstname(dto.getPayerFirstname())
                         .lastname(dto.getPayerLastname())
                         .email(dto.getPayerEmail())
                         .birthDate(dto.getPayerBirthDate())
                         .build();
-                user = userRepository.save(user);
-            }
-            Address address = null;
-            if (dto.getPayerAddressLine1() != null && dto.getPayerCity() != null && dto.getPayerPostCode() != null) {
-                address = Address.builder()
-                        .addressLine1(dto.getPayerAddressLine1())
-                        .addressLine2(dto.getPayerAddressLine2())
-                        .city(dto.getPayerCity())
-                        .state(dto.getPayerState())
-                        .postCode(dto.getPayerPostCode())
-                        .country(dto.getPayerCountry() != null ? dto.getPayerCountry() : "FRA")
-                        .name("Principal")
-                        .build();
-                address.setOwnerId(user.getId());
-                address.setOwnerType("USER");
-                log.warn("[PAYMENT] Création adresse : userId={}, ownerId={}", user.getId(), address.getOwnerId());
-                Address existingAddress = addressRepository.findByAddressLine1AndCityAndPostCodeAndCountry(
-                        address.getAddressLine1(), address.getCity(), address.getPostCode(), address.getCountry()
-                ).orElse(null);
-                if (existingAddress == null) {
-                    address = addressRepository.save(address);
-                    addressRepository.flush();
-                } else {
-                    address = existingAddress;
-                }
-                user = userRepository.save(user);
-            }
-            boolean exists = paymentRepository.findAll().stream()
-                    .anyMatch(p -> p.getHelloAssoPaymentId() != null && p.getHelloAssoPaymentId().equals(dto.getPaymentId()));
-            if (exists) {
-                ignores++;
-                continue;
+                newUsers.add(user);
+                return user;
+            });
+        }
+        userRepository.saveAll(newUsers);
+
+        List<Address> candidateAddresses = payments.stream().map(this::mapToAddress).toList();
+        Map<String, Address> addressesByKey = findAddressesByKey(candidateAddresses.stream().filter(Objects::nonNull).toList());
+        List<Address> newAddresses = new ArrayList<>();
+        List<Payment> newPayments = new ArrayList<>();
+        for (int i = 0; i < payments.size(); i++) {
+            HelloAssoPaymentDto dto = payments.get(i);
+            User user = usersByKey.get(payerKey(dto.getPayerFirstname(), dto.getPayerLastname(), dto.getPayerEmail()));
+            Address address = candidateAddresses.get(i);
+            if (address != null) {
+                addressesByKey.computeIfAbsent(addressKey(address), key -> {
+                    address.setOwnerId(user.getId());
+                    address.setOwnerType("USER");
+                    log.debug("[PAYMENT] Création adresse : userId={}, ownerId={}", user.getId(), address.getOwnerId());
+                    newAddresses.add(address);
+                    return address;
+                });
             }
             Payment payment = new Payment();
             payment.setHelloAssoPaymentId(dto.getPaymentId());
@@ -260,9 +422,67 @@ public class HelloAssoImportService {
             payment.setFormSlug(dto.getFormSlug());
             payment.setType(dto.getType());
             payment.setReceiptUrl(dto.getReceiptUrl());
-            paymentRepository.save(payment);
-            ajout++;
+            newPayments.add(payment);
+        }
+        addressRepository.saveAll(newAddresses);
+        paymentRepository.saveAll(newPayments);
+        log.debug("Lot de paiements : {} payeur(s) créé(s), {} adresse(s), {} paiement(s)", newUsers.size(), newAddresses.size(), newPayments.size());
+    }
+
+    private Address mapToAddress(HelloAssoPaymentDto dto) {
+        if (dto.getPayerAddressLine1() == null || dto.getPayerCity() == null || dto.getPayerPostCode() == null) {
+            return null;
         }
-        log.info("Import des paiements terminé: {} ajout(s), {} ignoré(s)", ajout, ignores);
+        return Address.builder()
+                .addressLine1(dto.getPayerAddressLine1())
+                .addressLine2(dto.getPayerAddressLine2())
+                .city(dto.getPayerCity())
+                .state(dto.getPayerState())
+                .postCode(dto.getPayerPostCode())
+                .country(dto.getPayerCountry() != null ? dto.getPayerCountry() : "FRA")
+                .name("Principal")
+                .build();
+    }
+
+    /**
+     * Utilisateurs existants des emails donnés, indexés par nom, prénom et email (sans tenir compte de la casse)
+     */
+    private Map<String, User> findUsersByPayerKey(Collection<String> emails) {
+        Set<String> lowerEmails = emails.stream()
+                .filter(Objects::nonNull)
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        Map<String, User> usersByKey = new HashMap<>();
+        if (!lowerEmails.isEmpty()) {
+            userRepository.findByLowerEmailIn(lowerEmails)
+                    .forEach(user -> usersByKey.putIfAbsent(payerKey(user.getFirstname(), user.getLastname(), user.getEmail()), user));
+        }
+        return usersByKey;
+    }
+
+    /**
+     * Adresses existantes identiques (ligne 1, ville, code postal, pays) à celles données
+     */
+    private Map<String, Address> findAddressesByKey(Collection<Address> addresses) {
+        Map<String, Address> addressesByKey = new HashMap<>();
+        if (!addresses.isEmpty()) {
+            addressRepository.findByPostCodeInAndCityIn(
+                            addresses.stream().map(Address::getPostCode).collect(Collectors.toSet()),
+                            addresses.stream().map(Address::getCity).collect(Collectors.toSet()))
+                    .forEach(address -> addressesByKey.putIfAbsent(addressKey(address), address));
+        }
+        return addressesByKey;
+    }
+
+    private static String payerKey(String firstname, String lastname, String email) {
+        return normalize(firstname) + '|' + normalize(lastname) + '|' + normalize(email);
+    }
+
+    private static String addressKey(Address address) {
+        return address.getAddressLine1() + '|' + address.getCity() + '|' + address.getPostCode() + '|' + address.getCountry();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
     }
 }
@@ -0,0 +1,52 @@
+package com.stemadeleine.api.service;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Token bucket shared by every HelloAsso request of the instance: up to {@code burst} requests go out at once,
+ * then {@code requestsPerSecond}. A request that finds the bucket empty reserves the next token and waits for it
+ * without holding a thread.
+ */
+class HelloAssoRateLimiter {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    HelloAssoRateLimiter(double requestsPerSecond, int burst) {
+        if (requestsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Débit HelloAsso invalide : " + requestsPerSecond + " requête(s)/s, rafale de " + burst);
+        }
+        this.tokensPerNano = requestsPerSecond / 1_000_000_000d;
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Completes once the request may be sent; the token is reserved at subscription, so a retried request
+     * takes a new one
+     */
+    Mono<Void> acquire() {
+        return Mono.defer(() -> {
+            Duration wait = reserve(System.nanoTime());
+            return wait.isZero() ? Mono.empty() : Mono.delay(wait).then();
+        });
+    }
+
+    /**
+     * Takes a token and returns how long to wait before it is available. The balance may go negative:
+     * the waiting requests are then served in order, one token interval apart.
+     */
+    synchronized Duration reserve(long nowNanos) {
+        if (nowNanos > lastRefillNanos) {
+            tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+        tokens -= 1;
+        return tokens >= 0 ? Duration.ZERO : Duration.ofNanos((long) Math.ceil(-tokens / tokensPerNano));
+    }
+}
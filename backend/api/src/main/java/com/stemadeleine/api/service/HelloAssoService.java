@@ -3,54 +3,112 @@ package com.stemadeleine.api.service;
 import com.stemadeleine.api.config.HelloAssoProperties;
 import com.stemadeleine.api.dto.HelloAssoFormDto;
 import com.stemadeleine.api.dto.HelloAssoMembershipItemDto;
+import com.stemadeleine.api.dto.HelloAssoPage;
 import com.stemadeleine.api.dto.HelloAssoPaymentDto;
 import com.stemadeleine.api.model.PaymentStatus;
 import com.stemadeleine.api.model.PaymentType;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
+/**
+ * Client of the HelloAsso API. The WebClient is shared by every import running in parallel: its connections are
+ * pooled, requests go through a token bucket (see {@link HelloAssoRateLimiter}), 429 and 5xx responses are retried
+ * with exponential backoff, and concurrent callers share a single OAuth token refresh.
+ */
 @Slf4j
 @Service
 public class HelloAssoService {
     private final HelloAssoProperties properties;
+    private final ConnectionProvider connectionProvider;
     private final WebClient webClient;
+    private final HelloAssoRateLimiter rateLimiter;
 
     // Ajout du cache pour le token et son expiration
     private final AtomicReference<String> accessTokenCache = new AtomicReference<>(null);
     private final AtomicReference<Instant> accessTokenExpiry = new AtomicReference<>(Instant.EPOCH);
+    // Renouvellement du token en cours, partagé par les appelants concurrents
+    private Mono<String> tokenRefresh;
 
     @Autowired
     public HelloAssoService(HelloAssoProperties properties) {
         this.properties = properties;
+        this.connectionProvider = ConnectionProvider.builder("helloasso")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireTimeout(Duration.ofSeconds(60))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .evictInBackground(Duration.ofSeconds(60))
+                .build();
         this.webClient = WebClient.builder()
                 .baseUrl(properties.getApiUrl())
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)
+                        .responseTimeout(properties.getResponseTimeout())))
                 .build();
+        this.rateLimiter = new HelloAssoRateLimiter(properties.getRequestsPerSecond(), properties.getBurst());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        connectionProvider.dispose();
     }
 
+    /**
+     * Token OAuth mis en cache jusqu'à 30 s avant son expiration. Quand il doit être renouvelé, une seule requête
+     * part : les appelants concurrents attendent son résultat.
+     */
     public Mono<String> getAccessToken() {
-        Instant now = Instant.now();
-        String cachedToken = accessTokenCache.get();
-        Instant expiry = accessTokenExpiry.get();
-        if (cachedToken != null && now.isBefore(expiry)) {
-            return Mono.just(cachedToken);
+        return Mono.defer(() -> {
+            String cachedToken = accessTokenCache.get();
+            if (cachedToken != null && Instant.now().isBefore(accessTokenExpiry.get())) {
+                return Mono.just(cachedToken);
+            }
+            return sharedTokenRefresh();
+        });
+    }
+
+    private synchronized Mono<String> sharedTokenRefresh() {
+        if (tokenRefresh == null) {
+            tokenRefresh = requestAccessToken()
+                    .doFinally(signal -> clearTokenRefresh())
+                    .cache();
         }
-        return webClient.post()
+        return tokenRefresh;
+    }
+
+    private synchronized void clearTokenRefresh() {
+        tokenRefresh = null;
+    }
+
+    private Mono<String> requestAccessToken() {
+        return send("token", webClient.post()
                 .uri("/oauth2/token")
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                 .bodyValue("grant_type=client_credentials&client_id=" + properties.getClientId() +
                         "&client_secret=" + properties.getClientSecret() + "&scope=api")
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToMono(Map.class))
                 .map(body -> {
                     String token = (String) body.get("access_token");
                     Object expiresInObj = body.get("expires_in");
@@ -69,262 +127,240 @@ public class HelloAssoService {
                 });
     }
 
+    /**
+     * Sends a request through the rate limiter, retrying 429, 5xx and connection errors with exponential backoff
+     * and jitter. Each attempt takes a new token from the bucket.
+     */
+    private <T> Mono<T> send(String resource, Mono<T> request) {
+        return rateLimiter.acquire()
+                .then(request)
+                .retryWhen(Retry.backoff(properties.getMaxRetries(), properties.getRetryMinBackoff())
+                        .filter(HelloAssoService::isRetryable)
+                        .doBeforeRetry(signal -> log.warn("Requête HelloAsso ({}) en échec, nouvel essai {} : {}",
+                                resource, signal.totalRetries() + 1, signal.failure().getMessage()))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException responseError) {
+            return responseError.getStatusCode().value() == 429 || responseError.getStatusCode().is5xxServerError();
+        }
+        return error instanceof WebClientRequestException;
+    }
+
     public Mono<Map<String, Object>> getOrganizationInfo(String orgSlug) {
         return getAccessToken().flatMap(token ->
-                webClient.get()
+                send("organization", webClient.get()
                         .uri("/v5/organizations/" + orgSlug)
                         .header("Authorization", "Bearer " + token)
                         .retrieve()
-                        .bodyToMono(Map.class)
+                        .bodyToMono(Map.class))
                         .map(body -> (Map<String, Object>) body)
         );
     }
 
-    public Mono<List<HelloAssoMembershipItemDto>> getMembershipItems(String orgSlug, String formSlug) {
-        return getMembershipItemsPaginated(orgSlug, formSlug, null, List.of());
+    /**
+     * Adhésions d'un formulaire, émises page par page : une page n'est demandée que lorsque la précédente
+     * a été consommée.
+     */
+    public Flux<HelloAssoMembershipItemDto> getMembershipItems(String orgSlug, String formSlug) {
+        return paginate(null, continuationToken -> fetchPage("membership items",
+                uriBuilder -> uriBuilder.path("/v5/organizations/{orgSlug}/forms/membership/{formSlug}/items"),
+                Map.of("orgSlug", orgSlug, "formSlug", formSlug), continuationToken, this::toMembershipItemDto))
+                .concatMapIterable(HelloAssoPage::items, 1);
     }
 
-    private Mono<List<HelloAssoMembershipItemDto>> getMembershipItemsPaginated(String orgSlug, String formSlug, String continuationToken, List<HelloAssoMembershipItemDto> accumulated) {
-        final String uri = continuationToken == null
-                ? "/v5/organizations/" + orgSlug + "/forms/membership/" + formSlug + "/items"
-                : "/v5/organizations/" + orgSlug + "/forms/membership/" + formSlug + "/items?continuationtoken=" + continuationToken;
-        return getAccessToken().flatMap(token ->
-                webClient.get()
-                        .uri(uri)
-                        .header("Authorization", "Bearer " + token)
-                        .retrieve()
-                        .bodyToMono(Map.class)
-                        .flatMap(body -> {
-                            log.info("Réponse brute HelloAsso (membership items): {}", body);
-                            Object dataObj = body.get("data");
-                            log.info("Contenu de data (membership): {}", dataObj);
-                            List<HelloAssoMembershipItemDto> pageItems = List.of();
-                            if (dataObj instanceof List<?> dataList) {
-                                pageItems = dataList.stream().map(item -> {
-                                    Map<String, Object> itemMap = (Map<String, Object>) item;
-                                    HelloAssoMembershipItemDto dto = new HelloAssoMembershipItemDto();
-                                    dto.setId(itemMap.get("id") != null ? Long.valueOf(String.valueOf(itemMap.get("id"))) : null);
-                                    Map<String, Object> payerMap = (Map<String, Object>) itemMap.get("payer");
-                                    if (payerMap != null) {
-                                        HelloAssoMembershipItemDto.Payer payer = new HelloAssoMembershipItemDto.Payer();
-                                        payer.setFirstName(String.valueOf(payerMap.get("firstName")));
-                                        payer.setLastName(String.valueOf(payerMap.get("lastName")));
-                                        payer.setEmail(String.valueOf(payerMap.get("email")));
-                                        dto.setPayer(payer);
-                                    }
-                                    Object answersObj = itemMap.get("answers");
-                                    if (answersObj instanceof List<?> answersList) {
-                                        List<HelloAssoMembershipItemDto.Answer> answers = answersList.stream().map(answer -> {
-                                            Map<String, Object> answerMap = (Map<String, Object>) answer;
-                                            HelloAssoMembershipItemDto.Answer ans = new HelloAssoMembershipItemDto.Answer();
-                                            ans.setName(String.valueOf(answerMap.get("name")));
-                                            ans.setValue(String.valueOf(answerMap.get("value")));
-                                            return ans;
-                                        }).toList();
-                                        dto.setAnswers(answers);
-                                    }
-                                    return dto;
-                                }).toList();
-                            }
-                            List<HelloAssoMembershipItemDto> allItems = new java.util.ArrayList<>(accumulated);
-                            allItems.addAll(pageItems);
-                            String nextToken = null;
-                            Object paginationObj = body.get("pagination");
-                            if (paginationObj instanceof Map<?, ?> paginationMap) {
-                                Object tokenObj = paginationMap.get("continuationToken");
-                                if (tokenObj != null && !String.valueOf(tokenObj).isEmpty()) {
-                                    nextToken = String.valueOf(tokenObj);
-                                }
-                            }
-                            if (nextToken != null) {
-                                return getMembershipItemsPaginated(orgSlug, formSlug, nextToken, allItems);
-                            } else {
-                                return Mono.just(allItems);
-                            }
-                        })
-        );
+    /**
+     * Formulaires de don de l'organisation, émis page par page
+     */
+    public Flux<HelloAssoFormDto> getForms(String orgSlug) {
+        return paginate(null, continuationToken -> fetchPage("donation forms",
+                uriBuilder -> uriBuilder.path("/v5/organizations/{orgSlug}/forms").queryParam("type", "Donation"),
+                Map.of("orgSlug", orgSlug), continuationToken, this::toFormDto))
+                .concatMapIterable(HelloAssoPage::items, 1);
     }
 
-    public Mono<List<HelloAssoFormDto>> getForms(String orgSlug) {
-        return getFormsPaginated(orgSlug, null, List.of());
+    /**
+     * Payments page by page, oldest first, optionally restricted to payments made since {@code from}.
+     * The pages keep their continuation token so that the importer can checkpoint each committed page; a run
+     * interrupted at a given page resumes from its token.
+     */
+    public Flux<HelloAssoPage<HelloAssoPaymentDto>> getPaymentPages(String orgSlug, OffsetDateTime from, String continuationToken) {
+        return paginate(continuationToken, token -> getPaymentsPage(orgSlug, from, token));
     }
 
-    private Mono<List<HelloAssoFormDto>> getFormsPaginated(String orgSlug, String continuationToken, List<HelloAssoFormDto> accumulated) {
-        final String uri = continuationToken == null
-                ? "/v5/organizations/" + orgSlug + "/forms?type=Donation"
-                : "/v5/organizations/" + orgSlug + "/forms?type=Donation&continuationtoken=" + continuationToken;
-        return getAccessToken().flatMap(token ->
-                webClient.get()
-                        .uri(uri)
-                        .header("Authorization", "Bearer " + token)
-                        .retrieve()
-                        .bodyToMono(Map.class)
-                        .flatMap(body -> {
-                            log.info("Réponse brute HelloAsso (donation forms): {}", body);
-                            Object dataObj = body.get("data");
-                            log.info("Contenu de data (forms): {}", dataObj);
-                            List<HelloAssoFormDto> pageItems = List.of();
-                            if (dataObj instanceof List<?> dataList) {
-                                pageItems = dataList.stream().map(form -> {
-                                    Map<String, Object> formMap = (Map<String, Object>) form;
-                                    HelloAssoFormDto dto = new HelloAssoFormDto();
-                                    dto.setFormSlug(String.valueOf(formMap.get("formSlug")));
-                                    dto.setTitle(String.valueOf(formMap.get("title")));
-                                    dto.setDescription(String.valueOf(formMap.get("description")));
-                                    dto.setUrl(String.valueOf(formMap.get("url")));
-                                    dto.setFormType(String.valueOf(formMap.get("formType")));
-                                    dto.setState(String.valueOf(formMap.get("state")));
-                                    dto.setCurrency(String.valueOf(formMap.get("currency")));
-                                    return dto;
-                                }).toList();
-                            }
-                            List<HelloAssoFormDto> allItems = new java.util.ArrayList<>(accumulated);
-                            allItems.addAll(pageItems);
-                            String nextToken = null;
-                            Object paginationObj = body.get("pagination");
-                            long totalPages = 0;
-                            long totalCount = 0;
-                            if (paginationObj instanceof Map<?, ?> paginationMap) {
-                                Object tokenObj = paginationMap.get("continuationToken");
-                                if (tokenObj != null && !String.valueOf(tokenObj).isEmpty()) {
-                                    nextToken = String.valueOf(tokenObj);
-                                }
-                                Object totalPagesObj = paginationMap.get("totalPages");
-                                Object totalCountObj = paginationMap.get("totalCount");
-                                try {
-                                    totalPages = totalPagesObj != null ? Long.parseLong(String.valueOf(totalPagesObj)) : 0;
-                                    totalCount = totalCountObj != null ? Long.parseLong(String.valueOf(totalCountObj)) : 0;
-                                } catch (Exception e) {
-                                    // ignore parse error
-                                }
-                            }
-                            // STOP si data est vide OU totalPages/totalCount == -1
-                            if ((dataObj instanceof List<?> && ((List<?>) dataObj).isEmpty()) || totalPages == -1 || totalCount == -1) {
-                                return Mono.just(allItems);
-                            }
-                            if (nextToken != null) {
-                                return getFormsPaginated(orgSlug, nextToken, allItems);
-                            } else {
-                                return Mono.just(allItems);
-                            }
-                        })
-        );
+    private Mono<HelloAssoPage<HelloAssoPaymentDto>> getPaymentsPage(String orgSlug, OffsetDateTime from, String continuationToken) {
+        return fetchPage("payments",
+                uriBuilder -> {
+                    uriBuilder.path("/v5/organizations/{orgSlug}/payments")
+                            .queryParam("sortOrder", "Asc")
+                            .queryParam("sortField", "Date");
+                    if (from != null) {
+                        // Instant.toString() : format UTC "Z", sans "+" à encoder
+                        uriBuilder.queryParam("from", from.toInstant().toString());
+                    }
+                    return uriBuilder;
+                },
+                Map.of("orgSlug", orgSlug), continuationToken, this::toPaymentDto);
     }
 
-    public Mono<List<HelloAssoPaymentDto>> getPayments(String orgSlug) {
-        return getPaymentsPaginated(orgSlug, null, List.of());
+    /**
+     * Follows the continuation tokens lazily: the next page is only requested once the downstream asks for it,
+     * so at most one page is held in memory by the pagination itself.
+     */
+    private static <T> Flux<HelloAssoPage<T>> paginate(String firstToken, Function<String, Mono<HelloAssoPage<T>>> fetch) {
+        return fetch.apply(firstToken)
+                .expand(page -> page.continuationToken() == null ? Mono.empty() : fetch.apply(page.continuationToken()));
     }
 
-    private Mono<List<HelloAssoPaymentDto>> getPaymentsPaginated(String orgSlug, String continuationToken, List<HelloAssoPaymentDto> accumulated) {
-        final String uri = continuationToken == null
-                ? "/v5/organizations/" + orgSlug + "/payments"
-                : "/v5/organizations/" + orgSlug + "/payments?continuationtoken=" + continuationToken;
+    private <T> Mono<HelloAssoPage<T>> fetchPage(String resource, Function<UriBuilder, UriBuilder> request, Map<String, String> uriVariables,
+                                                 String continuationToken, Function<Map<String, Object>, T> mapper) {
+        Map<String, String> variables = new HashMap<>(uriVariables);
         return getAccessToken().flatMap(token ->
-                webClient.get()
-                        .uri(uri)
+                send(resource, webClient.get()
+                        .uri(uriBuilder -> {
+                            UriBuilder builder = request.apply(uriBuilder).queryParam("pageSize", properties.getPageSize());
+                            if (continuationToken != null) {
+                                builder.queryParam("continuationToken", "{continuationToken}");
+                                variables.put("continuationToken", continuationToken);
+                            }
+                            return builder.build(variables);
+                        })
                         .header("Authorization", "Bearer " + token)
                         .retrieve()
-                        .bodyToMono(Map.class)
-                        .flatMap(body -> {
-                            log.info("Réponse brute HelloAsso (payments): {}", body);
-                            Object dataObj = body.get("data");
-                            log.info("Contenu de data (payments): {}", dataObj);
-                            List<HelloAssoPaymentDto> pageItems = List.of();
-                            if (dataObj instanceof List<?> dataList) {
-                                pageItems = dataList.stream().map(payment -> {
-                                    Map<String, Object> paymentMap = (Map<String, Object>) payment;
-                                    HelloAssoPaymentDto dto = new HelloAssoPaymentDto();
-                                    dto.setPaymentId(String.valueOf(paymentMap.get("id")));
-                                    // Payer
-                                    Map<String, Object> payerMap = (Map<String, Object>) paymentMap.get("payer");
-                                    if (payerMap != null) {
-                                        dto.setPayerFirstname(String.valueOf(payerMap.get("firstName")));
-                                        dto.setPayerLastname(String.valueOf(payerMap.get("lastName")));
-                                        dto.setPayerEmail(String.valueOf(payerMap.get("email")));
-                                        Object birthDateObj = payerMap.get("dateOfBirth");
-                                        if (birthDateObj != null && !String.valueOf(birthDateObj).equals("null")) {
-                                            String birthDateStr = String.valueOf(birthDateObj);
-                                            try {
-                                                if (birthDateStr.length() >= 10) {
-                                                    dto.setPayerBirthDate(LocalDate.parse(birthDateStr.substring(0, 10)));
-                                                } else {
-                                                    log.warn("Format de birthDate inattendu: {}", birthDateStr);
-                                                }
-                                            } catch (Exception e) {
-                                                log.warn("Erreur lors du parsing de birthDate: {}", birthDateStr);
-                                            }
-                                        }
-                                        dto.setPayerAddressLine1(payerMap.get("address") != null ? String.valueOf(payerMap.get("address")) : null);
-                                        dto.setPayerAddressLine2(payerMap.get("address2") != null ? String.valueOf(payerMap.get("address2")) : null);
-                                        dto.setPayerState(payerMap.get("state") != null ? String.valueOf(payerMap.get("state")) : null);
-                                        dto.setPayerCity(payerMap.get("city") != null ? String.valueOf(payerMap.get("city")) : null);
-                                        dto.setPayerPostCode(payerMap.get("zipCode") != null ? String.valueOf(payerMap.get("zipCode")) : null);
-                                        dto.setPayerCountry(payerMap.get("country") != null ? String.valueOf(payerMap.get("country")) : "France");
-                                    }
-                                    // Items (pour type, currency, amount)
-                                    List<Map<String, Object>> items = (List<Map<String, Object>>) paymentMap.get("items");
-                                    // Conversion utilitaire pour PaymentType
-                                    if (items != null && !items.isEmpty()) {
-                                        Map<String, Object> item = items.get(0);
-                                        dto.setAmount(item.get("amount") != null ? Double.valueOf(String.valueOf(item.get("amount"))) : null);
-                                        dto.setCurrency(item.get("currency") != null ? String.valueOf(item.get("currency")) : "EUR");
-                                        dto.setType(parsePaymentType(item.get("type")));
-                                    } else {
-                                        dto.setAmount(paymentMap.get("amount") != null ? Double.valueOf(String.valueOf(paymentMap.get("amount"))) : null);
-                                        dto.setCurrency("EUR");
-                                        dto.setType(PaymentType.OTHER);
-                                    }
-                                    dto.setStatus(parsePaymentStatus(paymentMap.get("state")));
-                                    // date
-                                    String dateStr = String.valueOf(paymentMap.get("date"));
-                                    if (dateStr != null && !dateStr.equals("null")) {
-                                        try {
-                                            dto.setPaymentDate(LocalDate.parse(dateStr.substring(0, 10)));
-                                        } catch (Exception e) {
-                                            log.warn("Format de date inattendu: {}", dateStr);
-                                        }
-                                    }
-                                    Map<String, Object> orderMap = (Map<String, Object>) paymentMap.get("order");
-                                    dto.setPaymentId(paymentMap.get("id") != null ? String.valueOf(paymentMap.get("id")) : null);
-                                    dto.setFormSlug(orderMap != null && orderMap.get("formSlug") != null ? String.valueOf(orderMap.get("formSlug")) : null);
-                                    dto.setReceiptUrl(paymentMap.get("paymentReceiptUrl") != null ? String.valueOf(paymentMap.get("paymentReceiptUrl")) : null);
-                                    dto.setStatus(parsePaymentStatus(paymentMap.get("state")));
-                                    return dto;
-                                }).toList();
-                            }
-                            List<HelloAssoPaymentDto> allItems = new java.util.ArrayList<>(accumulated);
-                            allItems.addAll(pageItems);
-                            String nextToken = null;
-                            Object paginationObj = body.get("pagination");
-                            long totalPages = 0;
-                            long totalCount = 0;
-                            if (paginationObj instanceof Map<?, ?> paginationMap) {
-                                Object tokenObj = paginationMap.get("continuationToken");
-                                if (tokenObj != null && !String.valueOf(tokenObj).isEmpty()) {
-                                    nextToken = String.valueOf(tokenObj);
-                                }
-                                Object totalPagesObj = paginationMap.get("totalPages");
-                                Object totalCountObj = paginationMap.get("totalCount");
-                                try {
-                                    totalPages = totalPagesObj != null ? Long.parseLong(String.valueOf(totalPagesObj)) : 0;
-                                    totalCount = totalCountObj != null ? Long.parseLong(String.valueOf(totalCountObj)) : 0;
-                                } catch (Exception e) {
-                                    // ignore parse error
-                                }
-                            }
-                            // STOP si data est vide OU totalPages/totalCount == -1
-                            if ((dataObj instanceof List<?> && ((List<?>) dataObj).isEmpty()) || totalPages == -1 || totalCount == -1) {
-                                return Mono.just(allItems);
-                            }
-                            if (nextToken != null) {
-                                return getPaymentsPaginated(orgSlug, nextToken, allItems);
-                            } else {
-                                return Mono.just(allItems);
-                            }
+                        .bodyToMono(Map.class))
+                        .map(body -> {
+                            log.debug("Réponse brute HelloAsso ({}): {}", resource, body);
+                            List<T> items = body.get("data") instanceof List<?> dataList
+                                    ? dataList.stream().map(item -> mapper.apply((Map<String, Object>) item)).toList()
+                                    : List.of();
+                            log.debug("Page HelloAsso ({}) : {} élément(s)", resource, items.size());
+                            return new HelloAssoPage<>(items, nextContinuationToken(body, items.isEmpty()));
                         })
         );
     }
 
+    private HelloAssoMembershipItemDto toMembershipItemDto(Map<String, Object> itemMap) {
+        HelloAssoMembershipItemDto dto = new HelloAssoMembershipItemDto();
+        dto.setId(itemMap.get("id") != null ? Long.valueOf(String.valueOf(itemMap.get("id"))) : null);
+        Map<String, Object> payerMap = (Map<String, Object>) itemMap.get("payer");
+        if (payerMap != null) {
+            HelloAssoMembershipItemDto.Payer payer = new HelloAssoMembershipItemDto.Payer();
+            payer.setFirstName(String.valueOf(payerMap.get("firstName")));
+            payer.setLastName(String.valueOf(payerMap.get("lastName")));
+            payer.setEmail(String.valueOf(payerMap.get("email")));
+            dto.setPayer(payer);
+        }
+        Object answersObj = itemMap.get("answers");
+        if (answersObj instanceof List<?> answersList) {
+            List<HelloAssoMembershipItemDto.Answer> answers = answersList.stream().map(answer -> {
+                Map<String, Object> answerMap = (Map<String, Object>) answer;
+                HelloAssoMembershipItemDto.Answer ans = new HelloAssoMembershipItemDto.Answer();
+                ans.setName(String.valueOf(answerMap.get("name")));
+                ans.setValue(String.valueOf(answerMap.get("value")));
+                return ans;
+            }).toList();
+            dto.setAnswers(answers);
+        }
+        return dto;
+    }
+
+    private HelloAssoFormDto toFormDto(Map<String, Object> formMap) {
+        HelloAssoFormDto dto = new HelloAssoFormDto();
+        dto.setFormSlug(String.valueOf(formMap.get("formSlug")));
+        dto.setTitle(String.valueOf(formMap.get("title")));
+        dto.setDescription(String.valueOf(formMap.get("description")));
+        dto.setUrl(String.valueOf(formMap.get("url")));
+        dto.setFormType(String.valueOf(formMap.get("formType")));
+        dto.setState(String.valueOf(formMap.get("state")));
+        dto.setCurrency(String.valueOf(formMap.get("currency")));
+        return dto;
+    }
+
+    private HelloAssoPaymentDto toPaymentDto(Map<String, Object> paymentMap) {
+        HelloAssoPaymentDto dto = new HelloAssoPaymentDto();
+        dto.setPaymentId(paymentMap.get("id") != null ? String.valueOf(paymentMap.get("id")) : null);
+        // Payer
+        Map<String, Object> payerMap = (Map<String, Object>) paymentMap.get("payer");
+        if (payerMap != null) {
+            dto.setPayerFirstname(String.valueOf(payerMap.get("firstName")));
+            dto.setPayerLastname(String.valueOf(payerMap.get("lastName")));
+            dto.setPayerEmail(String.valueOf(payerMap.get("email")));
+            Object birthDateObj = payerMap.get("dateOfBirth");
+            if (birthDateObj != null && !String.valueOf(birthDateObj).equals("null")) {
+                String birthDateStr = String.valueOf(birthDateObj);
+                try {
+                    if (birthDateStr.length() >= 10) {
+                        dto.setPayerBirthDate(LocalDate.parse(birthDateStr.substring(0, 10)));
+                    } else {
+                        log.warn("Format de birthDate inattendu: {}", birthDateStr);
+                    }
+                } catch (Exception e) {
+                    log.warn("Erreur lors du parsing de birthDate: {}", birthDateStr);
+                }
+            }
+            dto.setPayerAddressLine1(payerMap.get("address") != null ? String.valueOf(payerMap.get("address")) : null);
+            dto.setPayerAddressLine2(payerMap.get("address2") != null ? String.valueOf(payerMap.get("address2")) : null);
+            dto.setPayerState(payerMap.get("state") != null ? String.valueOf(payerMap.get("state")) : null);
+            dto.setPayerCity(payerMap.get("city") != null ? String.valueOf(payerMap.get("city")) : null);
+            dto.setPayerPostCode(payerMap.get("zipCode") != null ? String.valueOf(payerMap.get("zipCode")) : null);
+            dto.setPayerCountry(payerMap.get("country") != null ? String.valueOf(payerMap.get("country")) : "France");
+        }
+        // Items (pour type, currency, amount)
+        List<Map<String, Object>> items = (List<Map<String, Object>>) paymentMap.get("items");
+        if (items != null && !items.isEmpty()) {
+            Map<String, Object> item = items.get(0);
+            dto.setAmount(item.get("amount") != null ? Double.valueOf(String.valueOf(item.get("amount"))) : null);
+            dto.setCurrency(item.get("currency") != null ? String.valueOf(item.get("currency")) : "EUR");
+            dto.setType(parsePaymentType(item.get("type")));
+        } else {
+            dto.setAmount(paymentMap.get("amount") != null ? Double.valueOf(String.valueOf(paymentMap.get("amount"))) : null);
+            dto.setCurrency("EUR");
+            dto.setType(PaymentType.OTHER);
+        }
+        // date
+        String dateStr = String.valueOf(paymentMap.get("date"));
+        if (!dateStr.equals("null")) {
+            try {
+                dto.setPaymentDate(LocalDate.parse(dateStr.substring(0, 10)));
+            } catch (Exception e) {
+                log.warn("Format de date inattendu: {}", dateStr);
+            }
+            try {
+                dto.setPaymentDateTime(OffsetDateTime.parse(dateStr));
+            } catch (Exception e) {
+                log.debug("Date HelloAsso sans fuseau horaire: {}", dateStr);
+            }
+        }
+        Map<String, Object> orderMap = (Map<String, Object>) paymentMap.get("order");
+        dto.setFormSlug(orderMap != null && orderMap.get("formSlug") != null ? String.valueOf(orderMap.get("formSlug")) : null);
+        dto.setReceiptUrl(paymentMap.get("paymentReceiptUrl") != null ? String.valueOf(paymentMap.get("paymentReceiptUrl")) : null);
+        dto.setStatus(parsePaymentStatus(paymentMap.get("state")));
+        return dto;
+    }
+
+    /**
+     * Token of the next page, or null when the listing is exhausted: HelloAsso keeps returning a token after the
+     * last page, so an empty page or totalPages/totalCount == -1 ends the pagination.
+     */
+    private String nextContinuationToken(Map<?, ?> body, boolean emptyPage) {
+        if (emptyPage || !(body.get("pagination") instanceof Map<?, ?> paginationMap)) {
+            return null;
+        }
+        try {
+            Object totalPagesObj = paginationMap.get("totalPages");
+            Object totalCountObj = paginationMap.get("totalCount");
+            if ((totalPagesObj != null && Long.parseLong(String.valueOf(totalPagesObj)) == -1)
+                    || (totalCountObj != null && Long.parseLong(String.valueOf(totalCountObj)) == -1)) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            // ignore parse error
+        }
+        Object tokenObj = paginationMap.get("continuationToken");
+        return tokenObj != null && !String.valueOf(tokenObj).isEmpty() ? String.valueOf(tokenObj) : null;
+    }
+
     // Méthodes utilitaires pour conversion String -> Enum
     private PaymentType parsePaymentType(Object typeObj) {
         if (typeObj == null) return PaymentType.OTHER;
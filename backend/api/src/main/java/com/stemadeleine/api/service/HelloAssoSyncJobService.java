@@ -0,0 +1,253 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.HelloAssoSyncJob;
+import com.stemadeleine.api.repository.HelloAssoSyncJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable queue of the HelloAsso synchronisations requested by webhooks (table helloasso_sync_jobs, V19).
+ * <p>
+ * A webhook only inserts a pending job, coalesced with any job already pending for the same organization and
+ * event type, and is acknowledged at once. A worker thread per instance claims due jobs with
+ * {@code FOR UPDATE SKIP LOCKED} and runs the matching incremental import, so several API instances share the
+ * queue without running the same job twice.
+ * <p>
+ * A running job holds a lease, renewed by a heartbeat thread for as long as its import runs. Only jobs whose lease
+ * has expired, i.e. whose instance stopped, are reclaimed; a run that lost its lease does not record its outcome.
+ * <p>
+ * A job runs under the advisory lock of its organization, shared with the full synchronisation of
+ * {@link HelloAssoSyncScheduler}: while another instance synchronises the organization, the job is queued again
+ * a little later, without counting an attempt.
+ */
+@Slf4j
+@Service
+public class HelloAssoSyncJobService {
+
+    static final String PAYMENT = "Payment";
+    static final String FORM = "Form";
+    static final String MEMBERSHIP = "Membership";
+    private static final Set<String> EVENT_TYPES = Set.of(PAYMENT, FORM, MEMBERSHIP);
+    private static final Duration RETENTION = Duration.ofDays(30);
+    private static final int MAX_ERROR_LENGTH = 2000;
+    private static final Duration LOCKED_RETRY_DELAY = Duration.ofSeconds(30);
+
+    private final HelloAssoSyncJobRepository jobRepository;
+    private final HelloAssoImportService importService;
+    private final AdvisoryLockService lockService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long pollIntervalMs;
+    private final int maxAttempts;
+    private final Duration lease;
+    // Propriétaire des baux pris par cette instance
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("helloasso-sync").daemon().factory());
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("helloasso-sync-heartbeat").daemon().factory());
+
+    public HelloAssoSyncJobService(HelloAssoSyncJobRepository jobRepository,
+                                   HelloAssoImportService importService,
+                                   AdvisoryLockService lockService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${helloasso.jobs.enabled:true}") boolean enabled,
+                                   @Value("${helloasso.jobs.poll-interval-ms:5000}") long pollIntervalMs,
+                                   @Value("${helloasso.jobs.max-attempts:5}") int maxAttempts,
+                                   @Value("${helloasso.jobs.lease-seconds:120}") long leaseSeconds) {
+        this.jobRepository = jobRepository;
+        this.importService = importService;
+        this.lockService = lockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.pollIntervalMs = pollIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            worker.scheduleWithFixedDelay(this::drain, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+        heartbeat.shutdownNow();
+    }
+
+    /**
+     * Records a synchronisation request. Returns false when the event type is not handled or when the request was
+     * coalesced into a job already pending.
+     */
+    public boolean enqueue(String orgSlug, String eventType) {
+        if (orgSlug == null || orgSlug.isBlank() || eventType == null || !EVENT_TYPES.contains(eventType)) {
+            log.debug("Webhook HelloAsso ignoré : orgSlug='{}', eventType='{}'", orgSlug, eventType);
+            return false;
+        }
+        Integer inserted = transactionTemplate.execute(status -> jobRepository.enqueue(orgSlug, eventType, 0, OffsetDateTime.now()));
+        boolean queued = inserted != null && inserted > 0;
+        log.debug("Synchronisation HelloAsso {} pour '{}' : {}", eventType, orgSlug, queued ? "ajoutée" : "regroupée");
+        if (enabled) {
+            wakeUp();
+        }
+        return queued;
+    }
+
+    private void wakeUp() {
+        try {
+            worker.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            log.debug("File de synchronisation HelloAsso arrêtée");
+        }
+    }
+
+    /**
+     * Runs every due job; the worker thread is single, so drains never overlap within an instance
+     */
+    void drain() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                OffsetDateTime now = OffsetDateTime.now();
+                if (jobRepository.requeueExpired(now) > 0) {
+                    log.warn("Synchronisations HelloAsso interrompues remises en file");
+                }
+                jobRepository.failExpired(now);
+                jobRepository.deleteFinishedBefore(OffsetDateTime.now().minus(RETENTION));
+            });
+            while (!Thread.currentThread().isInterrupted() && runNext()) {
+                // job suivant
+            }
+        } catch (RuntimeException e) {
+            log.error("Erreur de la file de synchronisation HelloAsso", e);
+        }
+    }
+
+    /**
+     * Claims and runs one due job. Returns false when no job is due.
+     */
+    boolean runNext() {
+        HelloAssoSyncJob job = transactionTemplate.execute(status -> jobRepository.findNextDueForUpdate()
+                .map(next -> {
+                    next.setStatus(HelloAssoSyncJob.Status.RUNNING);
+                    next.setAttempts(next.getAttempts() + 1);
+                    next.setStartedAt(OffsetDateTime.now());
+                    next.setUpdatedAt(OffsetDateTime.now());
+                    next.setLeaseOwner(instanceId);
+                    next.setLeaseExpiresAt(OffsetDateTime.now().plus(lease));
+                    return jobRepository.save(next);
+                })
+                .orElse(null));
+        if (job == null) {
+            return false;
+        }
+
+        String lockKey = HelloAssoSyncScheduler.LOCK_PREFIX + job.getOrgSlug();
+        Connection lock;
+        try {
+            lock = lockService.tryLock(lockKey);
+        } catch (RuntimeException e) {
+            log.error("Verrou de synchronisation HelloAsso de '{}' indisponible", job.getOrgSlug(), e);
+            lock = null;
+        }
+        if (lock == null) {
+            postpone(job);
+            return true;
+        }
+
+        log.info("Synchronisation HelloAsso {} pour '{}' (tentative {})", job.getEventType(), job.getOrgSlug(), job.getAttempts());
+        long beatMs = Math.max(lease.toMillis() / 3, 1);
+        ScheduledFuture<?> beat = heartbeat.scheduleWithFixedDelay(() -> renewLease(job), beatMs, beatMs, TimeUnit.MILLISECONDS);
+        try {
+            run(job);
+            job.setStatus(HelloAssoSyncJob.Status.DONE);
+            job.setLastError(null);
+        } catch (RuntimeException e) {
+            log.error("Échec de la synchronisation HelloAsso {} pour '{}'", job.getEventType(), job.getOrgSlug(), e);
+            job.setStatus(HelloAssoSyncJob.Status.FAILED);
+            String error = String.valueOf(e.getMessage());
+            job.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        } finally {
+            beat.cancel(false);
+            lockService.unlock(lock, lockKey);
+        }
+        job.setFinishedAt(OffsetDateTime.now());
+        job.setUpdatedAt(OffsetDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jobRepository.finish(job.getId(), instanceId, job.getStatus().name(), job.getLastError()) == 0) {
+                // Bail perdu : le job a déjà été repris, sa nouvelle exécution fait foi
+                log.warn("Synchronisation HelloAsso {} pour '{}' reprise par une autre exécution, résultat ignoré",
+                        job.getEventType(), job.getOrgSlug());
+                return;
+            }
+            if (job.getStatus() == HelloAssoSyncJob.Status.FAILED && job.getAttempts() < maxAttempts) {
+                // Nouvel essai différé (30 s, 1 min, 2 min...), sauf si un webhook a déjà remis la synchronisation en file
+                OffsetDateTime retryAt = OffsetDateTime.now().plusSeconds(30L << Math.min(job.getAttempts() - 1, 6));
+                jobRepository.enqueue(job.getOrgSlug(), job.getEventType(), job.getAttempts(), retryAt);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Puts back a claimed job whose organization is being synchronised elsewhere, to run once that synchronisation
+     * is over. The attempt is not counted since no import ran.
+     */
+    private void postpone(HelloAssoSyncJob job) {
+        log.info("Synchronisation HelloAsso de '{}' déjà en cours, {} reporté de {} s", job.getOrgSlug(),
+                job.getEventType(), LOCKED_RETRY_DELAY.toSeconds());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jobRepository.deleteClaimed(job.getId(), instanceId) > 0) {
+                // Regroupé avec un webhook éventuellement remis en file depuis
+                jobRepository.enqueue(job.getOrgSlug(), job.getEventType(), job.getAttempts() - 1,
+                        OffsetDateTime.now().plus(LOCKED_RETRY_DELAY));
+            }
+        });
+    }
+
+    /**
+     * Heartbeat of a running job: pushes its lease back, so that the job is not reclaimed while the import runs
+     */
+    void renewLease(HelloAssoSyncJob job) {
+        try {
+            OffsetDateTime expiresAt = OffsetDateTime.now().plus(lease);
+            Integer renewed = transactionTemplate.execute(status -> jobRepository.renewLease(job.getId(), instanceId, expiresAt));
+            if (renewed == null || renewed == 0) {
+                log.warn("Bail de la synchronisation HelloAsso {} pour '{}' perdu", job.getEventType(), job.getOrgSlug());
+            } else {
+                job.setLeaseExpiresAt(expiresAt);
+            }
+        } catch (RuntimeException e) {
+            log.error("Renouvellement du bail de la synchronisation HelloAsso {} pour '{}' impossible",
+                    job.getEventType(), job.getOrgSlug(), e);
+        }
+    }
+
+    private void run(HelloAssoSyncJob job) {
+        switch (job.getEventType()) {
+            case PAYMENT -> importService.importPayments(job.getOrgSlug());
+            case FORM -> importService.importCampaigns(job.getOrgSlug());
+            case MEMBERSHIP -> importService.importMembershipUsers(job.getOrgSlug(), HelloAssoImportService.MEMBERSHIP_FORM_SLUG);
+            default -> throw new IllegalStateException("Type d'événement HelloAsso non géré : " + job.getEventType());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.config.HelloAssoProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Full HelloAsso synchronisation of an organization: each membership form, the campaigns and the payments are
+ * independent imports, run in parallel on a pool of {@code helloasso.sync-concurrency} threads. The HTTP client
+ * limits the request rate shared by all of them; a failed import is logged without stopping the others.
+ * <p>
+ * A synchronisation holds a PostgreSQL advisory lock on the organization for its whole run, so that the nightly
+ * import scheduled on every instance, or a manual import, runs once at a time across instances and the import
+ * checkpoints are never advanced by two runs. The webhook jobs of {@link HelloAssoSyncJobService} take the same lock.
+ */
+@Slf4j
+@Service
+public class HelloAssoSyncScheduler {
+
+    /**
+     * Returned by {@link #syncAll} when a synchronisation of the organization is already running
+     */
+    public static final int ALREADY_RUNNING = -1;
+    static final String LOCK_PREFIX = "helloasso-sync:";
+
+    private final HelloAssoImportService importService;
+    private final HelloAssoProperties properties;
+    private final AdvisoryLockService lockService;
+    private final ExecutorService executor;
+
+    public HelloAssoSyncScheduler(HelloAssoImportService importService, HelloAssoProperties properties, AdvisoryLockService lockService) {
+        this.importService = importService;
+        this.properties = properties;
+        this.lockService = lockService;
+        this.executor = Executors.newFixedThreadPool(Math.max(properties.getSyncConcurrency(), 1),
+                Thread.ofPlatform().name("helloasso-import-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Importation automatique quotidienne à 3h du matin ("-" dans helloasso.sync.cron la désactive)
+     */
+    @Scheduled(cron = "${helloasso.sync.cron:0 0 3 * * *}")
+    public void scheduledImport() {
+        // Planifiée sur chaque instance : seule celle qui obtient le verrou synchronise
+        syncAll(properties.getOrgSlug());
+    }
+
+    /**
+     * Runs every import of the organization and waits for them. Returns the number of failed imports, or
+     * {@link #ALREADY_RUNNING} when another run holds the lock of the organization.
+     */
+    public int syncAll(String orgSlug) {
+        Connection lock = lockService.tryLock(LOCK_PREFIX + orgSlug);
+        if (lock == null) {
+            log.info("Synchronisation HelloAsso de '{}' déjà en cours, ignorée", orgSlug);
+            return ALREADY_RUNNING;
+        }
+        try {
+            return runImports(orgSlug);
+        } finally {
+            lockService.unlock(lock, LOCK_PREFIX + orgSlug);
+        }
+    }
+
+    private int runImports(String orgSlug) {
+        Map<String, Runnable> imports = new LinkedHashMap<>();
+        for (String formSlug : properties.getMembershipForms()) {
+            imports.put("adhésions " + formSlug, () -> importService.importMembershipUsers(orgSlug, formSlug));
+        }
+        imports.put("campagnes", () -> importService.importCampaigns(orgSlug));
+        imports.put("paiements", () -> importService.importPayments(orgSlug));
+
+        log.info("Synchronisation HelloAsso de '{}' : {} import(s), {} en parallèle", orgSlug, imports.size(), properties.getSyncConcurrency());
+        long start = System.nanoTime();
+        Map<String, Future<?>> running = new LinkedHashMap<>();
+        imports.forEach((name, task) -> running.put(name, executor.submit(task)));
+
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Future<?>> entry : running.entrySet()) {
+            try {
+                entry.getValue().get();
+            } catch (ExecutionException e) {
+                log.error("Échec de l'import HelloAsso ({}) pour '{}'", entry.getKey(), orgSlug, e.getCause());
+                failures.add(entry.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running.values().forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Synchronisation HelloAsso interrompue", e);
+            }
+        }
+        log.info("Synchronisation HelloAsso de '{}' terminée en {} ms, échec(s) : {}", orgSlug,
+                (System.nanoTime() - start) / 1_000_000, failures.isEmpty() ? "aucun" : failures);
+        return failures.size();
+    }
+}
@@ -0,0 +1,266 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.Media;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded LRU cache of proxied media files on local disk.
+ * Entries are keyed by content hash when the media has one, so duplicate media share a single file; otherwise by
+ * media id and updatedAt, so an updated media never serves stale bytes.
+ * Concurrent misses on the same entry share a single upstream download.
+ * An object larger than the whole cache is never stored: callers check {@link #accepts} and stream it from storage.
+ */
+@Slf4j
+@Component
+public class MediaDiskCache {
+
+    private final SupabaseStorageClient storageClient;
+    private final Path directory;
+    private final long maxBytes;
+    private final boolean enabled;
+
+    // Ordre d'accès : la première entrée est la moins récemment utilisée
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    // Objets dépassant la taille du cache, découverts au téléchargement : servis depuis le stockage
+    private final Set<String> oversized = ConcurrentHashMap.newKeySet();
+    private long totalBytes;
+
+    public MediaDiskCache(SupabaseStorageClient storageClient,
+                          @Value("${media.cache.dir:${java.io.tmpdir}/stemadeleine-media-cache}") String directory,
+                          @Value("${media.cache.max-size-mb:1024}") long maxSizeMb,
+                          @Value("${media.cache.enabled:true}") boolean enabled) {
+        this.storageClient = storageClient;
+        this.directory = Path.of(directory);
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Reloads the files left by a previous run, oldest first, and trims them to the configured size
+     */
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                List<Path> cached = new ArrayList<>();
+                for (Path path : files.toList()) {
+                    if (path.getFileName().toString().endsWith(".tmp")) {
+                        deleteQuietly(path); // téléchargement interrompu
+                    } else {
+                        cached.add(path);
+                    }
+                }
+                cached.stream()
+                        .sorted(Comparator.comparing(this::lastAccess))
+                        .forEach(path -> register(path.getFileName().toString(), size(path)));
+            }
+            log.info("Media disk cache ready in {} ({} entries, {} bytes)", directory, entries.size(), totalBytes);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Unable to initialize media disk cache in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the media can be served from the cache, i.e. the cache is enabled and the object fits in it
+     */
+    public boolean accepts(Media media) {
+        if (!enabled) {
+            return false;
+        }
+        if (media.getFileSize() != null && media.getFileSize() > maxBytes) {
+            return false;
+        }
+        return !oversized.contains(key(media));
+    }
+
+    /**
+     * Returns the cached file of a media, downloading it first on a miss
+     */
+    public Path getOrFetch(Media media) throws IOException {
+        String key = key(media);
+        Path path = directory.resolve(key);
+        synchronized (this) {
+            if (entries.get(key) != null && Files.exists(path)) {
+                return path;
+            }
+        }
+        CompletableFuture<Path> own = new CompletableFuture<>();
+        CompletableFuture<Path> pending = inFlight.putIfAbsent(key, own);
+        if (pending != null) {
+            return await(pending);
+        }
+        try {
+            own.complete(download(media, key));
+        } catch (IOException | RuntimeException e) {
+            own.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key);
+        }
+        return await(own);
+    }
+
+    /**
+     * Removes every cached version of a media keyed by id. Entries keyed by content hash are immutable and shared with
+     * the duplicates of the media; they only leave the cache through eviction.
+     */
+    public void invalidate(UUID mediaId) {
+        if (!enabled || mediaId == null) {
+            return;
+        }
+        String prefix = mediaId + "-";
+        List<String> keys;
+        synchronized (this) {
+            keys = entries.keySet().stream().filter(key -> key.startsWith(prefix)).toList();
+        }
+        keys.forEach(this::remove);
+        log.debug("Media {} invalidated from disk cache ({} file(s))", mediaId, keys.size());
+    }
+
+    private Path download(Media media, String key) throws IOException {
+        Path target = directory.resolve(key);
+        Path tmp = directory.resolve(key + "." + UUID.randomUUID() + ".tmp");
+        try {
+            HttpResponse<InputStream> response = storageClient.openStream(media.getFileUrl(), null);
+            try (InputStream in = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new IOException("Téléchargement du média impossible, code: " + response.statusCode());
+                }
+                long announced = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+                if (announced > maxBytes) {
+                    throw tooLarge(key, announced);
+                }
+                copyBounded(in, tmp, key);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Téléchargement du média interrompu", e);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        register(key, size(target));
+        return target;
+    }
+
+    // Copie interrompue dès que l'objet dépasse la taille du cache, lorsque sa taille n'était pas annoncée
+    private void copyBounded(InputStream in, Path tmp, String key) throws IOException {
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            byte[] buffer = new byte[8192];
+            long copied = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                copied += read;
+                if (copied > maxBytes) {
+                    throw tooLarge(key, copied);
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private IOException tooLarge(String key, long size) {
+        oversized.add(key);
+        return new IOException("Média trop volumineux pour le cache disque (" + size + " octets)");
+    }
+
+    private synchronized void register(String key, long size) {
+        if (size > maxBytes) {
+            // Fichier laissé par une exécution dont le cache était plus grand : il évincerait toutes les autres entrées
+            deleteQuietly(directory.resolve(key));
+            return;
+        }
+        Long previous = entries.put(key, size);
+        totalBytes += size - (previous != null ? previous : 0);
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            totalBytes -= entry.getValue();
+            eldest.remove();
+            deleteQuietly(directory.resolve(entry.getKey()));
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (this) {
+            Long size = entries.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        deleteQuietly(directory.resolve(key));
+    }
+
+    private String key(Media media) {
+        if (media.getContentHash() != null) {
+            return "sha256-" + media.getContentHash();
+        }
+        long version = media.getUpdatedAt() != null ? media.getUpdatedAt().toInstant().toEpochMilli() : 0;
+        return media.getId() + "-" + version;
+    }
+
+    private Path await(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Attente du téléchargement du média interrompue", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private java.nio.file.attribute.FileTime lastAccess(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).lastAccessTime();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete cached media file {}: {}", path, e.getMessage());
+        }
+    }
+}
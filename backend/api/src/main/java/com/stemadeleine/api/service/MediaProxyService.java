@@ -0,0 +1,175 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.Media;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Streams media bytes for the public proxy endpoint, without buffering files in memory.
+ * Files are served from the local {@link MediaDiskCache} when enabled, and from Supabase storage otherwise.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaProxyService {
+
+    private static final String[] FORWARDED_HEADERS = {
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_RANGE, HttpHeaders.ACCEPT_RANGES
+    };
+
+    private final SupabaseStorageClient storageClient;
+    private final MediaDiskCache diskCache;
+    private final MediaVariantService variantService;
+
+    /**
+     * Answer to send: status, headers and body (null when there is nothing to stream)
+     */
+    public record MediaStream(int status, HttpHeaders headers, Body body) {
+    }
+
+    @FunctionalInterface
+    public interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Strong ETag of a media: it changes whenever the media row (and therefore its file URL) is updated
+     */
+    public String etag(Media media) {
+        return "\"" + media.getId() + "-" + lastModified(media) + "\"";
+    }
+
+    public long lastModified(Media media) {
+        OffsetDateTime date = media.getUpdatedAt() != null ? media.getUpdatedAt() : media.getCreatedAt();
+        return date != null ? date.toInstant().toEpochMilli() : -1;
+    }
+
+    /**
+     * Picks what to serve for a requested width: the closest generated variant (exposed as a transient Media so that
+     * it gets its own ETag and cache entry), or the original when no suitable variant exists yet
+     */
+    public Media resolve(Media media, Integer width, String accept) {
+        if (width == null || width <= 0) {
+            return media;
+        }
+        boolean acceptWebp = accept != null && accept.contains("image/webp");
+        return variantService.findClosest(media, width, acceptWebp)
+                .map(variant -> Media.builder()
+                        .id(variant.getId())
+                        .fileUrl(variant.getFileUrl())
+                        .fileType(variant.getContentType())
+                        .fileSize(variant.getFileSize())
+                        .createdAt(variant.getCreatedAt())
+                        .updatedAt(variant.getCreatedAt())
+                        .build())
+                .orElse(media);
+    }
+
+    public MediaStream open(Media media, String range) throws IOException, InterruptedException {
+        if (diskCache.accepts(media)) {
+            try {
+                return openCached(media, diskCache.getOrFetch(media), range);
+            } catch (IOException e) {
+                log.warn("Media {} not available from disk cache, streaming from storage: {}", media.getId(), e.getMessage());
+            }
+        }
+        return openUpstream(media, range);
+    }
+
+    private MediaStream openUpstream(Media media, String range) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = storageClient.openStream(media.getFileUrl(), range);
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : FORWARDED_HEADERS) {
+            response.headers().firstValue(name).ifPresent(value -> headers.set(name, value));
+        }
+        if (!headers.containsKey(HttpHeaders.CONTENT_TYPE) && media.getFileType() != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, media.getFileType());
+        }
+        log.debug("Media {} opened upstream with status {} (range {})", media.getId(), response.statusCode(), range);
+        int status = response.statusCode();
+        if (status != HttpStatus.OK.value() && status != HttpStatus.PARTIAL_CONTENT.value()) {
+            response.body().close();
+            return new MediaStream(status, headers, null);
+        }
+        InputStream body = response.body();
+        return new MediaStream(status, headers, out -> {
+            try (InputStream in = body) {
+                in.transferTo(out);
+            }
+        });
+    }
+
+    /**
+     * The channel is opened before returning so that a concurrent eviction cannot remove the file under the response
+     */
+    private MediaStream openCached(Media media, Path file, String range) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        long length = channel.size();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, media.getFileType() != null ? media.getFileType() : "application/octet-stream");
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long end = length - 1;
+        int status = HttpStatus.OK.value();
+        List<HttpRange> ranges = parseRanges(range);
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                status = HttpStatus.PARTIAL_CONTENT.value();
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            } catch (IllegalArgumentException e) {
+                channel.close();
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return new MediaStream(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(), headers, null);
+            }
+        }
+        long count = end - start + 1;
+        headers.setContentLength(count);
+        long first = start;
+        return new MediaStream(status, headers, out -> {
+            try (FileChannel in = channel) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = first;
+                long remaining = count;
+                while (remaining > 0) {
+                    long sent = in.transferTo(position, remaining, target);
+                    if (sent <= 0) {
+                        break;
+                    }
+                    position += sent;
+                    remaining -= sent;
+                }
+            }
+        });
+    }
+
+    // Plusieurs plages ou en-tête invalide : on renvoie le fichier complet
+    private List<HttpRange> parseRanges(String range) {
+        if (range == null || range.isBlank()) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.stemadeleine.api.service;
 
 import com.stemadeleine.api.dto.CreateMediaRequest;
 import com.stemadeleine.api.model.Media;
+import com.stemadeleine.api.model.MediaObject;
+import com.stemadeleine.api.repository.MediaObjectRepository;
 import com.stemadeleine.api.repository.MediaRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,7 +11,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,13 +25,20 @@ public class MediaService {
 
     private final SupabaseStorageClient storageClient;
     private final MediaRepository mediaRepository;
+    private final MediaObjectRepository objectRepository;
+    private final MediaDiskCache diskCache;
+    private final MediaVariantService variantService;
 
     @Value("${supabase.storage.bucket:medias-dev}")
     private String bucket;
 
-    public MediaService(MediaRepository mediaRepository, SupabaseStorageClient storageClient) {
+    public MediaService(MediaRepository mediaRepository, MediaObjectRepository objectRepository,
+                        SupabaseStorageClient storageClient, MediaDiskCache diskCache, MediaVariantService variantService) {
         this.mediaRepository = mediaRepository;
+        this.objectRepository = objectRepository;
         this.storageClient = storageClient;
+        this.diskCache = diskCache;
+        this.variantService = variantService;
     }
 
     public List<Media> findAll() {
@@ -47,43 +60,162 @@ public class MediaService {
     public Media update(UUID id, Media details) {
         return mediaRepository.findById(id)
                 .map(media -> {
+                    boolean fileChanged = !Objects.equals(media.getFileUrl(), details.getFileUrl());
                     media.setFileUrl(details.getFileUrl());
                     media.setTitle(details.getTitle());
                     media.setAltText(details.getAltText());
                     media.setFileType(details.getFileType());
                     media.setFileSize(details.getFileSize());
                     media.setIsVisible(details.getIsVisible());
+                    diskCache.invalidate(id);
+                    if (fileChanged) {
+                        // L'empreinte ne correspond plus au nouveau fichier
+                        media.setContentHash(null);
+                        variantService.invalidate(id);
+                    }
                     return mediaRepository.save(media);
                 })
                 .orElseThrow(() -> new RuntimeException("Media not found with id " + id));
     }
 
     public void delete(UUID id) {
+        variantService.invalidate(id);
         mediaRepository.deleteById(id);
+        diskCache.invalidate(id);
     }
 
     public Media uploadMedia(MultipartFile file, String title, String altText) throws IOException, InterruptedException {
-        // Nettoyer le nom de fichier pour supprimer les caractères spéciaux
-        String cleanFileName = sanitizeFileName(file.getOriginalFilename());
-        String key = System.currentTimeMillis() + "_" + cleanFileName;
+        try (InputStream in = file.getInputStream()) {
+            return uploadMediaStream(in, file.getSize(), file.getContentType(), file.getOriginalFilename(), title, altText);
+        }
+    }
+
+    /**
+     * Streams a file of known size straight to storage, computing its SHA-256 and size on the fly.
+     * Storage is content-addressed: a file already known by its hash is not stored twice, but every upload gets its
+     * own media row (title, alt text, owner and order) pointing at the shared object.
+     *
+     * Deduplication only relies on the digest computed from the received bytes.
+     *
+     * @param expectedHash optional SHA-256 announced by the client, checked against the received bytes
+     */
+    public Media uploadMediaStream(InputStream in, long size, String contentType, String fileName, String title, String altText,
+                                   String expectedHash) throws IOException, InterruptedException {
+        String stagingKey = buildStorageKey(fileName);
+        HashingInputStream hashing = new HashingInputStream(in, sha256());
 
         // Upload to Supabase
-        storageClient.uploadFile(bucket, key, file.getInputStream(), file.getSize(), file.getContentType());
+        storageClient.uploadStream(bucket, stagingKey, hashing, size, contentType);
+        if (hashing.getCount() != size) {
+            storageClient.deleteObject(bucket, stagingKey);
+            throw new IOException("Taille reçue (" + hashing.getCount() + ") différente de la taille annoncée (" + size + ")");
+        }
+        String contentHash = HashingInputStream.hex(hashing.getDigest());
+        if (expectedHash != null && !expectedHash.isBlank() && !expectedHash.equalsIgnoreCase(contentHash)) {
+            storageClient.deleteObject(bucket, stagingKey);
+            throw new IOException("Empreinte reçue (" + contentHash + ") différente de l'empreinte annoncée (" + expectedHash + ")");
+        }
 
-        // Create public url
-        String fileUrl = storageClient.getPublicUrl(bucket, key);
+        return finalizeUpload(stagingKey, contentType, size, contentHash, fileName, title, altText);
+    }
 
+    public Media uploadMediaStream(InputStream in, long size, String contentType, String fileName, String title, String altText)
+            throws IOException, InterruptedException {
+        return uploadMediaStream(in, size, contentType, fileName, title, altText, null);
+    }
+
+    /**
+     * Turns an uploaded staging object into a new media. With a known hash, the object is moved under its content
+     * address, or dropped when the same content is already stored (the new media then points at the stored object).
+     * The stored object is registered in media_objects, whose primary key settles concurrent uploads of the same
+     * content, on any instance.
+     */
+    public Media finalizeUpload(String stagingKey, String contentType, long size, String contentHash, String fileName,
+                                String title, String altText) throws IOException, InterruptedException {
+        if (contentHash == null) {
+            return createUploadedMedia(stagingKey, contentType, size, null, title, altText);
+        }
+        Optional<MediaObject> stored = objectRepository.findById(contentHash);
+        if (stored.isPresent()) {
+            storageClient.deleteObject(bucket, stagingKey);
+            log.info("Upload dédupliqué : contenu déjà stocké ({})", stored.get().getFileUrl());
+            // Type du contenu déjà stocké plutôt que celui déclaré par ce client
+            String storedType = mediaRepository.findFirstByContentHash(contentHash).map(Media::getFileType).orElse(contentType);
+            return createMediaRow(stored.get().getFileUrl(), storedType, size, contentHash, title, altText);
+        }
+
+        String contentKey = contentKey(contentHash, fileName);
+        boolean moved = false;
+        if (storageClient.objectExists(bucket, contentKey)) {
+            storageClient.deleteObject(bucket, stagingKey);
+        } else {
+            storageClient.moveObject(bucket, stagingKey, contentKey);
+            moved = true;
+        }
+        String fileUrl = storageClient.getPublicUrl(bucket, contentKey);
+        if (objectRepository.register(contentHash, fileUrl) == 0) {
+            // Un upload concurrent (éventuellement sur une autre instance) a enregistré ce contenu en premier
+            String registered = objectRepository.findById(contentHash).map(MediaObject::getFileUrl).orElse(fileUrl);
+            if (moved && !registered.equals(fileUrl)) {
+                storageClient.deleteObject(bucket, contentKey);
+            }
+            log.info("Upload dédupliqué après enregistrement concurrent : {}", registered);
+            fileUrl = registered;
+        }
+        return createMediaRow(fileUrl, contentType, size, contentHash, title, altText);
+    }
+
+    /**
+     * Creates the media row of a file already stored under the given key
+     */
+    public Media createUploadedMedia(String key, String contentType, long size, String contentHash, String title, String altText) {
+        return createMediaRow(storageClient.getPublicUrl(bucket, key), contentType, size, contentHash, title, altText);
+    }
+
+    private Media createMediaRow(String fileUrl, String contentType, long size, String contentHash, String title, String altText) {
         // Create row in DB
         Media media = Media.builder()
                 .fileUrl(fileUrl)
                 .title(title)
                 .altText(altText)
-                .fileType(file.getContentType())
-                .fileSize((int) file.getSize())
+                .fileType(contentType)
+                .fileSize((int) Math.min(size, Integer.MAX_VALUE))
+                .contentHash(contentHash)
                 .isVisible(true)
                 .build();
 
-        return mediaRepository.save(media);
+        Media saved = mediaRepository.save(media);
+        // Largeurs responsives et WebP générées en arrière-plan
+        variantService.scheduleGeneration(saved);
+        return saved;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    /**
+     * Temporary key of an upload, until its hash is known
+     */
+    public String buildStorageKey(String fileName) {
+        // Nettoyer le nom de fichier pour supprimer les caractères spéciaux
+        return "uploads/" + System.currentTimeMillis() + "_" + sanitizeFileName(fileName);
+    }
+
+    // Adresse de contenu : sha256/ab/abcdef....jpg (l'extension garde les URLs lisibles par les navigateurs)
+    private String contentKey(String contentHash, String fileName) {
+        String cleanFileName = sanitizeFileName(fileName);
+        int dot = cleanFileName.lastIndexOf('.');
+        String extension = dot >= 0 ? cleanFileName.substring(dot) : "";
+        return "sha256/" + contentHash.substring(0, 2) + "/" + contentHash + extension;
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     // Méthode pour nettoyer le nom de fichier
@@ -135,6 +267,7 @@ public class MediaService {
         log.info("Mise à jour du média avec l'ID : {}", id);
         return mediaRepository.findById(id)
                 .map(media -> {
+                    boolean fileChanged = !Objects.equals(media.getFileUrl(), mediaDetails.getFileUrl());
                     media.setFileUrl(mediaDetails.getFileUrl());
                     media.setTitle(mediaDetails.getTitle());
                     media.setAltText(mediaDetails.getAltText());
@@ -142,13 +275,25 @@ public class MediaService {
                     media.setFileSize(mediaDetails.getFileSize());
                     media.setIsVisible(mediaDetails.getIsVisible());
                     media.setSortOrder(mediaDetails.getSortOrder());
+                    diskCache.invalidate(id);
+                    if (fileChanged) {
+                        // L'empreinte ne correspond plus au nouveau fichier
+                        media.setContentHash(null);
+                        variantService.invalidate(id);
+                    }
                     return mediaRepository.save(media);
                 });
     }
 
+    /**
+     * Deletes the media row only: the stored object may be shared with other media of the same content hash,
+     * so it is left in storage.
+     */
     public void deleteMedia(UUID id) {
         log.info("Suppression du média avec l'ID : {}", id);
+        variantService.invalidate(id);
         mediaRepository.deleteById(id);
+        diskCache.invalidate(id);
     }
 
     public List<Media> searchMedia(String query) {
@@ -0,0 +1,226 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.Media;
+import com.stemadeleine.api.model.MediaUploadSession;
+import com.stemadeleine.api.repository.MediaUploadSessionRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable, chunked uploads of large media. Each chunk is piped to a Supabase resumable upload (TUS) as it is
+ * received, while the SHA-256 of the whole file is computed across chunks. The media row is created with the last chunk.
+ * <p>
+ * The session state (storage upload URL, offset, created media) is persisted in media_upload_sessions (V24), so an
+ * upload can be resumed after a restart or on another instance. The partial digest cannot be exported from
+ * {@link MessageDigest} and stays in the memory of the instance that received the chunks: an upload resumed
+ * elsewhere is completed without fingerprint, i.e. without deduplication.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaUploadSessionService {
+
+    private static final Duration SESSION_TTL = Duration.ofHours(24);
+
+    private final MediaService mediaService;
+    private final SupabaseStorageClient storageClient;
+    private final MediaUploadSessionRepository sessionRepository;
+    // Sessions connues de cette instance, avec l'empreinte partielle des segments reçus
+    private final Map<UUID, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    @Getter
+    public static final class UploadSession {
+        private final UUID uploadId;
+        private final String uploadUrl;
+        private final String key;
+        private final String fileName;
+        private final long size;
+        private final String contentType;
+        private final String title;
+        private final String altText;
+        // null lorsque l'empreinte ne peut plus être calculée (segment partiellement accepté)
+        private MessageDigest digest = MediaService.sha256();
+        private long offset;
+        private Media media;
+        private Instant lastActivity = Instant.now();
+
+        private UploadSession(UUID uploadId, String uploadUrl, String key, String fileName, long size, String contentType,
+                              String title, String altText) {
+            this.uploadId = uploadId;
+            this.uploadUrl = uploadUrl;
+            this.key = key;
+            this.fileName = fileName;
+            this.size = size;
+            this.contentType = contentType;
+            this.title = title;
+            this.altText = altText;
+        }
+    }
+
+    /**
+     * Thrown when a chunk does not start where the previous one ended; the client should resume from {@code expectedOffset}
+     */
+    @Getter
+    public static class OffsetMismatchException extends RuntimeException {
+        private final long expectedOffset;
+
+        public OffsetMismatchException(long expectedOffset) {
+            super("Offset attendu : " + expectedOffset);
+            this.expectedOffset = expectedOffset;
+        }
+    }
+
+    public UploadSession start(String fileName, long size, String contentType, String title, String altText)
+            throws IOException, InterruptedException {
+        purgeExpired();
+        String key = mediaService.buildStorageKey(fileName);
+        String uploadUrl = storageClient.createResumableUpload(mediaService.getBucket(), key, size, contentType);
+        UploadSession session = new UploadSession(UUID.randomUUID(), uploadUrl, key, fileName, size, contentType, title, altText);
+        sessionRepository.save(MediaUploadSession.builder()
+                .id(session.uploadId)
+                .uploadUrl(uploadUrl)
+                .storageKey(key)
+                .fileName(fileName)
+                .size(size)
+                .contentType(contentType)
+                .title(title)
+                .altText(altText)
+                .createdAt(OffsetDateTime.now())
+                .lastActivity(OffsetDateTime.now())
+                .build());
+        sessions.put(session.getUploadId(), session);
+        log.info("Resumable upload {} started for {} ({} bytes)", session.getUploadId(), key, size);
+        return session;
+    }
+
+    public Optional<UploadSession> find(UUID uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session != null) {
+            return Optional.of(session);
+        }
+        return sessionRepository.findById(uploadId)
+                .map(record -> sessions.computeIfAbsent(uploadId, id -> restore(record)));
+    }
+
+    // Session commencée par une autre instance ou avant un redémarrage : l'empreinte partielle est perdue
+    private UploadSession restore(MediaUploadSession record) {
+        UploadSession session = new UploadSession(record.getId(), record.getUploadUrl(), record.getStorageKey(),
+                record.getFileName(), record.getSize(), record.getContentType(), record.getTitle(), record.getAltText());
+        session.digest = null;
+        apply(session, record);
+        log.info("Resumable upload {} restored at offset {}", session.uploadId, session.offset);
+        return session;
+    }
+
+    // Reprend l'état persisté lorsqu'une autre instance a reçu des segments entre-temps
+    private void apply(UploadSession session, MediaUploadSession record) {
+        if (record.getUploadOffset() != session.offset) {
+            session.digest = null;
+            session.offset = record.getUploadOffset();
+        }
+        if (session.media == null && record.getMediaId() != null) {
+            session.media = mediaService.findById(record.getMediaId()).orElse(null);
+        }
+    }
+
+    /**
+     * Streams one chunk to storage. On failure the session offset is resynchronized with storage so that the
+     * client can resume with a GET on the session.
+     */
+    public UploadSession append(UUID uploadId, long offset, InputStream chunk, long length) throws IOException, InterruptedException {
+        UploadSession session = find(uploadId)
+                .orElseThrow(() -> new IllegalArgumentException("Upload introuvable : " + uploadId));
+        synchronized (session) {
+            MediaUploadSession record = sessionRepository.findById(uploadId)
+                    .orElseThrow(() -> new IllegalArgumentException("Upload introuvable : " + uploadId));
+            apply(session, record);
+            session.lastActivity = Instant.now();
+            if (session.media != null) {
+                return session;
+            }
+            if (offset != session.offset) {
+                throw new OffsetMismatchException(session.offset);
+            }
+            if (length <= 0 || offset + length > session.size) {
+                throw new IllegalArgumentException("Segment invalide : " + length + " octet(s) à partir de " + offset);
+            }
+
+            MessageDigest before = session.digest != null ? copy(session.digest) : null;
+            HashingInputStream hashing = new HashingInputStream(chunk, session.digest != null ? session.digest : MediaService.sha256());
+            try {
+                long newOffset = storageClient.appendResumableUpload(session.uploadUrl, offset, hashing, length);
+                if (newOffset != offset + hashing.getCount()) {
+                    session.digest = null;
+                }
+                session.offset = newOffset;
+            } catch (IOException e) {
+                session.digest = before;
+                resynchronize(session);
+                persist(record, session);
+                throw e;
+            }
+
+            if (session.offset == session.size) {
+                String hash = session.digest != null ? HashingInputStream.hex(session.digest) : null;
+                session.media = mediaService.finalizeUpload(session.key, session.contentType, session.size, hash,
+                        session.fileName, session.title, session.altText);
+                log.info("Resumable upload {} completed: media {}", uploadId, session.media.getId());
+            }
+            persist(record, session);
+            return session;
+        }
+    }
+
+    private void persist(MediaUploadSession record, UploadSession session) {
+        record.setUploadOffset(session.offset);
+        record.setMediaId(session.media != null ? session.media.getId() : null);
+        record.setLastActivity(OffsetDateTime.now());
+        sessionRepository.save(record);
+    }
+
+    private void resynchronize(UploadSession session) {
+        try {
+            long remote = storageClient.getResumableUploadOffset(session.uploadUrl);
+            if (remote != session.offset) {
+                // Des octets partiels ont été acceptés : ils ne sont plus disponibles pour l'empreinte
+                session.digest = null;
+                session.offset = remote;
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read offset of upload {}: {}", session.uploadId, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void purgeExpired() {
+        Instant limit = Instant.now().minus(SESSION_TTL);
+        sessions.values().removeIf(session -> session.lastActivity.isBefore(limit));
+        List<MediaUploadSession> expired = sessionRepository.findAllByLastActivityBefore(OffsetDateTime.now().minus(SESSION_TTL));
+        if (!expired.isEmpty()) {
+            sessionRepository.deleteAll(expired);
+        }
+    }
+
+    private static MessageDigest copy(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
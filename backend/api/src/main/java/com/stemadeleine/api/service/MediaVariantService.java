@@ -0,0 +1,243 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.Media;
+import com.stemadeleine.api.model.MediaVariant;
+import com.stemadeleine.api.repository.MediaRepository;
+import com.stemadeleine.api.repository.MediaVariantRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Generates and resolves responsive derivatives of image media (one per configured width, plus a WebP copy
+ * when a WebP ImageIO writer is available). Generation runs on a small bounded pool, never on request threads.
+ * Variants of a media with a content hash are stored and looked up by that hash, so duplicates of the same content
+ * share them.
+ * Every attempt is recorded on the media, so that an image yielding no variant is not downloaded and decoded again
+ * on each resized request; it is retried after {@code media.variants.retry-after}.
+ */
+@Slf4j
+@Service
+public class MediaVariantService {
+
+    private static final Set<String> RESIZABLE_TYPES = Set.of("image/jpeg", "image/jpg", "image/png", "image/bmp");
+    private static final String WEBP = "webp";
+
+    private final MediaRepository mediaRepository;
+    private final MediaVariantRepository variantRepository;
+    private final SupabaseStorageClient storageClient;
+    private final MediaDiskCache diskCache;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Integer> widths;
+    private final Duration retryAfter;
+    private final ThreadPoolExecutor executor;
+    // Générations en attente, par contenu (ou par média sans empreinte)
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    @Value("${supabase.storage.bucket:medias-dev}")
+    private String bucket;
+
+    public MediaVariantService(MediaRepository mediaRepository,
+                               MediaVariantRepository variantRepository,
+                               SupabaseStorageClient storageClient,
+                               MediaDiskCache diskCache,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${media.variants.widths:320,640,1024,1600}") List<Integer> widths,
+                               @Value("${media.variants.threads:2}") int threads,
+                               @Value("${media.variants.queue-capacity:100}") int queueCapacity,
+                               @Value("${media.variants.retry-after:24h}") Duration retryAfter) {
+        this.mediaRepository = mediaRepository;
+        this.variantRepository = variantRepository;
+        this.storageClient = storageClient;
+        this.diskCache = diskCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.widths = widths.stream().sorted().toList();
+        this.retryAfter = retryAfter;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-variant-" + UUID.randomUUID().toString().substring(0, 8));
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean isResizable(Media media) {
+        return media.getFileType() != null && RESIZABLE_TYPES.contains(media.getFileType().toLowerCase());
+    }
+
+    /**
+     * Queues the generation of the variants of a media. Does nothing if a generation is already pending.
+     */
+    public void scheduleGeneration(Media media) {
+        if (media == null || media.getId() == null || !isResizable(media)) {
+            return;
+        }
+        String pendingKey = variantKey(media);
+        if (!pending.add(pendingKey)) {
+            return;
+        }
+        UUID mediaId = media.getId();
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(mediaId);
+                } catch (Exception e) {
+                    log.error("Variant generation failed for media {}: {}", mediaId, e.getMessage());
+                } finally {
+                    pending.remove(pendingKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // File pleine : les variantes seront générées à la prochaine demande
+            pending.remove(pendingKey);
+            log.warn("Media variant queue is full, media {} will be processed on a later request", mediaId);
+        }
+    }
+
+    /**
+     * Returns the smallest variant at least as wide as requested, WebP first when the client accepts it.
+     * Empty when the original should be served; a missing variant set is queued for generation, unless a recent
+     * attempt produced none.
+     */
+    public Optional<MediaVariant> findClosest(Media media, int width, boolean acceptWebp) {
+        if (!isResizable(media)) {
+            return Optional.empty();
+        }
+        List<MediaVariant> variants = media.getContentHash() != null
+                ? variantRepository.findByContentHashOrderByWidthAsc(media.getContentHash())
+                : variantRepository.findByMediaIdOrderByWidthAsc(media.getId());
+        if (variants.isEmpty()) {
+            if (!attemptedRecently(media)) {
+                scheduleGeneration(media);
+            }
+            return Optional.empty();
+        }
+        Comparator<MediaVariant> preference = Comparator
+                .comparing((MediaVariant v) -> !(acceptWebp && WEBP.equals(v.getFormat())))
+                .thenComparing(MediaVariant::getWidth);
+        return variants.stream()
+                .filter(v -> v.getWidth() >= width)
+                .filter(v -> acceptWebp || !WEBP.equals(v.getFormat()))
+                .min(preference);
+    }
+
+    private boolean attemptedRecently(Media media) {
+        OffsetDateTime attemptedAt = media.getVariantsAttemptedAt();
+        return attemptedAt != null && attemptedAt.isAfter(OffsetDateTime.now().minus(retryAfter));
+    }
+
+    /**
+     * Removes the variants generated for a media (rows and locally cached files), e.g. when its file is replaced or
+     * deleted. Duplicates that shared them generate them again on their next resized request.
+     */
+    @Transactional
+    public void invalidate(UUID mediaId) {
+        List<MediaVariant> variants = variantRepository.findByMediaIdOrderByWidthAsc(mediaId);
+        variants.forEach(variant -> diskCache.invalidate(variant.getId()));
+        variantRepository.deleteAll(variants);
+        mediaRepository.updateVariantsAttemptedAt(mediaId, null);
+    }
+
+    void generate(UUID mediaId) throws IOException, InterruptedException {
+        Media media = mediaRepository.findById(mediaId).orElse(null);
+        if (media == null || (media.getContentHash() != null
+                ? variantRepository.existsByContentHash(media.getContentHash())
+                : variantRepository.existsByMediaId(mediaId))) {
+            return;
+        }
+        // Enregistrée avant le téléchargement : un échec ne relance pas la génération à chaque requête
+        transactionTemplate.executeWithoutResult(status -> mediaRepository.updateVariantsAttemptedAt(mediaId, OffsetDateTime.now()));
+        BufferedImage original;
+        HttpResponse<InputStream> response = storageClient.openStream(media.getFileUrl(), null);
+        try (InputStream in = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Téléchargement du média impossible, code: " + response.statusCode());
+            }
+            original = ImageIO.read(in);
+        }
+        if (original == null) {
+            log.warn("Media {} could not be decoded, no variant generated", mediaId);
+            return;
+        }
+
+        boolean alpha = original.getColorModel().hasAlpha();
+        String baseFormat = alpha ? "png" : "jpg";
+        boolean webpSupported = ImageIO.getImageWritersByFormatName(WEBP).hasNext();
+        List<MediaVariant> created = new ArrayList<>();
+        for (Integer width : widths) {
+            if (width >= original.getWidth()) {
+                break;
+            }
+            BufferedImage resized = resize(original, width, alpha);
+            created.add(store(media, resized, baseFormat, alpha ? "image/png" : "image/jpeg"));
+            if (webpSupported) {
+                created.add(store(media, resized, WEBP, "image/webp"));
+            }
+        }
+        variantRepository.saveAll(created);
+        log.info("{} variant(s) generated for media {}", created.size(), mediaId);
+    }
+
+    private MediaVariant store(Media media, BufferedImage image, String format, String contentType) throws IOException, InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, out)) {
+            throw new IOException("Aucun encodeur pour le format " + format);
+        }
+        byte[] bytes = out.toByteArray();
+        String key = "variants/" + variantKey(media) + "/" + image.getWidth() + "." + format;
+        storageClient.uploadFile(bucket, key, new ByteArrayInputStream(bytes), bytes.length, contentType);
+        return MediaVariant.builder()
+                .mediaId(media.getId())
+                .contentHash(media.getContentHash())
+                .width(image.getWidth())
+                .height(image.getHeight())
+                .format(format)
+                .contentType(contentType)
+                .fileUrl(storageClient.getPublicUrl(bucket, key))
+                .fileSize(bytes.length)
+                .build();
+    }
+
+    // Les variantes d'un contenu connu sont rangées sous son empreinte, partagée par ses doublons
+    private static String variantKey(Media media) {
+        return media.getContentHash() != null ? "sha256-" + media.getContentHash() : media.getId().toString();
+    }
+
+    private BufferedImage resize(BufferedImage source, int width, boolean alpha) {
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+}
@@ -7,7 +7,9 @@ import com.stemadeleine.api.repository.ContentRepository;
 import com.stemadeleine.api.repository.ModuleRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -22,6 +24,7 @@ public class ModuleService {
     private final SectionService sectionService;
     private final ContentRepository contentRepository;
     private final MediaGalleryService mediaAttachmentService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Module> getAllModules() {
         log.debug("Retrieving all modules");
@@ -208,6 +211,7 @@ public class ModuleService {
         return savedModules;
     }
 
+    @Transactional
     public Module publishModule(UUID moduleId, User author) {
         log.info("Publishing module: {}", moduleId);
         Module module = moduleRepository.findTopByModuleIdOrderByVersionDesc(moduleId)
@@ -234,6 +238,10 @@ public class ModuleService {
         }
 
         Module publishedModule = moduleRepository.save(module);
+        if (module.getSection() != null && module.getSection().getPage() != null) {
+            // Rafraîchit le rendu publié et l'index de recherche publique de la page
+            eventPublisher.publishEvent(new PagesChangedEvent(module.getSection().getPage().getPageId()));
+        }
         log.info("Module published successfully: {}", moduleId);
         return publishedModule;
     }
@@ -0,0 +1,112 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.dto.ContentDto;
+import com.stemadeleine.api.dto.ModuleDtoMarker;
+import com.stemadeleine.api.dto.PageRenderDto;
+import com.stemadeleine.api.dto.SectionDto;
+import com.stemadeleine.api.mapper.ContentMapper;
+import com.stemadeleine.api.mapper.MediaMapper;
+import com.stemadeleine.api.mapper.ModuleMapper;
+import com.stemadeleine.api.model.Module;
+import com.stemadeleine.api.model.*;
+import com.stemadeleine.api.repository.ContentRepository;
+import com.stemadeleine.api.repository.ModuleRepository;
+import com.stemadeleine.api.repository.SectionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the aggregate used to render a public page.
+ * Sections, modules and contents are each loaded with one batched query,
+ * whatever the number of sections or modules on the page.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PageRenderService {
+
+    private final PageService pageService;
+    private final SectionRepository sectionRepository;
+    private final ModuleRepository moduleRepository;
+    private final ContentRepository contentRepository;
+    private final ModuleMapper moduleMapper;
+    private final ContentMapper contentMapper;
+    private final MediaMapper mediaMapper;
+
+    @Transactional(readOnly = true)
+    public Optional<PageRenderDto> renderBySlug(String slug) {
+        return pageService.findBySlugAndVisible(slug, true).map(this::renderPage);
+    }
+
+    /**
+     * Renders a given page version (used to materialize published snapshots)
+     */
+    @Transactional(readOnly = true)
+    public PageRenderDto renderPage(Page page) {
+        List<Section> sections = sectionRepository.findLastVersionsByPageId(page.getId()).stream()
+                .filter(section -> section.getStatus() == PublishingStatus.PUBLISHED)
+                .filter(Section::getIsVisible)
+                .sorted(Comparator.comparing(s -> s.getSortOrder() != null ? s.getSortOrder() : 0))
+                .toList();
+
+        Map<UUID, List<Module>> modulesBySection = sections.isEmpty() ? Map.of() :
+                moduleRepository.findPublishedVisibleBySectionIds(sections.stream().map(Section::getId).toList(), PublishingStatus.PUBLISHED)
+                        .stream()
+                        .collect(Collectors.groupingBy(module -> module.getSection().getId(), LinkedHashMap::new, Collectors.toList()));
+
+        Set<UUID> ownerIds = new HashSet<>();
+        sections.forEach(section -> ownerIds.add(section.getSectionId()));
+        modulesBySection.values().forEach(modules -> modules.forEach(module -> ownerIds.add(module.getModuleId())));
+
+        Map<UUID, List<ContentDto>> contentsByOwner = ownerIds.isEmpty() ? Map.of() :
+                contentRepository.findLatestContentsByOwnerIdsAndStatus(ownerIds, PublishingStatus.PUBLISHED).stream()
+                        .filter(Content::getIsVisible)
+                        .collect(Collectors.groupingBy(Content::getOwnerId, Collectors.mapping(contentMapper::toDto, Collectors.toList())));
+
+        List<SectionDto> sectionDtos = sections.stream()
+                .map(section -> toSectionDto(section, modulesBySection.getOrDefault(section.getId(), List.of()), contentsByOwner))
+                .toList();
+
+        Map<UUID, List<ContentDto>> moduleContents = new HashMap<>();
+        modulesBySection.values().forEach(modules -> modules.forEach(module ->
+                moduleContents.put(module.getModuleId(), contentsByOwner.getOrDefault(module.getModuleId(), List.of()))));
+
+        log.debug("Rendered page {} with {} section(s) and {} module(s)", page.getSlug(), sectionDtos.size(), moduleContents.size());
+        return new PageRenderDto(
+                page.getId(),
+                page.getPageId(),
+                page.getName(),
+                page.getTitle(),
+                page.getSubTitle(),
+                page.getSlug(),
+                page.getDescription(),
+                mediaMapper.toDto(page.getHeroMedia()),
+                sectionDtos,
+                moduleContents
+        );
+    }
+
+    private SectionDto toSectionDto(Section section, List<Module> modules, Map<UUID, List<ContentDto>> contentsByOwner) {
+        List<ModuleDtoMarker> moduleDtos = modules.stream()
+                .map(module -> moduleMapper.toPolymorphicDto(module, contentMapper::toDto, mediaMapper::toDto))
+                .toList();
+        return new SectionDto(
+                section.getId(),
+                section.getSectionId(),
+                section.getName(),
+                section.getTitle(),
+                section.getSortOrder(),
+                section.getIsVisible(),
+                section.getStatus(),
+                mediaMapper.toDto(section.getMedia()),
+                moduleDtos,
+                contentsByOwner.getOrDefault(section.getSectionId(), List.of())
+        );
+    }
+}
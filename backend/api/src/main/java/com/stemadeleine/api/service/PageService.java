@@ -6,9 +6,11 @@ import com.stemadeleine.api.repository.MediaRepository;
 import com.stemadeleine.api.repository.PageRepository;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.*;
 import java.util.function.BinaryOperator;
@@ -22,11 +24,24 @@ public class PageService {
     private final MediaRepository mediaRepository;
     private final PageRepository pageRepository;
     private final SectionService sectionService;
+    private final PageSlugIndex slugIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public PageService(MediaRepository mediaRepository, PageRepository pageRepository, @Lazy SectionService sectionService) {
+    public PageService(MediaRepository mediaRepository, PageRepository pageRepository, @Lazy SectionService sectionService,
+                       PageSlugIndex slugIndex, ApplicationEventPublisher eventPublisher) {
         this.mediaRepository = mediaRepository;
         this.pageRepository = pageRepository;
         this.sectionService = sectionService;
+        this.slugIndex = slugIndex;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Notifies the slug index and the public navigation cache that a page changed. Callers are transactional and
+     * publish after their writes, so the listeners run once the change is committed.
+     */
+    private void publishPagesChanged(UUID pageId) {
+        eventPublisher.publishEvent(new PagesChangedEvent(pageId));
     }
 
     public Optional<Page> getPublishedPage(UUID pageId) {
@@ -108,6 +123,7 @@ public class PageService {
     }
 
     private void publishPageRecursive(Page page, User author) {
+        publishPagesChanged(page.getPageId());
         page.setStatus(PublishingStatus.PUBLISHED);
         page.setAuthor(author);
         page.setUpdatedAt(java.time.OffsetDateTime.now());
@@ -131,6 +147,7 @@ public class PageService {
             Page page = pageRepository.findById(dto.id())
                     .orElseThrow(() -> new RuntimeException("Page not found: " + dto.id()));
 
+            publishPagesChanged(page.getPageId());
             page.setParentPage(parent);
             page.setSortOrder(sortOrder++);
             page.setIsVisible(dto.isVisible());
@@ -178,6 +195,7 @@ public class PageService {
         return pageRepository.save(page);
     }
 
+    @Transactional
     public Page updatePage(UUID pageId, String name, String title, String subTitle, String slug, String description, Boolean isVisible, User author) {
         Page page = pageRepository.findTopByPageIdOrderByVersionDesc(pageId)
                 .orElseThrow(() -> new RuntimeException("Page not found with pageId: " + pageId));
@@ -198,7 +216,9 @@ public class PageService {
         if (isVisible != null) page.setIsVisible(isVisible);
         page.setAuthor(author);
 
-        return pageRepository.save(page);
+        Page saved = pageRepository.save(page);
+        publishPagesChanged(pageId);
+        return saved;
     }
 
     @Transactional
@@ -246,6 +266,7 @@ public class PageService {
         newPage.setSections(sectionsToAttach);
 
         Page savedPage = pageRepository.save(newPage);
+        publishPagesChanged(pageId);
         if (!sectionsToAttach.isEmpty()) {
             sectionService.saveAll(sectionsToAttach);
         }
@@ -366,8 +387,10 @@ public class PageService {
 
         // Delete using entity technical id
         pageRepository.softDeleteById(page.getId());
+        publishPagesChanged(pageId);
     }
 
+    @Transactional
     public Page updatePageVisibility(UUID pageId, Boolean isVisible, User author) {
         // First try to find by pageId (version identifier)
         Optional<Page> pageOpt = pageRepository.findTopByPageIdOrderByVersionDesc(pageId);
@@ -382,7 +405,9 @@ public class PageService {
         page.setIsVisible(isVisible);
         page.setAuthor(author);
 
-        return pageRepository.save(page);
+        Page saved = pageRepository.save(page);
+        publishPagesChanged(page.getPageId());
+        return saved;
     }
 
     // ==== METHODS FOR PUBLIC ENDPOINTS ====
@@ -422,26 +447,32 @@ public class PageService {
     }
 
     /**
-     * Finds a published and visible page by its slug (without sections)
+     * Finds a published and visible page by its slug (without sections).
+     * Resolved through the in-process slug index, falling back to an indexed query on misses.
+     * An index hit still loads the page by primary key: callers (PageRenderService, snapshot materialization)
+     * walk its lazy sections within their own transaction, so a managed entity is returned rather than a shared
+     * detached instance. The public render path does not reach this method once the page snapshot exists.
      */
     public Optional<Page> findBySlugAndVisible(String slug, boolean visible) {
-        log.info("Finding published and visible page by slug: {}", slug);
-
-        // Get all pages with this slug
-        List<Page> pagesWithSlug = pageRepository.findAll().stream()
-                .filter(page -> slug.equals(page.getSlug()))
-                .filter(page -> page.getStatus() == PublishingStatus.PUBLISHED)
-                .filter(page -> page.getIsVisible() == visible)
-                .toList();
-
-        // If multiple versions exist, get the most recent one
-        Optional<Page> latestPage = pagesWithSlug.stream()
-                .max(Comparator.comparingInt(Page::getVersion));
+        log.debug("Finding published page by slug: {} (visible={})", slug, visible);
+
+        if (visible) {
+            Optional<Page> indexed = slugIndex.get(slug)
+                    .flatMap(pageRepository::findById)
+                    .filter(page -> isPublishedVisibleWithSlug(page, slug));
+            if (indexed.isPresent()) {
+                return indexed;
+            }
+        }
 
+        Optional<Page> latestPage = pageRepository.findTopBySlugAndStatusAndIsVisibleOrderByVersionDesc(slug, PublishingStatus.PUBLISHED, visible);
         if (latestPage.isPresent()) {
             Page page = latestPage.get();
             log.debug("Found published page: {} (version {}) for slug: {}",
                     page.getTitle(), page.getVersion(), slug);
+            if (visible) {
+                slugIndex.put(page);
+            }
             return latestPage;
         }
 
@@ -449,6 +480,12 @@ public class PageService {
         return Optional.empty();
     }
 
+    private boolean isPublishedVisibleWithSlug(Page page, String slug) {
+        return slug.equals(page.getSlug())
+                && page.getStatus() == PublishingStatus.PUBLISHED
+                && Boolean.TRUE.equals(page.getIsVisible());
+    }
+
     /**
      * Finds a published and visible page by its ID
      */
@@ -457,24 +494,6 @@ public class PageService {
                 .filter(page -> page.getIsVisible() == visible);
     }
 
-    /**
-     * Search in visible pages by title, name, subtitle or description
-     */
-    public List<Page> searchInVisiblePages(String query) {
-        return pageRepository.findAll().stream()
-                .filter(page -> page.getStatus() == PublishingStatus.PUBLISHED && page.getIsVisible())
-                .collect(Collectors.toMap(Page::getPageId, Function.identity(), BinaryOperator.maxBy(Comparator.comparingInt(Page::getVersion))))
-                .values().stream()
-                .filter(page ->
-                        (page.getTitle() != null && page.getTitle().toLowerCase().contains(query.toLowerCase())) ||
-                                (page.getName() != null && page.getName().toLowerCase().contains(query.toLowerCase())) ||
-                                (page.getSubTitle() != null && page.getSubTitle().toLowerCase().contains(query.toLowerCase())) ||
-                                (page.getDescription() != null && page.getDescription().toLowerCase().contains(query.toLowerCase()))
-                )
-                .sorted(Comparator.comparing(Page::getTitle))
-                .toList();
-    }
-
     /**
      * Convertit une entité Page en PageDto, récursivement pour les enfants, sans inclure le parent
      */
@@ -500,8 +519,54 @@ public class PageService {
      * Expose la hiérarchie des pages visibles et publiées sous forme de PageDto
      */
     public List<PageDto> findVisiblePagesHierarchyDto() {
-        List<Page> roots = findVisiblePagesHierarchy();
-        return roots.stream().map(this::toPageDto).toList();
+        return buildVisiblePagesTree();
+    }
+
+    /**
+     * Date de la dernière modification d'une page, persistée : identique sur toutes les instances
+     */
+    public Optional<OffsetDateTime> getLastUpdatedAt() {
+        return pageRepository.findLastUpdatedAt();
+    }
+
+    /**
+     * Construit l'arbre de navigation public (dernière version publiée et visible de chaque page)
+     * sous forme de PageDto immuables, sans modifier les collections children des entités.
+     */
+    public List<PageDto> buildVisiblePagesTree() {
+        List<Page> pages = pageRepository.findLatestVersionsByStatusAndVisible(PublishingStatus.PUBLISHED, true);
+        Set<UUID> pageIds = pages.stream().map(Page::getPageId).collect(Collectors.toSet());
+
+        List<Page> roots = new ArrayList<>();
+        Map<UUID, List<Page>> childrenByParent = new HashMap<>();
+        for (Page page : pages) {
+            Page parent = page.getParentPage();
+            if (parent == null || parent.getPageId() == null || !pageIds.contains(parent.getPageId())) {
+                roots.add(page);
+            } else {
+                childrenByParent.computeIfAbsent(parent.getPageId(), k -> new ArrayList<>()).add(page);
+            }
+        }
+        return toImmutablePageDtos(roots, childrenByParent);
+    }
+
+    private List<PageDto> toImmutablePageDtos(List<Page> pages, Map<UUID, List<Page>> childrenByParent) {
+        return pages.stream()
+                .sorted(Comparator.comparing(p -> p.getSortOrder() != null ? p.getSortOrder() : 0))
+                .map(page -> new PageDto(
+                        page.getId(),
+                        page.getPageId(),
+                        page.getName(),
+                        page.getTitle(),
+                        page.getSubTitle(),
+                        page.getSlug(),
+                        page.getDescription(),
+                        page.getStatus(),
+                        page.getSortOrder(),
+                        page.getIsVisible(),
+                        toImmutablePageDtos(childrenByParent.getOrDefault(page.getPageId(), List.of()), childrenByParent)
+                ))
+                .toList();
     }
 
     /**
@@ -0,0 +1,78 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.Page;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process index slug -> technical id of the latest published and visible page version.
+ * Filled lazily on lookup misses and evicted on every {@link PagesChangedEvent} (publication,
+ * rename, visibility change, tree update or deletion).
+ * <p>
+ * Only ids are indexed, not the pages themselves: a Page is a mutable entity with lazy associations, which cannot
+ * be shared between requests and sessions. A hit replaces the slug/status/version query by a primary-key lookup.
+ */
+@Slf4j
+@Component
+public class PageSlugIndex {
+
+    private final Map<String, UUID> idsBySlug = new ConcurrentHashMap<>();
+    private final Map<UUID, String> slugsByPageId = new ConcurrentHashMap<>();
+
+    public Optional<UUID> get(String slug) {
+        return Optional.ofNullable(idsBySlug.get(slug));
+    }
+
+    public void put(Page page) {
+        String previousSlug = slugsByPageId.put(page.getPageId(), page.getSlug());
+        if (previousSlug != null && !previousSlug.equals(page.getSlug())) {
+            idsBySlug.remove(previousSlug);
+        }
+        idsBySlug.put(page.getSlug(), page.getId());
+    }
+
+    @EventListener
+    public void onPagesChanged(PagesChangedEvent event) {
+        evict(event.pageId());
+    }
+
+    /**
+     * Removes every entry of a business page. When called inside a transaction, the eviction is
+     * replayed after commit so that a concurrent lookup cannot re-index the previous version.
+     */
+    public void evict(UUID pageId) {
+        if (pageId == null) {
+            return;
+        }
+        remove(pageId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(pageId);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        idsBySlug.clear();
+        slugsByPageId.clear();
+    }
+
+    private void remove(UUID pageId) {
+        String slug = slugsByPageId.remove(pageId);
+        if (slug != null) {
+            idsBySlug.remove(slug);
+            log.debug("Slug index entry evicted: {} (pageId {})", slug, pageId);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.stemadeleine.api.service;
+
+import java.util.UUID;
+
+/**
+ * Published by {@link PageService} whenever a page change can affect public navigation
+ * (publication, tree reordering, new version, visibility or deletion), and whenever published content of
+ * the page changes: section publication ({@link SectionService}), module publication ({@link ModuleService})
+ * and content status changes ({@link ContentService}). Publishers are transactional, so the
+ * transactional listeners run after commit.
+ *
+ * @param pageId business identifier of the changed page
+ */
+public record PagesChangedEvent(UUID pageId) {
+}
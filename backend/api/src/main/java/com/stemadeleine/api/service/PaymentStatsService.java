@@ -0,0 +1,176 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.dto.PaymentStatsSeriesDto;
+import com.stemadeleine.api.exception.BadRequestException;
+import com.stemadeleine.api.model.PaymentStatsMonthly;
+import com.stemadeleine.api.model.PaymentStatsTotal;
+import com.stemadeleine.api.model.PaymentStatus;
+import com.stemadeleine.api.model.PaymentType;
+import com.stemadeleine.api.repository.PaymentRepository;
+import com.stemadeleine.api.repository.PaymentStatsMonthlyRepository;
+import com.stemadeleine.api.repository.PaymentStatsTotalRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Payment statistics read from the rollup tables of V20, kept up to date by triggers on payments: a dashboard
+ * query reads at most one row per payment type or twelve monthly rows, whatever the size of the payments table.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaymentStatsService {
+
+    static final int MAX_BUCKETS = 1000;
+
+    private final PaymentStatsMonthlyRepository monthlyRepository;
+    private final PaymentStatsTotalRepository totalRepository;
+    private final PaymentRepository paymentRepository;
+
+    /**
+     * Time bucket of a series, truncated like PostgreSQL's date_trunc (weeks start on Monday)
+     */
+    public enum Granularity {
+        DAY, WEEK, MONTH, YEAR;
+
+        public static Granularity parse(String value) {
+            if (value == null || value.isBlank()) {
+                return MONTH;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Granularité inconnue : " + value + " (day, week, month ou year)");
+            }
+        }
+
+        LocalDate truncate(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+                case YEAR -> date.withDayOfYear(1);
+            };
+        }
+
+        LocalDate next(LocalDate bucket) {
+            return switch (this) {
+                case DAY -> bucket.plusDays(1);
+                case WEEK -> bucket.plusWeeks(1);
+                case MONTH -> bucket.plusMonths(1);
+                case YEAR -> bucket.plusYears(1);
+            };
+        }
+    }
+
+    /**
+     * All-time amount, count and distinct payers of a payment type (zeros when it has no payment)
+     */
+    @Transactional(readOnly = true)
+    public PaymentStatsTotal getTotals(PaymentType type) {
+        return totalRepository.findById(type)
+                .orElseGet(() -> new PaymentStatsTotal(type, 0.0, 0L, 0));
+    }
+
+    /**
+     * Amounts of a payment type per month of a year, January first
+     */
+    @Transactional(readOnly = true)
+    public double[] getMonthlyAmounts(PaymentType type, int year) {
+        double[] monthly = new double[12];
+        for (PaymentStatsMonthly row : monthlyRepository.findByIdPaymentTypeAndIdYear(type, year)) {
+            int idx = row.getId().getMonth() - 1;
+            if (idx >= 0 && idx < 12) {
+                monthly[idx] = row.getTotalAmount() != null ? row.getTotalAmount() : 0.0;
+            }
+        }
+        return monthly;
+    }
+
+    /**
+     * Series of amounts and counts between two dates (inclusive): one per requested type, one per requested status
+     * and the total of the payments matching both filters. Every series comes from the same grouped query and has
+     * a value for each bucket of the range, empty buckets included. No type or status means all of them.
+     */
+    @Transactional(readOnly = true)
+    public PaymentStatsSeriesDto getSeries(LocalDate from, LocalDate to, Granularity granularity,
+                                           Collection<PaymentType> types, Collection<PaymentStatus> statuses) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new BadRequestException("Période invalide : du " + from + " au " + to);
+        }
+        List<LocalDate> buckets = new ArrayList<>();
+        Map<LocalDate, Integer> bucketIndex = new HashMap<>();
+        for (LocalDate bucket = granularity.truncate(from); !bucket.isAfter(to); bucket = granularity.next(bucket)) {
+            if (buckets.size() == MAX_BUCKETS) {
+                throw new BadRequestException("Période trop longue pour la granularité " + granularity.name().toLowerCase(Locale.ROOT)
+                        + " (" + MAX_BUCKETS + " points au maximum)");
+            }
+            bucketIndex.put(bucket, buckets.size());
+            buckets.add(bucket);
+        }
+
+        Set<PaymentType> selectedTypes = types == null || types.isEmpty() ? EnumSet.allOf(PaymentType.class) : EnumSet.copyOf(types);
+        Set<PaymentStatus> selectedStatuses = statuses == null || statuses.isEmpty() ? EnumSet.allOf(PaymentStatus.class) : EnumSet.copyOf(statuses);
+        Map<String, PaymentStatsSeriesDto.Series> series = new LinkedHashMap<>();
+        selectedTypes.forEach(type -> series.put(seriesKey(1, type.name()), emptySeries("type", type.name(), buckets.size())));
+        selectedStatuses.forEach(status -> series.put(seriesKey(2, status.name()), emptySeries("status", status.name(), buckets.size())));
+        series.put(seriesKey(3, null), emptySeries("total", "ALL", buckets.size()));
+
+        List<Object[]> rows = paymentRepository.sumSeries(granularity.name().toLowerCase(Locale.ROOT), from, to,
+                selectedTypes.stream().map(Enum::name).toList(), selectedStatuses.stream().map(Enum::name).toList());
+        for (Object[] row : rows) {
+            Integer idx = bucketIndex.get(toLocalDate(row[0]));
+            int grouping = ((Number) row[3]).intValue();
+            PaymentStatsSeriesDto.Series target = series.get(seriesKey(grouping, (String) (grouping == 1 ? row[1] : grouping == 2 ? row[2] : null)));
+            if (idx == null || target == null) {
+                continue;
+            }
+            target.amounts()[idx] = ((Number) row[4]).doubleValue();
+            target.counts()[idx] = ((Number) row[5]).longValue();
+        }
+        log.debug("Séries de paiements du {} au {} par {} : {} point(s), {} série(s), {} ligne(s) agrégée(s)",
+                from, to, granularity, buckets.size(), series.size(), rows.size());
+        return new PaymentStatsSeriesDto(from, to, granularity.name().toLowerCase(Locale.ROOT), buckets, List.copyOf(series.values()));
+    }
+
+    private static String seriesKey(int grouping, String value) {
+        return grouping + ":" + value;
+    }
+
+    private static PaymentStatsSeriesDto.Series emptySeries(String dimension, String key, int size) {
+        return new PaymentStatsSeriesDto.Series(dimension, key, new double[size], new long[size]);
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    /**
+     * Recomputes the rollups from the payments table, e.g. after a manual SQL fix. Writes to payments wait until
+     * the rebuild is committed.
+     */
+    @Transactional
+    public void rebuild() {
+        long start = System.nanoTime();
+        totalRepository.rebuild();
+        log.info("Statistiques des paiements recalculées en {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
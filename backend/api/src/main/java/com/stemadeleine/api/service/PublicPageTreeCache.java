@@ -0,0 +1,74 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.dto.PageDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Precomputed, immutable navigation tree served by the public API.
+ * <p>
+ * The snapshot is rebuilt lazily once the last modification date of the pages (pages.updated_at) has moved, so that
+ * a change made through any API instance, or before a restart, is picked up by every instance. Clients revalidate
+ * with the content ETag, which only changes when the tree itself does.
+ */
+@Slf4j
+@Component
+public class PublicPageTreeCache {
+
+    private final PageService pageService;
+
+    private volatile Snapshot snapshot;
+
+    public PublicPageTreeCache(PageService pageService) {
+        this.pageService = pageService;
+    }
+
+    public Snapshot get() {
+        OffsetDateTime lastUpdatedAt = pageService.getLastUpdatedAt().orElse(null);
+        Snapshot current = snapshot;
+        if (current != null && Objects.equals(current.pagesUpdatedAt(), lastUpdatedAt)) {
+            return current;
+        }
+        return rebuild(lastUpdatedAt);
+    }
+
+    private synchronized Snapshot rebuild(OffsetDateTime lastUpdatedAt) {
+        Snapshot current = snapshot;
+        if (current != null && Objects.equals(current.pagesUpdatedAt(), lastUpdatedAt)) {
+            return current;
+        }
+        // Date lue avant l'arbre : une modification concurrente provoque au pire une reconstruction de plus
+        List<PageDto> pages = pageService.buildVisiblePagesTree();
+        Snapshot rebuilt = new Snapshot(lastUpdatedAt, computeEtag(pages), pages);
+        snapshot = rebuilt;
+        log.info("Public page tree rebuilt: pages updated at {}, {} root page(s)", lastUpdatedAt, pages.size());
+        return rebuilt;
+    }
+
+    // Content-based ETag so that several API instances answer with the same value for the same tree
+    private String computeEtag(List<PageDto> pages) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(pages.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * @param pagesUpdatedAt last modification date of the pages the tree was built from
+     * @param etag           strong ETag of the tree content
+     * @param pages          immutable root pages with their children
+     */
+    public record Snapshot(OffsetDateTime pagesUpdatedAt, String etag, List<PageDto> pages) {
+    }
+}
@@ -0,0 +1,267 @@
+package com.stemadeleine.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.stemadeleine.api.dto.PublicSearchResultDto;
+import com.stemadeleine.api.dto.PublicSearchResultsDto;
+import com.stemadeleine.api.model.Module;
+import com.stemadeleine.api.model.*;
+import com.stemadeleine.api.repository.ContentRepository;
+import com.stemadeleine.api.repository.ModuleRepository;
+import com.stemadeleine.api.repository.PageRepository;
+import com.stemadeleine.api.repository.PublicSearchDocumentRepository;
+import com.stemadeleine.api.repository.SectionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Public site search over the published pages, sections, articles, news and newsletters.
+ * <p>
+ * Documents are stored in public_search_documents, whose tsvector column is generated with the French,
+ * accent-insensitive configuration (see V15/V16). They are rewritten per page after each publication, so a query
+ * is a single ranked GIN lookup with highlighted snippets.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PublicSearchService {
+
+    static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final String HIGHLIGHT_START = "\u0002";
+    private static final String HIGHLIGHT_END = "\u0003";
+    private static final String HEADLINE_OPTIONS = "StartSel=" + HIGHLIGHT_START + ", StopSel=" + HIGHLIGHT_END
+            + ", MaxWords=35, MinWords=15, MaxFragments=2, FragmentDelimiter=\" … \"";
+    // Champs JSON des contenus qui ne portent pas de texte affiché
+    private static final Set<String> NON_TEXT_FIELDS = Set.of("id", "url", "src", "href", "type", "variant", "style",
+            "className", "color", "icon", "target", "mediaId");
+    private static final Pattern SCRIPT_OR_STYLE = Pattern.compile("(?is)<(script|style)[^>]*>.*?</\\1>");
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final PublicSearchDocumentRepository documentRepository;
+    private final PageService pageService;
+    private final PageRepository pageRepository;
+    private final SectionRepository sectionRepository;
+    private final ModuleRepository moduleRepository;
+    private final ContentRepository contentRepository;
+
+    /**
+     * Ranked search (web search syntax: words, "exact phrase", -excluded), paginated from page 0
+     */
+    @Transactional(readOnly = true)
+    public PublicSearchResultsDto search(String query, int page, int size) {
+        String q = query == null ? "" : query.trim();
+        if (q.length() > MAX_QUERY_LENGTH) {
+            q = q.substring(0, MAX_QUERY_LENGTH);
+        }
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        if (q.isEmpty()) {
+            return new PublicSearchResultsDto(q, pageNumber, pageSize, 0, 0, List.of());
+        }
+
+        long total = documentRepository.countMatches(q);
+        List<PublicSearchResultDto> results = total == 0 ? List.of() :
+                documentRepository.search(q, HEADLINE_OPTIONS, pageSize, (long) pageNumber * pageSize).stream()
+                        .map(this::toResult)
+                        .toList();
+        log.debug("Public search '{}' page {}: {} result(s) on {}", q, pageNumber, results.size(), total);
+        return new PublicSearchResultsDto(q, pageNumber, pageSize, total, (int) ((total + pageSize - 1) / pageSize), results);
+    }
+
+    /**
+     * Runs once the publishing transaction is committed, in its own transaction. A failure leaves the previous
+     * documents in place; they are rewritten on the next publication.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onPagesChanged(PagesChangedEvent event) {
+        if (event.pageId() == null) {
+            return;
+        }
+        try {
+            reindexPage(event.pageId());
+        } catch (RuntimeException e) {
+            log.error("Unable to refresh public search documents for page {}", event.pageId(), e);
+        }
+    }
+
+    /**
+     * Indexes the pages published before the search documents existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void indexPublishedPagesIfEmpty() {
+        try {
+            if (documentRepository.count() > 0) {
+                return;
+            }
+            List<Page> pages = pageRepository.findLatestVersionsByStatusAndVisible(PublishingStatus.PUBLISHED, true).stream()
+                    .filter(page -> pageService.getLastVersion(page.getPageId())
+                            .map(last -> last.getStatus() != PublishingStatus.DELETED)
+                            .orElse(false))
+                    .toList();
+            pages.forEach(page -> documentRepository.saveAll(buildDocuments(page)));
+            log.info("Public search documents built for {} published page(s)", pages.size());
+        } catch (RuntimeException e) {
+            log.error("Unable to build the public search documents", e);
+        }
+    }
+
+    /**
+     * Rewrites the documents of a business page, or removes them when the page is no longer publicly visible
+     */
+    @Transactional
+    public void reindexPage(UUID pageId) {
+        documentRepository.deleteByPageId(pageId);
+        boolean deleted = pageService.getLastVersion(pageId)
+                .map(page -> page.getStatus() == PublishingStatus.DELETED)
+                .orElse(true);
+        Optional<Page> published = deleted ? Optional.empty() : pageService.getPublishedPage(pageId)
+                .filter(page -> Boolean.TRUE.equals(page.getIsVisible()));
+        published.ifPresent(page -> {
+            List<PublicSearchDocument> documents = documentRepository.saveAll(buildDocuments(page));
+            log.debug("Public search documents written for page {}: {}", pageId, documents.size());
+        });
+    }
+
+    /**
+     * One document for the page, one per published section (its contents and those of its generic modules)
+     * and one per article, news or newsletter module
+     */
+    List<PublicSearchDocument> buildDocuments(Page page) {
+        List<PublicSearchDocument> documents = new ArrayList<>();
+        documents.add(document(page, PublicSearchDocument.PAGE, page.getPageId(),
+                page.getTitle() != null ? page.getTitle() : page.getName(),
+                join(page.getSubTitle(), page.getDescription())));
+
+        List<Section> sections = sectionRepository.findLastVersionsByPageId(page.getId()).stream()
+                .filter(section -> section.getStatus() == PublishingStatus.PUBLISHED)
+                .filter(section -> Boolean.TRUE.equals(section.getIsVisible()))
+                .toList();
+        if (sections.isEmpty()) {
+            return documents;
+        }
+
+        Map<UUID, List<Module>> modulesBySection = moduleRepository
+                .findPublishedVisibleBySectionIds(sections.stream().map(Section::getId).toList(), PublishingStatus.PUBLISHED)
+                .stream()
+                .collect(Collectors.groupingBy(module -> module.getSection().getId(), LinkedHashMap::new, Collectors.toList()));
+
+        Set<UUID> ownerIds = new HashSet<>();
+        sections.forEach(section -> ownerIds.add(section.getSectionId()));
+        modulesBySection.values().forEach(modules -> modules.forEach(module -> ownerIds.add(module.getModuleId())));
+        Map<UUID, List<Content>> contentsByOwner = contentRepository.findLatestContentsByOwnerIdsAndStatus(ownerIds, PublishingStatus.PUBLISHED)
+                .stream()
+                .filter(content -> Boolean.TRUE.equals(content.getIsVisible()))
+                .collect(Collectors.groupingBy(Content::getOwnerId));
+
+        for (Section section : sections) {
+            List<String> sectionText = new ArrayList<>();
+            sectionText.add(contentsText(contentsByOwner.get(section.getSectionId())));
+            for (Module module : modulesBySection.getOrDefault(section.getId(), List.of())) {
+                String moduleText = contentsText(contentsByOwner.get(module.getModuleId()));
+                String type = module instanceof Article ? PublicSearchDocument.ARTICLE
+                        : module instanceof News ? PublicSearchDocument.NEWS
+                        : module instanceof Newsletter ? PublicSearchDocument.NEWSLETTER
+                        : null;
+                if (type == null) {
+                    sectionText.add(join(module.getTitle(), moduleText));
+                } else {
+                    String description = module instanceof Newsletter newsletter ? newsletter.getDescription() : null;
+                    documents.add(document(page, type, module.getModuleId(), module.getTitle(), join(description, moduleText)));
+                }
+            }
+            documents.add(document(page, PublicSearchDocument.SECTION, section.getSectionId(),
+                    section.getTitle() != null ? section.getTitle() : section.getName(),
+                    join(sectionText.toArray(String[]::new))));
+        }
+        return documents;
+    }
+
+    private PublicSearchDocument document(Page page, String type, UUID sourceId, String title, String body) {
+        return PublicSearchDocument.builder()
+                .pageId(page.getPageId())
+                .sourceType(type)
+                .sourceId(sourceId)
+                .slug(page.getSlug())
+                .title(title)
+                .body(body)
+                .updatedAt(OffsetDateTime.now())
+                .build();
+    }
+
+    private PublicSearchResultDto toResult(Object[] row) {
+        String snippet = row[5] == null ? "" : HtmlUtils.htmlEscape((String) row[5], "UTF-8")
+                .replace(HIGHLIGHT_START, "<mark>")
+                .replace(HIGHLIGHT_END, "</mark>");
+        return new PublicSearchResultDto(
+                (String) row[0],
+                (UUID) row[1],
+                (UUID) row[2],
+                (String) row[3],
+                (String) row[4],
+                snippet,
+                row[6] == null ? 0 : ((Number) row[6]).doubleValue());
+    }
+
+    private static String contentsText(List<Content> contents) {
+        if (contents == null) {
+            return "";
+        }
+        return join(contents.stream()
+                .sorted(Comparator.comparing(content -> content.getSortOrder() != null ? content.getSortOrder() : 0))
+                .map(content -> join(content.getTitle(), extractText(content.getBody())))
+                .toArray(String[]::new));
+    }
+
+    /**
+     * Visible text of a content body: every string value of the JSON tree (HTML stripped), except technical fields
+     */
+    static String extractText(JsonNode body) {
+        List<String> parts = new ArrayList<>();
+        collectText(body, null, parts);
+        return join(parts.toArray(String[]::new));
+    }
+
+    private static void collectText(JsonNode node, String field, List<String> parts) {
+        if (node == null || node.isNull()) {
+            return;
+        }
+        if (node.isTextual()) {
+            String value = node.asText();
+            if ((field == null || !NON_TEXT_FIELDS.contains(field)) && !value.startsWith("http")) {
+                parts.add(htmlToText(value));
+            }
+        } else if (node.isArray()) {
+            node.forEach(child -> collectText(child, field, parts));
+        } else if (node.isObject()) {
+            node.properties().forEach(entry -> collectText(entry.getValue(), entry.getKey(), parts));
+        }
+    }
+
+    static String htmlToText(String html) {
+        String withoutTags = HTML_TAG.matcher(SCRIPT_OR_STYLE.matcher(html).replaceAll(" ")).replaceAll(" ");
+        return WHITESPACE.matcher(HtmlUtils.htmlUnescape(withoutTags)).replaceAll(" ").trim();
+    }
+
+    private static String join(String... parts) {
+        return Arrays.stream(parts)
+                .filter(part -> part != null && !part.isBlank())
+                .map(String::trim)
+                .collect(Collectors.joining(" "));
+    }
+}
@@ -0,0 +1,108 @@
+package com.stemadeleine.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stemadeleine.api.model.Page;
+import com.stemadeleine.api.model.PublishedPageSnapshot;
+import com.stemadeleine.api.model.PublishingStatus;
+import com.stemadeleine.api.repository.PublishedPageSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Maintains the published_page_snapshots table: one JSONB render of each published and visible page,
+ * rewritten after every page, section, module or content publication so that public reads are a single lookup by slug.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PublishedPageSnapshotService {
+
+    private final PublishedPageSnapshotRepository snapshotRepository;
+    private final PageService pageService;
+    private final PageRenderService pageRenderService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Returns the snapshot payload of a page. A page published before snapshots existed is rendered once
+     * and stored on first read; concurrent first reads of the same slug all serve their render, only one is stored.
+     */
+    @Transactional
+    public Optional<JsonNode> getPayloadBySlug(String slug) {
+        Optional<PublishedPageSnapshot> snapshot = snapshotRepository.findBySlug(slug);
+        if (snapshot.isPresent()) {
+            return snapshot.map(PublishedPageSnapshot::getPayload);
+        }
+        return pageService.findBySlugAndVisible(slug, true)
+                .map(this::writeIfAbsent);
+    }
+
+    /**
+     * Runs once the publishing transaction is committed, in its own transaction, so the render only sees committed
+     * data. A failure leaves the previous snapshot in place; it is rewritten on the next publication.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onPagesChanged(PagesChangedEvent event) {
+        if (event.pageId() == null) {
+            return;
+        }
+        try {
+            refresh(event.pageId());
+        } catch (RuntimeException e) {
+            log.error("Unable to refresh published snapshot for page {}", event.pageId(), e);
+        }
+    }
+
+    /**
+     * Rewrites the snapshot of a business page, or removes it when the page is no longer publicly visible
+     */
+    @Transactional
+    public void refresh(UUID pageId) {
+        boolean deleted = pageService.getLastVersion(pageId)
+                .map(page -> page.getStatus() == PublishingStatus.DELETED)
+                .orElse(true);
+        Optional<Page> published = deleted ? Optional.empty() : pageService.getPublishedPage(pageId)
+                .filter(page -> Boolean.TRUE.equals(page.getIsVisible()));
+
+        if (published.isEmpty()) {
+            if (snapshotRepository.existsById(pageId)) {
+                snapshotRepository.deleteById(pageId);
+                log.info("Published snapshot removed for page {}", pageId);
+            }
+            return;
+        }
+        write(published.get());
+    }
+
+    // Écriture depuis une lecture publique : ON CONFLICT DO NOTHING, une lecture concurrente ne provoque pas d'erreur
+    private JsonNode writeIfAbsent(Page page) {
+        JsonNode payload = objectMapper.valueToTree(pageRenderService.renderPage(page));
+        int inserted = snapshotRepository.insertIfAbsent(page.getPageId(), page.getSlug(), page.getVersion(), payload.toString());
+        if (inserted == 0) {
+            log.debug("Published snapshot of page {} (slug {}) already written by another request", page.getPageId(), page.getSlug());
+        }
+        return payload;
+    }
+
+    private PublishedPageSnapshot write(Page page) {
+        JsonNode payload = objectMapper.valueToTree(pageRenderService.renderPage(page));
+        snapshotRepository.deleteBySlugAndPageIdNot(page.getSlug(), page.getPageId());
+        PublishedPageSnapshot snapshot = snapshotRepository.findById(page.getPageId())
+                .orElseGet(() -> PublishedPageSnapshot.builder().pageId(page.getPageId()).build());
+        snapshot.setSlug(page.getSlug());
+        snapshot.setPageVersion(page.getVersion());
+        snapshot.setPayload(payload);
+        snapshot.setPublishedAt(OffsetDateTime.now());
+        log.debug("Published snapshot written for page {} (slug {}, version {})", page.getPageId(), page.getSlug(), page.getVersion());
+        return snapshotRepository.save(snapshot);
+    }
+}
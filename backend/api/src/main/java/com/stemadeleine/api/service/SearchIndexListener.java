@@ -0,0 +1,30 @@
+package com.stemadeleine.api.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener keeping the {@link TypeaheadIndex} in sync with users, payments, pages, sections,
+ * modules and contacts. Instantiated by Hibernate through Spring, the index is resolved lazily to avoid a
+ * cycle with the entity manager factory.
+ */
+public class SearchIndexListener {
+
+    private final ObjectProvider<TypeaheadIndex> typeaheadIndex;
+
+    public SearchIndexListener(ObjectProvider<TypeaheadIndex> typeaheadIndex) {
+        this.typeaheadIndex = typeaheadIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        TypeaheadIndex index = typeaheadIndex.getIfAvailable();
+        if (index != null) {
+            index.entityChanged(entity);
+        }
+    }
+}
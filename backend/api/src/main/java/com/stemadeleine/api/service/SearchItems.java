@@ -0,0 +1,118 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.*;
+import com.stemadeleine.api.model.Module;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mise en forme des résultats de la recherche globale : { id, title, subtitle, url, type, kind }.
+ * Partagée par les requêtes en base et l'index de saisie semi-automatique.
+ */
+final class SearchItems {
+
+    private SearchItems() {
+    }
+
+    static Map<String, Object> user(User u) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", u.getId());
+        String name = (u.getFirstname() == null ? "" : u.getFirstname()) + " " + (u.getLastname() == null ? "" : u.getLastname());
+        m.put("title", name.trim().isEmpty() ? (u.getEmail() == null ? "Utilisateur" : u.getEmail()) : name.trim());
+        m.put("subtitle", u.getEmail());
+        m.put("url", "/users/" + u.getId());
+        m.put("type", "Utilisateur");
+        m.put("kind", "user");
+        return m;
+    }
+
+    static Map<String, Object> payment(Payment p) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", p.getId());
+        String title = p.getHelloAssoPaymentId() != null ? p.getHelloAssoPaymentId() : (p.getId() == null ? "" : p.getId().toString());
+        m.put("title", title);
+        m.put("subtitle", p.getAmount() == null ? null : String.valueOf(p.getAmount()));
+        m.put("url", "/payments/" + p.getId());
+        m.put("type", "Compte");
+        m.put("kind", "payment");
+        return m;
+    }
+
+    static Map<String, Object> article(Article a) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", a.getId());
+        m.put("title", a.getTitle() != null ? a.getTitle() : a.getName());
+        m.put("subtitle", a.getSection() != null ? a.getSection().getName() : null);
+        m.put("url", a.getId() != null ? "/news/" + a.getId() : null);
+        m.put("type", "Article");
+        m.put("kind", "article");
+        return m;
+    }
+
+    static Map<String, Object> news(News n) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", n.getId());
+        m.put("title", n.getTitle() != null ? n.getTitle() : n.getName());
+        m.put("subtitle", n.getSection() != null ? n.getSection().getName() : null);
+        m.put("url", n.getId() != null ? "/news/" + n.getId() : null);
+        m.put("type", "News");
+        m.put("kind", "news");
+        return m;
+    }
+
+    static Map<String, Object> section(Section s) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", s.getId());
+        m.put("title", s.getName() != null ? s.getName() : s.getTitle());
+        m.put("subtitle", s.getPage() != null ? s.getPage().getTitle() : null);
+        m.put("url", s.getId() != null ? "/pages/" + s.getPage().getId() + "#section-" + s.getSectionId() : null);
+        m.put("type", "Section");
+        m.put("kind", "section");
+        return m;
+    }
+
+    static Map<String, Object> page(Page p) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", p.getId());
+        m.put("title", p.getTitle() != null ? p.getTitle() : p.getSlug());
+        m.put("subtitle", p.getSlug());
+        m.put("url", p.getId() != null ? "/pages/" + p.getId() : null);
+        m.put("type", "Page");
+        m.put("kind", "page");
+        return m;
+    }
+
+    static Map<String, Object> module(Module mo) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", mo.getId());
+        m.put("title", mo.getName() != null ? mo.getName() : mo.getId().toString());
+        m.put("subtitle", mo.getType());
+        m.put("url", mo.getId() != null ? "/modules/" + mo.getId() : null);
+        m.put("type", "Module");
+        m.put("kind", "module");
+        return m;
+    }
+
+    static Map<String, Object> contact(Contact c) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", c.getId());
+        m.put("title", (c.getFirstName() == null ? "" : c.getFirstName()) + " " + (c.getLastName() == null ? "" : c.getLastName()));
+        m.put("subtitle", c.getEmail());
+        m.put("url", c.getId() != null ? "/contacts/" + c.getId() : null);
+        m.put("type", "Contact");
+        m.put("kind", "contact");
+        return m;
+    }
+
+    static Map<String, Object> newsletter(Newsletter n) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", n.getId());
+        m.put("title", n.getTitle());
+        m.put("subtitle", null);
+        m.put("url", n.getId() != null ? "/newsletters/" + n.getId() : null);
+        m.put("type", "Newsletter");
+        m.put("kind", "newsletter");
+        return m;
+    }
+}
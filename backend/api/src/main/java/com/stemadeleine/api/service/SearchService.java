@@ -1,19 +1,24 @@
 package com.stemadeleine.api.service;
 
-import com.stemadeleine.api.model.PublishingStatus;
 import com.stemadeleine.api.repository.*;
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class SearchService {
+    private static final List<String> KINDS = List.of("users", "payments", "articles", "sections", "pages", "modules", "contacts", "newsletters", "news");
+
     private final UserRepository userRepository;
     private final PaymentRepository paymentRepository;
     private final ArticleRepository articleRepository;
@@ -23,206 +28,232 @@ public class SearchService {
     private final ContactRepository contactRepository;
     private final NewsletterRepository newsletterRepository;
     private final NewsRepository newsRepository;
+    private final TypeaheadIndex typeaheadIndex;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long kindTimeoutMs;
+    // Limite globale, partagée par toutes les recherches en cours, des connexions du pool Hikari qu'elles occupent
+    private final Semaphore querySlots;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SearchService(UserRepository userRepository,
+                         PaymentRepository paymentRepository,
+                         ArticleRepository articleRepository,
+                         SectionRepository sectionRepository,
+                         PageRepository pageRepository,
+                         ModuleRepository moduleRepository,
+                         ContactRepository contactRepository,
+                         NewsletterRepository newsletterRepository,
+                         NewsRepository newsRepository,
+                         TypeaheadIndex typeaheadIndex,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${search.kind-timeout-ms:800}") long kindTimeoutMs,
+                         @Value("${search.max-concurrent-queries:5}") int maxConcurrentQueries) {
+        this.userRepository = userRepository;
+        this.paymentRepository = paymentRepository;
+        this.articleRepository = articleRepository;
+        this.sectionRepository = sectionRepository;
+        this.pageRepository = pageRepository;
+        this.moduleRepository = moduleRepository;
+        this.contactRepository = contactRepository;
+        this.newsletterRepository = newsletterRepository;
+        this.newsRepository = newsRepository;
+        this.typeaheadIndex = typeaheadIndex;
+        this.kindTimeoutMs = kindTimeoutMs;
+        this.querySlots = new Semaphore(Math.max(1, maxConcurrentQueries));
+        // Chaque type tourne dans sa propre transaction en lecture seule (les mappers suivent des relations LAZY) ;
+        // le timeout de transaction est appliqué aux requêtes JDBC et borne une requête abandonnée
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, (kindTimeoutMs + 999) / 1000));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
 
     /**
      * Retourne un objet agrégé de suggestions par type.
      * Chaque item est normalisé : { id, title, subtitle, url, type, kind }
+     * Chaque type est une requête plein texte PostgreSQL (tsvector français sans accents, index GIN) classée par
+     * pertinence et limitée en base ; chaque mot saisi est recherché en préfixe.
+     * Les préfixes sont d'abord cherchés dans l'index en mémoire ({@link TypeaheadIndex}) ; seuls les types sans
+     * résultat sont interrogés en base, en parallèle sur des threads virtuels : un type qui dépasse le délai (ou
+     * échoue) renvoie une liste vide et la réponse reste partielle. La clé "meta" donne les durées par type (absente
+     * pour une recherche vide, dont la réponse ne contient que les listes vides).
      */
     public Map<String, Object> searchAll(String q, int limitPerType) {
         var result = new HashMap<String, Object>();
-        if (q == null || q.trim().isEmpty()) {
-            result.put("users", List.of());
-            result.put("payments", List.of());
-            result.put("articles", List.of());
-            result.put("sections", List.of());
-            result.put("pages", List.of());
-            result.put("modules", List.of());
-            result.put("contacts", List.of());
-            result.put("newsletters", List.of());
-            result.put("news", List.of());
+        String tsQuery = q == null ? "" : toPrefixTsQuery(q);
+        if (tsQuery.isEmpty()) {
+            KINDS.forEach(kind -> result.put(kind, List.of()));
             return result;
         }
 
-        String qLower = q.toLowerCase();
+        Map<String, Supplier<List<Map<String, Object>>>> lookups = new LinkedHashMap<>();
+        lookups.put("users", () -> searchUsers(tsQuery, limitPerType));
+        lookups.put("payments", () -> searchPayments(tsQuery, limitPerType));
+        lookups.put("articles", () -> searchArticles(tsQuery, limitPerType));
+        lookups.put("news", () -> searchNews(tsQuery, limitPerType));
+        lookups.put("sections", () -> searchSections(tsQuery, limitPerType));
+        lookups.put("pages", () -> searchPages(tsQuery, limitPerType));
+        lookups.put("modules", () -> searchModules(tsQuery, limitPerType));
+        lookups.put("contacts", () -> searchContacts(tsQuery, limitPerType));
+        lookups.put("newsletters", () -> searchNewsletters(tsQuery, limitPerType));
 
-        // users: search repository (firstname/lastname/email)
-        try {
-            var usersPage = userRepository.search(qLower, PageRequest.of(0, limitPerType));
-            List<Map<String, Object>> users = usersPage.getContent().stream().map(u -> {
-                Map<String, Object> m = new HashMap<>();
-                m.put("id", u.getId());
-                String name = (u.getFirstname() == null ? "" : u.getFirstname()) + " " + (u.getLastname() == null ? "" : u.getLastname());
-                m.put("title", name.trim().isEmpty() ? (u.getEmail() == null ? "Utilisateur" : u.getEmail()) : name.trim());
-                m.put("subtitle", u.getEmail());
-                m.put("url", "/users/" + u.getId());
-                m.put("type", "Utilisateur");
-                m.put("kind", "user");
-                return m;
-            }).collect(Collectors.toList());
-            result.put("users", users);
-        } catch (Exception e) {
-            result.put("users", List.of());
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(kindTimeoutMs);
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        List<String> fromIndex = new ArrayList<>();
+        for (var iterator = lookups.keySet().iterator(); iterator.hasNext(); ) {
+            String kind = iterator.next();
+            List<Map<String, Object>> hits = typeaheadIndex.search(kind, q, limitPerType);
+            if (!hits.isEmpty()) {
+                result.put(kind, hits);
+                fromIndex.add(kind);
+                timings.put(kind, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                iterator.remove();
+            }
         }
+        Map<String, Future<List<Map<String, Object>>>> futures = new LinkedHashMap<>();
+        lookups.forEach((kind, lookup) -> futures.put(kind, executor.submit(() -> {
+            try {
+                return runLookup(lookup);
+            } finally {
+                timings.put(kind, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        })));
 
-        // payments: simple search on reference or id
-        try {
-            var paymentsPage = paymentRepository.findAll(PageRequest.of(0, 50)); // fetch some and filter
-            var payments = paymentsPage.getContent().stream()
-                    .filter(p -> p != null && (
-                            (p.getHelloAssoPaymentId() != null && p.getHelloAssoPaymentId().toLowerCase().contains(qLower)) ||
-                                    (p.getId() != null && p.getId().toString().toLowerCase().contains(qLower)) ||
-                                    (p.getFormSlug() != null && p.getFormSlug().toLowerCase().contains(qLower)) ||
-                                    (p.getUser() != null && ((p.getUser().getFirstname() == null ? "" : p.getUser().getFirstname()) + " " + (p.getUser().getLastname() == null ? "" : p.getUser().getLastname())).toLowerCase().contains(qLower))
-                    ))
-                    .limit(limitPerType)
-                    .map(p -> {
-                        Map<String, Object> m = new HashMap<>();
-                        m.put("id", p.getId());
-                        String title = p.getHelloAssoPaymentId() != null ? p.getHelloAssoPaymentId() : (p.getId() == null ? "" : p.getId().toString());
-                        m.put("title", title);
-                        m.put("subtitle", p.getAmount() == null ? null : String.valueOf(p.getAmount()));
-                        m.put("url", "/payments/" + p.getId());
-                        m.put("type", "Compte");
-                        m.put("kind", "payment");
-                        return m;
-                    }).collect(Collectors.toList());
-
-            result.put("payments", payments);
-        } catch (Exception e) {
-            result.put("payments", List.of());
+        List<String> timedOut = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        for (var entry : futures.entrySet()) {
+            String kind = entry.getKey();
+            Future<List<Map<String, Object>>> future = entry.getValue();
+            try {
+                result.put(kind, future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                timedOut.add(kind);
+                timings.putIfAbsent(kind, kindTimeoutMs);
+                result.put(kind, List.of());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                timedOut.add(kind);
+                result.put(kind, List.of());
+            } catch (ExecutionException e) {
+                log.warn("Recherche '{}' en échec pour le type {} : {}", q, kind, e.getCause().getMessage());
+                failed.add(kind);
+                result.put(kind, List.of());
+            }
         }
-
-        // articles: search by title/name
-        try {
-            var articles = articleRepository.findByStatusNot(PublishingStatus.DELETED).stream()
-                    .filter(a -> a != null && ((a.getTitle() != null && a.getTitle().toLowerCase().contains(qLower)) || (a.getName() != null && a.getName().toLowerCase().contains(qLower))))
-                    .limit(limitPerType)
-                    .map(a -> {
-                        Map<String, Object> m = new HashMap<>();
-                        m.put("id", a.getId());
-                        m.put("title", a.getTitle() != null ? a.getTitle() : a.getName());
-                        m.put("subtitle", a.getSection() != null ? a.getSection().getName() : null);
-                        m.put("url", a.getId() != null ? "/news/" + a.getId() : null);
-                        m.put("type", "Article");
-                        m.put("kind", "article");
-                        return m;
-                    }).collect(Collectors.toList());
-            result.put("articles", articles);
-        } catch (Exception e) {
-            result.put("articles", List.of());
+        if (!timedOut.isEmpty()) {
+            log.warn("Recherche '{}' partielle, délai de {} ms dépassé pour : {}", q, kindTimeoutMs, timedOut);
         }
+        result.put("meta", meta(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), timings, fromIndex, timedOut, failed));
+        return result;
+    }
 
-        // news (actualités)
+    private List<Map<String, Object>> runLookup(Supplier<List<Map<String, Object>>> lookup) throws InterruptedException {
+        querySlots.acquire();
         try {
-            var news = newsRepository.search(qLower, PageRequest.of(0, limitPerType)).stream().map(n -> {
-                Map<String, Object> m = new HashMap<>();
-                m.put("id", n.getId());
-                m.put("title", n.getTitle() != null ? n.getTitle() : n.getName());
-                m.put("subtitle", n.getSection() != null ? n.getSection().getName() : null);
-                m.put("url", n.getId() != null ? "/news/" + n.getId() : null);
-                m.put("type", "News");
-                m.put("kind", "news");
-                return m;
-            }).collect(Collectors.toList());
-            result.put("news", news);
-        } catch (Exception e) {
-            result.put("news", List.of());
+            return readOnlyTransaction.execute(status -> lookup.get());
+        } finally {
+            querySlots.release();
         }
+    }
 
-        // sections: visible sections, filter by name/title
-        try {
-            var sections = sectionRepository.findByIsVisibleTrue().stream()
-                    .filter(s -> s != null && ((s.getName() != null && s.getName().toLowerCase().contains(qLower)) || (s.getTitle() != null && s.getTitle().toLowerCase().contains(qLower))))
-                    .limit(limitPerType)
-                    .map(s -> {
-                        Map<String, Object> m = new HashMap<>();
-                        m.put("id", s.getId());
-                        m.put("title", s.getName() != null ? s.getName() : s.getTitle());
-                        m.put("subtitle", s.getPage() != null ? s.getPage().getTitle() : null);
-                        m.put("url", s.getId() != null ? "/pages/" + s.getPage().getId() + "#section-" + s.getSectionId() : null);
-                        m.put("type", "Section");
-                        m.put("kind", "section");
-                        return m;
-                    }).collect(Collectors.toList());
-            result.put("sections", sections);
-        } catch (Exception e) {
-            result.put("sections", List.of());
-        }
+    private Map<String, Object> meta(long tookMs, Map<String, Long> timings, List<String> fromIndex, List<String> timedOut, List<String> failed) {
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("tookMs", tookMs);
+        meta.put("timingsMs", new TreeMap<>(timings));
+        meta.put("fromIndex", fromIndex);
+        meta.put("timedOut", timedOut);
+        meta.put("failed", failed);
+        meta.put("partial", !timedOut.isEmpty() || !failed.isEmpty());
+        return meta;
+    }
 
-        // pages: search by title/name/slug using repo
-        try {
-            var pages = pageRepository.search(qLower, PageRequest.of(0, limitPerType)).stream().map(p -> {
-                Map<String, Object> m = new HashMap<>();
-                m.put("id", p.getId());
-                m.put("title", p.getTitle() != null ? p.getTitle() : p.getSlug());
-                m.put("subtitle", p.getSlug());
-                m.put("url", p.getId() != null ? "/pages/" + p.getId() : null);
-                m.put("type", "Page");
-                m.put("kind", "page");
-                return m;
-            }).collect(Collectors.toList());
-            result.put("pages", pages);
-        } catch (Exception e) {
-            result.put("pages", List.of());
-        }
+    // users: firstname/lastname/email
+    private List<Map<String, Object>> searchUsers(String tsQuery, int limit) {
+        return loadInOrder(userRepository.searchIds(tsQuery, limit), userRepository::findAllById, e -> e.getId()).stream()
+                .map(SearchItems::user)
+                .collect(Collectors.toList());
+    }
 
-        // modules: search by name using repo
-        try {
-            var modules = moduleRepository.search(qLower, PageRequest.of(0, limitPerType)).stream().map(mo -> {
-                Map<String, Object> m = new HashMap<>();
-                m.put("id", mo.getId());
-                m.put("title", mo.getName() != null ? mo.getName() : mo.getId().toString());
-                m.put("subtitle", mo.getType());
-                m.put("url", mo.getId() != null ? "/modules/" + mo.getId() : null);
-                m.put("type", "Module");
-                m.put("kind", "module");
-                return m;
-            }).collect(Collectors.toList());
-            result.put("modules", modules);
-        } catch (Exception e) {
-            result.put("modules", List.of());
-        }
+    // payments: HelloAsso reference, form slug or payer name
+    private List<Map<String, Object>> searchPayments(String tsQuery, int limit) {
+        return loadInOrder(paymentRepository.searchIds(tsQuery, limit), paymentRepository::findAllById, e -> e.getId()).stream()
+                .map(SearchItems::payment)
+                .collect(Collectors.toList());
+    }
 
-        // contacts
-        try {
-            var contacts = contactRepository.findAll().stream()
-                    .filter(c -> c != null && ((c.getFirstName() != null && c.getFirstName().toLowerCase().contains(qLower)) || (c.getLastName() != null && c.getLastName().toLowerCase().contains(qLower)) || (c.getEmail() != null && c.getEmail().toLowerCase().contains(qLower))))
-                    .limit(limitPerType)
-                    .map(c -> {
-                        Map<String, Object> m = new HashMap<>();
-                        m.put("id", c.getId());
-                        m.put("title", (c.getFirstName() == null ? "" : c.getFirstName()) + " " + (c.getLastName() == null ? "" : c.getLastName()));
-                        m.put("subtitle", c.getEmail());
-                        m.put("url", c.getId() != null ? "/contacts/" + c.getId() : null);
-                        m.put("type", "Contact");
-                        m.put("kind", "contact");
-                        return m;
-                    }).collect(Collectors.toList());
-            result.put("contacts", contacts);
-        } catch (Exception e) {
-            result.put("contacts", List.of());
-        }
+    // articles: title/name, deleted excluded
+    private List<Map<String, Object>> searchArticles(String tsQuery, int limit) {
+        return loadInOrder(articleRepository.searchIds(tsQuery, limit), articleRepository::findAllById, e -> e.getId()).stream()
+                .map(SearchItems::article)
+                .collect(Collectors.toList());
+    }
 
-        // newsletters
-        try {
-            var newsletters = newsletterRepository.findByStatusNot(PublishingStatus.DELETED).stream()
-                    .filter(n -> n != null && ((n.getTitle() != null && n.getTitle().toLowerCase().contains(qLower))))
-                    .limit(limitPerType)
-                    .map(n -> {
-                        Map<String, Object> m = new HashMap<>();
-                        m.put("id", n.getId());
-                        m.put("title", n.getTitle());
-                        m.put("subtitle", null);
-                        m.put("url", n.getId() != null ? "/newsletters/" + n.getId() : null);
-                        m.put("type", "Newsletter");
-                        m.put("kind", "newsletter");
-                        return m;
-                    }).collect(Collectors.toList());
-            result.put("newsletters", newsletters);
-        } catch (Exception e) {
-            result.put("newsletters", List.of());
-        }
+    // news (actualités)
+    private List<Map<String, Object>> searchNews(String tsQuery, int limit) {
+        return loadInOrder(newsRepository.searchIds(tsQuery, limit), newsRepository::findAllById, e -> e.getId()).stream()
+                .map(SearchItems::news)
+                .collect(Collectors.toList());
+    }
 
-        return result;
+    // sections: visible sections, name/title
+    private List<Map<String, Object>> searchSections(String tsQuery, int limit) {
+        return loadInOrder(sectionRepository.searchIds(tsQuery, limit), sectionRepository::findAllById, e -> e.getId()).stream()
+                .map(SearchItems::section)
+                .collect(Collectors.toList());
+    }
+
+    // pages: title/name/slug/subtitle/description
+    private List<Map<String, Object>> searchPages(String tsQuery, int limit) {
+        return loadInOrder(pageRepository.searchIds(tsQuery, limit), pageRepository::findAllById, e -> e.getId()).stream()
+                .map(SearchItems::page)
+                .collect(Collectors.toList());
+    }
+
+    // modules: title/name/type
+    private List<Map<String, Object>> searchModules(String tsQuery, int limit) {
+        return loadInOrder(moduleRepository.searchIds(tsQuery, limit), moduleRepository::findAllById, e -> e.getId()).stream()
+                .map(SearchItems::module)
+                .collect(Collectors.toList());
+    }
+
+    // contacts: names, email, subject
+    private List<Map<String, Object>> searchContacts(String tsQuery, int limit) {
+        return loadInOrder(contactRepository.searchIds(tsQuery, limit), contactRepository::findAllById, e -> e.getId()).stream()
+                .map(SearchItems::contact)
+                .collect(Collectors.toList());
+    }
+
+    // newsletters
+    private List<Map<String, Object>> searchNewsletters(String tsQuery, int limit) {
+        return loadInOrder(newsletterRepository.searchIds(tsQuery, limit), newsletterRepository::findAllById, e -> e.getId()).stream()
+                .map(SearchItems::newsletter)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Construit une requête tsquery où chaque mot est cherché en préfixe : "sainte made" -> "sainte:* & made:*".
+     * Seuls les lettres et chiffres sont conservés, ce qui neutralise la syntaxe tsquery.
+     */
+    static String toPrefixTsQuery(String q) {
+        return Arrays.stream(q.trim().split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isBlank())
+                .map(token -> token.toLowerCase(Locale.ROOT) + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    // Charge les entités trouvées en conservant l'ordre de pertinence renvoyé par la base
+    private <T> List<T> loadInOrder(List<UUID> ids, Function<List<UUID>, List<T>> loader, Function<T, UUID> idOf) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, T> byId = loader.apply(ids).stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 }
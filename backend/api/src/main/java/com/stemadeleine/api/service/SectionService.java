@@ -8,6 +8,7 @@ import com.stemadeleine.api.repository.SectionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +27,7 @@ public class SectionService {
     private final PageService pageService;
     private final MediaRepository mediaRepository;
     private final ContentService contentService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     @Lazy
@@ -354,6 +356,10 @@ public class SectionService {
                 module.setUpdatedAt(java.time.OffsetDateTime.now());
             }
         }
+        // Le contenu public de la page change : regénérer son snapshot publié
+        if (section.getPage() != null) {
+            eventPublisher.publishEvent(new PagesChangedEvent(section.getPage().getPageId()));
+        }
         return sectionRepository.save(section);
     }
 
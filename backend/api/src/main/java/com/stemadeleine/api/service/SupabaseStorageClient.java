@@ -9,6 +9,8 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
 @Service
 public class SupabaseStorageClient {
@@ -19,6 +21,8 @@ public class SupabaseStorageClient {
     @Value("${SUPABASE_SERVICE_KEY:fake-key}")
     private String supabaseKey;
 
+    private static final String TUS_VERSION = "1.0.0";
+
     private final HttpClient client = HttpClient.newHttpClient();
 
     public String getPublicUrl(String bucket, String key) {
@@ -54,4 +58,157 @@ public class SupabaseStorageClient {
 
         return response.body();
     }
+
+    /**
+     * Opens a streaming GET on a stored object (public URL). The optional Range header is forwarded as is.
+     * The caller owns the response body and must close it.
+     */
+    public HttpResponse<InputStream> openStream(String fileUrl, String range) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(fileUrl))
+                .GET();
+        if (range != null && !range.isBlank()) {
+            builder.header("Range", range);
+        }
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * Streams an object to storage with a known Content-Length, without buffering it in memory or on disk
+     */
+    public void uploadStream(String bucket, String key, InputStream stream, long contentLength, String contentType) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(supabaseUrl + "/storage/v1/object/" + bucket + "/" + key))
+                .header("Authorization", "Bearer " + supabaseKey)
+                .header("Content-Type", contentType != null ? contentType : "application/octet-stream")
+                .PUT(HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> stream), contentLength))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() >= 400) {
+            throw new IOException("Erreur upload Supabase : " + response.body());
+        }
+    }
+
+    /**
+     * Renames an object inside a bucket
+     */
+    public void moveObject(String bucket, String sourceKey, String destinationKey) throws IOException, InterruptedException {
+        String body = String.format("{\"bucketId\":\"%s\",\"sourceKey\":\"%s\",\"destinationKey\":\"%s\"}",
+                bucket, sourceKey, destinationKey);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(supabaseUrl + "/storage/v1/object/move"))
+                .header("Authorization", "Bearer " + supabaseKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() >= 400) {
+            throw new IOException("Erreur déplacement Supabase : " + response.body());
+        }
+    }
+
+    public boolean objectExists(String bucket, String key) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(supabaseUrl + "/storage/v1/object/" + bucket + "/" + key))
+                .header("Authorization", "Bearer " + supabaseKey)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    }
+
+    public void deleteObject(String bucket, String key) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(supabaseUrl + "/storage/v1/object/" + bucket + "/" + key))
+                .header("Authorization", "Bearer " + supabaseKey)
+                .DELETE()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() >= 400 && response.statusCode() != 404) {
+            throw new IOException("Erreur suppression Supabase : " + response.body());
+        }
+    }
+
+    // ==== RESUMABLE UPLOADS (TUS protocol) ====
+
+    /**
+     * Creates a resumable upload and returns its URL
+     */
+    public String createResumableUpload(String bucket, String key, long length, String contentType) throws IOException, InterruptedException {
+        String metadata = "bucketName " + base64(bucket)
+                + ",objectName " + base64(key)
+                + ",contentType " + base64(contentType != null ? contentType : "application/octet-stream");
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(supabaseUrl + "/storage/v1/upload/resumable"))
+                .header("Authorization", "Bearer " + supabaseKey)
+                .header("Tus-Resumable", TUS_VERSION)
+                .header("Upload-Length", String.valueOf(length))
+                .header("Upload-Metadata", metadata)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        String location = response.headers().firstValue("Location").orElse(null);
+        if (response.statusCode() >= 400 || location == null) {
+            throw new IOException("Erreur création upload Supabase : " + response.body());
+        }
+        return URI.create(supabaseUrl + "/storage/v1/upload/resumable/").resolve(location).toString();
+    }
+
+    /**
+     * Streams one chunk of a resumable upload starting at the given offset and returns the new offset
+     */
+    public long appendResumableUpload(String uploadUrl, long offset, InputStream chunk, long chunkLength) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uploadUrl))
+                .header("Authorization", "Bearer " + supabaseKey)
+                .header("Tus-Resumable", TUS_VERSION)
+                .header("Upload-Offset", String.valueOf(offset))
+                .header("Content-Type", "application/offset+octet-stream")
+                .method("PATCH", HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> chunk), chunkLength))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() >= 400) {
+            throw new IOException("Erreur envoi segment Supabase (" + response.statusCode() + ") : " + response.body());
+        }
+        return uploadOffset(response);
+    }
+
+    /**
+     * Returns the number of bytes already received for a resumable upload
+     */
+    public long getResumableUploadOffset(String uploadUrl) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uploadUrl))
+                .header("Authorization", "Bearer " + supabaseKey)
+                .header("Tus-Resumable", TUS_VERSION)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+
+        if (response.statusCode() >= 400) {
+            throw new IOException("Upload Supabase introuvable, code: " + response.statusCode());
+        }
+        return uploadOffset(response);
+    }
+
+    private long uploadOffset(HttpResponse<?> response) throws IOException {
+        return response.headers().firstValue("Upload-Offset")
+                .map(Long::parseLong)
+                .orElseThrow(() -> new IOException("Réponse Supabase sans Upload-Offset"));
+    }
+
+    private static String base64(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,239 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.RevokedToken;
+import com.stemadeleine.api.repository.RevokedTokenRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revoked JWTs (table revoked_tokens, V22), checked on every authenticated request.
+ * <p>
+ * The unexpired revocations are held in memory, by jti, so a check never reaches the database. A revocation is
+ * persisted then announced on the {@value #CHANNEL} notification channel; every instance listens on it from a
+ * dedicated connection and reloads the table after a reconnection, so no revocation is missed. Entries are dropped
+ * from memory and from the table once the token has expired.
+ * <p>
+ * The same connection listens on {@value #ACCOUNT_CHANNEL}, on which account changes are announced so that every
+ * instance drops the principal it cached for the account (see {@link CustomUserDetailsService}).
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    static final String CHANNEL = "token_revoked";
+    static final String ACCOUNT_CHANNEL = "account_changed";
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final CustomUserDetailsService userDetailsService;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean listenEnabled;
+    private final int pollTimeoutMs;
+    // jti -> expiration du token (epoch ms)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final ExecutorService listener = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("token-revocation-listener").daemon().factory());
+    private volatile boolean running = true;
+    private volatile Connection listenConnection;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  CustomUserDetailsService userDetailsService,
+                                  DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${security.revocation.listen.enabled:true}") boolean listenEnabled,
+                                  @Value("${security.revocation.listen.poll-timeout-ms:10000}") int pollTimeoutMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.userDetailsService = userDetailsService;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.listenEnabled = listenEnabled;
+        this.pollTimeoutMs = pollTimeoutMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reload();
+        if (listenEnabled) {
+            listener.execute(this::listen);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        closeListenConnection();
+        listener.shutdownNow();
+    }
+
+    public boolean isRevoked(String jti) {
+        return jti != null && revoked.containsKey(jti);
+    }
+
+    /**
+     * Revokes the token until its expiry, on this instance at once and on the others when the notification arrives
+     */
+    public void revoke(String jti, Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!revokedTokenRepository.existsById(jti)) {
+                revokedTokenRepository.save(RevokedToken.builder()
+                        .jti(jti)
+                        .expiresAt(OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC))
+                        .revokedAt(OffsetDateTime.now())
+                        .build());
+            }
+            if (listenEnabled) {
+                revokedTokenRepository.notifyChannel(CHANNEL, jti + " " + expiresAt.toEpochMilli());
+            }
+        });
+        revoked.put(jti, expiresAt.toEpochMilli());
+        log.info("Token {} révoqué jusqu'au {}", jti, expiresAt);
+    }
+
+    /**
+     * Drops the cached principal of an account after a change, on this instance at once and on the others when the
+     * notification arrives. Within a transaction, the notification is only sent on commit.
+     */
+    public void evictAccount(UUID accountId) {
+        userDetailsService.evict(accountId);
+        if (listenEnabled) {
+            transactionTemplate.executeWithoutResult(status ->
+                    revokedTokenRepository.notifyChannel(ACCOUNT_CHANNEL, accountId.toString()));
+        }
+    }
+
+    /**
+     * Adds the unexpired rows of the table to the in-memory revocations (a revocation is never undone)
+     */
+    public void reload() {
+        List<RevokedToken> tokens = revokedTokenRepository.findAllByExpiresAtAfter(OffsetDateTime.now());
+        for (RevokedToken token : tokens) {
+            revoked.put(token.getJti(), token.getExpiresAt().toInstant().toEpochMilli());
+        }
+        log.debug("{} token(s) révoqué(s) chargé(s)", tokens.size());
+    }
+
+    @Scheduled(cron = "${security.revocation.prune-cron:0 15 * * * *}")
+    public void prune() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        Integer deleted = transactionTemplate.execute(status -> revokedTokenRepository.deleteExpired(OffsetDateTime.now()));
+        log.debug("{} révocation(s) expirée(s) supprimée(s)", deleted);
+    }
+
+    /**
+     * Applies a notification payload ("jti expiresAtEpochMillis") sent by {@link #revoke}
+     */
+    void onNotification(String payload) {
+        int separator = payload != null ? payload.indexOf(' ') : -1;
+        if (separator <= 0) {
+            log.warn("Notification de révocation ignorée : '{}'", payload);
+            return;
+        }
+        try {
+            long expiresAt = Long.parseLong(payload.substring(separator + 1));
+            if (expiresAt > System.currentTimeMillis()) {
+                revoked.put(payload.substring(0, separator), expiresAt);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Notification de révocation ignorée : '{}'", payload);
+        }
+    }
+
+    /**
+     * Applies a notification payload (account id) sent by {@link #evictAccount}
+     */
+    void onAccountNotification(String payload) {
+        try {
+            userDetailsService.evict(UUID.fromString(String.valueOf(payload)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Notification de modification de compte ignorée : '{}'", payload);
+        }
+    }
+
+    int size() {
+        return revoked.size();
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                listenConnection = connection;
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                    statement.execute("LISTEN " + ACCOUNT_CHANNEL);
+                }
+                // Les révocations et modifications de comptes faites pendant une déconnexion n'ont pas été reçues
+                reload();
+                userDetailsService.evictAll();
+                log.info("Écoute des révocations de tokens sur les canaux {} et {}", CHANNEL, ACCOUNT_CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            if (ACCOUNT_CHANNEL.equals(notification.getName())) {
+                                onAccountNotification(notification.getParameter());
+                            } else {
+                                onNotification(notification.getParameter());
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Écoute des révocations de tokens interrompue, nouvel essai dans {} ms", RECONNECT_DELAY_MS, e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } finally {
+                listenConnection = null;
+            }
+        }
+    }
+
+    private void closeListenConnection() {
+        Connection connection = listenConnection;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("Fermeture de la connexion d'écoute des révocations", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.*;
+import com.stemadeleine.api.model.Module;
+import com.stemadeleine.api.repository.*;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-process typeahead index for the back-office search bar. Each indexed word is split into padded trigrams
+ * ("\1\1m", "\1ma", "mar", ...) whose postings are sorted int arrays of document ids, so a prefix query is an
+ * intersection of a few arrays followed by a prefix check on the candidate words.
+ * <p>
+ * Covers the titles, names, slugs, emails and HelloAsso payment ids of the kinds returned by {@link SearchService}.
+ * The index is built once the application is ready and kept up to date by {@link SearchIndexListener}: changed
+ * entities are reloaded after commit on a single worker, which also serializes the updates with the initial build.
+ */
+@Slf4j
+@Component
+public class TypeaheadIndex {
+
+    private static final char PAD = '\u0001';
+    private static final int MAX_INDEXED_WORD_LENGTH = 24;
+    private static final int MAX_QUERY_TOKENS = 8;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final UserRepository userRepository;
+    private final PaymentRepository paymentRepository;
+    private final PageRepository pageRepository;
+    private final SectionRepository sectionRepository;
+    private final ModuleRepository moduleRepository;
+    private final ContactRepository contactRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("typeahead-index").factory());
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protégé par lock
+    private IndexState state = new IndexState();
+    private volatile boolean ready;
+
+    public TypeaheadIndex(UserRepository userRepository,
+                          PaymentRepository paymentRepository,
+                          PageRepository pageRepository,
+                          SectionRepository sectionRepository,
+                          ModuleRepository moduleRepository,
+                          ContactRepository contactRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${search.typeahead.enabled:true}") boolean enabled) {
+        this.userRepository = userRepository;
+        this.paymentRepository = paymentRepository;
+        this.pageRepository = pageRepository;
+        this.sectionRepository = sectionRepository;
+        this.moduleRepository = moduleRepository;
+        this.contactRepository = contactRepository;
+        this.enabled = enabled;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            worker.execute(this::rebuild);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns up to {@code limit} items of the given kind whose words start with every word of the query,
+     * or an empty list when nothing matches or the index is not built yet (the caller then queries the database).
+     */
+    public List<Map<String, Object>> search(String kind, String q, int limit) {
+        if (!ready || q == null || limit <= 0) {
+            return List.of();
+        }
+        List<String> tokens = WORD_SEPARATOR.splitAsStream(normalize(q))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .limit(MAX_QUERY_TOKENS)
+                .toList();
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        List<Doc> matches;
+        lock.readLock().lock();
+        try {
+            matches = state.match(kind, tokens);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches.stream()
+                .sorted(Comparator.comparingInt((Doc doc) -> -doc.exactMatches(tokens))
+                        .thenComparingInt(doc -> doc.sortKey().length())
+                        .thenComparing(Doc::sortKey))
+                .limit(limit)
+                .map(doc -> (Map<String, Object>) new HashMap<String, Object>(doc.item()))
+                .toList();
+    }
+
+    /**
+     * Called from the JPA lifecycle callbacks. Changes are collected per transaction and reindexed after commit;
+     * a rolled back transaction leaves the index untouched.
+     */
+    public void entityChanged(Object entity) {
+        Change change = Change.of(entity);
+        if (!enabled || change == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            worker.execute(() -> apply(Set.of(change)));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Change> pending = (Set<Change>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Change> changes = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TypeaheadIndex.this);
+                    if (status == STATUS_COMMITTED) {
+                        worker.execute(() -> apply(changes));
+                    }
+                }
+            });
+            pending = changes;
+        }
+        pending.add(change);
+    }
+
+    void rebuild() {
+        long start = System.nanoTime();
+        try {
+            IndexState built = readOnlyTransaction.execute(status -> {
+                IndexState next = new IndexState();
+                userRepository.findAll().forEach(user -> docsFor(user).forEach(next::add));
+                paymentRepository.findAll().forEach(payment -> docsFor(payment).forEach(next::add));
+                pageRepository.findAll().forEach(page -> docsFor(page).forEach(next::add));
+                sectionRepository.findByIsVisibleTrue().forEach(section -> docsFor(section).forEach(next::add));
+                moduleRepository.findAll().forEach(module -> docsFor(module).forEach(next::add));
+                contactRepository.findAll().forEach(contact -> docsFor(contact).forEach(next::add));
+                return next;
+            });
+            lock.writeLock().lock();
+            try {
+                state = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            log.info("Index de recherche construit : {} entrées en {} ms", built.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Construction de l'index de recherche impossible, la recherche reste en base : {}", e.getMessage());
+        }
+    }
+
+    void apply(Collection<Change> changes) {
+        try {
+            Map<UUID, List<Doc>> docsByEntity = readOnlyTransaction.execute(status -> {
+                Map<UUID, List<Doc>> reloaded = new HashMap<>();
+                changes.forEach(change -> reloaded.put(change.id(), List.of()));
+                Map<Class<?>, List<UUID>> idsByType = new HashMap<>();
+                changes.forEach(change -> idsByType.computeIfAbsent(change.type(), type -> new ArrayList<>()).add(change.id()));
+                idsByType.forEach((type, ids) -> repositoryFor(type).findAllById(ids)
+                        .forEach(entity -> reloaded.put(Change.of(entity).id(), docsFor(entity))));
+                return reloaded;
+            });
+            lock.writeLock().lock();
+            try {
+                docsByEntity.forEach((id, docs) -> {
+                    state.remove(id);
+                    docs.forEach(state::add);
+                });
+                if (state.needsCompaction()) {
+                    state = state.compacted();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (Exception e) {
+            log.warn("Mise à jour de l'index de recherche impossible pour {} entité(s) : {}", changes.size(), e.getMessage());
+        }
+    }
+
+    private JpaRepository<?, UUID> repositoryFor(Class<?> type) {
+        if (type == User.class) return userRepository;
+        if (type == Payment.class) return paymentRepository;
+        if (type == Page.class) return pageRepository;
+        if (type == Section.class) return sectionRepository;
+        if (type == Module.class) return moduleRepository;
+        return contactRepository;
+    }
+
+    // Mêmes périmètres que les requêtes plein texte de SearchService
+    private List<Doc> docsFor(Object entity) {
+        if (entity instanceof User u) {
+            return List.of(doc("users", u.getId(), SearchItems.user(u), u.getFirstname(), u.getLastname(), u.getEmail()));
+        }
+        if (entity instanceof Payment p) {
+            User payer = p.getUser();
+            return List.of(doc("payments", p.getId(), SearchItems.payment(p), p.getHelloAssoPaymentId(), p.getFormSlug(),
+                    payer == null ? null : payer.getFirstname(), payer == null ? null : payer.getLastname()));
+        }
+        if (entity instanceof Page p) {
+            return List.of(doc("pages", p.getId(), SearchItems.page(p), p.getTitle(), p.getName(), p.getSlug()));
+        }
+        if (entity instanceof Section s) {
+            return Boolean.TRUE.equals(s.getIsVisible())
+                    ? List.of(doc("sections", s.getId(), SearchItems.section(s), s.getName(), s.getTitle()))
+                    : List.of();
+        }
+        if (entity instanceof Module m) {
+            List<Doc> docs = new ArrayList<>();
+            docs.add(doc("modules", m.getId(), SearchItems.module(m), m.getTitle(), m.getName()));
+            if (m.getStatus() != PublishingStatus.DELETED) {
+                if (m instanceof Article a) {
+                    docs.add(doc("articles", a.getId(), SearchItems.article(a), a.getTitle(), a.getName()));
+                } else if (m instanceof News n) {
+                    docs.add(doc("news", n.getId(), SearchItems.news(n), n.getTitle(), n.getName()));
+                } else if (m instanceof Newsletter n) {
+                    docs.add(doc("newsletters", n.getId(), SearchItems.newsletter(n), n.getTitle(), n.getName()));
+                }
+            }
+            return docs;
+        }
+        if (entity instanceof Contact c) {
+            return List.of(doc("contacts", c.getId(), SearchItems.contact(c), c.getFirstName(), c.getLastName(), c.getEmail()));
+        }
+        return List.of();
+    }
+
+    private static Doc doc(String kind, UUID id, Map<String, Object> item, String... fields) {
+        String[] words = Arrays.stream(fields)
+                .filter(Objects::nonNull)
+                .flatMap(field -> WORD_SEPARATOR.splitAsStream(normalize(field)))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+        Object title = item.get("title");
+        return new Doc(kind, id, words, title == null ? "" : normalize(title.toString()), Collections.unmodifiableMap(item));
+    }
+
+    static String normalize(String text) {
+        return COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    // Trigrammes du mot précédé de deux caractères de bourrage, tronqué à MAX_INDEXED_WORD_LENGTH
+    private static void trigrams(String word, LongConsumer consumer) {
+        int length = Math.min(word.length(), MAX_INDEXED_WORD_LENGTH);
+        char previous2 = PAD;
+        char previous1 = PAD;
+        for (int i = 0; i < length; i++) {
+            char current = word.charAt(i);
+            consumer.accept(((long) previous2 << 32) | ((long) previous1 << 16) | current);
+            previous2 = previous1;
+            previous1 = current;
+        }
+    }
+
+    private static long[] distinctTrigrams(String[] words) {
+        LongList grams = new LongList();
+        for (String word : words) {
+            trigrams(word, grams::add);
+        }
+        long[] sorted = grams.toSortedArray();
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    record Change(Class<?> type, UUID id) {
+        static Change of(Object entity) {
+            if (entity instanceof User u) return u.getId() == null ? null : new Change(User.class, u.getId());
+            if (entity instanceof Payment p) return p.getId() == null ? null : new Change(Payment.class, p.getId());
+            if (entity instanceof Page p) return p.getId() == null ? null : new Change(Page.class, p.getId());
+            if (entity instanceof Section s) return s.getId() == null ? null : new Change(Section.class, s.getId());
+            if (entity instanceof Module m) return m.getId() == null ? null : new Change(Module.class, m.getId());
+            if (entity instanceof Contact c) return c.getId() == null ? null : new Change(Contact.class, c.getId());
+            return null;
+        }
+    }
+
+    private record Doc(String kind, UUID entityId, String[] words, String sortKey, Map<String, Object> item) {
+
+        boolean matchesAll(List<String> tokens) {
+            for (String token : tokens) {
+                boolean found = false;
+                for (String word : words) {
+                    if (word.startsWith(token)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int exactMatches(List<String> tokens) {
+            int count = 0;
+            for (String token : tokens) {
+                for (String word : words) {
+                    if (word.equals(token)) {
+                        count++;
+                        break;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Documents and postings. Document ids only grow, so appending keeps the postings sorted; removed documents
+     * leave a null slot until the state is compacted.
+     */
+    private static final class IndexState {
+        private final List<Doc> docs = new ArrayList<>();
+        private final Map<String, Map<Long, IntList>> postingsByKind = new HashMap<>();
+        private final Map<UUID, IntList> docIdsByEntity = new HashMap<>();
+        private int removed;
+
+        int size() {
+            return docs.size() - removed;
+        }
+
+        void add(Doc doc) {
+            int docId = docs.size();
+            docs.add(doc);
+            docIdsByEntity.computeIfAbsent(doc.entityId(), id -> new IntList()).add(docId);
+            Map<Long, IntList> postings = postingsByKind.computeIfAbsent(doc.kind(), kind -> new HashMap<>());
+            for (long gram : distinctTrigrams(doc.words())) {
+                postings.computeIfAbsent(gram, g -> new IntList()).add(docId);
+            }
+        }
+
+        void remove(UUID entityId) {
+            IntList docIds = docIdsByEntity.remove(entityId);
+            if (docIds == null) {
+                return;
+            }
+            for (int i = 0; i < docIds.size(); i++) {
+                int docId = docIds.get(i);
+                Doc doc = docs.set(docId, null);
+                removed++;
+                Map<Long, IntList> postings = postingsByKind.get(doc.kind());
+                for (long gram : distinctTrigrams(doc.words())) {
+                    IntList list = postings.get(gram);
+                    if (list != null && list.remove(docId) && list.size() == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+
+        List<Doc> match(String kind, List<String> tokens) {
+            Map<Long, IntList> postings = postingsByKind.get(kind);
+            if (postings == null) {
+                return List.of();
+            }
+            IntList candidates = null;
+            for (String token : tokens) {
+                LongList grams = new LongList();
+                trigrams(token, grams::add);
+                for (int i = 0; i < grams.size(); i++) {
+                    IntList list = postings.get(grams.get(i));
+                    if (list == null) {
+                        return List.of();
+                    }
+                    candidates = candidates == null ? list : IntList.intersect(candidates, list);
+                    if (candidates.size() == 0) {
+                        return List.of();
+                    }
+                }
+            }
+            List<Doc> matches = new ArrayList<>();
+            for (int i = 0; candidates != null && i < candidates.size(); i++) {
+                Doc doc = docs.get(candidates.get(i));
+                if (doc != null && doc.matchesAll(tokens)) {
+                    matches.add(doc);
+                }
+            }
+            return matches;
+        }
+
+        boolean needsCompaction() {
+            return removed > 1024 && removed > docs.size() / 2;
+        }
+
+        IndexState compacted() {
+            IndexState compacted = new IndexState();
+            docs.stream().filter(Objects::nonNull).forEach(compacted::add);
+            return compacted;
+        }
+    }
+
+    private static final class LongList {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    // Liste triée d'identifiants de documents
+    static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        boolean remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        static IntList intersect(IntList a, IntList b) {
+            IntList result = new IntList();
+            int i = 0;
+            int j = 0;
+            while (i < a.size && j < b.size) {
+                if (a.values[i] < b.values[j]) {
+                    i++;
+                } else if (a.values[i] > b.values[j]) {
+                    j++;
+                } else {
+                    result.add(a.values[i]);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- V10__add_pages_slug_index.sql
+-- Index used to resolve public pages by slug without scanning every page version
+
+CREATE INDEX IF NOT EXISTS idx_pages_slug_version
+    ON public.pages(slug, version DESC);
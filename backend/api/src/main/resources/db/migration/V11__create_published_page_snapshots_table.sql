@@ -0,0 +1,14 @@
+-- V11__create_published_page_snapshots_table.sql
+-- Denormalized, read-optimized copy of each published page (sections, modules, contents, media)
+
+CREATE TABLE IF NOT EXISTS public.published_page_snapshots (
+    page_id UUID PRIMARY KEY,
+    slug VARCHAR(255) NOT NULL,
+    page_version INTEGER NOT NULL,
+    payload JSONB NOT NULL,
+    published_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP NOT NULL,
+
+    CONSTRAINT uk_published_page_snapshots_slug UNIQUE (slug)
+);
+
+COMMENT ON TABLE public.published_page_snapshots IS 'Published page render payload, rewritten on every page or section publication';
@@ -0,0 +1,19 @@
+-- V12__create_media_variants_table.sql
+-- Resized / re-encoded derivatives of image media (responsive widths, WebP)
+
+CREATE TABLE IF NOT EXISTS public.media_variants (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    media_id UUID NOT NULL,
+    width INTEGER NOT NULL,
+    height INTEGER NOT NULL,
+    format VARCHAR(10) NOT NULL,
+    content_type VARCHAR(100) NOT NULL,
+    file_url VARCHAR(255) NOT NULL,
+    file_size INTEGER,
+    created_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP NOT NULL,
+
+    CONSTRAINT fk_media_variants_media FOREIGN KEY (media_id) REFERENCES public.media(id) ON DELETE CASCADE,
+    CONSTRAINT uk_media_variants_media_width_format UNIQUE (media_id, width, format)
+);
+
+CREATE INDEX IF NOT EXISTS idx_media_variants_media_id ON public.media_variants(media_id);
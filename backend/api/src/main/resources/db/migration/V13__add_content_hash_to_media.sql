@@ -0,0 +1,7 @@
+-- V13__add_content_hash_to_media.sql
+-- SHA-256 of the stored file, computed while the upload is streamed
+
+ALTER TABLE public.media
+    ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+COMMENT ON COLUMN public.media.content_hash IS 'Hex SHA-256 of the file content';
@@ -0,0 +1,4 @@
+-- V14__add_media_content_hash_index.sql
+-- Lookup of media by content hash (content-addressed deduplication)
+
+CREATE INDEX IF NOT EXISTS idx_media_content_hash ON public.media(content_hash);
@@ -0,0 +1,58 @@
+-- V15__add_full_text_search.sql
+-- Full-text search for the back-office global search (/api/search):
+-- accent-insensitive French configuration, generated tsvector columns and GIN indexes.
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_ts_config WHERE cfgname = 'fr_unaccent') THEN
+        CREATE TEXT SEARCH CONFIGURATION public.fr_unaccent (COPY = pg_catalog.french);
+        ALTER TEXT SEARCH CONFIGURATION public.fr_unaccent
+            ALTER MAPPING FOR hword, hword_part, word WITH unaccent, french_stem;
+    END IF;
+END
+$$;
+
+-- Column used by the Payment entity (V1 created hello_asso_payment_id)
+ALTER TABLE public.payments ADD COLUMN IF NOT EXISTS helloasso_payment_id VARCHAR(255);
+
+-- Emails and identifiers are split on separators so that each part can be prefix-matched
+ALTER TABLE public.users ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('public.fr_unaccent', coalesce(firstname, '') || ' ' || coalesce(lastname, '')), 'A') ||
+    setweight(to_tsvector('public.fr_unaccent', regexp_replace(coalesce(email, ''), '[@._+-]', ' ', 'g')), 'B')
+) STORED;
+
+ALTER TABLE public.payments ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('public.fr_unaccent', coalesce(helloasso_payment_id, '')), 'A') ||
+    setweight(to_tsvector('public.fr_unaccent', regexp_replace(coalesce(form_slug, ''), '[-_]', ' ', 'g')), 'C')
+) STORED;
+
+ALTER TABLE public.pages ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('public.fr_unaccent', coalesce(title, '') || ' ' || coalesce(name, '')), 'A') ||
+    setweight(to_tsvector('public.fr_unaccent', regexp_replace(coalesce(slug, ''), '[/_-]', ' ', 'g')), 'B') ||
+    setweight(to_tsvector('public.fr_unaccent', coalesce(sub_title, '')), 'B') ||
+    setweight(to_tsvector('public.fr_unaccent', coalesce(description, '')), 'C')
+) STORED;
+
+ALTER TABLE public.sections ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('public.fr_unaccent', coalesce(name, '') || ' ' || coalesce(title, '')), 'A')
+) STORED;
+
+ALTER TABLE public.modules ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('public.fr_unaccent', coalesce(title, '') || ' ' || coalesce(name, '')), 'A') ||
+    setweight(to_tsvector('public.fr_unaccent', coalesce(type, '')), 'C')
+) STORED;
+
+ALTER TABLE public.contacts ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('public.fr_unaccent', coalesce(first_name, '') || ' ' || coalesce(last_name, '')), 'A') ||
+    setweight(to_tsvector('public.fr_unaccent', regexp_replace(coalesce(email, ''), '[@._+-]', ' ', 'g')), 'B') ||
+    setweight(to_tsvector('public.fr_unaccent', coalesce(subject, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_users_search_vector ON public.users USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_payments_search_vector ON public.payments USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_pages_search_vector ON public.pages USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_sections_search_vector ON public.sections USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_modules_search_vector ON public.modules USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_contacts_search_vector ON public.contacts USING GIN (search_vector);
@@ -0,0 +1,25 @@
+-- V16__create_public_search_documents.sql
+-- Public site search: one row per published page, section, article, news and newsletter module,
+-- with the text extracted from the published contents. Rewritten on publication (see PublicSearchService).
+
+CREATE TABLE IF NOT EXISTS public.public_search_documents (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    page_id UUID NOT NULL,
+    source_type VARCHAR(20) NOT NULL,
+    source_id UUID NOT NULL,
+    slug VARCHAR(255) NOT NULL,
+    title TEXT,
+    body TEXT,
+    updated_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    search_vector tsvector GENERATED ALWAYS AS (
+        setweight(to_tsvector('public.fr_unaccent', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('public.fr_unaccent', coalesce(body, '')), 'B')
+    ) STORED,
+
+    CONSTRAINT uk_public_search_documents_source UNIQUE (source_type, source_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_public_search_documents_page_id ON public.public_search_documents (page_id);
+CREATE INDEX IF NOT EXISTS idx_public_search_documents_search_vector ON public.public_search_documents USING GIN (search_vector);
+
+COMMENT ON TABLE public.public_search_documents IS 'Public full-text search documents, rewritten on every page, section or module publication';
@@ -0,0 +1,17 @@
+-- V17__create_helloasso_sync_checkpoints.sql
+-- Incremental HelloAsso synchronisation: one checkpoint per organization and synchronised resource
+-- ("payments", or a form-specific resource), holding the date of the last imported item and the
+-- continuation token of an interrupted run (see HelloAssoImportService).
+
+CREATE TABLE IF NOT EXISTS public.helloasso_sync_checkpoints (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    org_slug VARCHAR(255) NOT NULL,
+    resource VARCHAR(255) NOT NULL,
+    last_item_date TIMESTAMPTZ,
+    continuation_token TEXT,
+    updated_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP NOT NULL,
+
+    CONSTRAINT uk_helloasso_sync_checkpoints_resource UNIQUE (org_slug, resource)
+);
+
+COMMENT ON TABLE public.helloasso_sync_checkpoints IS 'Position of the incremental HelloAsso imports, per organization and resource';
@@ -0,0 +1,12 @@
+-- V18__add_unique_index_on_helloasso_payment_id.sql
+-- A HelloAsso payment is imported once: the importer checks the ids of each page with a single IN query,
+-- and this index makes both that lookup and the guarantee hold at the database level.
+
+-- Doublons laissés par les anciens imports : on garde une seule ligne par identifiant HelloAsso
+DELETE FROM public.payments p
+USING public.payments other
+WHERE p.helloasso_payment_id IS NOT NULL
+  AND p.helloasso_payment_id = other.helloasso_payment_id
+  AND p.ctid > other.ctid;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payments_helloasso_payment_id ON public.payments (helloasso_payment_id);
@@ -0,0 +1,29 @@
+-- V19__create_helloasso_sync_jobs.sql
+-- Durable queue of HelloAsso synchronisations requested by webhooks (see HelloAssoSyncJobService).
+-- At most one pending job per organization and event type: a burst of webhooks collapses into a single
+-- incremental synchronisation. Workers claim jobs with SELECT ... FOR UPDATE SKIP LOCKED.
+
+CREATE TABLE IF NOT EXISTS public.helloasso_sync_jobs (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    org_slug VARCHAR(255) NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    run_after TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMPTZ,
+    finished_at TIMESTAMPTZ,
+    last_error TEXT,
+    created_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP NOT NULL,
+
+    CONSTRAINT chk_helloasso_sync_jobs_status CHECK (status IN ('PENDING', 'RUNNING', 'DONE', 'FAILED'))
+);
+
+-- Regroupement des webhooks : cible du INSERT ... ON CONFLICT DO NOTHING
+CREATE UNIQUE INDEX IF NOT EXISTS uk_helloasso_sync_jobs_pending
+    ON public.helloasso_sync_jobs (org_slug, event_type) WHERE status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_helloasso_sync_jobs_status_run_after
+    ON public.helloasso_sync_jobs (status, run_after);
+
+COMMENT ON TABLE public.helloasso_sync_jobs IS 'HelloAsso synchronisations requested by webhooks, coalesced per organization and event type';
@@ -0,0 +1,173 @@
+-- V20__create_payment_stats_rollups.sql
+-- Pre-aggregated payment statistics for the back-office dashboard (/api/stats): amounts, counts and exact
+-- distinct payers per month and payment type, and all-time totals per type. Triggers on payments keep them
+-- up to date on every insert, update or delete, whatever the writer (PaymentService, HelloAsso imports, SQL),
+-- and payment_stats_rebuild() recomputes them from scratch.
+
+-- Columns written by the Payment entity (V1 created "type" and "status" with enum types)
+ALTER TABLE public.payments ADD COLUMN IF NOT EXISTS payment_type VARCHAR(255);
+ALTER TABLE public.payments ADD COLUMN IF NOT EXISTS payment_status VARCHAR(255);
+
+CREATE TABLE IF NOT EXISTS public.payment_stats_monthly (
+    payment_year INTEGER NOT NULL,
+    payment_month INTEGER NOT NULL,
+    payment_type VARCHAR(255) NOT NULL,
+    total_amount NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    payment_count BIGINT NOT NULL DEFAULT 0,
+    donor_count INTEGER NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (payment_year, payment_month, payment_type)
+);
+
+CREATE TABLE IF NOT EXISTS public.payment_stats_totals (
+    payment_type VARCHAR(255) PRIMARY KEY,
+    total_amount NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    payment_count BIGINT NOT NULL DEFAULT 0,
+    donor_count INTEGER NOT NULL DEFAULT 0
+);
+
+-- Exact sets of payers behind donor_count: number of payments per type, payer and month
+-- (payment_year = payment_month = 0 for undated payments, which only count in the totals)
+CREATE TABLE IF NOT EXISTS public.payment_stats_donors (
+    payment_type VARCHAR(255) NOT NULL,
+    user_id UUID NOT NULL,
+    payment_year INTEGER NOT NULL,
+    payment_month INTEGER NOT NULL,
+    payment_count INTEGER NOT NULL,
+
+    PRIMARY KEY (payment_type, user_id, payment_year, payment_month)
+);
+
+COMMENT ON TABLE public.payment_stats_monthly IS 'Payments per month and type, maintained by trigger on payments';
+COMMENT ON TABLE public.payment_stats_totals IS 'All-time payments per type, maintained by trigger on payments';
+COMMENT ON TABLE public.payment_stats_donors IS 'Payments per type, payer and month, backing the distinct payer counts';
+
+-- Adds (p_sign = 1) or removes (p_sign = -1) one payment from the rollups
+CREATE OR REPLACE FUNCTION public.payment_stats_apply(p_type VARCHAR, p_date DATE, p_user UUID,
+                                                      p_amount DOUBLE PRECISION, p_sign INTEGER)
+RETURNS void
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_amount NUMERIC := coalesce(p_amount, 0)::NUMERIC * p_sign;
+    v_year INTEGER := coalesce(extract(YEAR FROM p_date)::INTEGER, 0);
+    v_month INTEGER := coalesce(extract(MONTH FROM p_date)::INTEGER, 0);
+    v_payments INTEGER;
+    v_donor_delta INTEGER := 0;
+BEGIN
+    IF p_type IS NULL THEN
+        RETURN;
+    END IF;
+
+    -- Un payeur compte dans un mois (et dans le total) à son premier paiement, et n'en sort qu'avec le dernier
+    IF p_user IS NOT NULL THEN
+        IF p_sign > 0 THEN
+            INSERT INTO public.payment_stats_donors AS d (payment_type, user_id, payment_year, payment_month, payment_count)
+            VALUES (p_type, p_user, v_year, v_month, 1)
+            ON CONFLICT (payment_type, user_id, payment_year, payment_month) DO UPDATE SET payment_count = d.payment_count + 1
+            RETURNING d.payment_count INTO v_payments;
+            IF v_payments = 1 THEN
+                v_donor_delta := 1;
+            END IF;
+        ELSE
+            UPDATE public.payment_stats_donors
+            SET payment_count = payment_count - 1
+            WHERE payment_type = p_type AND user_id = p_user AND payment_year = v_year AND payment_month = v_month
+            RETURNING payment_count INTO v_payments;
+            IF v_payments = 0 THEN
+                DELETE FROM public.payment_stats_donors
+                WHERE payment_type = p_type AND user_id = p_user AND payment_year = v_year AND payment_month = v_month;
+                v_donor_delta := -1;
+            END IF;
+        END IF;
+    END IF;
+
+    IF p_date IS NOT NULL THEN
+        INSERT INTO public.payment_stats_monthly AS m (payment_year, payment_month, payment_type, total_amount, payment_count, donor_count)
+        VALUES (v_year, v_month, p_type, v_amount, p_sign, v_donor_delta)
+        ON CONFLICT (payment_year, payment_month, payment_type) DO UPDATE
+            SET total_amount = m.total_amount + EXCLUDED.total_amount,
+                payment_count = m.payment_count + EXCLUDED.payment_count,
+                donor_count = m.donor_count + EXCLUDED.donor_count;
+    END IF;
+
+    -- Le payeur n'entre (ou ne sort) du total que s'il n'a aucun paiement de ce type dans un autre mois
+    IF v_donor_delta <> 0 AND EXISTS (SELECT 1 FROM public.payment_stats_donors
+                                      WHERE payment_type = p_type AND user_id = p_user
+                                        AND (payment_year, payment_month) <> (v_year, v_month)) THEN
+        v_donor_delta := 0;
+    END IF;
+
+    INSERT INTO public.payment_stats_totals AS t (payment_type, total_amount, payment_count, donor_count)
+    VALUES (p_type, v_amount, p_sign, v_donor_delta)
+    ON CONFLICT (payment_type) DO UPDATE
+        SET total_amount = t.total_amount + EXCLUDED.total_amount,
+            payment_count = t.payment_count + EXCLUDED.payment_count,
+            donor_count = t.donor_count + EXCLUDED.donor_count;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION public.payment_stats_trigger()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM public.payment_stats_apply(OLD.payment_type, OLD.payment_date, OLD.user_id, OLD.amount, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM public.payment_stats_apply(NEW.payment_type, NEW.payment_date, NEW.user_id, NEW.amount, 1);
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_payment_stats_insert_delete ON public.payments;
+CREATE TRIGGER trg_payment_stats_insert_delete
+    AFTER INSERT OR DELETE ON public.payments
+    FOR EACH ROW EXECUTE FUNCTION public.payment_stats_trigger();
+
+-- Hibernate réécrit toutes les colonnes : seules les modifications des dimensions ou du montant comptent
+DROP TRIGGER IF EXISTS trg_payment_stats_update ON public.payments;
+CREATE TRIGGER trg_payment_stats_update
+    AFTER UPDATE ON public.payments
+    FOR EACH ROW
+    WHEN (OLD.payment_type IS DISTINCT FROM NEW.payment_type
+        OR OLD.payment_date IS DISTINCT FROM NEW.payment_date
+        OR OLD.user_id IS DISTINCT FROM NEW.user_id
+        OR OLD.amount IS DISTINCT FROM NEW.amount)
+    EXECUTE FUNCTION public.payment_stats_trigger();
+
+-- Recomputes the rollups from payments; writes to payments wait until it is done
+CREATE OR REPLACE PROCEDURE public.payment_stats_rebuild()
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    LOCK TABLE public.payments IN SHARE MODE;
+    TRUNCATE public.payment_stats_monthly, public.payment_stats_totals, public.payment_stats_donors;
+
+    INSERT INTO public.payment_stats_donors (payment_type, user_id, payment_year, payment_month, payment_count)
+    SELECT payment_type, user_id,
+           coalesce(extract(YEAR FROM payment_date)::INTEGER, 0),
+           coalesce(extract(MONTH FROM payment_date)::INTEGER, 0),
+           count(*)
+    FROM public.payments
+    WHERE payment_type IS NOT NULL AND user_id IS NOT NULL
+    GROUP BY 1, 2, 3, 4;
+
+    INSERT INTO public.payment_stats_monthly (payment_year, payment_month, payment_type, total_amount, payment_count, donor_count)
+    SELECT extract(YEAR FROM payment_date)::INTEGER, extract(MONTH FROM payment_date)::INTEGER, payment_type,
+           coalesce(sum(amount), 0), count(*), count(DISTINCT user_id)
+    FROM public.payments
+    WHERE payment_type IS NOT NULL AND payment_date IS NOT NULL
+    GROUP BY 1, 2, 3;
+
+    INSERT INTO public.payment_stats_totals (payment_type, total_amount, payment_count, donor_count)
+    SELECT payment_type, coalesce(sum(amount), 0), count(*), count(DISTINCT user_id)
+    FROM public.payments
+    WHERE payment_type IS NOT NULL
+    GROUP BY 1;
+END
+$$;
+
+CALL public.payment_stats_rebuild();
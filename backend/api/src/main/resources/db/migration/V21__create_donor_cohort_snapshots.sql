@@ -0,0 +1,108 @@
+-- V21__create_donor_cohort_snapshots.sql
+-- Donor retention and cohort analytics, computed by a nightly job (DonorCohortService) with
+-- donor_cohorts_refresh() and read by /api/stats/cohorts. A donor belongs to the cohort of the year of
+-- their first donation; only successful donations (AUTHORIZED or PAID) are counted.
+
+-- Retention matrix: activity of each cohort in each year since its first donation
+CREATE TABLE IF NOT EXISTS public.donor_cohorts (
+    cohort_year INTEGER NOT NULL,
+    activity_year INTEGER NOT NULL,
+    donors INTEGER NOT NULL,
+    donations INTEGER NOT NULL,
+    total_amount NUMERIC(14, 2) NOT NULL,
+    computed_at TIMESTAMPTZ NOT NULL,
+
+    PRIMARY KEY (cohort_year, activity_year)
+);
+
+-- One row per year: the donor cohort of that year, and the members who joined that year
+CREATE TABLE IF NOT EXISTS public.donor_cohort_summaries (
+    cohort_year INTEGER PRIMARY KEY,
+    donors INTEGER NOT NULL,
+    -- Donateurs ayant donné au moins deux années différentes
+    repeat_donors INTEGER NOT NULL,
+    -- Donateurs sans don ni l'année du calcul ni l'année précédente
+    lapsed_donors INTEGER NOT NULL,
+    donations INTEGER NOT NULL,
+    total_amount NUMERIC(14, 2) NOT NULL,
+    -- Adhérents dont la première adhésion date de cette année, et ceux d'entre eux qui ont donné depuis
+    members INTEGER NOT NULL,
+    converted_members INTEGER NOT NULL,
+    computed_at TIMESTAMPTZ NOT NULL
+);
+
+COMMENT ON TABLE public.donor_cohorts IS 'Donor retention per first-donation year and activity year, refreshed by donor_cohorts_refresh()';
+COMMENT ON TABLE public.donor_cohort_summaries IS 'Donor cohort and member-to-donor conversion per year, refreshed by donor_cohorts_refresh()';
+
+-- Replaces both snapshots in the caller's transaction: readers keep the previous one until the commit
+CREATE OR REPLACE PROCEDURE public.donor_cohorts_refresh()
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_now TIMESTAMPTZ := now();
+    v_current_year INTEGER := extract(YEAR FROM current_date)::INTEGER;
+BEGIN
+    DELETE FROM public.donor_cohorts;
+    DELETE FROM public.donor_cohort_summaries;
+
+    INSERT INTO public.donor_cohorts (cohort_year, activity_year, donors, donations, total_amount, computed_at)
+    WITH gifts AS (
+        SELECT p.user_id, extract(YEAR FROM p.payment_date)::INTEGER AS gift_year, coalesce(p.amount, 0) AS amount
+        FROM public.payments p
+        WHERE p.payment_type = 'DONATION' AND p.payment_status IN ('AUTHORIZED', 'PAID')
+          AND p.user_id IS NOT NULL AND p.payment_date IS NOT NULL
+    ), cohorts AS (
+        SELECT user_id, min(gift_year) AS cohort_year FROM gifts GROUP BY user_id
+    )
+    SELECT c.cohort_year, g.gift_year, count(DISTINCT g.user_id), count(*), sum(g.amount), v_now
+    FROM gifts g
+    JOIN cohorts c ON c.user_id = g.user_id
+    GROUP BY c.cohort_year, g.gift_year;
+
+    INSERT INTO public.donor_cohort_summaries (cohort_year, donors, repeat_donors, lapsed_donors, donations,
+                                               total_amount, members, converted_members, computed_at)
+    WITH gifts AS (
+        SELECT p.user_id, p.payment_date, coalesce(p.amount, 0) AS amount
+        FROM public.payments p
+        WHERE p.payment_type = 'DONATION' AND p.payment_status IN ('AUTHORIZED', 'PAID')
+          AND p.user_id IS NOT NULL AND p.payment_date IS NOT NULL
+    ), donors AS (
+        SELECT user_id,
+               extract(YEAR FROM min(payment_date))::INTEGER AS cohort_year,
+               extract(YEAR FROM max(payment_date))::INTEGER AS last_year,
+               max(payment_date) AS last_gift,
+               count(DISTINCT extract(YEAR FROM payment_date)) AS active_years,
+               count(*) AS donations,
+               sum(amount) AS total_amount
+        FROM gifts
+        GROUP BY user_id
+    ), members AS (
+        SELECT user_id, min(date_adhesion) AS first_membership
+        FROM public.memberships
+        GROUP BY user_id
+    ), donor_rows AS (
+        SELECT cohort_year,
+               count(*) AS donors,
+               count(*) FILTER (WHERE active_years > 1) AS repeat_donors,
+               count(*) FILTER (WHERE last_year < v_current_year - 1) AS lapsed_donors,
+               sum(donations) AS donations,
+               sum(total_amount) AS total_amount
+        FROM donors
+        GROUP BY cohort_year
+    ), member_rows AS (
+        SELECT extract(YEAR FROM m.first_membership)::INTEGER AS cohort_year,
+               count(*) AS members,
+               count(*) FILTER (WHERE d.last_gift >= m.first_membership) AS converted_members
+        FROM members m
+        LEFT JOIN donors d ON d.user_id = m.user_id
+        GROUP BY 1
+    )
+    SELECT coalesce(d.cohort_year, m.cohort_year),
+           coalesce(d.donors, 0), coalesce(d.repeat_donors, 0), coalesce(d.lapsed_donors, 0),
+           coalesce(d.donations, 0), coalesce(d.total_amount, 0),
+           coalesce(m.members, 0), coalesce(m.converted_members, 0),
+           v_now
+    FROM donor_rows d
+    FULL JOIN member_rows m ON m.cohort_year = d.cohort_year;
+END
+$$;
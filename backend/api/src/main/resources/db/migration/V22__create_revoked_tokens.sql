@@ -0,0 +1,15 @@
+-- V22__create_revoked_tokens.sql
+-- JWTs revoked before their expiry (logout, password change), by jti. Every API instance keeps the
+-- unexpired rows in memory (TokenRevocationService) and is told about new ones on the token_revoked
+-- notification channel; rows are pruned once the token has expired.
+
+CREATE TABLE IF NOT EXISTS public.revoked_tokens (
+    -- Claim jti du token, ou empreinte SHA-256 des tokens émis avant l'ajout du jti
+    jti VARCHAR(64) PRIMARY KEY,
+    expires_at TIMESTAMPTZ NOT NULL,
+    revoked_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at ON public.revoked_tokens (expires_at);
+
+COMMENT ON TABLE public.revoked_tokens IS 'JWTs revoked before their expiry, pruned once expired';
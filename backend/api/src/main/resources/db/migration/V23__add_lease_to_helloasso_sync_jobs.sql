@@ -0,0 +1,15 @@
+-- V23__add_lease_to_helloasso_sync_jobs.sql
+-- Running HelloAsso sync jobs hold a lease renewed by their worker while the import runs (HelloAssoSyncJobService).
+-- Only a job whose lease has expired, i.e. whose instance stopped, is reclaimed; a long import on a live instance
+-- keeps its job.
+
+ALTER TABLE public.helloasso_sync_jobs ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(64);
+ALTER TABLE public.helloasso_sync_jobs ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMPTZ;
+
+-- Jobs en cours avant le déploiement : l'ancienne règle (30 minutes après le démarrage) leur sert de bail
+UPDATE public.helloasso_sync_jobs
+SET lease_expires_at = started_at + INTERVAL '30 minutes'
+WHERE status = 'RUNNING' AND lease_expires_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_helloasso_sync_jobs_running_lease
+    ON public.helloasso_sync_jobs (lease_expires_at) WHERE status = 'RUNNING';
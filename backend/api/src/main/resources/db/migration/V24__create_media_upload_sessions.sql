@@ -0,0 +1,25 @@
+-- V24__create_media_upload_sessions.sql
+-- Resumable media uploads in progress (MediaUploadSessionService), so that an upload can be resumed after a restart
+-- or on another API instance. The partial SHA-256 of the received bytes only lives in the memory of the instance
+-- that received them; an upload resumed elsewhere is completed without fingerprint, hence without deduplication.
+
+CREATE TABLE IF NOT EXISTS public.media_upload_sessions (
+    id UUID PRIMARY KEY,
+    -- URL de l'upload TUS côté stockage
+    upload_url TEXT NOT NULL,
+    storage_key VARCHAR(255) NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    size BIGINT NOT NULL,
+    content_type VARCHAR(255),
+    title VARCHAR(255),
+    alt_text VARCHAR(255),
+    upload_offset BIGINT NOT NULL DEFAULT 0,
+    -- Média créé avec le dernier segment
+    media_id UUID,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    last_activity TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_media_upload_sessions_last_activity ON public.media_upload_sessions (last_activity);
+
+COMMENT ON TABLE public.media_upload_sessions IS 'Resumable media uploads in progress, purged 24 hours after their last chunk';
@@ -0,0 +1,8 @@
+-- V25__add_tokens_valid_after_to_accounts.sql
+-- Per-account revocation: JWTs issued before this instant (iat claim) are refused. Set when the password is changed
+-- or reset by an administrator, so that every session of the account ends, on every instance.
+
+ALTER TABLE public.accounts
+    ADD COLUMN IF NOT EXISTS tokens_valid_after TIMESTAMPTZ;
+
+COMMENT ON COLUMN public.accounts.tokens_valid_after IS 'JWTs issued before this instant are refused';
@@ -0,0 +1,8 @@
+-- V26__add_variants_attempted_at_to_media.sql
+-- Last variant generation attempt of an image (MediaVariantService). Images that yield no variant (narrower than the
+-- smallest width, not decodable, failed generation) are not downloaded again on every resized request.
+
+ALTER TABLE public.media
+    ADD COLUMN IF NOT EXISTS variants_attempted_at TIMESTAMPTZ;
+
+COMMENT ON COLUMN public.media.variants_attempted_at IS 'Last variant generation attempt, cleared when the file is replaced';
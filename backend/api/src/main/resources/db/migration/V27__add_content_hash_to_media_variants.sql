@@ -0,0 +1,10 @@
+-- V27__add_content_hash_to_media_variants.sql
+-- Variants are shared by every media of the same content (see V13): they are looked up by the content hash of the
+-- original, and media_id only records the media they were generated for.
+
+ALTER TABLE public.media_variants
+    ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+CREATE INDEX IF NOT EXISTS idx_media_variants_content_hash ON public.media_variants(content_hash);
+
+COMMENT ON COLUMN public.media_variants.content_hash IS 'Hex SHA-256 of the original, shared by its duplicates';
@@ -0,0 +1,20 @@
+-- V28__create_media_objects.sql
+-- Content-addressed stored objects, one per content hash. The primary key makes deduplication hold across API
+-- instances: an upload registers its object with ON CONFLICT DO NOTHING, and the loser of a race points its media
+-- at the registered object (MediaService.finalizeUpload).
+
+CREATE TABLE IF NOT EXISTS public.media_objects (
+    content_hash VARCHAR(64) PRIMARY KEY,
+    file_url VARCHAR(255) NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Objets déjà stockés : le plus ancien média de chaque empreinte
+INSERT INTO public.media_objects (content_hash, file_url, created_at)
+SELECT DISTINCT ON (content_hash) content_hash, file_url, COALESCE(created_at, now())
+FROM public.media
+WHERE content_hash IS NOT NULL
+ORDER BY content_hash, created_at
+ON CONFLICT (content_hash) DO NOTHING;
+
+COMMENT ON TABLE public.media_objects IS 'Stored media objects by content hash, shared by duplicate media rows';
@@ -1,6 +1,7 @@
 package com.stemadeleine.api.config;
 
 import com.stemadeleine.api.security.JwtUtil;
+import com.stemadeleine.api.service.TokenRevocationService;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
@@ -10,7 +11,7 @@ public class TestJwtConfig {
 
     @Bean
     @Primary
-    public JwtUtil jwtUtil() {
-        return new JwtUtil();
+    public JwtUtil jwtUtil(TokenRevocationService revocationService) {
+        return new JwtUtil(revocationService);
     }
 }
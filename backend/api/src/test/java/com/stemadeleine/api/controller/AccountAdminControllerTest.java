@@ -40,11 +40,11 @@ class AccountAdminControllerTest {
     void shouldResetPasswordByAdmin() {
         AdminPasswordResetRequest req = new AdminPasswordResetRequest("NewPass123!");
 
-        doNothing().when(accountService).resetPasswordByAdmin(accountId, "NewPass123!", null);
+        doNothing().when(accountService).resetPasswordByAdmin(accountId, "NewPass123!");
 
-        ResponseEntity<?> resp = accountAdminController.resetPasswordByAdmin(accountId, req, null);
+        ResponseEntity<?> resp = accountAdminController.resetPasswordByAdmin(accountId, req);
 
         assertEquals(HttpStatus.NO_CONTENT, resp.getStatusCode());
-        verify(accountService).resetPasswordByAdmin(accountId, "NewPass123!", null);
+        verify(accountService).resetPasswordByAdmin(accountId, "NewPass123!");
     }
 }
@@ -1,7 +1,13 @@
 package com.stemadeleine.api.controller;
 
 import com.stemadeleine.api.dto.LoginRequest;
+import com.stemadeleine.api.repository.RevokedTokenRepository;
+import com.stemadeleine.api.security.JwtUtil;
 import com.stemadeleine.api.service.AuthService;
+import com.stemadeleine.api.service.CustomUserDetailsService;
+import com.stemadeleine.api.service.TokenRevocationService;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,13 +15,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import javax.sql.DataSource;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -54,12 +67,45 @@ class AuthControllerTest {
         // When & Then - call controller directly
         AuthController controller = new AuthController(authService);
         MockHttpServletResponse response = new MockHttpServletResponse();
-        var entity = controller.logoutUser(response);
+        var entity = controller.logoutUser(new MockHttpServletRequest(), response);
         assertEquals(HttpStatus.OK, entity.getStatusCode());
 
         // Note: Pour des tests complets de contenu JSON et cookies, utiliser AuthControllerIntegrationTest
     }
 
+    @Test
+    @DisplayName("POST /api/auth/logout - Le token du cookie est révoqué")
+    void shouldRevokeTokenOnLogout() {
+        TokenRevocationService revocationService = new TokenRevocationService(mock(RevokedTokenRepository.class),
+                mock(CustomUserDetailsService.class), mock(DataSource.class), mock(PlatformTransactionManager.class), false, 100);
+        JwtUtil jwtUtil = new JwtUtil(revocationService);
+        ReflectionTestUtils.setField(jwtUtil, "secretKey", "test-secret-key-for-unit-tests-that-is-long-enough-for-jwt-validation");
+        ReflectionTestUtils.setField(jwtUtil, "expirationTime", 60_000L);
+        jwtUtil.init();
+        AuthController controller = new AuthController(new AuthService(null, jwtUtil, null, null, null));
+        String token = jwtUtil.generateToken("user@example.com");
+        jwtUtil.parseClaims(token);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("authToken", token));
+        var entity = controller.logoutUser(request, new MockHttpServletResponse());
+
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertThrows(JwtException.class, () -> jwtUtil.parseClaims(token));
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/logout - Le token de l'en-tête Authorization est révoqué")
+    void shouldRevokeBearerTokenOnLogout() {
+        AuthController controller = new AuthController(authService);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer jwt-token-123");
+
+        controller.logoutUser(request, new MockHttpServletResponse());
+
+        verify(authService).logoutUser("Bearer jwt-token-123");
+    }
+
     @Test
     @DisplayName("POST /api/auth/login - Bloqué si compte désactivé (unit)")
     void shouldReturnForbiddenWhenAccountDisabled() {
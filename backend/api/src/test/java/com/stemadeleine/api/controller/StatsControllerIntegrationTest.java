@@ -1,8 +1,9 @@
 package com.stemadeleine.api.controller;
 
+import com.stemadeleine.api.model.PaymentStatsTotal;
 import com.stemadeleine.api.model.PaymentType;
 import com.stemadeleine.api.repository.MembershipRepository;
-import com.stemadeleine.api.repository.PaymentRepository;
+import com.stemadeleine.api.service.PaymentStatsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,7 +19,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class StatsControllerIntegrationTest {
 
     @Mock
-    private PaymentRepository paymentRepository;
+    private PaymentStatsService paymentStatsService;
 
     @Mock
     private MembershipRepository membershipRepository;
@@ -28,13 +29,12 @@ public class StatsControllerIntegrationTest {
 
     @BeforeEach
     public void setup() {
-        org.mockito.Mockito.lenient().when(paymentRepository.sumAmountByType(PaymentType.MEMBERSHIP)).thenReturn(20.0);
-        org.mockito.Mockito.lenient().when(paymentRepository.sumAmountByType(PaymentType.DONATION)).thenReturn(50.0);
-        org.mockito.Mockito.lenient().when(paymentRepository.countDistinctUsersByType(PaymentType.DONATION)).thenReturn(1L);
+        org.mockito.Mockito.lenient().when(paymentStatsService.getTotals(PaymentType.MEMBERSHIP)).thenReturn(new PaymentStatsTotal(PaymentType.MEMBERSHIP, 20.0, 1L, 1));
+        org.mockito.Mockito.lenient().when(paymentStatsService.getTotals(PaymentType.DONATION)).thenReturn(new PaymentStatsTotal(PaymentType.DONATION, 50.0, 2L, 1));
         org.mockito.Mockito.lenient().when(membershipRepository.countActiveForYear(org.mockito.ArgumentMatchers.anyInt())).thenReturn(1L);
-        java.util.List<Object[]> monthly = new java.util.ArrayList<>();
-        monthly.add(new Object[]{1, 50.0});
-        org.mockito.Mockito.lenient().when(paymentRepository.sumMonthlyByTypeAndYear(PaymentType.DONATION, 2025)).thenReturn(monthly);
+        double[] monthly = new double[12];
+        monthly[0] = 50.0;
+        org.mockito.Mockito.lenient().when(paymentStatsService.getMonthlyAmounts(PaymentType.DONATION, 2025)).thenReturn(monthly);
     }
 
     @Test
@@ -1,6 +1,7 @@
 package com.stemadeleine.api.controller;
 
-import com.stemadeleine.api.repository.PaymentRepository;
+import com.stemadeleine.api.model.PaymentType;
+import com.stemadeleine.api.service.PaymentStatsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,23 +25,31 @@ public class StatsControllerUnitTest {
     private MockMvc mockMvc;
 
     @Mock
-    private PaymentRepository paymentRepository;
+    private PaymentStatsService paymentStatsService;
 
     @InjectMocks
     private StatsController controller;
 
     @BeforeEach
     public void setup() {
-        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new com.stemadeleine.api.exception.GlobalExceptionHandler())
+                .build();
     }
 
     @Test
     public void shouldReturnDonationsForYear() throws Exception {
-        // mock repository returning empty monthly aggregation
-        when(paymentRepository.sumMonthlyByTypeAndYear(any(com.stemadeleine.api.model.PaymentType.class), anyInt())).thenReturn(java.util.Collections.emptyList());
+        // mock service returning empty monthly rollups
+        when(paymentStatsService.getMonthlyAmounts(any(PaymentType.class), anyInt())).thenReturn(new double[12]);
 
         mockMvc.perform(get("/api/stats/donations?year=2025").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.monthlyTotals").exists());
     }
+
+    @Test
+    public void shouldRejectUnknownGranularity() throws Exception {
+        mockMvc.perform(get("/api/stats/series?granularity=quarter").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,118 @@
+package com.stemadeleine.api.security;
+
+import com.stemadeleine.api.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JwtUtil Tests")
+class JwtUtilTest {
+
+    private static final String SECRET = "test-secret-key-for-unit-tests-that-is-long-enough-for-jwt-validation";
+
+    @Mock
+    private TokenRevocationService revocationService;
+
+    private JwtUtil jwtUtil;
+
+    private JwtUtil newJwtUtil(String secret, long expiration) {
+        JwtUtil util = new JwtUtil(revocationService);
+        ReflectionTestUtils.setField(util, "secretKey", secret);
+        ReflectionTestUtils.setField(util, "expirationTime", expiration);
+        util.init();
+        return util;
+    }
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = newJwtUtil(SECRET, 60_000);
+    }
+
+    @Test
+    @DisplayName("A verified token is parsed once and served from the cache")
+    void parseClaims_cachesVerifiedToken() {
+        String token = jwtUtil.generateToken("user@example.com");
+
+        Claims first = jwtUtil.parseClaims(token);
+        Claims second = jwtUtil.parseClaims(token);
+
+        assertSame(first, second);
+        assertEquals("user@example.com", jwtUtil.extractUsername(token));
+        assertEquals(1, jwtUtil.verifiedTokenCount());
+    }
+
+    @Test
+    @DisplayName("A token signed with another key is rejected and not cached")
+    void getVerifiedClaims_rejectsForeignSignature() {
+        String token = newJwtUtil(SECRET + "-other", 60_000).generateToken("user@example.com");
+
+        assertNull(jwtUtil.getVerifiedClaims(token));
+        assertFalse(jwtUtil.validateToken(token));
+        assertEquals(0, jwtUtil.verifiedTokenCount());
+    }
+
+    @Test
+    @DisplayName("An expired token is rejected")
+    void parseClaims_rejectsExpiredToken() {
+        String token = newJwtUtil(SECRET, -1_000).generateToken("user@example.com");
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseClaims(token));
+        assertFalse(jwtUtil.validateToken(token));
+    }
+
+    @Test
+    @DisplayName("Each token carries its own jti")
+    void generateToken_setsJti() {
+        Claims first = jwtUtil.parseClaims(jwtUtil.generateToken("user@example.com"));
+        Claims second = jwtUtil.parseClaims(jwtUtil.generateToken("user@example.com"));
+
+        assertNotNull(first.getId());
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    @Test
+    @DisplayName("Invalidating a token revokes its jti until it expires, even when already verified")
+    void invalidateToken_revokesJti() {
+        String token = jwtUtil.generateToken("user@example.com");
+        String jti = jwtUtil.parseClaims(token).getId();
+
+        jwtUtil.invalidateToken(token);
+
+        verify(revocationService).revoke(eq(jti), any(Instant.class));
+        when(revocationService.isRevoked(jti)).thenReturn(true);
+        assertThrows(JwtException.class, () -> jwtUtil.parseClaims(token));
+        assertNull(jwtUtil.getVerifiedClaims(token));
+    }
+
+    @Test
+    @DisplayName("Invalidating an invalid token does nothing")
+    void invalidateToken_ignoresInvalidToken() {
+        jwtUtil.invalidateToken("not-a-jwt");
+
+        verify(revocationService, never()).revoke(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("A token issued before the account cutoff is refused, a later one is accepted")
+    void isIssuedBefore_comparesIssuedAtWithCutoff() {
+        Claims claims = jwtUtil.parseClaims(jwtUtil.generateToken("user@example.com"));
+
+        assertTrue(jwtUtil.isIssuedBefore(claims, OffsetDateTime.now().plusSeconds(5)));
+        assertFalse(jwtUtil.isIssuedBefore(claims, OffsetDateTime.now().minusSeconds(5)));
+        assertFalse(jwtUtil.isIssuedBefore(claims, null));
+    }
+}
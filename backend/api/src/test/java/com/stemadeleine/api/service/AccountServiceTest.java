@@ -33,6 +33,9 @@ class AccountServiceTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private TokenRevocationService revocationService;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -62,8 +65,34 @@ class AccountServiceTest {
 
         accountService.changePassword(accountId, "oldPass", "NewPassword1!", "Bearer some-token");
 
-        verify(accountRepository).save(argThat(acc -> acc.getPassword().equals("encoded-new")));
+        verify(accountRepository).save(argThat(acc -> acc.getPassword().equals("encoded-new") && acc.getTokensValidAfter() != null));
         verify(jwtUtil).invalidateToken("some-token");
+        verify(revocationService).evictAccount(accountId);
+    }
+
+    @Test
+    @DisplayName("Devrait retirer le compte du cache des principals lors d'une désactivation")
+    void shouldEvictPrincipalWhenDeactivated() {
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(testAccount));
+        when(accountRepository.save(testAccount)).thenReturn(testAccount);
+
+        accountService.updateAccountActive(accountId, false);
+
+        verify(accountRepository).save(argThat(acc -> !acc.getIsActive()));
+        verify(revocationService).evictAccount(accountId);
+    }
+
+    @Test
+    @DisplayName("Devrait révoquer les sessions du compte visé, et non le token de l'administrateur")
+    void shouldRevokeTargetSessionsOnAdminReset() {
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(testAccount));
+        when(passwordEncoder.encode("NewPassword1!")).thenReturn("encoded-new");
+
+        accountService.resetPasswordByAdmin(accountId, "NewPassword1!");
+
+        verify(accountRepository).save(argThat(acc -> acc.getPassword().equals("encoded-new") && acc.getTokensValidAfter() != null));
+        verify(revocationService).evictAccount(accountId);
+        verifyNoInteractions(jwtUtil);
     }
 
     @Test
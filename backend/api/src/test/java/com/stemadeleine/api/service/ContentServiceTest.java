@@ -0,0 +1,109 @@
+package com.stemadeleine.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stemadeleine.api.model.Content;
+import com.stemadeleine.api.model.Module;
+import com.stemadeleine.api.model.Page;
+import com.stemadeleine.api.model.PublishingStatus;
+import com.stemadeleine.api.model.Section;
+import com.stemadeleine.api.model.User;
+import com.stemadeleine.api.repository.ContentRepository;
+import com.stemadeleine.api.repository.MediaRepository;
+import com.stemadeleine.api.repository.ModuleRepository;
+import com.stemadeleine.api.repository.PageRepository;
+import com.stemadeleine.api.repository.SectionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Content Service Tests")
+class ContentServiceTest {
+
+    @Mock
+    private ContentRepository contentRepository;
+    @Mock
+    private MediaRepository mediaRepository;
+    @Mock
+    private SectionRepository sectionRepository;
+    @Mock
+    private ModuleRepository moduleRepository;
+    @Mock
+    private PageRepository pageRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ContentService contentService;
+    private UUID pageId;
+    private User author;
+
+    @BeforeEach
+    void setUp() {
+        contentService = new ContentService(contentRepository, mediaRepository, new ObjectMapper(),
+                sectionRepository, moduleRepository, pageRepository, eventPublisher);
+        pageId = UUID.randomUUID();
+        author = User.builder().id(UUID.randomUUID()).firstname("Jeanne").lastname("Martin").build();
+    }
+
+    private Content draft(UUID ownerId) {
+        Content content = Content.builder().id(UUID.randomUUID()).contentId(UUID.randomUUID()).ownerId(ownerId).build();
+        content.setStatus(PublishingStatus.DRAFT);
+        when(contentRepository.findTopByContentIdOrderByVersionDesc(content.getContentId())).thenReturn(Optional.of(content));
+        when(contentRepository.save(any(Content.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        return content;
+    }
+
+    @Test
+    @DisplayName("Publishing the content of a section refreshes its page")
+    void updateContentStatus_publishesPageOfSection() {
+        UUID sectionId = UUID.randomUUID();
+        Content content = draft(sectionId);
+        when(sectionRepository.findTopBySectionIdOrderByVersionDesc(sectionId)).thenReturn(Optional.of(
+                Section.builder().sectionId(sectionId).page(Page.builder().pageId(pageId).build()).build()));
+
+        Content result = contentService.updateContentStatus(content.getContentId(), PublishingStatus.PUBLISHED, author);
+
+        assertEquals(PublishingStatus.PUBLISHED, result.getStatus());
+        verify(eventPublisher).publishEvent(new PagesChangedEvent(pageId));
+    }
+
+    @Test
+    @DisplayName("Publishing the content of a module refreshes the page of its section")
+    void updateContentStatus_publishesPageOfModule() {
+        UUID moduleId = UUID.randomUUID();
+        Content content = draft(moduleId);
+        when(sectionRepository.findTopBySectionIdOrderByVersionDesc(moduleId)).thenReturn(Optional.empty());
+        Module module = mock(Module.class);
+        when(module.getSection()).thenReturn(Section.builder().page(Page.builder().pageId(pageId).build()).build());
+        when(moduleRepository.findTopByModuleIdOrderByVersionDesc(moduleId)).thenReturn(Optional.of(module));
+
+        contentService.updateContentStatus(content.getContentId(), PublishingStatus.PUBLISHED, author);
+
+        verify(eventPublisher).publishEvent(new PagesChangedEvent(pageId));
+    }
+
+    @Test
+    @DisplayName("A content without a known owner publishes no page event")
+    void updateContentStatus_unknownOwner() {
+        UUID ownerId = UUID.randomUUID();
+        Content content = draft(ownerId);
+        when(sectionRepository.findTopBySectionIdOrderByVersionDesc(ownerId)).thenReturn(Optional.empty());
+        when(moduleRepository.findTopByModuleIdOrderByVersionDesc(ownerId)).thenReturn(Optional.empty());
+        when(pageRepository.findTopByPageIdOrderByVersionDesc(ownerId)).thenReturn(Optional.empty());
+
+        contentService.updateContentStatus(content.getContentId(), PublishingStatus.PUBLISHED, author);
+
+        verifyNoInteractions(eventPublisher);
+    }
+}
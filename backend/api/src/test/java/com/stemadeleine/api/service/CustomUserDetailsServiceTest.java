@@ -0,0 +1,91 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.Account;
+import com.stemadeleine.api.model.Roles;
+import com.stemadeleine.api.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Custom User Details Service Tests")
+class CustomUserDetailsServiceTest {
+
+    private static final String EMAIL = "user@example.com";
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private CustomUserDetailsService userDetailsService;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        userDetailsService = new CustomUserDetailsService(accountRepository, Duration.ofMinutes(1));
+        account = Account.builder()
+                .id(UUID.randomUUID())
+                .email(EMAIL)
+                .password("encoded")
+                .role(Roles.ROLE_USER)
+                .isActive(true)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Successive JWT requests resolve the account once")
+    void loadCachedUserByUsername_readsAccountOnce() {
+        when(accountRepository.findByEmail(EMAIL)).thenReturn(Optional.of(account));
+
+        UserDetails first = userDetailsService.loadCachedUserByUsername(EMAIL);
+        UserDetails second = userDetailsService.loadCachedUserByUsername(EMAIL);
+
+        assertSame(first, second);
+        verify(accountRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("An evicted account is read again")
+    void evict_forcesReload() {
+        when(accountRepository.findByEmail(EMAIL)).thenReturn(Optional.of(account));
+
+        userDetailsService.loadCachedUserByUsername(EMAIL);
+        userDetailsService.evict(account.getId());
+        userDetailsService.loadCachedUserByUsername(EMAIL);
+
+        verify(accountRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Login lookups never use the cache")
+    void loadUserByUsername_isNotCached() {
+        when(accountRepository.findByEmail(EMAIL)).thenReturn(Optional.of(account));
+
+        userDetailsService.loadCachedUserByUsername(EMAIL);
+        userDetailsService.loadUserByUsername(EMAIL);
+
+        verify(accountRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("A zero TTL disables the cache")
+    void zeroTtl_disablesCache() {
+        CustomUserDetailsService uncached = new CustomUserDetailsService(accountRepository, Duration.ZERO);
+        when(accountRepository.findByEmail(EMAIL)).thenReturn(Optional.of(account));
+
+        uncached.loadCachedUserByUsername(EMAIL);
+        uncached.loadCachedUserByUsername(EMAIL);
+
+        verify(accountRepository, times(2)).findByEmail(EMAIL);
+    }
+}
@@ -0,0 +1,129 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.dto.DonorCohortsDto;
+import com.stemadeleine.api.model.DonorCohort;
+import com.stemadeleine.api.model.DonorCohortSummary;
+import com.stemadeleine.api.repository.DonorCohortRepository;
+import com.stemadeleine.api.repository.DonorCohortSummaryRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Connection;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Donor Cohort Service Tests")
+class DonorCohortServiceTest {
+
+    private static final OffsetDateTime COMPUTED_AT = OffsetDateTime.parse("2025-06-01T03:30:00Z");
+
+    @Mock
+    private DonorCohortRepository cohortRepository;
+    @Mock
+    private DonorCohortSummaryRepository summaryRepository;
+    @Mock
+    private AdvisoryLockService lockService;
+    @Mock
+    private Connection lockConnection;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private DonorCohortService donorCohortService;
+
+    private DonorCohort activity(int cohortYear, int activityYear, int donors, int donations, double amount) {
+        return DonorCohort.builder()
+                .id(new DonorCohort.DonorCohortId(cohortYear, activityYear))
+                .donors(donors)
+                .donations(donations)
+                .totalAmount(amount)
+                .computedAt(COMPUTED_AT)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Rates and retention are derived from the last snapshot")
+    void getCohorts_derivesRates() {
+        when(summaryRepository.findAllByOrderByCohortYearAsc()).thenReturn(List.of(
+                DonorCohortSummary.builder().cohortYear(2023).donors(4).repeatDonors(1).lapsedDonors(2)
+                        .donations(6).totalAmount(300.0).members(10).convertedMembers(2).computedAt(COMPUTED_AT).build(),
+                DonorCohortSummary.builder().cohortYear(2024).donors(0).repeatDonors(0).lapsedDonors(0)
+                        .donations(0).totalAmount(0.0).members(5).convertedMembers(0).computedAt(COMPUTED_AT).build()));
+        when(cohortRepository.findAllByOrderByIdCohortYearAscIdActivityYearAsc()).thenReturn(List.of(
+                activity(2023, 2023, 4, 5, 250.0),
+                activity(2023, 2024, 1, 1, 50.0)));
+
+        DonorCohortsDto result = donorCohortService.getCohorts();
+
+        assertEquals(COMPUTED_AT, result.computedAt());
+        assertEquals(2, result.cohorts().size());
+        DonorCohortsDto.Cohort cohort = result.cohorts().get(0);
+        assertEquals(0.25, cohort.repeatRate());
+        assertEquals(50.0, cohort.averageGift());
+        assertEquals(0.2, cohort.conversionRate());
+        assertEquals(2, cohort.retention().size());
+        assertEquals(2024, cohort.retention().get(1).year());
+        assertEquals(0.25, cohort.retention().get(1).rate());
+        DonorCohortsDto.Cohort membersOnly = result.cohorts().get(1);
+        assertEquals(0.0, membersOnly.repeatRate());
+        assertTrue(membersOnly.retention().isEmpty());
+    }
+
+    @Test
+    @DisplayName("No snapshot yet gives an empty result")
+    void getCohorts_beforeFirstComputation() {
+        when(summaryRepository.findAllByOrderByCohortYearAsc()).thenReturn(List.of());
+        when(cohortRepository.findAllByOrderByIdCohortYearAscIdActivityYearAsc()).thenReturn(List.of());
+
+        DonorCohortsDto result = donorCohortService.getCohorts();
+
+        assertNull(result.computedAt());
+        assertTrue(result.cohorts().isEmpty());
+    }
+
+    @Test
+    @DisplayName("The refresh delegates to the database procedure under the cohort lock")
+    void refresh_callsProcedure() {
+        when(lockService.tryLock("donor-cohorts-refresh")).thenReturn(lockConnection);
+
+        assertTrue(donorCohortService.refresh());
+
+        var inOrder = inOrder(lockService, summaryRepository);
+        inOrder.verify(lockService).tryLock("donor-cohorts-refresh");
+        inOrder.verify(summaryRepository).refresh();
+        inOrder.verify(lockService).unlock(lockConnection, "donor-cohorts-refresh");
+    }
+
+    @Test
+    @DisplayName("Nothing is computed while another instance computes the cohorts")
+    void refresh_skipsWhenLockedElsewhere() {
+        when(lockService.tryLock("donor-cohorts-refresh")).thenReturn(null);
+
+        assertFalse(donorCohortService.refresh());
+
+        verify(summaryRepository, never()).refresh();
+    }
+
+    @Test
+    @DisplayName("The nightly job of a late instance does not recompute a fresh snapshot")
+    void scheduledRefresh_skipsRecentSnapshot() {
+        when(lockService.tryLock("donor-cohorts-refresh")).thenReturn(lockConnection);
+        when(summaryRepository.findFirstByOrderByComputedAtDesc()).thenReturn(Optional.of(
+                DonorCohortSummary.builder().cohortYear(2024).computedAt(OffsetDateTime.now().minusMinutes(1)).build()));
+
+        donorCohortService.scheduledRefresh();
+
+        verify(summaryRepository, never()).refresh();
+        verify(lockService).unlock(lockConnection, "donor-cohorts-refresh");
+    }
+}
@@ -0,0 +1,226 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.config.HelloAssoProperties;
+import com.stemadeleine.api.dto.HelloAssoMembershipItemDto;
+import com.stemadeleine.api.dto.HelloAssoPage;
+import com.stemadeleine.api.dto.HelloAssoPaymentDto;
+import com.stemadeleine.api.model.*;
+import com.stemadeleine.api.repository.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("HelloAsso Import Service Tests")
+class HelloAssoImportServiceTest {
+
+    private static final String ORG = "les-amis";
+
+    @Mock
+    private HelloAssoService helloAssoService;
+    @Spy
+    private HelloAssoProperties properties = new HelloAssoProperties();
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private AddressRepository addressRepository;
+    @Mock
+    private MembershipRepository membershipRepository;
+    @Mock
+    private CampaignRepository campaignRepository;
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private HelloAssoSyncCheckpointRepository checkpointRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private HelloAssoImportService importService;
+
+    private HelloAssoPaymentDto payment(String id, OffsetDateTime date) {
+        return HelloAssoPaymentDto.builder()
+                .paymentId(id)
+                .payerFirstname("Jeanne")
+                .payerLastname("Martin")
+                .payerEmail("jeanne@example.org")
+                .amount(30.0)
+                .paymentDate(date.toLocalDate())
+                .paymentDateTime(date)
+                .status(PaymentStatus.AUTHORIZED)
+                .type(PaymentType.DONATION)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Only payments newer than the checkpoint are requested, page by page")
+    void importPayments_resumesFromCheckpoint() {
+        OffsetDateTime lastRun = OffsetDateTime.of(2025, 3, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+        HelloAssoSyncCheckpoint checkpoint = HelloAssoSyncCheckpoint.builder()
+                .id(UUID.randomUUID()).orgSlug(ORG).resource(HelloAssoSyncCheckpoint.PAYMENTS).lastItemDate(lastRun).build();
+        when(checkpointRepository.findByOrgSlugAndResource(ORG, HelloAssoSyncCheckpoint.PAYMENTS)).thenReturn(Optional.of(checkpoint));
+        when(helloAssoService.getPaymentPages(ORG, lastRun, null)).thenReturn(Flux.just(
+                new HelloAssoPage<>(List.of(payment("100", lastRun), payment("101", lastRun.plusDays(2))), "token-2"),
+                new HelloAssoPage<>(List.of(), null)));
+        when(userRepository.findByLowerEmailIn(Set.of("jeanne@example.org")))
+                .thenReturn(List.of(User.builder().id(UUID.randomUUID()).firstname("JEANNE").lastname("Martin").email("Jeanne@Example.org").build()));
+        // Le paiement de la date du point de reprise a déjà été importé
+        when(paymentRepository.findExistingHelloAssoPaymentIds(List.of("100", "101"))).thenReturn(Set.of("100"));
+
+        importService.importPayments(ORG);
+
+        ArgumentCaptor<List<Payment>> saved = ArgumentCaptor.forClass(List.class);
+        verify(paymentRepository).saveAll(saved.capture());
+        assertEquals(List.of("101"), saved.getValue().stream().map(Payment::getHelloAssoPaymentId).toList());
+        assertNull(checkpoint.getContinuationToken());
+        assertEquals(lastRun.plusDays(2), checkpoint.getLastItemDate());
+        verify(checkpointRepository, times(2)).save(checkpoint);
+        verify(paymentRepository, never()).findLatestHelloAssoPaymentDate();
+        verify(paymentRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("A payment listed twice in the same page is imported once")
+    void importPayments_ignoresDuplicatesWithinAPage() {
+        OffsetDateTime date = OffsetDateTime.of(2025, 3, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+        when(checkpointRepository.findByOrgSlugAndResource(ORG, HelloAssoSyncCheckpoint.PAYMENTS)).thenReturn(Optional.empty());
+        when(helloAssoService.getPaymentPages(ORG, null, null)).thenReturn(Flux.just(new HelloAssoPage<>(
+                List.of(payment("200", date), payment("200", date)), null)));
+        when(paymentRepository.findExistingHelloAssoPaymentIds(anyCollection())).thenReturn(Set.of());
+        when(userRepository.findByLowerEmailIn(Set.of("jeanne@example.org")))
+                .thenReturn(List.of(User.builder().id(UUID.randomUUID()).firstname("JEANNE").lastname("Martin").email("Jeanne@Example.org").build()));
+
+        importService.importPayments(ORG);
+
+        ArgumentCaptor<List<Payment>> saved = ArgumentCaptor.forClass(List.class);
+        verify(paymentRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        verify(userRepository).saveAll(List.of());
+    }
+
+    @Test
+    @DisplayName("The first run starts from the latest payment already imported")
+    void importPayments_firstRunStartsFromLatestImportedPayment() {
+        when(checkpointRepository.findByOrgSlugAndResource(ORG, HelloAssoSyncCheckpoint.PAYMENTS)).thenReturn(Optional.empty());
+        when(paymentRepository.findLatestHelloAssoPaymentDate()).thenReturn(LocalDate.of(2025, 3, 1));
+        OffsetDateTime expectedFrom = OffsetDateTime.of(2025, 2, 28, 0, 0, 0, 0, ZoneOffset.UTC);
+        when(helloAssoService.getPaymentPages(ORG, expectedFrom, null)).thenReturn(Flux.just(new HelloAssoPage<>(List.of(), null)));
+
+        importService.importPayments(ORG);
+
+        ArgumentCaptor<HelloAssoSyncCheckpoint> saved = ArgumentCaptor.forClass(HelloAssoSyncCheckpoint.class);
+        verify(checkpointRepository).save(saved.capture());
+        assertEquals(ORG, saved.getValue().getOrgSlug());
+        assertEquals(expectedFrom, saved.getValue().getLastItemDate());
+        verify(paymentRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("An interrupted run keeps its continuation token and its original from date")
+    void importPayments_keepsTokenOfInterruptedRun() {
+        OffsetDateTime lastRun = OffsetDateTime.of(2025, 3, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+        HelloAssoSyncCheckpoint checkpoint = HelloAssoSyncCheckpoint.builder()
+                .id(UUID.randomUUID()).orgSlug(ORG).resource(HelloAssoSyncCheckpoint.PAYMENTS).lastItemDate(lastRun).build();
+        when(checkpointRepository.findByOrgSlugAndResource(ORG, HelloAssoSyncCheckpoint.PAYMENTS)).thenReturn(Optional.of(checkpoint));
+        when(helloAssoService.getPaymentPages(ORG, lastRun, null)).thenReturn(Flux.concat(
+                Flux.just(new HelloAssoPage<>(List.of(payment("101", lastRun.plusDays(1))), "token-2")),
+                Flux.error(new IllegalStateException("HelloAsso indisponible"))));
+        when(userRepository.findByLowerEmailIn(Set.of("jeanne@example.org")))
+                .thenReturn(List.of(User.builder().id(UUID.randomUUID()).firstname("JEANNE").lastname("Martin").email("Jeanne@Example.org").build()));
+
+        assertThrows(IllegalStateException.class, () -> importService.importPayments(ORG));
+
+        assertEquals("token-2", checkpoint.getContinuationToken());
+        assertEquals(lastRun, checkpoint.getLastItemDate());
+    }
+
+    @Test
+    @DisplayName("Memberships are imported in fixed-size batches, one transaction per batch")
+    void importMembershipUsers_importsInBatches() {
+        properties.setImportBatchSize(2);
+        List<HelloAssoMembershipItemDto> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            HelloAssoMembershipItemDto item = new HelloAssoMembershipItemDto();
+            HelloAssoMembershipItemDto.Payer payer = new HelloAssoMembershipItemDto.Payer();
+            payer.setFirstName("Prénom" + i);
+            payer.setLastName("Nom" + i);
+            item.setPayer(payer);
+            items.add(item);
+        }
+        when(helloAssoService.getMembershipItems(ORG, "adhesion")).thenReturn(Flux.fromIterable(items));
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(UUID.randomUUID()));
+            return users;
+        });
+
+        importService.importMembershipUsers(ORG, "adhesion");
+
+        verify(transactionManager, times(3)).commit(any());
+        verify(entityManager, times(3)).clear();
+        verify(membershipRepository, times(3)).saveAll(anyList());
+        verify(userRepository, never()).flush();
+    }
+
+    @Test
+    @DisplayName("Known members are resolved in one query and skipped when they already joined this year")
+    void importMembershipUsers_resolvesKnownMembersInBulk() {
+        User known = User.builder().id(UUID.randomUUID()).firstname("Jeanne").lastname("Martin").email("jeanne@example.org").build();
+        HelloAssoMembershipItemDto knownItem = new HelloAssoMembershipItemDto();
+        HelloAssoMembershipItemDto.Payer payer = new HelloAssoMembershipItemDto.Payer();
+        payer.setFirstName("jeanne");
+        payer.setLastName("MARTIN");
+        payer.setEmail("Jeanne@example.org");
+        knownItem.setPayer(payer);
+        HelloAssoMembershipItemDto newItem = new HelloAssoMembershipItemDto();
+        HelloAssoMembershipItemDto.Payer newPayer = new HelloAssoMembershipItemDto.Payer();
+        newPayer.setFirstName("Paul");
+        newPayer.setLastName("Durand");
+        newPayer.setEmail("paul@example.org");
+        newItem.setPayer(newPayer);
+        when(helloAssoService.getMembershipItems(ORG, "adhesion")).thenReturn(Flux.just(knownItem, newItem));
+        when(userRepository.findByLowerEmailIn(Set.of("jeanne@example.org", "paul@example.org"))).thenReturn(List.of(known));
+        when(membershipRepository.findUserIdsWithMembershipEndingBetween(eq(Set.of(known.getId())), any(), any()))
+                .thenReturn(List.of(known.getId()));
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(UUID.randomUUID()));
+            return users;
+        });
+
+        importService.importMembershipUsers(ORG, "adhesion");
+
+        ArgumentCaptor<List<User>> newUsers = ArgumentCaptor.forClass(List.class);
+        verify(userRepository).saveAll(newUsers.capture());
+        assertEquals(List.of("Paul"), newUsers.getValue().stream().map(User::getFirstname).toList());
+        ArgumentCaptor<List<Membership>> memberships = ArgumentCaptor.forClass(List.class);
+        verify(membershipRepository).saveAll(memberships.capture());
+        assertEquals(1, memberships.getValue().size());
+        assertEquals("Paul", memberships.getValue().get(0).getUser().getFirstname());
+        verify(membershipRepository, never()).findAll();
+        verify(userRepository, never()).findByFirstnameIgnoreCaseAndLastnameIgnoreCaseAndEmailIgnoreCase(any(), any(), any());
+    }
+}
@@ -0,0 +1,137 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.config.HelloAssoProperties;
+import com.stemadeleine.api.dto.HelloAssoFormDto;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Client HelloAsso testé contre un serveur HTTP local qui rejoue les réponses de l'API
+ */
+@DisplayName("HelloAsso Service Tests")
+class HelloAssoServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final String FORMS_PAGE = """
+            {"data": [{"formSlug": "dons-2024", "title": "Dons 2024", "formType": "Donation", "state": "Public"}]}
+            """;
+
+    private MockWebServer server;
+    private HelloAssoService helloAssoService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        HelloAssoProperties properties = new HelloAssoProperties();
+        properties.setApiUrl(server.url("/").toString().replaceAll("/$", ""));
+        properties.setClientId("client");
+        properties.setClientSecret("secret");
+        properties.setRequestsPerSecond(1000);
+        properties.setBurst(100);
+        properties.setMaxRetries(2);
+        properties.setRetryMinBackoff(Duration.ofMillis(10));
+        helloAssoService = new HelloAssoService(properties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        helloAssoService.shutdown();
+        server.shutdown();
+    }
+
+    private static MockResponse json(int status, String body) {
+        return new MockResponse().setResponseCode(status).setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    private static MockResponse token(String value) {
+        return json(200, "{\"access_token\": \"" + value + "\", \"expires_in\": 3600}");
+    }
+
+    @Test
+    @DisplayName("Concurrent callers share a single token request")
+    void getAccessToken_singleFlight() throws InterruptedException {
+        server.enqueue(token("t1").setBodyDelay(200, TimeUnit.MILLISECONDS));
+        server.enqueue(token("t2"));
+
+        var tokens = Mono.zip(helloAssoService.getAccessToken(), helloAssoService.getAccessToken()).block(TIMEOUT);
+
+        assertNotNull(tokens);
+        assertEquals("t1", tokens.getT1());
+        assertEquals("t1", tokens.getT2());
+        assertEquals("t1", helloAssoService.getAccessToken().block(TIMEOUT));
+        assertEquals(1, server.getRequestCount());
+        assertEquals("/oauth2/token", server.takeRequest().getPath());
+    }
+
+    @Test
+    @DisplayName("A rate-limited request is retried with backoff")
+    void getForms_retriesTooManyRequests() throws InterruptedException {
+        server.enqueue(token("t1"));
+        server.enqueue(json(429, "{\"message\": \"Too many requests\"}"));
+        server.enqueue(json(200, FORMS_PAGE));
+
+        List<HelloAssoFormDto> forms = helloAssoService.getForms("les-amis").collectList().block(TIMEOUT);
+
+        assertNotNull(forms);
+        assertEquals(1, forms.size());
+        assertEquals("dons-2024", forms.get(0).getFormSlug());
+        assertEquals(3, server.getRequestCount());
+        server.takeRequest();
+        assertTrue(server.takeRequest().getPath().startsWith("/v5/organizations/les-amis/forms"));
+        assertEquals("Bearer t1", server.takeRequest().getHeader("Authorization"));
+    }
+
+    @Test
+    @DisplayName("Server errors are retried up to the configured limit, then surfaced")
+    void getForms_givesUpAfterMaxRetries() {
+        server.enqueue(token("t1"));
+        server.enqueue(json(503, "{}"));
+        server.enqueue(json(502, "{}"));
+        server.enqueue(json(500, "{}"));
+
+        WebClientResponseException error = assertThrows(WebClientResponseException.class,
+                () -> helloAssoService.getForms("les-amis").collectList().block(TIMEOUT));
+
+        assertEquals(500, error.getStatusCode().value());
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    @DisplayName("Client errors are not retried")
+    void getForms_doesNotRetryClientErrors() {
+        server.enqueue(token("t1"));
+        server.enqueue(json(400, "{}"));
+
+        assertThrows(WebClientResponseException.class, () -> helloAssoService.getForms("les-amis").collectList().block(TIMEOUT));
+
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    @DisplayName("The token bucket lets a burst through, then spaces the requests")
+    void rateLimiter_spacesRequestsAfterBurst() {
+        HelloAssoRateLimiter rateLimiter = new HelloAssoRateLimiter(2, 2);
+        long now = System.nanoTime();
+
+        assertEquals(Duration.ZERO, rateLimiter.reserve(now));
+        assertEquals(Duration.ZERO, rateLimiter.reserve(now));
+        assertEquals(500, rateLimiter.reserve(now).toMillis());
+        assertEquals(1000, rateLimiter.reserve(now).toMillis());
+        // Deux secondes plus tard, le seau est de nouveau plein
+        assertEquals(Duration.ZERO, rateLimiter.reserve(now + Duration.ofSeconds(2).toNanos()));
+    }
+}
@@ -0,0 +1,235 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.HelloAssoSyncJob;
+import com.stemadeleine.api.repository.HelloAssoSyncJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Connection;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("HelloAsso Sync Job Service Tests")
+class HelloAssoSyncJobServiceTest {
+
+    private static final String ORG = "les-amis";
+
+    @Mock
+    private HelloAssoSyncJobRepository jobRepository;
+    @Mock
+    private HelloAssoImportService importService;
+    @Mock
+    private AdvisoryLockService lockService;
+    @Mock
+    private Connection lockConnection;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private HelloAssoSyncJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        // Worker désactivé : les jobs sont exécutés explicitement par les tests
+        jobService = new HelloAssoSyncJobService(jobRepository, importService, lockService, transactionManager, false, 5000, 3, 120);
+        lenient().when(lockService.tryLock("helloasso-sync:" + ORG)).thenReturn(lockConnection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    private HelloAssoSyncJob pendingJob(String eventType, int attempts) {
+        return HelloAssoSyncJob.builder()
+                .id(UUID.randomUUID())
+                .orgSlug(ORG)
+                .eventType(eventType)
+                .status(HelloAssoSyncJob.Status.PENDING)
+                .attempts(attempts)
+                .runAfter(OffsetDateTime.now())
+                .createdAt(OffsetDateTime.now())
+                .updatedAt(OffsetDateTime.now())
+                .build();
+    }
+
+    @Test
+    @DisplayName("A webhook is queued once and coalesced while a job is pending")
+    void enqueue_coalescesPendingJobs() {
+        when(jobRepository.enqueue(eq(ORG), eq("Payment"), eq(0), any())).thenReturn(1, 0);
+
+        assertTrue(jobService.enqueue(ORG, "Payment"));
+        assertFalse(jobService.enqueue(ORG, "Payment"));
+
+        verify(jobRepository, times(2)).enqueue(eq(ORG), eq("Payment"), eq(0), any());
+        verifyNoInteractions(importService);
+    }
+
+    @Test
+    @DisplayName("Unknown event types and missing organizations are ignored")
+    void enqueue_ignoresUnhandledEvents() {
+        assertFalse(jobService.enqueue(ORG, "Order"));
+        assertFalse(jobService.enqueue(" ", "Payment"));
+        assertFalse(jobService.enqueue(ORG, null));
+
+        verifyNoInteractions(jobRepository);
+    }
+
+    @Test
+    @DisplayName("A claimed job runs the matching import and is marked done")
+    void runNext_runsImportAndMarksDone() {
+        HelloAssoSyncJob job = pendingJob("Payment", 0);
+        when(jobRepository.findNextDueForUpdate()).thenReturn(Optional.of(job));
+        when(jobRepository.save(any(HelloAssoSyncJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobRepository.finish(any(), any(), any(), any())).thenReturn(1);
+
+        assertTrue(jobService.runNext());
+
+        verify(importService).importPayments(ORG);
+        assertEquals(HelloAssoSyncJob.Status.DONE, job.getStatus());
+        assertEquals(1, job.getAttempts());
+        assertNotNull(job.getFinishedAt());
+        assertNotNull(job.getLeaseOwner());
+        assertTrue(job.getLeaseExpiresAt().isAfter(job.getStartedAt()));
+        verify(jobRepository).finish(job.getId(), job.getLeaseOwner(), "DONE", null);
+        verify(jobRepository, never()).enqueue(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("A job runs under the lock of its organization and releases it afterwards")
+    void runNext_holdsOrganizationLock() {
+        when(jobRepository.findNextDueForUpdate()).thenReturn(Optional.of(pendingJob("Payment", 0)));
+        when(jobRepository.save(any(HelloAssoSyncJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobRepository.finish(any(), any(), any(), any())).thenReturn(1);
+
+        jobService.runNext();
+
+        var inOrder = inOrder(lockService, importService);
+        inOrder.verify(lockService).tryLock("helloasso-sync:" + ORG);
+        inOrder.verify(importService).importPayments(ORG);
+        inOrder.verify(lockService).unlock(lockConnection, "helloasso-sync:" + ORG);
+    }
+
+    @Test
+    @DisplayName("A job whose organization is being synchronised elsewhere is queued again without counting an attempt")
+    void runNext_postponesJobWhileOrganizationIsLocked() {
+        HelloAssoSyncJob job = pendingJob("Payment", 1);
+        when(jobRepository.findNextDueForUpdate()).thenReturn(Optional.of(job));
+        when(jobRepository.save(any(HelloAssoSyncJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(lockService.tryLock("helloasso-sync:" + ORG)).thenReturn(null);
+        when(jobRepository.deleteClaimed(eq(job.getId()), any())).thenReturn(1);
+
+        assertTrue(jobService.runNext());
+
+        verifyNoInteractions(importService);
+        verify(jobRepository, never()).finish(any(), any(), any(), any());
+        verify(jobRepository).enqueue(eq(ORG), eq("Payment"), eq(1), argThat(runAfter -> runAfter.isAfter(OffsetDateTime.now())));
+        verify(lockService, never()).unlock(any(), any());
+    }
+
+    @Test
+    @DisplayName("A membership job imports the membership form")
+    void runNext_importsMembershipForm() {
+        when(jobRepository.findNextDueForUpdate()).thenReturn(Optional.of(pendingJob("Membership", 0)));
+        when(jobRepository.save(any(HelloAssoSyncJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobRepository.finish(any(), any(), any(), any())).thenReturn(1);
+
+        jobService.runNext();
+
+        verify(importService).importMembershipUsers(ORG, HelloAssoImportService.MEMBERSHIP_FORM_SLUG);
+    }
+
+    @Test
+    @DisplayName("A failed job is recorded and retried later with its attempt count")
+    void runNext_failedJobIsRetried() {
+        HelloAssoSyncJob job = pendingJob("Form", 0);
+        when(jobRepository.findNextDueForUpdate()).thenReturn(Optional.of(job));
+        when(jobRepository.save(any(HelloAssoSyncJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobRepository.finish(any(), any(), any(), any())).thenReturn(1);
+        doThrow(new IllegalStateException("HelloAsso indisponible")).when(importService).importCampaigns(ORG);
+
+        assertTrue(jobService.runNext());
+
+        assertEquals(HelloAssoSyncJob.Status.FAILED, job.getStatus());
+        assertEquals("HelloAsso indisponible", job.getLastError());
+        verify(jobRepository).enqueue(eq(ORG), eq("Form"), eq(1), argThat(runAfter -> runAfter.isAfter(OffsetDateTime.now())));
+    }
+
+    @Test
+    @DisplayName("A job is not retried once the maximum number of attempts is reached")
+    void runNext_stopsRetryingAfterMaxAttempts() {
+        HelloAssoSyncJob job = pendingJob("Form", 2);
+        when(jobRepository.findNextDueForUpdate()).thenReturn(Optional.of(job));
+        when(jobRepository.save(any(HelloAssoSyncJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobRepository.finish(any(), any(), any(), any())).thenReturn(1);
+        doThrow(new IllegalStateException("HelloAsso indisponible")).when(importService).importCampaigns(ORG);
+
+        jobService.runNext();
+
+        assertEquals(HelloAssoSyncJob.Status.FAILED, job.getStatus());
+        assertEquals(3, job.getAttempts());
+        verify(jobRepository, never()).enqueue(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("A run whose lease was lost records nothing and is not retried")
+    void runNext_lostLeaseIsNotRecorded() {
+        HelloAssoSyncJob job = pendingJob("Form", 0);
+        when(jobRepository.findNextDueForUpdate()).thenReturn(Optional.of(job));
+        when(jobRepository.save(any(HelloAssoSyncJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobRepository.finish(any(), any(), any(), any())).thenReturn(0);
+        doThrow(new IllegalStateException("HelloAsso indisponible")).when(importService).importCampaigns(ORG);
+
+        assertTrue(jobService.runNext());
+
+        verify(jobRepository).finish(eq(job.getId()), any(), eq("FAILED"), eq("HelloAsso indisponible"));
+        verify(jobRepository, never()).enqueue(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("The heartbeat pushes the lease of a running job back")
+    void renewLease_extendsLease() {
+        HelloAssoSyncJob job = pendingJob("Payment", 0);
+        job.setLeaseExpiresAt(OffsetDateTime.now());
+        OffsetDateTime before = job.getLeaseExpiresAt();
+        when(jobRepository.renewLease(eq(job.getId()), any(), any())).thenReturn(1);
+
+        jobService.renewLease(job);
+
+        assertTrue(job.getLeaseExpiresAt().isAfter(before.plusSeconds(60)));
+        verify(jobRepository).renewLease(eq(job.getId()), any(), argThat(expiresAt -> expiresAt.isAfter(OffsetDateTime.now().plusSeconds(60))));
+    }
+
+    @Test
+    @DisplayName("Only jobs whose lease has expired are reclaimed")
+    void drain_reclaimsExpiredLeases() {
+        when(jobRepository.findNextDueForUpdate()).thenReturn(Optional.empty());
+        OffsetDateTime before = OffsetDateTime.now();
+
+        jobService.drain();
+
+        verify(jobRepository).requeueExpired(argThat(now -> !now.isBefore(before) && !now.isAfter(OffsetDateTime.now())));
+        verify(jobRepository).failExpired(argThat(now -> !now.isBefore(before) && !now.isAfter(OffsetDateTime.now())));
+    }
+
+    @Test
+    @DisplayName("Nothing runs when no job is due")
+    void runNext_returnsFalseWithoutDueJob() {
+        when(jobRepository.findNextDueForUpdate()).thenReturn(Optional.empty());
+
+        assertFalse(jobService.runNext());
+
+        verifyNoInteractions(importService);
+    }
+}
@@ -0,0 +1,129 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.config.HelloAssoProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("HelloAsso Sync Scheduler Tests")
+class HelloAssoSyncSchedulerTest {
+
+    private static final String ORG = "les-amis";
+
+    @Mock
+    private HelloAssoImportService importService;
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement statement;
+    @Mock
+    private ResultSet resultSet;
+
+    private HelloAssoSyncScheduler syncScheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        HelloAssoProperties properties = new HelloAssoProperties();
+        properties.setMembershipForms(List.of("adhesion-2024", "adhesion-2025"));
+        properties.setSyncConcurrency(2);
+        syncScheduler = new HelloAssoSyncScheduler(importService, properties, new AdvisoryLockService(dataSource));
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        lenient().when(statement.executeQuery()).thenReturn(resultSet);
+        lenient().when(resultSet.next()).thenReturn(true);
+    }
+
+    private void lockAvailable(boolean available) throws Exception {
+        when(resultSet.getBoolean(1)).thenReturn(available);
+    }
+
+    @AfterEach
+    void tearDown() {
+        syncScheduler.shutdown();
+    }
+
+    @Test
+    @DisplayName("Every form and resource type is imported, a failure does not stop the others")
+    void syncAll_runsEveryImport() throws Exception {
+        lockAvailable(true);
+        doThrow(new IllegalStateException("HelloAsso indisponible")).when(importService).importCampaigns(ORG);
+
+        int failures = syncScheduler.syncAll(ORG);
+
+        assertEquals(1, failures);
+        verify(importService).importMembershipUsers(ORG, "adhesion-2024");
+        verify(importService).importMembershipUsers(ORG, "adhesion-2025");
+        verify(importService).importPayments(ORG);
+    }
+
+    @Test
+    @DisplayName("Imports run in parallel within the concurrency limit")
+    void syncAll_respectsConcurrencyLimit() throws Exception {
+        lockAvailable(true);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(100);
+            running.decrementAndGet();
+            return null;
+        }).when(importService).importMembershipUsers(eq(ORG), anyString());
+        doAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(100);
+            running.decrementAndGet();
+            return null;
+        }).when(importService).importPayments(ORG);
+
+        assertEquals(0, syncScheduler.syncAll(ORG));
+
+        assertEquals(2, maxRunning.get());
+        verify(importService).importCampaigns(ORG);
+    }
+
+    @Test
+    @DisplayName("The organization lock is held during the run and released afterwards")
+    void syncAll_holdsOrganizationLock() throws Exception {
+        lockAvailable(true);
+
+        syncScheduler.syncAll(ORG);
+
+        var inOrder = inOrder(connection, importService);
+        inOrder.verify(connection).prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))");
+        inOrder.verify(importService).importPayments(ORG);
+        inOrder.verify(connection).prepareStatement("SELECT pg_advisory_unlock(hashtext(?))");
+        inOrder.verify(connection).close();
+        verify(statement, times(2)).setString(1, "helloasso-sync:" + ORG);
+    }
+
+    @Test
+    @DisplayName("Nothing is imported while another instance synchronises the organization")
+    void syncAll_skipsWhenLockedElsewhere() throws Exception {
+        lockAvailable(false);
+
+        assertEquals(HelloAssoSyncScheduler.ALREADY_RUNNING, syncScheduler.syncAll(ORG));
+
+        verifyNoInteractions(importService);
+        verify(connection, never()).prepareStatement("SELECT pg_advisory_unlock(hashtext(?))");
+        verify(connection).close();
+    }
+}
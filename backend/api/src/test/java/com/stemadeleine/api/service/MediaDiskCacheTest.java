@@ -0,0 +1,206 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.Media;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Tests unitaires pour MediaDiskCache")
+class MediaDiskCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final SupabaseStorageClient storageClient = mock(SupabaseStorageClient.class);
+
+    private Media media(String url) {
+        return Media.builder()
+                .id(UUID.randomUUID())
+                .fileUrl(url)
+                .updatedAt(OffsetDateTime.now())
+                .build();
+    }
+
+    private HttpResponse<InputStream> response(int size) {
+        return response(size, Map.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpResponse<InputStream> response(int size, Map<String, List<String>> headers) {
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.of(headers, (name, value) -> true));
+        when(response.body()).thenReturn(new ByteArrayInputStream(new byte[size]));
+        return response;
+    }
+
+    private MediaDiskCache cache(long maxSizeMb) {
+        MediaDiskCache cache = new MediaDiskCache(storageClient, dir.toString(), maxSizeMb, true);
+        cache.init();
+        return cache;
+    }
+
+    @Test
+    @DisplayName("Should download once and serve later reads from disk")
+    void shouldServeHitsFromDisk() throws Exception {
+        Media media = media("http://storage/a.jpg");
+        HttpResponse<InputStream> response = response(100);
+        when(storageClient.openStream("http://storage/a.jpg", null)).thenReturn(response);
+        MediaDiskCache cache = cache(1);
+
+        Path first = cache.getOrFetch(media);
+        Path second = cache.getOrFetch(media);
+
+        assertEquals(first, second);
+        assertEquals(100, Files.size(first));
+        verify(storageClient, times(1)).openStream(any(), isNull());
+    }
+
+    @Test
+    @DisplayName("Concurrent misses should trigger a single upstream download")
+    void shouldCoalesceConcurrentMisses() throws Exception {
+        Media media = media("http://storage/b.jpg");
+        CountDownLatch release = new CountDownLatch(1);
+        HttpResponse<InputStream> response = response(10);
+        when(storageClient.openStream("http://storage/b.jpg", null)).thenAnswer(invocation -> {
+            release.await();
+            return response;
+        });
+        MediaDiskCache cache = cache(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Path>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> cache.getOrFetch(media)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Path> result : results) {
+                assertTrue(Files.exists(result.get()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(storageClient, times(1)).openStream(any(), isNull());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used file when the cache is full")
+    void shouldEvictLeastRecentlyUsed() throws Exception {
+        Media first = media("http://storage/1.jpg");
+        Media second = media("http://storage/2.jpg");
+        Media third = media("http://storage/3.jpg");
+        HttpResponse<InputStream> r1 = response(400_000);
+        HttpResponse<InputStream> r2 = response(400_000);
+        HttpResponse<InputStream> r3 = response(400_000);
+        when(storageClient.openStream("http://storage/1.jpg", null)).thenReturn(r1);
+        when(storageClient.openStream("http://storage/2.jpg", null)).thenReturn(r2);
+        when(storageClient.openStream("http://storage/3.jpg", null)).thenReturn(r3);
+        MediaDiskCache cache = cache(1);
+
+        Path p1 = cache.getOrFetch(first);
+        Path p2 = cache.getOrFetch(second);
+        cache.getOrFetch(first); // 1 devient le plus récent
+        Path p3 = cache.getOrFetch(third);
+
+        assertTrue(Files.exists(p1));
+        assertFalse(Files.exists(p2));
+        assertTrue(Files.exists(p3));
+    }
+
+    @Test
+    @DisplayName("Invalidation should remove the cached file")
+    void shouldInvalidateMedia() throws Exception {
+        Media media = media("http://storage/c.jpg");
+        HttpResponse<InputStream> response = response(10);
+        when(storageClient.openStream("http://storage/c.jpg", null)).thenReturn(response);
+        MediaDiskCache cache = cache(1);
+        Path path = cache.getOrFetch(media);
+
+        cache.invalidate(media.getId());
+
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    @DisplayName("Media with the same content hash should share one cached file")
+    void shouldShareFileByContentHash() throws Exception {
+        Media original = media("http://storage/sha256/ab/abcd.jpg");
+        Media duplicate = media("http://storage/sha256/ab/abcd.jpg");
+        original.setContentHash("abcd");
+        duplicate.setContentHash("abcd");
+        HttpResponse<InputStream> response = response(10);
+        when(storageClient.openStream("http://storage/sha256/ab/abcd.jpg", null)).thenReturn(response);
+        MediaDiskCache cache = cache(1);
+
+        Path first = cache.getOrFetch(original);
+        Path second = cache.getOrFetch(duplicate);
+
+        assertEquals(first, second);
+        verify(storageClient, times(1)).openStream(any(), isNull());
+    }
+
+    @Test
+    @DisplayName("An object larger than the cache should not be stored nor evict the other entries")
+    void shouldNotStoreObjectLargerThanCache() throws Exception {
+        Media small = media("http://storage/small.jpg");
+        Media large = media("http://storage/large.mp4");
+        HttpResponse<InputStream> smallResponse = response(10);
+        HttpResponse<InputStream> largeResponse = response(1024 * 1024 + 1);
+        when(storageClient.openStream("http://storage/small.jpg", null)).thenReturn(smallResponse);
+        when(storageClient.openStream("http://storage/large.mp4", null)).thenReturn(largeResponse);
+        MediaDiskCache cache = cache(1);
+        Path kept = cache.getOrFetch(small);
+
+        assertTrue(cache.accepts(large));
+        assertThrows(IOException.class, () -> cache.getOrFetch(large));
+
+        assertTrue(Files.exists(kept));
+        assertFalse(cache.accepts(large));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(kept), files.toList());
+        }
+    }
+
+    @Test
+    @DisplayName("An object announced larger than the cache should not be downloaded to disk")
+    void shouldRejectAnnouncedOversizedObject() throws Exception {
+        Media large = media("http://storage/large.mp4");
+        HttpResponse<InputStream> response = response(10, Map.of("Content-Length", List.of(String.valueOf(2 * 1024 * 1024))));
+        when(storageClient.openStream("http://storage/large.mp4", null)).thenReturn(response);
+        MediaDiskCache cache = cache(1);
+
+        assertThrows(IOException.class, () -> cache.getOrFetch(large));
+
+        assertFalse(cache.accepts(large));
+        Media known = media("http://storage/known.mp4");
+        known.setFileSize(2 * 1024 * 1024);
+        assertFalse(cache.accepts(known));
+        verify(storageClient, never()).openStream(eq("http://storage/known.mp4"), any());
+    }
+}
@@ -0,0 +1,107 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.Media;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires pour MediaProxyService")
+class MediaProxyServiceTest {
+
+    @Mock
+    private SupabaseStorageClient storageClient;
+
+    @Mock
+    private MediaDiskCache diskCache;
+
+    @Mock
+    private MediaVariantService variantService;
+
+    @InjectMocks
+    private MediaProxyService mediaProxyService;
+
+    private Media media(OffsetDateTime updatedAt) {
+        return Media.builder()
+                .id(UUID.fromString("00000000-0000-0000-0000-000000000001"))
+                .fileUrl("http://storage/medias/photo.jpg")
+                .fileType("image/jpeg")
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    @Test
+    @DisplayName("ETag should change when the media is updated")
+    void etagShouldDependOnUpdatedAt() {
+        OffsetDateTime date = OffsetDateTime.parse("2025-01-01T10:00:00Z");
+
+        String etag = mediaProxyService.etag(media(date));
+
+        assertEquals("\"00000000-0000-0000-0000-000000000001-" + date.toInstant().toEpochMilli() + "\"", etag);
+        assertNotEquals(etag, mediaProxyService.etag(media(date.plusSeconds(1))));
+    }
+
+    @Test
+    @DisplayName("Should forward range and length headers from storage")
+    @SuppressWarnings("unchecked")
+    void shouldForwardUpstreamHeaders() throws Exception {
+        Media media = media(OffsetDateTime.now());
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        InputStream body = new ByteArrayInputStream(new byte[]{1, 2});
+        when(response.statusCode()).thenReturn(206);
+        when(response.body()).thenReturn(body);
+        when(response.headers()).thenReturn(java.net.http.HttpHeaders.of(Map.of(
+                "Content-Length", List.of("2"),
+                "Content-Range", List.of("bytes 0-1/10")
+        ), (name, value) -> true));
+        when(storageClient.openStream(media.getFileUrl(), "bytes=0-1")).thenReturn(response);
+
+        MediaProxyService.MediaStream stream = mediaProxyService.open(media, "bytes=0-1");
+
+        assertEquals(206, stream.status());
+        assertEquals("2", stream.headers().getFirst(HttpHeaders.CONTENT_LENGTH));
+        assertEquals("bytes 0-1/10", stream.headers().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals("image/jpeg", stream.headers().getFirst(HttpHeaders.CONTENT_TYPE));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.body().writeTo(out);
+        assertArrayEquals(new byte[]{1, 2}, out.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Should serve the requested range from the disk cache")
+    void shouldServeRangeFromDiskCache(@TempDir Path dir) throws Exception {
+        Media media = media(OffsetDateTime.now());
+        Path file = Files.write(dir.resolve("photo"), new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+        when(diskCache.accepts(media)).thenReturn(true);
+        when(diskCache.getOrFetch(media)).thenReturn(file);
+
+        MediaProxyService.MediaStream stream = mediaProxyService.open(media, "bytes=2-4");
+
+        assertEquals(206, stream.status());
+        assertEquals("bytes 2-4/10", stream.headers().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(3, stream.headers().getContentLength());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.body().writeTo(out);
+        assertArrayEquals(new byte[]{2, 3, 4}, out.toByteArray());
+        verifyNoInteractions(storageClient);
+    }
+}
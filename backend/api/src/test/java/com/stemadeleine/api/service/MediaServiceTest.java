@@ -2,6 +2,8 @@ package com.stemadeleine.api.service;
 
 import com.stemadeleine.api.dto.CreateMediaRequest;
 import com.stemadeleine.api.model.Media;
+import com.stemadeleine.api.model.MediaObject;
+import com.stemadeleine.api.repository.MediaObjectRepository;
 import com.stemadeleine.api.repository.MediaRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,14 +13,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("Tests unitaires pour MediaService")
@@ -27,6 +32,18 @@ class MediaServiceTest {
     @Mock
     private MediaRepository mediaRepository;
 
+    @Mock
+    private MediaObjectRepository objectRepository;
+
+    @Mock
+    private MediaDiskCache diskCache;
+
+    @Mock
+    private SupabaseStorageClient storageClient;
+
+    @Mock
+    private MediaVariantService variantService;
+
     @InjectMocks
     private MediaService mediaService;
 
@@ -151,4 +168,92 @@ class MediaServiceTest {
         // Then
         verify(mediaRepository).deleteById(testMediaId);
     }
+
+    @Test
+    @DisplayName("Devrait créer un nouveau média pointant sur le contenu déjà stocké")
+    void shouldReuseStoredObjectWithSameContentHash() throws Exception {
+        // Given
+        String hash = "ab".repeat(32);
+        testMedia.setContentHash(hash);
+        testMedia.setOwnerId(UUID.randomUUID());
+        when(objectRepository.findById(hash)).thenReturn(Optional.of(MediaObject.builder()
+                .contentHash(hash)
+                .fileUrl(testMedia.getFileUrl())
+                .build()));
+        when(mediaRepository.save(any(Media.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Media result = mediaService.finalizeUpload("uploads/1_photo.jpg", "image/jpeg", 1024, hash, "photo.jpg", "Titre", "Texte");
+
+        // Then
+        assertNotSame(testMedia, result);
+        assertEquals(testMedia.getFileUrl(), result.getFileUrl());
+        assertEquals(hash, result.getContentHash());
+        assertEquals("Titre", result.getTitle());
+        assertEquals("Texte", result.getAltText());
+        assertNull(result.getOwnerId());
+        verify(storageClient).deleteObject(any(), eq("uploads/1_photo.jpg"));
+        verify(storageClient, never()).moveObject(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Devrait stocker un nouveau contenu sous son empreinte")
+    void shouldMoveNewContentUnderItsHash() throws Exception {
+        // Given
+        String hash = "cd".repeat(32);
+        String contentKey = "sha256/cd/" + hash + ".jpg";
+        when(objectRepository.findById(hash)).thenReturn(Optional.empty());
+        when(storageClient.objectExists(any(), eq(contentKey))).thenReturn(false);
+        when(storageClient.getPublicUrl(any(), eq(contentKey))).thenReturn("https://storage/" + contentKey);
+        when(objectRepository.register(hash, "https://storage/" + contentKey)).thenReturn(1);
+        when(mediaRepository.save(any(Media.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Media result = mediaService.finalizeUpload("uploads/1_photo.jpg", "image/jpeg", 1024, hash, "Photo.JPG", "Titre", null);
+
+        // Then
+        verify(storageClient).moveObject(any(), eq("uploads/1_photo.jpg"), eq(contentKey));
+        assertEquals("https://storage/" + contentKey, result.getFileUrl());
+        assertEquals(hash, result.getContentHash());
+    }
+
+    @Test
+    @DisplayName("Devrait pointer sur l'objet enregistré par un upload concurrent du même contenu")
+    void shouldUseObjectRegisteredByConcurrentUpload() throws Exception {
+        // Given
+        String hash = "ef".repeat(32);
+        String contentKey = "sha256/ef/" + hash + ".png";
+        String registeredUrl = "https://storage/sha256/ef/" + hash + ".jpg";
+        when(objectRepository.findById(hash)).thenReturn(Optional.empty(), Optional.of(MediaObject.builder()
+                .contentHash(hash)
+                .fileUrl(registeredUrl)
+                .build()));
+        when(storageClient.objectExists(any(), eq(contentKey))).thenReturn(false);
+        when(storageClient.getPublicUrl(any(), eq(contentKey))).thenReturn("https://storage/" + contentKey);
+        when(objectRepository.register(hash, "https://storage/" + contentKey)).thenReturn(0);
+        when(mediaRepository.save(any(Media.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Media result = mediaService.finalizeUpload("uploads/1_photo.png", "image/png", 1024, hash, "photo.png", "Titre", null);
+
+        // Then
+        assertEquals(registeredUrl, result.getFileUrl());
+        verify(storageClient).deleteObject(any(), eq(contentKey));
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un upload dont le contenu ne correspond pas à l'empreinte annoncée")
+    void shouldRejectUploadNotMatchingAnnouncedHash() throws Exception {
+        // Given
+        doAnswer(invocation -> invocation.<InputStream>getArgument(2).readAllBytes())
+                .when(storageClient).uploadStream(any(), any(), any(), anyLong(), any());
+
+        // When / Then
+        IOException exception = assertThrows(IOException.class, () -> mediaService.uploadMediaStream(
+                new ByteArrayInputStream(new byte[]{1, 2, 3}), 3, "image/jpeg", "photo.jpg", "Titre", null, "ab".repeat(32)));
+        assertTrue(exception.getMessage().startsWith("Empreinte reçue"));
+        verify(storageClient).deleteObject(any(), startsWith("uploads/"));
+        verify(mediaRepository, never()).save(any());
+        verifyNoInteractions(objectRepository);
+    }
 }
@@ -0,0 +1,158 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.Media;
+import com.stemadeleine.api.model.MediaUploadSession;
+import com.stemadeleine.api.repository.MediaUploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires pour MediaUploadSessionService")
+class MediaUploadSessionServiceTest {
+
+    private static final String UPLOAD_URL = "http://storage/upload/resumable/abc";
+
+    @Mock
+    private MediaService mediaService;
+
+    @Mock
+    private SupabaseStorageClient storageClient;
+
+    @Mock
+    private MediaUploadSessionRepository sessionRepository;
+
+    @InjectMocks
+    private MediaUploadSessionService uploadSessionService;
+
+    // Table media_upload_sessions simulée
+    private final Map<UUID, MediaUploadSession> records = new HashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        lenient().when(sessionRepository.save(any(MediaUploadSession.class))).thenAnswer(invocation -> {
+            MediaUploadSession record = invocation.getArgument(0);
+            records.put(record.getId(), record);
+            return record;
+        });
+        lenient().when(sessionRepository.findById(any(UUID.class)))
+                .thenAnswer(invocation -> Optional.ofNullable(records.get(invocation.<UUID>getArgument(0))));
+        lenient().when(mediaService.buildStorageKey("photo.jpg")).thenReturn("1_photo.jpg");
+        lenient().when(mediaService.getBucket()).thenReturn("medias-dev");
+        lenient().when(storageClient.createResumableUpload("medias-dev", "1_photo.jpg", 6, "image/jpeg")).thenReturn(UPLOAD_URL);
+    }
+
+    // Simule le serveur TUS : consomme le segment et renvoie le nouvel offset
+    private void acceptChunks() throws Exception {
+        when(storageClient.appendResumableUpload(eq(UPLOAD_URL), anyLong(), any(InputStream.class), anyLong()))
+                .thenAnswer(invocation -> {
+                    long offset = invocation.getArgument(1);
+                    InputStream in = invocation.getArgument(2);
+                    return offset + in.readAllBytes().length;
+                });
+    }
+
+    @Test
+    @DisplayName("Should create the media with the hash of all chunks once the last chunk is received")
+    void shouldCompleteUploadAcrossChunks() throws Exception {
+        acceptChunks();
+        Media media = Media.builder().build();
+        String expectedHash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(new byte[]{1, 2, 3, 4, 5, 6}));
+        when(mediaService.finalizeUpload("1_photo.jpg", "image/jpeg", 6, expectedHash, "photo.jpg", "Titre", null)).thenReturn(media);
+
+        MediaUploadSessionService.UploadSession session = uploadSessionService.start("photo.jpg", 6, "image/jpeg", "Titre", null);
+        uploadSessionService.append(session.getUploadId(), 0, new ByteArrayInputStream(new byte[]{1, 2, 3}), 3);
+        assertNull(session.getMedia());
+        uploadSessionService.append(session.getUploadId(), 3, new ByteArrayInputStream(new byte[]{4, 5, 6}), 3);
+
+        assertEquals(6, session.getOffset());
+        assertSame(media, session.getMedia());
+    }
+
+    @Test
+    @DisplayName("Should reject a chunk that does not start at the current offset")
+    void shouldRejectOffsetMismatch() throws Exception {
+        MediaUploadSessionService.UploadSession session = uploadSessionService.start("photo.jpg", 6, "image/jpeg", null, null);
+
+        MediaUploadSessionService.OffsetMismatchException exception = assertThrows(
+                MediaUploadSessionService.OffsetMismatchException.class,
+                () -> uploadSessionService.append(session.getUploadId(), 3, new ByteArrayInputStream(new byte[]{4, 5, 6}), 3));
+
+        assertEquals(0, exception.getExpectedOffset());
+        verify(storageClient, never()).appendResumableUpload(any(), anyLong(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should persist the offset of each chunk")
+    void shouldPersistOffset() throws Exception {
+        acceptChunks();
+
+        MediaUploadSessionService.UploadSession session = uploadSessionService.start("photo.jpg", 6, "image/jpeg", null, null);
+        uploadSessionService.append(session.getUploadId(), 0, new ByteArrayInputStream(new byte[]{1, 2, 3}), 3);
+
+        MediaUploadSession record = records.get(session.getUploadId());
+        assertEquals(UPLOAD_URL, record.getUploadUrl());
+        assertEquals(3, record.getUploadOffset());
+        assertNull(record.getMediaId());
+    }
+
+    @Test
+    @DisplayName("Should resume a persisted session after a restart, without fingerprint")
+    void shouldResumePersistedSession() throws Exception {
+        acceptChunks();
+        UUID uploadId = UUID.randomUUID();
+        records.put(uploadId, MediaUploadSession.builder()
+                .id(uploadId)
+                .uploadUrl(UPLOAD_URL)
+                .storageKey("1_photo.jpg")
+                .fileName("photo.jpg")
+                .size(6)
+                .contentType("image/jpeg")
+                .title("Titre")
+                .uploadOffset(3)
+                .createdAt(OffsetDateTime.now())
+                .lastActivity(OffsetDateTime.now())
+                .build());
+        Media media = Media.builder().id(UUID.randomUUID()).build();
+        when(mediaService.finalizeUpload("1_photo.jpg", "image/jpeg", 6, null, "photo.jpg", "Titre", null)).thenReturn(media);
+
+        assertEquals(3, uploadSessionService.find(uploadId).orElseThrow().getOffset());
+        MediaUploadSessionService.UploadSession session =
+                uploadSessionService.append(uploadId, 3, new ByteArrayInputStream(new byte[]{4, 5, 6}), 3);
+
+        assertSame(media, session.getMedia());
+        assertEquals(6, records.get(uploadId).getUploadOffset());
+        assertEquals(media.getId(), records.get(uploadId).getMediaId());
+    }
+
+    @Test
+    @DisplayName("Should include skipped bytes in the fingerprint")
+    void shouldHashSkippedBytes() throws Exception {
+        HashingInputStream hashing = new HashingInputStream(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6}), MediaService.sha256());
+
+        assertEquals(4, hashing.skip(4));
+        hashing.readAllBytes();
+
+        assertEquals(6, hashing.getCount());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(new byte[]{1, 2, 3, 4, 5, 6})),
+                HashingInputStream.hex(hashing.getDigest()));
+    }
+}
@@ -0,0 +1,169 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.Media;
+import com.stemadeleine.api.model.MediaVariant;
+import com.stemadeleine.api.repository.MediaRepository;
+import com.stemadeleine.api.repository.MediaVariantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Tests unitaires pour MediaVariantService")
+class MediaVariantServiceTest {
+
+    private final MediaRepository mediaRepository = mock(MediaRepository.class);
+    private final MediaVariantRepository variantRepository = mock(MediaVariantRepository.class);
+    private final SupabaseStorageClient storageClient = mock(SupabaseStorageClient.class);
+    private final MediaDiskCache diskCache = mock(MediaDiskCache.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private MediaVariantService variantService;
+    private Media media;
+
+    @BeforeEach
+    void setUp() {
+        variantService = new MediaVariantService(mediaRepository, variantRepository, storageClient, diskCache,
+                transactionManager, List.of(320, 640, 1024, 1600), 1, 10, Duration.ofHours(24));
+        media = Media.builder()
+                .id(UUID.randomUUID())
+                .fileUrl("http://storage/photo.jpg")
+                .fileType("image/jpeg")
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        variantService.shutdown();
+    }
+
+    private MediaVariant variant(int width, String format) {
+        return MediaVariant.builder().id(UUID.randomUUID()).mediaId(media.getId()).width(width).format(format).build();
+    }
+
+    @Test
+    @DisplayName("Should pick the smallest variant wide enough, WebP first when accepted")
+    void shouldFindClosestVariant() {
+        MediaVariant jpg640 = variant(640, "jpg");
+        MediaVariant webp640 = variant(640, "webp");
+        MediaVariant jpg1024 = variant(1024, "jpg");
+        when(variantRepository.findByMediaIdOrderByWidthAsc(media.getId())).thenReturn(List.of(jpg640, webp640, jpg1024));
+
+        assertEquals(Optional.of(jpg640), variantService.findClosest(media, 500, false));
+        assertEquals(Optional.of(webp640), variantService.findClosest(media, 500, true));
+        assertEquals(Optional.of(jpg1024), variantService.findClosest(media, 800, true));
+        assertTrue(variantService.findClosest(media, 2000, true).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not resize non bitmap media")
+    void shouldIgnoreNonResizableMedia() {
+        media.setFileType("application/pdf");
+
+        assertTrue(variantService.findClosest(media, 320, true).isEmpty());
+        verifyNoInteractions(variantRepository);
+    }
+
+    @Test
+    @DisplayName("Should generate one variant per width smaller than the original")
+    @SuppressWarnings("unchecked")
+    void shouldGenerateVariants() throws Exception {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(1200, 800, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.body()).thenReturn(new ByteArrayInputStream(jpeg.toByteArray()));
+        when(mediaRepository.findById(media.getId())).thenReturn(Optional.of(media));
+        when(variantRepository.existsByMediaId(media.getId())).thenReturn(false);
+        when(storageClient.openStream(media.getFileUrl(), null)).thenReturn(response);
+        when(storageClient.getPublicUrl(any(), anyString())).thenAnswer(invocation -> "http://storage/" + invocation.getArgument(1));
+
+        variantService.generate(media.getId());
+
+        ArgumentCaptor<List<MediaVariant>> captor = ArgumentCaptor.forClass(List.class);
+        verify(variantRepository).saveAll(captor.capture());
+        List<Integer> widths = captor.getValue().stream()
+                .filter(v -> "jpg".equals(v.getFormat()))
+                .map(MediaVariant::getWidth)
+                .toList();
+        assertEquals(List.of(320, 640, 1024), widths);
+        MediaVariant first = captor.getValue().get(0);
+        assertEquals(213, first.getHeight());
+        assertEquals("image/jpeg", first.getContentType());
+    }
+
+    @Test
+    @DisplayName("Should not queue a new generation for an image recently attempted without variant")
+    void shouldSkipRecentlyAttemptedMedia() throws Exception {
+        media.setVariantsAttemptedAt(OffsetDateTime.now().minusMinutes(5));
+        when(variantRepository.findByMediaIdOrderByWidthAsc(media.getId())).thenReturn(List.of());
+
+        assertTrue(variantService.findClosest(media, 320, true).isEmpty());
+
+        verify(storageClient, never()).openStream(any(), any());
+        verify(mediaRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should record the attempt of an image narrower than every width")
+    @SuppressWarnings("unchecked")
+    void shouldRecordAttemptWithoutVariant() throws Exception {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.body()).thenReturn(new ByteArrayInputStream(jpeg.toByteArray()));
+        when(mediaRepository.findById(media.getId())).thenReturn(Optional.of(media));
+        when(storageClient.openStream(media.getFileUrl(), null)).thenReturn(response);
+
+        variantService.generate(media.getId());
+
+        verify(mediaRepository).updateVariantsAttemptedAt(eq(media.getId()), notNull());
+        verify(variantRepository).saveAll(List.of());
+    }
+
+    @Test
+    @DisplayName("Should share the variants of duplicates through the content hash")
+    @SuppressWarnings("unchecked")
+    void shouldShareVariantsByContentHash() throws Exception {
+        media.setContentHash("abcd");
+        MediaVariant shared = variant(640, "jpg");
+        when(variantRepository.findByContentHashOrderByWidthAsc("abcd")).thenReturn(List.of(shared));
+
+        assertEquals(Optional.of(shared), variantService.findClosest(media, 500, false));
+
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.body()).thenReturn(new ByteArrayInputStream(jpeg.toByteArray()));
+        when(mediaRepository.findById(media.getId())).thenReturn(Optional.of(media));
+        when(storageClient.openStream(media.getFileUrl(), null)).thenReturn(response);
+
+        variantService.generate(media.getId());
+
+        verify(storageClient).uploadFile(any(), eq("variants/sha256-abcd/320.jpg"), any(), anyLong(), eq("image/jpeg"));
+        ArgumentCaptor<List<MediaVariant>> captor = ArgumentCaptor.forClass(List.class);
+        verify(variantRepository).saveAll(captor.capture());
+        assertEquals("abcd", captor.getValue().get(0).getContentHash());
+        verify(variantRepository, never()).findByMediaIdOrderByWidthAsc(any());
+    }
+}
@@ -0,0 +1,125 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.dto.ContentDto;
+import com.stemadeleine.api.dto.PageRenderDto;
+import com.stemadeleine.api.mapper.ContentMapper;
+import com.stemadeleine.api.mapper.MediaMapper;
+import com.stemadeleine.api.mapper.ModuleMapper;
+import com.stemadeleine.api.model.*;
+import com.stemadeleine.api.repository.ContentRepository;
+import com.stemadeleine.api.repository.ModuleRepository;
+import com.stemadeleine.api.repository.SectionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires pour PageRenderService")
+class PageRenderServiceTest {
+
+    @Mock
+    private PageService pageService;
+
+    @Mock
+    private SectionRepository sectionRepository;
+
+    @Mock
+    private ModuleRepository moduleRepository;
+
+    @Mock
+    private ContentRepository contentRepository;
+
+    @Mock
+    private ModuleMapper moduleMapper;
+
+    @Mock
+    private ContentMapper contentMapper;
+
+    @Mock
+    private MediaMapper mediaMapper;
+
+    @InjectMocks
+    private PageRenderService pageRenderService;
+
+    private Page page;
+
+    @BeforeEach
+    void setUp() {
+        page = Page.builder()
+                .id(UUID.randomUUID())
+                .pageId(UUID.randomUUID())
+                .name("Accueil")
+                .title("Accueil")
+                .slug("accueil")
+                .status(PublishingStatus.PUBLISHED)
+                .isVisible(true)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should return empty when the page does not exist")
+    void shouldReturnEmptyWhenPageNotFound() {
+        when(pageService.findBySlugAndVisible("inconnue", true)).thenReturn(Optional.empty());
+
+        assertTrue(pageRenderService.renderBySlug("inconnue").isEmpty());
+        verifyNoInteractions(sectionRepository, moduleRepository, contentRepository);
+    }
+
+    @Test
+    @DisplayName("Should load sections contents with a single batched query")
+    void shouldRenderPageWithBatchedContents() {
+        Section visible = Section.builder()
+                .id(UUID.randomUUID())
+                .sectionId(UUID.randomUUID())
+                .name("Intro")
+                .sortOrder(1)
+                .isVisible(true)
+                .status(PublishingStatus.PUBLISHED)
+                .build();
+        Section draft = Section.builder()
+                .id(UUID.randomUUID())
+                .sectionId(UUID.randomUUID())
+                .sortOrder(2)
+                .isVisible(true)
+                .status(PublishingStatus.DRAFT)
+                .build();
+        Content content = Content.builder()
+                .id(UUID.randomUUID())
+                .contentId(UUID.randomUUID())
+                .ownerId(visible.getSectionId())
+                .status(PublishingStatus.PUBLISHED)
+                .isVisible(true)
+                .build();
+        ContentDto contentDto = new ContentDto(content.getId(), content.getContentId(), content.getOwnerId(), 1,
+                PublishingStatus.PUBLISHED, null, null, 1, true, null, null, null, List.of());
+
+        when(pageService.findBySlugAndVisible("accueil", true)).thenReturn(Optional.of(page));
+        when(sectionRepository.findLastVersionsByPageId(page.getId())).thenReturn(List.of(visible, draft));
+        when(moduleRepository.findPublishedVisibleBySectionIds(List.of(visible.getId()), PublishingStatus.PUBLISHED))
+                .thenReturn(List.of());
+        when(contentRepository.findLatestContentsByOwnerIdsAndStatus(any(), eq(PublishingStatus.PUBLISHED)))
+                .thenReturn(List.of(content));
+        when(contentMapper.toDto(content)).thenReturn(contentDto);
+
+        Optional<PageRenderDto> result = pageRenderService.renderBySlug("accueil");
+
+        assertTrue(result.isPresent());
+        assertEquals(page.getPageId(), result.get().pageId());
+        assertEquals(1, result.get().sections().size());
+        assertEquals(List.of(contentDto), result.get().sections().get(0).contents());
+        assertTrue(result.get().moduleContents().isEmpty());
+        verify(contentRepository, times(1)).findLatestContentsByOwnerIdsAndStatus(any(), any());
+    }
+}
@@ -12,8 +12,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -37,6 +39,12 @@ class PageServiceTest {
     @Mock
     private SectionService sectionService;
 
+    @Mock
+    private PageSlugIndex slugIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PageService pageService;
 
@@ -167,6 +175,85 @@ class PageServiceTest {
         verify(pageRepository).findBySlug(slug);
     }
 
+    @Test
+    @DisplayName("Devrait résoudre une page publique par slug via l'index")
+    void shouldResolvePublicPageBySlugFromIndex() {
+        // Given
+        when(slugIndex.get("test-page")).thenReturn(Optional.of(testPage.getId()));
+        when(pageRepository.findById(testPage.getId())).thenReturn(Optional.of(testPage));
+
+        // When
+        Optional<Page> result = pageService.findBySlugAndVisible("test-page", true);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(testPage.getId(), result.get().getId());
+        verify(pageRepository, never()).findAll();
+        verify(pageRepository, never()).findTopBySlugAndStatusAndIsVisibleOrderByVersionDesc(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Devrait interroger la base et alimenter l'index quand le slug est absent de l'index")
+    void shouldQueryAndIndexPublicPageBySlugOnMiss() {
+        // Given
+        when(slugIndex.get("test-page")).thenReturn(Optional.empty());
+        when(pageRepository.findTopBySlugAndStatusAndIsVisibleOrderByVersionDesc("test-page", PublishingStatus.PUBLISHED, true))
+                .thenReturn(Optional.of(testPage));
+
+        // When
+        Optional<Page> result = pageService.findBySlugAndVisible("test-page", true);
+
+        // Then
+        assertTrue(result.isPresent());
+        verify(slugIndex).put(testPage);
+        verify(pageRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Devrait notifier le changement de page lors de la suppression")
+    void shouldPublishPagesChangedOnDelete() {
+        // Given
+        when(pageRepository.findTopByPageIdOrderByVersionDesc(testPageId)).thenReturn(Optional.of(testPage));
+
+        // When
+        pageService.delete(testPageId);
+
+        // Then
+        verify(eventPublisher).publishEvent(new PagesChangedEvent(testPageId));
+    }
+
+    @Test
+    @DisplayName("Devrait construire l'arbre de navigation public sans modifier les entités")
+    void shouldBuildVisiblePagesTree() {
+        // Given
+        Page child = Page.builder()
+                .id(UUID.randomUUID())
+                .pageId(UUID.randomUUID())
+                .name("Child")
+                .title("Child")
+                .slug("test-page/child")
+                .version(1)
+                .status(PublishingStatus.PUBLISHED)
+                .isVisible(true)
+                .sortOrder(1)
+                .parentPage(testPage)
+                .build();
+        when(pageRepository.findLatestVersionsByStatusAndVisible(PublishingStatus.PUBLISHED, true))
+                .thenReturn(List.of(child, testPage));
+
+        // When
+        List<PageDto> tree = pageService.buildVisiblePagesTree();
+
+        // Then
+        assertEquals(1, tree.size());
+        assertEquals(testPageId, tree.get(0).pageId());
+        assertEquals(1, tree.get(0).children().size());
+        assertEquals(child.getPageId(), tree.get(0).children().get(0).pageId());
+        assertThrows(UnsupportedOperationException.class, () -> tree.get(0).children().clear());
+        assertNull(testPage.getChildren());
+        verify(pageRepository, never()).findAll();
+    }
+
     @Test
     @DisplayName("Devrait retourner la dernière version d'une page")
     void shouldReturnLastVersionOfPage() {
@@ -346,7 +433,10 @@ class PageServiceTest {
         assertNotNull(result);
         assertEquals(newVisibility, result.getIsVisible());
         assertEquals(2, result.getVersion());
-        verify(pageRepository).save(any(Page.class));
+        // L'événement suit l'écriture : les caches ne relisent pas l'état précédent
+        InOrder inOrder = inOrder(pageRepository, eventPublisher);
+        inOrder.verify(pageRepository).save(any(Page.class));
+        inOrder.verify(eventPublisher).publishEvent(new PagesChangedEvent(testPageId));
     }
 
     @Test
@@ -0,0 +1,125 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.dto.PaymentStatsSeriesDto;
+import com.stemadeleine.api.exception.BadRequestException;
+import com.stemadeleine.api.model.PaymentStatsMonthly;
+import com.stemadeleine.api.model.PaymentStatsTotal;
+import com.stemadeleine.api.model.PaymentStatus;
+import com.stemadeleine.api.model.PaymentType;
+import com.stemadeleine.api.repository.PaymentRepository;
+import com.stemadeleine.api.repository.PaymentStatsMonthlyRepository;
+import com.stemadeleine.api.repository.PaymentStatsTotalRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Payment Stats Service Tests")
+class PaymentStatsServiceTest {
+
+    @Mock
+    private PaymentStatsMonthlyRepository monthlyRepository;
+    @Mock
+    private PaymentStatsTotalRepository totalRepository;
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @InjectMocks
+    private PaymentStatsService paymentStatsService;
+
+    private PaymentStatsMonthly month(int month, double amount) {
+        return PaymentStatsMonthly.builder()
+                .id(new PaymentStatsMonthly.PaymentStatsMonthlyId(2025, month, PaymentType.DONATION))
+                .totalAmount(amount)
+                .paymentCount(1L)
+                .donorCount(1)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Monthly rollup rows are laid out from January to December")
+    void getMonthlyAmounts_mapsRowsToMonths() {
+        when(monthlyRepository.findByIdPaymentTypeAndIdYear(PaymentType.DONATION, 2025))
+                .thenReturn(List.of(month(1, 50.0), month(12, 20.5)));
+
+        double[] monthly = paymentStatsService.getMonthlyAmounts(PaymentType.DONATION, 2025);
+
+        assertEquals(12, monthly.length);
+        assertEquals(50.0, monthly[0]);
+        assertEquals(0.0, monthly[5]);
+        assertEquals(20.5, monthly[11]);
+    }
+
+    @Test
+    @DisplayName("A payment type without payments has zero totals")
+    void getTotals_defaultsToZero() {
+        when(totalRepository.findById(PaymentType.EVENT)).thenReturn(Optional.empty());
+
+        PaymentStatsTotal totals = paymentStatsService.getTotals(PaymentType.EVENT);
+
+        assertEquals(0.0, totals.getTotalAmount());
+        assertEquals(0, totals.getDonorCount());
+    }
+
+    @Test
+    @DisplayName("Rebuild delegates to the database procedure")
+    void rebuild_callsProcedure() {
+        paymentStatsService.rebuild();
+
+        verify(totalRepository).rebuild();
+    }
+
+    @Test
+    @DisplayName("Every series is laid out on the buckets of the range from a single grouped query")
+    void getSeries_buildsParallelArrays() {
+        when(paymentRepository.sumSeries(eq("month"), eq(LocalDate.of(2025, 1, 15)), eq(LocalDate.of(2025, 3, 10)),
+                eq(List.of("DONATION")), argThat(statuses -> statuses.size() == PaymentStatus.values().length)))
+                .thenReturn(List.<Object[]>of(
+                        new Object[]{java.sql.Date.valueOf("2025-01-01"), "DONATION", null, 1, 50.0, 2L},
+                        new Object[]{java.sql.Date.valueOf("2025-03-01"), null, "PAID", 2, 30.0, 1L},
+                        new Object[]{java.sql.Date.valueOf("2025-01-01"), null, null, 3, 50.0, 2L}));
+
+        PaymentStatsSeriesDto result = paymentStatsService.getSeries(LocalDate.of(2025, 1, 15), LocalDate.of(2025, 3, 10),
+                PaymentStatsService.Granularity.MONTH, List.of(PaymentType.DONATION), null);
+
+        assertEquals(List.of(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 1)), result.buckets());
+        assertEquals(1 + PaymentStatus.values().length + 1, result.series().size());
+        PaymentStatsSeriesDto.Series donations = result.series().get(0);
+        assertEquals("type", donations.dimension());
+        assertArrayEquals(new double[]{50.0, 0.0, 0.0}, donations.amounts());
+        assertArrayEquals(new long[]{2, 0, 0}, donations.counts());
+        PaymentStatsSeriesDto.Series paid = result.series().stream().filter(series -> series.key().equals("PAID")).findFirst().orElseThrow();
+        assertArrayEquals(new long[]{0, 0, 1}, paid.counts());
+        PaymentStatsSeriesDto.Series total = result.series().get(result.series().size() - 1);
+        assertEquals("total", total.dimension());
+        assertArrayEquals(new double[]{50.0, 0.0, 0.0}, total.amounts());
+    }
+
+    @Test
+    @DisplayName("Weekly buckets start on Monday")
+    void granularity_truncatesWeeksToMonday() {
+        assertEquals(LocalDate.of(2025, 6, 2), PaymentStatsService.Granularity.WEEK.truncate(LocalDate.of(2025, 6, 8)));
+        assertEquals(PaymentStatsService.Granularity.MONTH, PaymentStatsService.Granularity.parse(null));
+        assertThrows(BadRequestException.class, () -> PaymentStatsService.Granularity.parse("quarter"));
+    }
+
+    @Test
+    @DisplayName("Too many buckets are refused before querying the database")
+    void getSeries_rejectsTooManyBuckets() {
+        assertThrows(BadRequestException.class, () -> paymentStatsService.getSeries(LocalDate.of(2000, 1, 1), LocalDate.of(2025, 1, 1),
+                PaymentStatsService.Granularity.DAY, null, null));
+
+        verifyNoInteractions(paymentRepository);
+    }
+}
@@ -0,0 +1,57 @@
+package com.stemadeleine.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Public Page Tree Cache Tests")
+class PublicPageTreeCacheTest {
+
+    @Mock
+    private PageService pageService;
+
+    private PublicPageTreeCache treeCache;
+
+    @BeforeEach
+    void setUp() {
+        treeCache = new PublicPageTreeCache(pageService);
+        when(pageService.buildVisiblePagesTree()).thenReturn(List.of());
+    }
+
+    @Test
+    @DisplayName("The tree is reused while the pages are unchanged")
+    void get_reusesSnapshotWhilePagesUnchanged() {
+        OffsetDateTime updatedAt = OffsetDateTime.now();
+        when(pageService.getLastUpdatedAt()).thenReturn(Optional.of(updatedAt));
+
+        PublicPageTreeCache.Snapshot first = treeCache.get();
+
+        assertSame(first, treeCache.get());
+        verify(pageService, times(1)).buildVisiblePagesTree();
+    }
+
+    @Test
+    @DisplayName("The tree is rebuilt once the pages were modified, whichever instance modified them")
+    void get_rebuildsWhenPagesUpdated() {
+        OffsetDateTime updatedAt = OffsetDateTime.now();
+        when(pageService.getLastUpdatedAt()).thenReturn(Optional.of(updatedAt), Optional.of(updatedAt.plusSeconds(1)));
+
+        PublicPageTreeCache.Snapshot first = treeCache.get();
+        PublicPageTreeCache.Snapshot second = treeCache.get();
+
+        assertNotSame(first, second);
+        assertEquals(first.etag(), second.etag());
+        verify(pageService, times(2)).buildVisiblePagesTree();
+    }
+}
@@ -0,0 +1,143 @@
+package com.stemadeleine.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stemadeleine.api.dto.PublicSearchResultsDto;
+import com.stemadeleine.api.model.*;
+import com.stemadeleine.api.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires pour PublicSearchService")
+class PublicSearchServiceTest {
+
+    @Mock
+    private PublicSearchDocumentRepository documentRepository;
+    @Mock
+    private PageService pageService;
+    @Mock
+    private PageRepository pageRepository;
+    @Mock
+    private SectionRepository sectionRepository;
+    @Mock
+    private ModuleRepository moduleRepository;
+    @Mock
+    private ContentRepository contentRepository;
+
+    @InjectMocks
+    private PublicSearchService searchService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Page page;
+
+    @BeforeEach
+    void setUp() {
+        page = Page.builder()
+                .id(UUID.randomUUID())
+                .pageId(UUID.randomUUID())
+                .version(2)
+                .slug("patrimoine")
+                .title("Patrimoine")
+                .description("Histoire de l'église")
+                .status(PublishingStatus.PUBLISHED)
+                .isVisible(true)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should extract the visible text of a content body")
+    void shouldExtractTextFromContentBody() throws Exception {
+        var body = objectMapper.readTree("""
+                {"html": "<p>La <strong>restauration</strong> de l&eacute;glise</p><script>alert(1)</script>",
+                 "items": [{"label": "Vitraux", "url": "https://example.org/a.jpg"}],
+                 "variant": "centered"}
+                """);
+
+        assertEquals("La restauration de léglise Vitraux", PublicSearchService.extractText(body));
+        assertEquals("", PublicSearchService.extractText(null));
+    }
+
+    @Test
+    @DisplayName("Should build page, section and article documents from published contents")
+    void shouldBuildDocumentsForPublishedPage() throws Exception {
+        Section section = Section.builder().id(UUID.randomUUID()).sectionId(UUID.randomUUID()).page(page)
+                .title("Les travaux").status(PublishingStatus.PUBLISHED).isVisible(true).build();
+        Article article = Article.builder().id(UUID.randomUUID()).moduleId(UUID.randomUUID()).section(section)
+                .title("Chantier 2024").name("chantier").type("ARTICLE").build();
+        Content sectionContent = Content.builder().ownerId(section.getSectionId()).isVisible(true)
+                .body(objectMapper.readTree("{\"html\": \"<p>Toiture refaite</p>\"}")).build();
+        Content articleContent = Content.builder().ownerId(article.getModuleId()).isVisible(true)
+                .body(objectMapper.readTree("{\"html\": \"<p>Échafaudages posés</p>\"}")).build();
+        when(sectionRepository.findLastVersionsByPageId(page.getId())).thenReturn(List.of(section));
+        when(moduleRepository.findPublishedVisibleBySectionIds(List.of(section.getId()), PublishingStatus.PUBLISHED))
+                .thenReturn(List.of(article));
+        when(contentRepository.findLatestContentsByOwnerIdsAndStatus(anyCollection(), eq(PublishingStatus.PUBLISHED)))
+                .thenReturn(List.of(sectionContent, articleContent));
+
+        List<PublicSearchDocument> documents = searchService.buildDocuments(page);
+
+        assertEquals(3, documents.size());
+        assertEquals(PublicSearchDocument.PAGE, documents.get(0).getSourceType());
+        assertEquals("Histoire de l'église", documents.get(0).getBody());
+        assertEquals(PublicSearchDocument.ARTICLE, documents.get(1).getSourceType());
+        assertEquals(article.getModuleId(), documents.get(1).getSourceId());
+        assertEquals("Échafaudages posés", documents.get(1).getBody());
+        assertEquals(PublicSearchDocument.SECTION, documents.get(2).getSourceType());
+        assertEquals("Toiture refaite", documents.get(2).getBody());
+        assertTrue(documents.stream().allMatch(document -> "patrimoine".equals(document.getSlug())
+                && page.getPageId().equals(document.getPageId())));
+    }
+
+    @Test
+    @DisplayName("Should only remove the documents of a page that is no longer published")
+    void shouldRemoveDocumentsOfUnpublishedPage() {
+        page.setStatus(PublishingStatus.DELETED);
+        when(pageService.getLastVersion(page.getPageId())).thenReturn(Optional.of(page));
+
+        searchService.reindexPage(page.getPageId());
+
+        verify(documentRepository).deleteByPageId(page.getPageId());
+        verify(documentRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Should page results and escape snippets around highlights")
+    void shouldReturnPagedResultsWithEscapedSnippets() {
+        UUID sourceId = UUID.randomUUID();
+        when(documentRepository.countMatches("eglise")).thenReturn(12L);
+        when(documentRepository.search(eq("eglise"), anyString(), eq(5), eq(10L))).thenReturn(List.<Object[]>of(
+                new Object[]{"SECTION", sourceId, page.getPageId(), "patrimoine", "Les travaux",
+                        "L'\u0002église\u0003 <b>Sainte</b>", 0.42f}));
+
+        PublicSearchResultsDto results = searchService.search(" eglise ", 2, 5);
+
+        assertEquals(12, results.totalElements());
+        assertEquals(3, results.totalPages());
+        assertEquals(1, results.results().size());
+        assertEquals("L&#39;<mark>église</mark> &lt;b&gt;Sainte&lt;/b&gt;", results.results().get(0).snippet());
+        assertEquals(0.42, results.results().get(0).rank(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Should not query the database for a blank query")
+    void shouldIgnoreBlankQuery() {
+        PublicSearchResultsDto results = searchService.search("  ", 0, 500);
+
+        assertEquals(0, results.totalElements());
+        assertEquals(PublicSearchService.MAX_PAGE_SIZE, results.size());
+        verifyNoInteractions(documentRepository);
+    }
+}
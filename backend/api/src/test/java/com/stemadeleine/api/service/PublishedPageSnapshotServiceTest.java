@@ -0,0 +1,146 @@
+package com.stemadeleine.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stemadeleine.api.dto.PageRenderDto;
+import com.stemadeleine.api.model.Page;
+import com.stemadeleine.api.model.PublishedPageSnapshot;
+import com.stemadeleine.api.model.PublishingStatus;
+import com.stemadeleine.api.repository.PublishedPageSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitaires pour PublishedPageSnapshotService")
+class PublishedPageSnapshotServiceTest {
+
+    @Mock
+    private PublishedPageSnapshotRepository snapshotRepository;
+
+    @Mock
+    private PageService pageService;
+
+    @Mock
+    private PageRenderService pageRenderService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private PublishedPageSnapshotService snapshotService;
+
+    private Page page;
+
+    @BeforeEach
+    void setUp() {
+        page = Page.builder()
+                .id(UUID.randomUUID())
+                .pageId(UUID.randomUUID())
+                .version(3)
+                .slug("accueil")
+                .title("Accueil")
+                .status(PublishingStatus.PUBLISHED)
+                .isVisible(true)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should write the snapshot of a published and visible page")
+    void shouldWriteSnapshotOnRefresh() {
+        PageRenderDto render = new PageRenderDto(page.getId(), page.getPageId(), null, "Accueil", null, "accueil",
+                null, null, List.of(), Map.of());
+        when(pageService.getLastVersion(page.getPageId())).thenReturn(Optional.of(page));
+        when(pageService.getPublishedPage(page.getPageId())).thenReturn(Optional.of(page));
+        when(pageRenderService.renderPage(page)).thenReturn(render);
+        when(snapshotRepository.findById(page.getPageId())).thenReturn(Optional.empty());
+        when(snapshotRepository.save(any(PublishedPageSnapshot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        snapshotService.refresh(page.getPageId());
+
+        ArgumentCaptor<PublishedPageSnapshot> captor = ArgumentCaptor.forClass(PublishedPageSnapshot.class);
+        verify(snapshotRepository).save(captor.capture());
+        assertEquals("accueil", captor.getValue().getSlug());
+        assertEquals(3, captor.getValue().getPageVersion());
+        assertEquals("Accueil", captor.getValue().getPayload().get("title").asText());
+        verify(snapshotRepository).deleteBySlugAndPageIdNot("accueil", page.getPageId());
+    }
+
+    @Test
+    @DisplayName("Should remove the snapshot of a deleted page")
+    void shouldRemoveSnapshotOfDeletedPage() {
+        page.setStatus(PublishingStatus.DELETED);
+        when(pageService.getLastVersion(page.getPageId())).thenReturn(Optional.of(page));
+        when(snapshotRepository.existsById(page.getPageId())).thenReturn(true);
+
+        snapshotService.refresh(page.getPageId());
+
+        verify(snapshotRepository).deleteById(page.getPageId());
+        verify(snapshotRepository, never()).save(any());
+        verifyNoInteractions(pageRenderService);
+    }
+
+    @Test
+    @DisplayName("Should serve an existing snapshot without rendering the page")
+    void shouldServeExistingSnapshot() {
+        PublishedPageSnapshot snapshot = PublishedPageSnapshot.builder()
+                .pageId(page.getPageId())
+                .slug("accueil")
+                .payload(objectMapper.createObjectNode().put("slug", "accueil"))
+                .build();
+        when(snapshotRepository.findBySlug("accueil")).thenReturn(Optional.of(snapshot));
+
+        assertTrue(snapshotService.getPayloadBySlug("accueil").isPresent());
+        verifyNoInteractions(pageService, pageRenderService);
+    }
+
+    @Test
+    @DisplayName("Should store the snapshot of a page read before it had one")
+    void shouldStoreSnapshotOnFirstRead() {
+        PageRenderDto render = new PageRenderDto(page.getId(), page.getPageId(), null, "Accueil", null, "accueil",
+                null, null, List.of(), Map.of());
+        when(snapshotRepository.findBySlug("accueil")).thenReturn(Optional.empty());
+        when(pageService.findBySlugAndVisible("accueil", true)).thenReturn(Optional.of(page));
+        when(pageRenderService.renderPage(page)).thenReturn(render);
+        when(snapshotRepository.insertIfAbsent(eq(page.getPageId()), eq("accueil"), eq(3), anyString())).thenReturn(1);
+
+        Optional<JsonNode> payload = snapshotService.getPayloadBySlug("accueil");
+
+        assertEquals("Accueil", payload.orElseThrow().get("title").asText());
+        verify(snapshotRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should serve its render when a concurrent first read stored the snapshot first")
+    void shouldServeRenderWhenConcurrentFirstReadWon() {
+        PageRenderDto render = new PageRenderDto(page.getId(), page.getPageId(), null, "Accueil", null, "accueil",
+                null, null, List.of(), Map.of());
+        when(snapshotRepository.findBySlug("accueil")).thenReturn(Optional.empty());
+        when(pageService.findBySlugAndVisible("accueil", true)).thenReturn(Optional.of(page));
+        when(pageRenderService.renderPage(page)).thenReturn(render);
+        when(snapshotRepository.insertIfAbsent(eq(page.getPageId()), eq("accueil"), eq(3), anyString())).thenReturn(0);
+
+        Optional<JsonNode> payload = snapshotService.getPayloadBySlug("accueil");
+
+        assertEquals("Accueil", payload.orElseThrow().get("title").asText());
+        verify(snapshotRepository, never()).save(any());
+        verify(snapshotRepository, never()).deleteBySlugAndPageIdNot(any(), any());
+    }
+}
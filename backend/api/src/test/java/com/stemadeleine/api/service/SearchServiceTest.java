@@ -0,0 +1,144 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.User;
+import com.stemadeleine.api.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Search Service Tests")
+class SearchServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private ArticleRepository articleRepository;
+    @Mock
+    private SectionRepository sectionRepository;
+    @Mock
+    private PageRepository pageRepository;
+    @Mock
+    private ModuleRepository moduleRepository;
+    @Mock
+    private ContactRepository contactRepository;
+    @Mock
+    private NewsletterRepository newsletterRepository;
+    @Mock
+    private NewsRepository newsRepository;
+
+    @Mock
+    private TypeaheadIndex typeaheadIndex;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        searchService = new SearchService(userRepository, paymentRepository, articleRepository, sectionRepository,
+                pageRepository, moduleRepository, contactRepository, newsletterRepository, newsRepository,
+                typeaheadIndex, transactionManager, 300, 9);
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Each word becomes a prefix term and tsquery operators are stripped")
+    void toPrefixTsQuery_buildsPrefixTerms() {
+        assertEquals("sainte:* & madeleine:*", SearchService.toPrefixTsQuery("  Sainte-Madeleine "));
+        assertEquals("jean:* & dupont:* & mail:* & fr:*", SearchService.toPrefixTsQuery("jean.dupont@mail.fr"));
+        assertEquals("église:*", SearchService.toPrefixTsQuery("Église & | ! ("));
+        assertEquals("", SearchService.toPrefixTsQuery(" :*& "));
+    }
+
+    @Test
+    @DisplayName("Blank query returns empty lists without hitting the database")
+    void searchAll_blankQuery() {
+        Map<String, Object> result = searchService.searchAll("  --  ", 5);
+
+        assertEquals(9, result.size());
+        assertEquals(List.of(), result.get("users"));
+        verifyNoInteractions(userRepository, pageRepository, paymentRepository);
+    }
+
+    @Test
+    @DisplayName("Results keep the rank order returned by the full-text query")
+    @SuppressWarnings("unchecked")
+    void searchAll_keepsRankOrder() {
+        User first = User.builder().id(UUID.randomUUID()).firstname("Marie").lastname("Martin").build();
+        User second = User.builder().id(UUID.randomUUID()).firstname("Mariette").lastname("Durand").build();
+        when(userRepository.searchIds("mar:*", 5)).thenReturn(List.of(first.getId(), second.getId()));
+        when(userRepository.findAllById(List.of(first.getId(), second.getId()))).thenReturn(List.of(second, first));
+
+        Map<String, Object> result = searchService.searchAll("Mar", 5);
+
+        List<Map<String, Object>> users = (List<Map<String, Object>>) result.get("users");
+        assertEquals(2, users.size());
+        assertEquals("Marie Martin", users.get(0).get("title"));
+        assertEquals("Mariette Durand", users.get(1).get("title"));
+        verify(pageRepository).searchIds(anyString(), anyInt());
+        Map<String, Object> meta = (Map<String, Object>) result.get("meta");
+        assertEquals(false, meta.get("partial"));
+        assertEquals(9, ((Map<String, Long>) meta.get("timingsMs")).size());
+    }
+
+    @Test
+    @DisplayName("A slow kind times out and the other kinds are still returned")
+    @SuppressWarnings("unchecked")
+    void searchAll_returnsPartialResultsOnTimeout() {
+        User user = User.builder().id(UUID.randomUUID()).firstname("Marie").lastname("Martin").build();
+        when(userRepository.searchIds("mar:*", 5)).thenReturn(List.of(user.getId()));
+        when(userRepository.findAllById(List.of(user.getId()))).thenReturn(List.of(user));
+        when(pageRepository.searchIds("mar:*", 5)).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return List.of(UUID.randomUUID());
+        });
+
+        long start = System.nanoTime();
+        Map<String, Object> result = searchService.searchAll("mar", 5);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 2_000, "search should not wait for the slow kind");
+        assertEquals(1, ((List<?>) result.get("users")).size());
+        assertEquals(List.of(), result.get("pages"));
+        Map<String, Object> meta = (Map<String, Object>) result.get("meta");
+        assertEquals(true, meta.get("partial"));
+        assertEquals(List.of("pages"), meta.get("timedOut"));
+    }
+
+    @Test
+    @DisplayName("Kinds answered by the typeahead index are not queried in database")
+    @SuppressWarnings("unchecked")
+    void searchAll_usesTypeaheadIndexHits() {
+        Map<String, Object> hit = Map.of("id", UUID.randomUUID(), "title", "Marie Martin", "kind", "user");
+        when(typeaheadIndex.search("users", "mar", 5)).thenReturn(List.of(hit));
+
+        Map<String, Object> result = searchService.searchAll("mar", 5);
+
+        assertEquals(List.of(hit), result.get("users"));
+        verify(userRepository, never()).searchIds(anyString(), anyInt());
+        verify(pageRepository).searchIds("mar:*", 5);
+        Map<String, Object> meta = (Map<String, Object>) result.get("meta");
+        assertEquals(List.of("users"), meta.get("fromIndex"));
+    }
+}
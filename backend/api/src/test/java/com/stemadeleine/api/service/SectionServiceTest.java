@@ -12,6 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -38,6 +39,9 @@ class SectionServiceTest {
     @Mock
     private ContentService contentService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @Mock
     private ModuleService moduleService;
 
@@ -0,0 +1,141 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.RevokedToken;
+import com.stemadeleine.api.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Token Revocation Service Tests")
+class TokenRevocationServiceTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        revocationService = new TokenRevocationService(revokedTokenRepository, userDetailsService, dataSource, transactionManager, false, 100);
+    }
+
+    private TokenRevocationService listeningService() {
+        return new TokenRevocationService(revokedTokenRepository, userDetailsService, dataSource, transactionManager, true, 100);
+    }
+
+    @Test
+    @DisplayName("A revocation is persisted and checked in memory afterwards")
+    void revoke_persistsAndMarksRevoked() {
+        revocationService.revoke("jti-1", Instant.now().plusSeconds(60));
+
+        verify(revokedTokenRepository).save(argThat(token -> token.getJti().equals("jti-1")));
+        verify(revokedTokenRepository, never()).notifyChannel(anyString(), anyString());
+        assertTrue(revocationService.isRevoked("jti-1"));
+        assertFalse(revocationService.isRevoked("jti-2"));
+        assertFalse(revocationService.isRevoked(null));
+    }
+
+    @Test
+    @DisplayName("Other instances are notified when listening is enabled")
+    void revoke_notifiesOtherInstances() {
+        Instant expiresAt = Instant.now().plusSeconds(60);
+
+        listeningService().revoke("jti-1", expiresAt);
+
+        verify(revokedTokenRepository).notifyChannel(TokenRevocationService.CHANNEL, "jti-1 " + expiresAt.toEpochMilli());
+    }
+
+    @Test
+    @DisplayName("An expired token needs no revocation")
+    void revoke_ignoresExpiredToken() {
+        revocationService.revoke("jti-1", Instant.now().minusSeconds(1));
+
+        verifyNoInteractions(revokedTokenRepository);
+        assertFalse(revocationService.isRevoked("jti-1"));
+    }
+
+    @Test
+    @DisplayName("Unexpired revocations are loaded at startup")
+    void start_loadsRevocations() {
+        when(revokedTokenRepository.findAllByExpiresAtAfter(any(OffsetDateTime.class))).thenReturn(List.of(
+                RevokedToken.builder().jti("jti-1").expiresAt(OffsetDateTime.now().plusHours(1)).revokedAt(OffsetDateTime.now()).build()));
+
+        revocationService.start();
+
+        assertTrue(revocationService.isRevoked("jti-1"));
+    }
+
+    @Test
+    @DisplayName("Notifications from other instances are applied, malformed ones ignored")
+    void onNotification_marksRevoked() {
+        revocationService.onNotification("jti-1 " + (System.currentTimeMillis() + 60_000));
+        revocationService.onNotification("jti-2 " + (System.currentTimeMillis() - 1));
+        revocationService.onNotification("malformed");
+        revocationService.onNotification("jti-3 soon");
+
+        assertTrue(revocationService.isRevoked("jti-1"));
+        assertFalse(revocationService.isRevoked("jti-2"));
+        assertEquals(1, revocationService.size());
+    }
+
+    @Test
+    @DisplayName("Expired revocations are dropped from memory and from the table")
+    @SuppressWarnings("unchecked")
+    void prune_dropsExpiredEntries() {
+        revocationService.onNotification("jti-1 " + (System.currentTimeMillis() + 60_000));
+        Map<String, Long> revoked = (Map<String, Long>) ReflectionTestUtils.getField(revocationService, "revoked");
+        revoked.put("jti-2", System.currentTimeMillis() - 1);
+
+        revocationService.prune();
+
+        assertTrue(revocationService.isRevoked("jti-1"));
+        assertFalse(revocationService.isRevoked("jti-2"));
+        verify(revokedTokenRepository).deleteExpired(any(OffsetDateTime.class));
+    }
+
+    @Test
+    @DisplayName("An account change drops the cached principal here and is announced to the other instances")
+    void evictAccount_notifiesOtherInstances() {
+        UUID accountId = UUID.randomUUID();
+
+        listeningService().evictAccount(accountId);
+
+        verify(userDetailsService).evict(accountId);
+        verify(revokedTokenRepository).notifyChannel(TokenRevocationService.ACCOUNT_CHANNEL, accountId.toString());
+    }
+
+    @Test
+    @DisplayName("Account changes announced by other instances drop the cached principal, malformed ones are ignored")
+    void onAccountNotification_evictsPrincipal() {
+        UUID accountId = UUID.randomUUID();
+
+        revocationService.onAccountNotification(accountId.toString());
+        revocationService.onAccountNotification("malformed");
+        revocationService.onAccountNotification(null);
+
+        verify(userDetailsService).evict(accountId);
+        verifyNoMoreInteractions(userDetailsService);
+    }
+}
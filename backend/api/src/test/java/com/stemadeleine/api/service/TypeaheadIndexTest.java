@@ -0,0 +1,110 @@
+package com.stemadeleine.api.service;
+
+import com.stemadeleine.api.model.Payment;
+import com.stemadeleine.api.model.User;
+import com.stemadeleine.api.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Typeahead Index Tests")
+class TypeaheadIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private PageRepository pageRepository;
+    @Mock
+    private SectionRepository sectionRepository;
+    @Mock
+    private ModuleRepository moduleRepository;
+    @Mock
+    private ContactRepository contactRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TypeaheadIndex index;
+    private User helene;
+
+    @BeforeEach
+    void setUp() {
+        index = new TypeaheadIndex(userRepository, paymentRepository, pageRepository, sectionRepository,
+                moduleRepository, contactRepository, transactionManager, true);
+        helene = User.builder().id(UUID.randomUUID()).firstname("Hélène").lastname("Dupont").email("helene.dupont@example.org").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    @DisplayName("Nothing is answered before the index is built")
+    void search_notReady() {
+        assertFalse(index.isReady());
+        assertEquals(List.of(), index.search("users", "hel", 5));
+    }
+
+    @Test
+    @DisplayName("Prefix queries are accent and case insensitive and require every word")
+    void search_matchesPrefixesOfEveryWord() {
+        when(userRepository.findAll()).thenReturn(List.of(helene,
+                User.builder().id(UUID.randomUUID()).firstname("Hector").lastname("Martin").build()));
+        index.rebuild();
+
+        List<Map<String, Object>> hits = index.search("users", "HEL dup", 5);
+        assertEquals(1, hits.size());
+        assertEquals("Hélène Dupont", hits.get(0).get("title"));
+        assertEquals(helene.getId(), index.search("users", "dupont@exa", 5).get(0).get("id"));
+        assertEquals(2, index.search("users", "h", 5).size());
+        assertEquals(List.of(), index.search("users", "lene", 5));
+        assertEquals(List.of(), index.search("users", "hel martin", 5));
+        assertEquals(List.of(), index.search("pages", "hel", 5));
+    }
+
+    @Test
+    @DisplayName("HelloAsso payment ids are searchable by prefix")
+    void search_paymentIds() {
+        Payment payment = Payment.builder().id(UUID.randomUUID()).helloAssoPaymentId("987654321").formSlug("adhesion-2025").amount(20.0).build();
+        when(paymentRepository.findAll()).thenReturn(List.of(payment));
+        index.rebuild();
+
+        assertEquals(payment.getId(), index.search("payments", "98765", 5).get(0).get("id"));
+        assertEquals(1, index.search("payments", "adhesion 2025", 5).size());
+    }
+
+    @Test
+    @DisplayName("Committed changes replace or remove the indexed entries")
+    void apply_reindexesChangedEntities() {
+        when(userRepository.findAll()).thenReturn(List.of(helene));
+        index.rebuild();
+
+        User renamed = User.builder().id(helene.getId()).firstname("Hélène").lastname("Moreau").email("helene.moreau@example.org").build();
+        when(userRepository.findAllById(List.of(helene.getId()))).thenReturn(List.of(renamed));
+        index.apply(Set.of(new TypeaheadIndex.Change(User.class, helene.getId())));
+
+        assertEquals(List.of(), index.search("users", "dupont", 5));
+        assertEquals(1, index.search("users", "moreau", 5).size());
+
+        when(userRepository.findAllById(List.of(helene.getId()))).thenReturn(List.of());
+        index.apply(Set.of(new TypeaheadIndex.Change(User.class, helene.getId())));
+
+        assertEquals(List.of(), index.search("users", "hel", 5));
+    }
+}